@@ -0,0 +1,154 @@
+package org.grobid.benchmarks;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.grobid.core.document.Document;
+import org.grobid.core.document.DocumentPiece;
+import org.grobid.core.document.DocumentPointer;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.layout.Block;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Fixed inputs shared by the benchmarks, so that the measures only depend on the code version.
+ *
+ * The document fixture is a stored pdfalto output of the grobid-core tests, the other fixtures
+ * (references, callouts) are under org/grobid/benchmarks in the resources of this module.
+ */
+public class BenchmarkFixtures {
+
+    // pdfalto output of a 4 pages article
+    public static final String ALTO_FIXTURE = "/org/grobid/core/sax/pdfalto_noImages.xml";
+
+    public static final String REFERENCES_FIXTURE = "/org/grobid/benchmarks/references.txt";
+    public static final String CALLOUTS_FIXTURE = "/org/grobid/benchmarks/callouts.txt";
+
+    private static boolean initialised = false;
+
+    /**
+     * Grobid home and native libraries, required by the benchmarks using the lexicon or the models
+     */
+    public static synchronized void init() {
+        if (!initialised) {
+            GrobidProperties.getInstance();
+            LibraryLoader.load();
+            initialised = true;
+        }
+    }
+
+    public static byte[] readResource(String path) {
+        try (InputStream is = BenchmarkFixtures.class.getResourceAsStream(path)) {
+            if (is == null)
+                throw new GrobidException("Cannot find the benchmark fixture " + path);
+            return IOUtils.toByteArray(is);
+        } catch (IOException e) {
+            throw new GrobidException("Cannot read the benchmark fixture " + path, e);
+        }
+    }
+
+    /**
+     * Non-empty and non-comment (starting with #) lines of a text fixture
+     */
+    public static List<String> readLines(String path) {
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(readResource(path), UTF_8).split("\n")) {
+            line = line.trim();
+            if (line.length() > 0 && !line.startsWith("#"))
+                lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Document built from the stored pdfalto output, as done after the conversion of a PDF
+     */
+    public static Document loadDocument() {
+        File xmlFile = null;
+        try {
+            xmlFile = File.createTempFile("benchmark", ".lxml");
+            FileUtils.writeByteArrayToFile(xmlFile, readResource(ALTO_FIXTURE));
+            Document doc = new FixtureDocument(xmlFile);
+            doc.addTokenizedDocument(GrobidAnalysisConfig.defaultInstance());
+            return doc;
+        } catch (IOException e) {
+            throw new GrobidException("Cannot create the document fixture", e);
+        } finally {
+            FileUtils.deleteQuietly(xmlFile);
+        }
+    }
+
+    /**
+     * Document part covering all the blocks of the given pages, the segmentation model being not applied
+     * to the fixture
+     */
+    public static SortedSet<DocumentPiece> pagesPart(Document doc, int firstPage, int lastPage) {
+        int firstBlock = -1;
+        int lastBlock = -1;
+        List<Block> blocks = doc.getBlocks();
+        for (int i = 0; i < blocks.size(); i++) {
+            int pageNumber = blocks.get(i).getPageNumber();
+            if (pageNumber >= firstPage && pageNumber <= lastPage) {
+                if (firstBlock == -1)
+                    firstBlock = i;
+                lastBlock = i;
+            }
+        }
+        SortedSet<DocumentPiece> parts = new TreeSet<>();
+        if (firstBlock != -1) {
+            parts.add(new DocumentPiece(
+                new DocumentPointer(doc, firstBlock, blocks.get(firstBlock).getStartToken()),
+                new DocumentPointer(doc, lastBlock, blocks.get(lastBlock).getEndToken())));
+        }
+        return parts;
+    }
+
+    public static SortedSet<DocumentPiece> documentPart(Document doc) {
+        return pagesPart(doc, 1, doc.getPages().size());
+    }
+
+    /**
+     * Add deterministic fulltext labels to a featured sequence: a section title every 300 tokens
+     * and a new paragraph every 60 tokens, the rest being paragraph content.
+     */
+    public static String labelFulltext(String featured) {
+        StringBuilder labeled = new StringBuilder(featured.length() + featured.length() / 4);
+        int n = 0;
+        for (String line : featured.split("\n")) {
+            if (line.trim().length() == 0) {
+                labeled.append("\n");
+                continue;
+            }
+            String label;
+            if (n % 300 == 0)
+                label = "I-<section>";
+            else if (n % 300 < 5)
+                label = "<section>";
+            else if (n % 300 == 5 || n % 60 == 0)
+                label = "I-<paragraph>";
+            else
+                label = "<paragraph>";
+            labeled.append(line).append(" ").append(label).append("\n");
+            n++;
+        }
+        return labeled.toString();
+    }
+
+    private static class FixtureDocument extends Document {
+        FixtureDocument(File xmlFile) {
+            super();
+            setPathXML(xmlFile);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.engines.counters.ReferenceMarkerMatcherCounters;
+import org.grobid.core.engines.label.TaggingLabels;
+import org.grobid.core.utilities.counters.CntManager;
+import org.grobid.core.utilities.counters.Counter;
+import org.grobid.core.utilities.counters.impl.CntManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Increments of the global counters by 64 threads, as done by the parsers for every labelled cluster
+ * and every matched reference marker, and the snapshot of the counters done for their export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(64)
+public class CntManagerBenchmark {
+
+    private CntManager cntManager;
+    private Counter matchedMarkers;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        cntManager = CntManagerFactory.getCntManager();
+        matchedMarkers = cntManager.getCounter(ReferenceMarkerMatcherCounters.MATCHED_REF_MARKERS);
+    }
+
+    @Benchmark
+    public void incrementCountable() {
+        cntManager.i(TaggingLabels.PARAGRAPH);
+    }
+
+    @Benchmark
+    public void incrementHandle() {
+        matchedMarkers.i();
+    }
+
+    @Benchmark
+    public void incrementGroup() {
+        cntManager.i("FigureCounters", "ASSIGNED_GRAPHICS_TO_FIGURES");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<String, Map<String, Long>> snapshot() {
+        return cntManager.getAllCounters();
+    }
+}
@@ -0,0 +1,57 @@
+package org.grobid.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.utilities.crossref.WorkDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parsing of the recorded crossref and glutton responses of the grobid-core tests, in streaming as done
+ * by the consolidation, and as a json tree, the former way of reading the responses before the items
+ * were converted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CrossrefDeserializerBenchmark {
+
+    private static final String RESPONSES = "/org/grobid/core/utilities/crossref/";
+
+    @Param({"crossref_response.work.json", "crossref_response.query.json", "glutton_response.json"})
+    public String response;
+
+    private WorkDeserializer deserializer;
+    private ObjectMapper mapper;
+    private String body;
+
+    @Setup
+    public void setUp() {
+        deserializer = new WorkDeserializer();
+        mapper = new ObjectMapper();
+        body = new String(BenchmarkFixtures.readResource(RESPONSES + response), UTF_8);
+    }
+
+    @Benchmark
+    public List<BiblioItem> parseStreaming() throws IOException {
+        return deserializer.parse(body);
+    }
+
+    @Benchmark
+    public JsonNode readTree() throws IOException {
+        return mapper.readTree(body);
+    }
+}
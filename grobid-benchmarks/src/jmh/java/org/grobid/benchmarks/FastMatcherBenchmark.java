@@ -0,0 +1,44 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.document.Document;
+import org.grobid.core.lexicon.FastMatcher;
+import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.OffsetPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexicon matching of the text of a document, with the journal name lexicon of the grobid home.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FastMatcherBenchmark {
+
+    private FastMatcher journalMatcher;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        journalMatcher = new FastMatcher(new File(GrobidProperties.getGrobidHomePath() + "/lexicon/journals/journals.txt"));
+        Document doc = BenchmarkFixtures.loadDocument();
+        StringBuilder builder = new StringBuilder();
+        doc.getTokenizations().forEach(token -> builder.append(token.getText()));
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public List<OffsetPosition> matchToken() {
+        return journalMatcher.matchToken(text);
+    }
+}
@@ -0,0 +1,68 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.document.Document;
+import org.grobid.core.document.DocumentPiece;
+import org.grobid.core.engines.FullTextParser;
+import org.grobid.core.engines.HeaderParser;
+import org.grobid.core.engines.ReferenceSegmenterParser;
+import org.grobid.core.engines.Segmentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the feature vectors of a document for each model working on the layout of the PDF,
+ * i.e. the features computation and the printVector() serialization of the sequences. Run with the
+ * gc profiler (the default in the build), the allocation per document is reported as
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeaturizationBenchmark {
+
+    @Param({"segmentation", "header", "fulltext", "reference-segmenter"})
+    public String model;
+
+    private Document doc;
+    private SortedSet<DocumentPiece> firstPage;
+    private SortedSet<DocumentPiece> allPages;
+    private Segmentation segmentation;
+    private HeaderParser headerParser;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        doc = BenchmarkFixtures.loadDocument();
+        firstPage = BenchmarkFixtures.pagesPart(doc, 1, 1);
+        allPages = BenchmarkFixtures.documentPart(doc);
+        if ("segmentation".equals(model))
+            segmentation = new Segmentation();
+        else if ("header".equals(model))
+            headerParser = new HeaderParser(null);
+    }
+
+    @Benchmark
+    public Object featurize() {
+        switch (model) {
+            case "segmentation":
+                return segmentation.getAllLinesFeatured(doc);
+            case "header":
+                return headerParser.getSectionHeaderFeatured(doc, firstPage, true);
+            case "fulltext":
+                return FullTextParser.getBodyTextFeatured(doc, allPages);
+            case "reference-segmenter":
+                return ReferenceSegmenterParser.getReferencesSectionFeatured(doc, allPages);
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.document.Document;
+import org.grobid.core.utilities.LevenshteinDistanceAligment;
+import org.grobid.core.utilities.TextUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Character alignment of a raw text extracted from the PDF with its dehyphenized and normalized form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LevenshteinAlignmentBenchmark {
+
+    // number of characters of the raw text to be aligned
+    @Param({"500", "2000"})
+    public int length;
+
+    private Character[] raw;
+    private Character[] normalized;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        Document doc = BenchmarkFixtures.loadDocument();
+        StringBuilder builder = new StringBuilder();
+        doc.getTokenizations().forEach(token -> builder.append(token.getText()));
+        String text = builder.substring(0, Math.min(length, builder.length()));
+        raw = LevenshteinDistanceAligment.str2chararray(text);
+        normalized = LevenshteinDistanceAligment.str2chararray(
+            TextUtilities.dehyphenize(text).replace("\n", " ").replaceAll(" +", " "));
+    }
+
+    @Benchmark
+    public List<LevenshteinDistanceAligment.Op> align() {
+        return new LevenshteinDistanceAligment<>(raw, normalized).getAlignment();
+    }
+}
@@ -0,0 +1,91 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.lexicon.MappedStringSet;
+import org.grobid.core.utilities.GrobidProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Look-ups in the English word forms of the grobid home, as done for the dictionary features of every
+ * token, in the parsed heap set and in the memory-mapped compiled set (see grobid.lexicon.mapped).
+ * The queries are the tokens of the document fixture, in the order of the document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappedStringSetBenchmark {
+
+    private Set<String> heapSet;
+    private MappedStringSet mappedSet;
+    private File compiledFile;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.init();
+        File wordForms = new File(GrobidProperties.getGrobidHomePath(), "lexicon/wordforms/english.wf");
+        heapSet = new HashSet<>();
+        for (String line : new String(Files.readAllBytes(wordForms.toPath()), UTF_8).split("\n")) {
+            int tab = line.indexOf('\t');
+            String word = tab == -1 ? line : line.substring(0, tab);
+            if (word.length() > 0)
+                heapSet.add(word);
+        }
+        compiledFile = File.createTempFile("english", ".sst");
+        MappedStringSet.write(heapSet, compiledFile);
+        mappedSet = MappedStringSet.load(compiledFile);
+
+        List<String> documentTokens = new ArrayList<>();
+        BenchmarkFixtures.loadDocument().getTokenizations().forEach(token -> {
+            // new String instances, as the tokens of a document have no cached hash code
+            if (token.getText().trim().length() > 0)
+                documentTokens.add(new String(token.getText()));
+        });
+        if (documentTokens.isEmpty())
+            throw new GrobidException("No token in the document fixture");
+        tokens = documentTokens.toArray(new String[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        compiledFile.delete();
+    }
+
+    @Benchmark
+    public int heapSetContains() {
+        int found = 0;
+        for (String token : tokens) {
+            if (heapSet.contains(token))
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int mappedSetContains() {
+        int found = 0;
+        for (String token : tokens) {
+            if (mappedSet.contains(token))
+                found++;
+        }
+        return found;
+    }
+}
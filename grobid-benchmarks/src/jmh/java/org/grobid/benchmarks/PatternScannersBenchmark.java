@@ -0,0 +1,85 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.document.Document;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.GrobidPatterns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The digit, year, punctuation and http tests done on every token by the feature extractors, with the
+ * compiled patterns and with the char scanners, over the tokens of a document. The effect on the
+ * feature generation of each model is given by FeaturizationBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PatternScannersBenchmark {
+
+    private List<String> tokens;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        Document doc = BenchmarkFixtures.loadDocument();
+        tokens = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (LayoutToken token : doc.getTokenizations()) {
+            tokens.add(token.getText());
+            builder.append(token.getText());
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public int tokenTestsWithPatterns() {
+        int n = 0;
+        for (String token : tokens) {
+            if (GrobidPatterns.ALL_DIGITS.matcher(token).find())
+                n++;
+            if (GrobidPatterns.YEAR.matcher(token).find())
+                n++;
+            if (GrobidPatterns.PUNCT.matcher(token).find())
+                n++;
+            if (GrobidPatterns.HTTP.matcher(token).find())
+                n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int tokenTestsWithScanners() {
+        int n = 0;
+        for (String token : tokens) {
+            if (GrobidPatterns.isAllDigits(token))
+                n++;
+            if (GrobidPatterns.containsYear(token))
+                n++;
+            if (GrobidPatterns.isPunct(token))
+                n++;
+            if (GrobidPatterns.containsHttp(token))
+                n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public String[] splitLinesWithPattern() {
+        return GrobidPatterns.LINE_BREAK.split(text);
+    }
+
+    @Benchmark
+    public String[] splitLinesWithScanner() {
+        return GrobidPatterns.splitLines(text);
+    }
+}
@@ -0,0 +1,49 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.document.Document;
+import org.grobid.core.layout.GraphicObject;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.sax.PDFALTOSaxHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a stored pdfalto output into the layout tokens, blocks and pages of a document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PdfAltoParsingBenchmark {
+
+    private byte[] alto;
+    private SAXParserFactory spf;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        alto = BenchmarkFixtures.readResource(BenchmarkFixtures.ALTO_FIXTURE);
+        spf = SAXParserFactory.newInstance();
+    }
+
+    @Benchmark
+    public List<LayoutToken> parse() throws Exception {
+        Document doc = Document.createFromText("");
+        List<GraphicObject> images = new ArrayList<>();
+        PDFALTOSaxHandler handler = new PDFALTOSaxHandler(doc, images);
+        SAXParser parser = spf.newSAXParser();
+        parser.parse(new ByteArrayInputStream(alto), handler);
+        return handler.getTokenization();
+    }
+}
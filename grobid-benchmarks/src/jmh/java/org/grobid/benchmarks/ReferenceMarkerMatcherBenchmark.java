@@ -0,0 +1,79 @@
+package org.grobid.benchmarks;
+
+import org.grobid.core.analyzers.GrobidAnalyzer;
+import org.grobid.core.data.BibDataSet;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.lang.Language;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.counters.impl.CntManagerFactory;
+import org.grobid.core.utilities.matching.EntityMatcherException;
+import org.grobid.core.utilities.matching.ReferenceMarkerMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching of numbered and author/year reference callouts against the bibliographical references
+ * of a document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReferenceMarkerMatcherBenchmark {
+
+    private List<BibDataSet> bibDataSets;
+    private List<List<LayoutToken>> callouts;
+    private ReferenceMarkerMatcher matcher;
+
+    @Setup
+    public void setUp() throws EntityMatcherException {
+        BenchmarkFixtures.init();
+        bibDataSets = new ArrayList<>();
+        for (String line : BenchmarkFixtures.readLines(BenchmarkFixtures.REFERENCES_FIXTURE)) {
+            String[] fields = line.split("\t");
+            BiblioItem biblio = new BiblioItem();
+            biblio.setAuthors(fields[1]);
+            biblio.setPublicationDate(fields[2]);
+            BibDataSet bds = new BibDataSet();
+            bds.setRefSymbol(fields[0]);
+            bds.setResBib(biblio);
+            bds.setRawBib(fields[1] + ". " + fields[2] + ".");
+            bibDataSets.add(bds);
+        }
+
+        callouts = new ArrayList<>();
+        for (String callout : BenchmarkFixtures.readLines(BenchmarkFixtures.CALLOUTS_FIXTURE)) {
+            callouts.add(GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(callout, new Language(Language.EN)));
+        }
+
+        matcher = new ReferenceMarkerMatcher(bibDataSets, CntManagerFactory.getNoOpCntManager());
+    }
+
+    /**
+     * Matching of all the callouts of the fixture
+     */
+    @Benchmark
+    public int match() throws EntityMatcherException {
+        int nbMatches = 0;
+        for (List<LayoutToken> callout : callouts) {
+            nbMatches += matcher.match(callout).size();
+        }
+        return nbMatches;
+    }
+
+    /**
+     * Indexing of the references, done once per document
+     */
+    @Benchmark
+    public ReferenceMarkerMatcher index() throws EntityMatcherException {
+        return new ReferenceMarkerMatcher(bibDataSets, CntManagerFactory.getNoOpCntManager());
+    }
+}
@@ -0,0 +1,55 @@
+package org.grobid.benchmarks;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.document.Document;
+import org.grobid.core.document.TEIFormatter;
+import org.grobid.core.engines.FullTextParser;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.layout.LayoutTokenization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TEI serialization of the body of a document from the labeled sequence of the fulltext model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TEIFormatterBenchmark {
+
+    private Document doc;
+    private String labeledResult;
+    private LayoutTokenization layoutTokenization;
+    private GrobidAnalysisConfig config;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        doc = BenchmarkFixtures.loadDocument();
+        Pair<String, LayoutTokenization> featured =
+            FullTextParser.getBodyTextFeatured(doc, BenchmarkFixtures.documentPart(doc));
+        labeledResult = BenchmarkFixtures.labelFulltext(featured.getLeft());
+        layoutTokenization = featured.getRight();
+        config = GrobidAnalysisConfig.defaultInstance();
+    }
+
+    @Benchmark
+    public String toTEIBody() throws Exception {
+        // the segmentation is not applied to the fixture, so there is no note for which the fulltext
+        // parser would be needed
+        TEIFormatter formatter = new TEIFormatter(doc, null);
+        StringBuilder tei = formatter.toTEIBody(new StringBuilder(), labeledResult, new BiblioItem(),
+            new ArrayList<>(), layoutTokenization, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            doc, config);
+        return tei.toString();
+    }
+}
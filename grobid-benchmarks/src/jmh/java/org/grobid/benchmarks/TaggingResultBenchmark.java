@@ -0,0 +1,55 @@
+package org.grobid.benchmarks;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.GrobidModels;
+import org.grobid.core.document.Document;
+import org.grobid.core.engines.FullTextParser;
+import org.grobid.core.engines.tagging.GenericTaggerUtils;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.layout.LayoutTokenization;
+import org.grobid.core.tokenization.TaggingTokenCluster;
+import org.grobid.core.tokenization.TaggingTokenClusteror;
+import org.grobid.core.utilities.Triple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exploitation of the labeled sequence of the fulltext model: parsing of the labeled result and
+ * clustering of the layout tokens by label.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaggingResultBenchmark {
+
+    private String labeledResult;
+    private List<LayoutToken> tokenizations;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.init();
+        Document doc = BenchmarkFixtures.loadDocument();
+        Pair<String, LayoutTokenization> featured =
+            FullTextParser.getBodyTextFeatured(doc, BenchmarkFixtures.documentPart(doc));
+        labeledResult = BenchmarkFixtures.labelFulltext(featured.getLeft());
+        tokenizations = featured.getRight().getTokenization();
+    }
+
+    @Benchmark
+    public List<Triple<String, String, String>> tokensWithLabelsAndFeatures() {
+        return GenericTaggerUtils.getTokensWithLabelsAndFeatures(labeledResult, true);
+    }
+
+    @Benchmark
+    public List<TaggingTokenCluster> cluster() {
+        return new TaggingTokenClusteror(GrobidModels.FULLTEXT, labeledResult, tokenizations).cluster();
+    }
+}
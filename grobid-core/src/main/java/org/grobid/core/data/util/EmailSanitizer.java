@@ -93,6 +93,14 @@ public class EmailSanitizer {
             Pattern.compile("\\.@"),
     };
 
+    private static final Pattern[] EMAIL_PREFIX_PATTERNS = new Pattern[] {
+            Pattern.compile("(E|e)lectronic(\\s)(A|a)ddress(\\:)?"),
+            Pattern.compile("^(e|E)?(\\-)?mail(\\:)?(\\s)(A|a)ddress(\\:)?"),
+            Pattern.compile("^(e|E)?(\\-)?mail(\\:)?(\\s)?"),
+            // case: Peter Pan -peter.pan@email.org with asterisks and spaces
+            Pattern.compile("^[A-Z][a-z]+\\s+[A-Z][a-z]+(\\*)?(\\s)*-(\\s)*"),
+    };
+
     private static final Pattern EMAIL_SPLITTER_PATTERN = Pattern.compile("(\\sor\\s|,|;|/)");
 
     private static final Pattern AT_SPLITTER = Pattern.compile("@");
@@ -209,11 +217,9 @@ public class EmailSanitizer {
         email = email.replace("}", "");
         email = email.replace("(", "");
         email = email.replace(")", "").trim();
-        email = email.replaceAll("(E|e)lectronic(\\s)(A|a)ddress(\\:)?", "");
-        email = email.replaceAll("^(e|E)?(\\-)?mail(\\:)?(\\s)(A|a)ddress(\\:)?", "");
-        email = email.replaceAll("^(e|E)?(\\-)?mail(\\:)?(\\s)?", "");
-        // case: Peter Pan -peter.pan@email.org with asterisks and spaces
-        email = email.replaceAll("^[A-Z][a-z]+\\s+[A-Z][a-z]+(\\*)?(\\s)*-(\\s)*", "");
+        for (Pattern p : EMAIL_PREFIX_PATTERNS) {
+            email = p.matcher(email).replaceAll("");
+        }
         return email;
 
     }
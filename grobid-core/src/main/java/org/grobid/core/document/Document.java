@@ -8,6 +8,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SortedSetMultimap;
 import org.apache.commons.io.IOUtils;
 import org.grobid.core.analyzers.Analyzer;
@@ -22,6 +23,7 @@ import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.exceptions.GrobidExceptionStatus;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorHeader;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.layout.Block;
 import org.grobid.core.layout.BoundingBox;
 import org.grobid.core.layout.Cluster;
@@ -117,8 +119,15 @@ public class Document implements Serializable {
     // full text as tructure TEI - if extracted and processed
     protected String tei;
 
+    // resources used for processing the document - if processed by the full text parser
+    protected transient ProcessingReport processingReport = null;
+
     protected transient ReferenceMarkerMatcher referenceMarkerMatcher;
 
+    // contexts of the bibliographical reference callouts per TEI id of the reference, collected
+    // while the full text TEI is generated
+    protected transient Multimap<String, BibDataSetContext> citationContexts = null;
+
     public void setImages(List<GraphicObject> images) {
         this.images = images;
     }
@@ -341,6 +350,16 @@ public class Document implements Serializable {
      * @return list of features
      */
     public List<LayoutToken> addTokenizedDocument(GrobidAnalysisConfig config) {
+        return addTokenizedDocument(config, null);
+    }
+
+    /**
+     * Parser PDFALTO output representation and get the tokenized form of the document, the given listener
+     * being notified of each page as soon as it is parsed.
+     *
+     * @return list of features
+     */
+    public List<LayoutToken> addTokenizedDocument(GrobidAnalysisConfig config, PDFALTOSaxHandler.PageListener pageListener) {
         // The XML generated by pdfalto might contains invalid UTF characters due to the "garbage-in" of the PDF,
         // which will result in a "fatal" parsing failure (the joy of XML!). The solution could be to prevent
         // having those characters in the input XML by cleaning it first
@@ -351,6 +370,9 @@ public class Document implements Serializable {
         // we set possibly the particular analyzer to be used for tokenization of the PDF elements
         if (config.getAnalyzer() != null)
             parser.setAnalyzer(config.getAnalyzer());
+        parser.setPageListener(pageListener);
+        MemoryBudget.Degradation degradation = getDegradation();
+        parser.setMaxTokens(MemoryBudget.getMaxTokens(degradation, MemoryBudget.getBudgetBytes()));
         pdfAnnotations = new ArrayList<PDFAnnotation>();
         PDFALTOAnnotationSaxHandler parserAnnot = new PDFALTOAnnotationSaxHandler(this, pdfAnnotations);
         PDFALTOOutlineSaxHandler parserOutline = new PDFALTOOutlineSaxHandler(this);
@@ -362,47 +384,62 @@ public class Document implements Serializable {
         tokenizations = null;
 
         File file = new File(pathXML);
-		File fileAnnot = new File(pathXML+"_annot.xml");
         File fileOutline = new File(pathXML+"_outline.xml");
         File fileMetadata = new File(pathXML+"_metadata.xml");
         FileInputStream in = null;
-        try {
-            // parsing of the pdfalto file
-            in = new FileInputStream(file);
-            // in = new XMLFilterFileInputStream(file); // -> to filter invalid XML characters
-
-            // get a new instance of parser
-            SAXParser p = spf.newSAXParser();
-            p.parse(in, parser);
-            tokenizations = parser.getTokenization();
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException e) {
-                    LOGGER.error("Cannot close input stream", e);
-                }
-            }
-        } catch (GrobidException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new GrobidException("Cannot parse file: " + file, e, GrobidExceptionStatus.PARSING_ERROR);
-        } finally {
-            IOUtils.closeQuietly(in);
-        }
 
-        if (fileAnnot.exists()) {
+        // a long PDF can be converted by shards of pages, the XML files of the shards are then parsed
+        // one after the other with the same handlers so that we get one single document
+        List<File> xmlFiles = (documentSource != null) ? documentSource.getXmlFiles() : Collections.singletonList(file);
+        for (File xmlFile : xmlFiles) {
+            int nbImages = images.size();
             try {
-                // parsing of the annotation XML file (for annotations in the PDf)
-                in = new FileInputStream(fileAnnot);
+                // parsing of the pdfalto file
+                in = new FileInputStream(xmlFile);
+                // in = new XMLFilterFileInputStream(file); // -> to filter invalid XML characters
+
+                // get a new instance of parser
                 SAXParser p = spf.newSAXParser();
-                p.parse(in, parserAnnot);
+                p.parse(in, parser);
+                tokenizations = parser.getTokenization();
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        LOGGER.error("Cannot close input stream", e);
+                    }
+                }
             } catch (GrobidException e) {
                 throw e;
             } catch (Exception e) {
-                LOGGER.error("Cannot parse file: " + fileAnnot, e, GrobidExceptionStatus.PARSING_ERROR);
+                throw new GrobidException("Cannot parse file: " + xmlFile, e, GrobidExceptionStatus.PARSING_ERROR);
             } finally {
                 IOUtils.closeQuietly(in);
             }
+
+            if (!xmlFile.equals(file)) {
+                // the asset files of the shards have been moved (and possibly renamed) in the asset directory
+                // of the first shard
+                for (GraphicObject image : images.subList(nbImages, images.size())) {
+                    image.setFilePath(documentSource.getMergedAssetPath(xmlFile, image.getFilePath()));
+                }
+            }
+
+            File fileAnnot = new File(xmlFile.getAbsolutePath() + "_annot.xml");
+            if (fileAnnot.exists()) {
+                try {
+                    // parsing of the annotation XML file (for annotations in the PDf)
+                    in = new FileInputStream(fileAnnot);
+                    SAXParser p = spf.newSAXParser();
+                    p.parse(in, parserAnnot);
+                } catch (GrobidException e) {
+                    throw e;
+                } catch (Exception e) {
+                    LOGGER.error("Cannot parse file: " + fileAnnot, e, GrobidExceptionStatus.PARSING_ERROR);
+                } finally {
+                    IOUtils.closeQuietly(in);
+                }
+            }
         }
 
         if (fileOutline.exists()) {
@@ -444,7 +481,7 @@ public class Document implements Serializable {
         calculatePageMainAreas();
 
         // calculating boxes for pages
-        if (config.isProcessVectorGraphics()) {
+        if (config.isProcessVectorGraphics() && degradation == MemoryBudget.Degradation.NONE) {
             try {
                 for (GraphicObject o : VectorGraphicBoxCalculator.calculate(this).values()) {
                     images.add(o);
@@ -712,8 +749,7 @@ public class Document implements Serializable {
 
                 if (newline)
                     features.lineStatus = "LINESTART";
-                Matcher m0 = featureFactory.isPunct.matcher(text);
-                if (m0.find()) {
+                if (featureFactory.test_punct(text)) {
                     features.punctType = "PUNCT";
                 }
                 if (text.equals("(") || text.equals("[")) {
@@ -799,15 +835,16 @@ public class Document implements Serializable {
                     features.singleChar = true;
                 }
 
-                if (Character.isUpperCase(text.charAt(0))) {
+                int shape = TokenShape.of(text);
+                if (TokenShape.isInitCap(shape)) {
                     features.capitalisation = "INITCAP";
                 }
 
-                if (featureFactory.test_all_capital(text)) {
+                if (TokenShape.isAllCap(shape)) {
                     features.capitalisation = "ALLCAP";
                 }
 
-                if (featureFactory.test_digit(text)) {
+                if (TokenShape.hasDigit(shape)) {
                     features.digit = "CONTAINSDIGITS";
                 }
 
@@ -827,13 +864,11 @@ public class Document implements Serializable {
                     features.containDash = true;
                 }
 
-                Matcher m = featureFactory.isDigit.matcher(text);
-                if (m.find()) {
+                if (TokenShape.isAllAsciiDigits(shape)) {
                     features.digit = "ALLDIGIT";
                 }
 
-                Matcher m2 = featureFactory.year.matcher(text);
-                if (m2.find()) {
+                if (featureFactory.test_year(text)) {
                     features.year = true;
                 }
 
@@ -842,8 +877,7 @@ public class Document implements Serializable {
                     features.email = true;
                 }
 
-                Matcher m4 = featureFactory.http.matcher(text);
-                if (m4.find()) {
+                if (featureFactory.test_http(text)) {
                     features.http = true;
                 }
 
@@ -1271,6 +1305,22 @@ public class Document implements Serializable {
         this.tei = tei;
     }
 
+    /**
+     * Degradation of the processing of the document for its heap budget, NONE if the document
+     * does not come from a converted PDF
+     */
+    public MemoryBudget.Degradation getDegradation() {
+        return (documentSource == null) ? MemoryBudget.Degradation.NONE : documentSource.getDegradation();
+    }
+
+    public ProcessingReport getProcessingReport() {
+        return processingReport;
+    }
+
+    public void setProcessingReport(ProcessingReport processingReport) {
+        this.processingReport = processingReport;
+    }
+
     public List<Integer> getBlockDocumentHeaders() {
         return blockDocumentHeaders;
     }
@@ -1386,6 +1436,22 @@ public class Document implements Serializable {
         return referenceMarkerMatcher;
     }
 
+    /**
+     * @return the contexts of the bibliographical reference callouts per TEI id of the reference, the
+     * callouts not matched with a reference having an empty id; null if the full text TEI has not been
+     * generated
+     */
+    public Multimap<String, BibDataSetContext> getCitationContexts() {
+        return citationContexts;
+    }
+
+    public void addCitationContexts(Collection<BibDataSetContext> contexts) {
+        if (citationContexts == null)
+            citationContexts = MultimapBuilder.treeKeys().linkedListValues().build();
+        for (BibDataSetContext context : contexts)
+            citationContexts.put(context.getTeiId(), context);
+    }
+
     // when calling this method, the tei ids already should be in BibDataSets.BiblioItem
     public void calculateTeiIdToBibDataSets() {
         if (bibDataSets == null) {
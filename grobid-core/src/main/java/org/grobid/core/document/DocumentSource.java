@@ -1,7 +1,11 @@
 package org.grobid.core.document;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.grobid.core.engines.DocumentStageExecutor;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.exceptions.GrobidExceptionStatus;
 import org.grobid.core.exceptions.GrobidResourceException;
@@ -13,13 +17,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Input document to be processed, which could come from a PDF or directly be an XML file. 
  * If from a PDF document, this is the place where pdftoxml is called.
+ *
+ * A PDF with more pages than grobid.pdf.shard.pages is converted by shards of consecutive pages,
+ * each shard being converted by its own pdfalto process in parallel. The XML files of the shards
+ * are then parsed one after the other into a single Document (see getXmlFiles()).
+ *
+ * Once converted, the degradation of the processing needed to fit in the heap budget of a document is
+ * estimated from the size of the pdfalto output (see MemoryBudget).
  */
 public class DocumentSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(DocumentSource.class);
@@ -33,6 +48,19 @@ public class DocumentSource {
     private File xmlFile;
     boolean cleanupXml = false;
 
+    // page range converted by pdfalto, -1 for the first/last page of the document
+    private int startPage = -1;
+    private int endPage = -1;
+
+    // sources of the page ranges of a sharded document, null if the document is not sharded
+    private List<DocumentSource> shards = null;
+
+    // for a shard, names of its asset files in the asset directory of the first shard, by their name given by pdfalto
+    private Map<String, String> assetNames = null;
+
+    // degradation of the processing for the heap budget of the document
+    private MemoryBudget.Degradation degradation = MemoryBudget.Degradation.NONE;
+
 
     private DocumentSource() {
     }
@@ -58,19 +86,144 @@ public class DocumentSource {
 
         DocumentSource source = new DocumentSource();
         source.cleanupXml = true;
+        source.startPage = startPage;
+        source.endPage = endPage;
 
         try {
-            source.xmlFile = source.pdf2xml(null, false, startPage, endPage, pdfFile, 
-                GrobidProperties.getTempPath(), withImages, withAnnotations, withOutline);
+            int nbPages = (startPage <= 0 && endPage <= 0) ? getNbPagesToShard(pdfFile) : -1;
+            if (nbPages > 0) {
+                source.pdf2xmlShards(pdfFile, nbPages, GrobidProperties.getPdfShardPages(), 
+                    withImages, withAnnotations, withOutline);
+            } else {
+                source.xmlFile = source.pdf2xml(null, false, startPage, endPage, pdfFile, 
+                    GrobidProperties.getTempPath(), withImages, withAnnotations, withOutline);
+            }
         } catch (Exception e) {
             source.close(withImages, withAnnotations, withOutline);
             throw e;
         } finally {
         }
         source.pdfFile = pdfFile;
+        source.planDegradation();
         return source;
     }
 
+    /**
+     * Set the degradation of the processing of the converted document for its heap budget
+     */
+    private void planDegradation() {
+        long budgetBytes = MemoryBudget.getBudgetBytes();
+        if (budgetBytes < 0)
+            return;
+        long altoBytes = 0;
+        long graphicsBytes = 0;
+        for (File file : getXmlFiles()) {
+            altoBytes += file.length();
+            graphicsBytes += MemoryBudget.sizeOfFiles(new File(file.getAbsolutePath() + "_data"));
+        }
+        degradation = MemoryBudget.plan(altoBytes, graphicsBytes, budgetBytes);
+        if (degradation != MemoryBudget.Degradation.NONE) {
+            LOGGER.warn("The processing of " + pdfFile + " is degraded to " + degradation + " for the heap budget of " + 
+                (budgetBytes / (1024 * 1024)) + " MB, pdfalto output: " + altoBytes + " bytes, graphics: " + 
+                graphicsBytes + " bytes");
+        }
+    }
+
+    /**
+     * Number of pages of the PDF if it has to be processed by shards of pages, -1 otherwise
+     */
+    private static int getNbPagesToShard(File pdfFile) {
+        int shardPages = GrobidProperties.getPdfShardPages();
+        if (shardPages <= 0)
+            return -1;
+        int nbPages;
+        try (PDDocument document = PDDocument.load(pdfFile, MemoryUsageSetting.setupTempFileOnly())) {
+            nbPages = document.getNumberOfPages();
+        } catch (IOException e) {
+            // pdfalto will deal with the complete document as usual
+            LOGGER.warn("Cannot get the number of pages of " + pdfFile + ", the document will not be sharded", e);
+            return -1;
+        }
+        return (nbPages > shardPages) ? nbPages : -1;
+    }
+
+    /**
+     * Convert the PDF by shards of consecutive pages, with one pdfalto process per shard run on the
+     * intra-document pool. The asset files of the shards are gathered in the asset directory of the first
+     * shard, so that they can be found as for a document converted at once, the assets of a shard being
+     * renamed when their name is already used (see getMergedAssetPath()). The outline, which is for the
+     * whole document, is only extracted with the first shard.
+     */
+    private void pdf2xmlShards(File pdfFile, int nbPages, int shardPages, 
+                               boolean withImages, boolean withAnnotations, boolean withOutline) {
+        shards = new ArrayList<>();
+        for (int start = 1; start <= nbPages; start += shardPages) {
+            DocumentSource shard = new DocumentSource();
+            shard.cleanupXml = true;
+            shard.startPage = start;
+            shard.endPage = Math.min(nbPages, start + shardPages - 1);
+            shards.add(shard);
+        }
+        LOGGER.info("Converting " + pdfFile + " (" + nbPages + " pages) by " + shards.size() + " shards of " + 
+            shardPages + " pages");
+
+        final DocumentSource first = shards.get(0);
+        DocumentStageExecutor.processAll(shards, shard -> {
+            shard.xmlFile = shard.pdf2xml(null, false, shard.startPage, shard.endPage, pdfFile, 
+                GrobidProperties.getTempPath(), withImages, withAnnotations, withOutline && shard == first);
+            return shard.xmlFile;
+        });
+        xmlFile = first.xmlFile;
+
+        File dataFolder = new File(xmlFile.getAbsolutePath() + "_data");
+        for (DocumentSource shard : shards) {
+            if (shard == first)
+                continue;
+            File shardDataFolder = new File(shard.xmlFile.getAbsolutePath() + "_data");
+            File[] files = shardDataFolder.listFiles();
+            if (files == null || files.length == 0)
+                continue;
+            dataFolder.mkdirs();
+            shard.assetNames = new HashMap<>();
+            for (File file : files) {
+                // every pdfalto run numbers its assets from image-1, an asset of a shard whose name is already 
+                // used in the asset directory is renamed after the first page of the shard
+                String name = file.getName();
+                if (new File(dataFolder, name).exists())
+                    name = "shard" + shard.startPage + "-" + name;
+                try {
+                    FileUtils.moveFile(file, new File(dataFolder, name));
+                    shard.assetNames.put(file.getName(), name);
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot move the asset file " + file + " to " + dataFolder, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Path of an asset file of a shard, as given in the XML file of the shard, after the move of the asset
+     * file in the asset directory of the first shard
+     *
+     * @param shardXmlFile XML file of the shard
+     * @param assetPath    path of the asset file in the XML file of the shard
+     */
+    public String getMergedAssetPath(File shardXmlFile, String assetPath) {
+        if (shards == null || assetPath == null)
+            return assetPath;
+        for (DocumentSource shard : shards) {
+            if (!shard.xmlFile.equals(shardXmlFile) || shard.assetNames == null)
+                continue;
+            int ind = Math.max(assetPath.lastIndexOf('/'), assetPath.lastIndexOf(File.separatorChar));
+            String name = shard.assetNames.get(assetPath.substring(ind + 1));
+            if (name == null)
+                return assetPath;
+            return assetPath.substring(0, ind + 1).replace(shardXmlFile.getName() + "_data", xmlFile.getName() + "_data") +
+                name;
+        }
+        return assetPath;
+    }
+
     private String getPdfToXmlCommand(boolean withImage, boolean withAnnotations, boolean withOutline) {
         StringBuilder pdfToXml = new StringBuilder();
         pdfToXml.append(GrobidProperties.getPdfToXMLPath().getAbsolutePath());
@@ -133,6 +286,7 @@ public class DocumentSource {
         File f = tmpPathXML;
 
         if ((!f.exists()) || force) {
+            long start = System.nanoTime();
             List<String> cmd = new ArrayList<>();
             String[] tokens = pdftoxml0.split(" ");
             for (String token : tokens) {
@@ -153,6 +307,7 @@ public class DocumentSource {
 
                 tmpPathXML = processPdfToXmlThreadMode(timeout, pdfPath, tmpPathXML, cmd);
             }
+            ProcessingReport.recordPdfalto(System.nanoTime() - start, tmpPathXML.length());
 
             File dataFolder = new File(tmpPathXML.getAbsolutePath() + "_data");
             File[] files = dataFolder.listFiles();
@@ -353,6 +508,13 @@ public class DocumentSource {
 
 
     public void close(boolean cleanImages, boolean cleanAnnotations, boolean cleanOutline) {
+        if (shards != null) {
+            // the xml file of the document is the one of the first shard
+            for (DocumentSource shard : shards) {
+                shard.close(cleanImages, cleanAnnotations, cleanOutline);
+            }
+            return;
+        }
         try {
             if (cleanupXml) {
                 cleanXmlFile(xmlFile, cleanImages, cleanAnnotations, cleanOutline);
@@ -384,6 +546,40 @@ public class DocumentSource {
         this.xmlFile = xmlFile;
     }
 
+    /**
+     * XML files to be parsed in this order to get the complete document: the XML files of the consecutive
+     * page ranges if the document is sharded, otherwise the XML file of the document.
+     */
+    public List<File> getXmlFiles() {
+        if (shards == null)
+            return Collections.singletonList(xmlFile);
+        List<File> xmlFiles = new ArrayList<>();
+        for (DocumentSource shard : shards) {
+            xmlFiles.add(shard.xmlFile);
+        }
+        return xmlFiles;
+    }
+
+    public boolean isSharded() {
+        return shards != null;
+    }
+
+    public int getStartPage() {
+        return startPage;
+    }
+
+    public int getEndPage() {
+        return endPage;
+    }
+
+    public MemoryBudget.Degradation getDegradation() {
+        return degradation;
+    }
+
+    public void setDegradation(MemoryBudget.Degradation degradation) {
+        this.degradation = degradation;
+    }
+
 }
 
 
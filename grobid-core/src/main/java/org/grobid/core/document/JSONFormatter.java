@@ -0,0 +1,472 @@
+package org.grobid.core.document;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.grobid.core.GrobidModels;
+import org.grobid.core.data.Affiliation;
+import org.grobid.core.data.BibDataSet;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.data.Date;
+import org.grobid.core.data.Equation;
+import org.grobid.core.data.Figure;
+import org.grobid.core.data.Keyword;
+import org.grobid.core.data.Person;
+import org.grobid.core.data.Table;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.engines.label.TaggingLabel;
+import org.grobid.core.engines.label.TaggingLabels;
+import org.grobid.core.layout.BoundingBox;
+import org.grobid.core.layout.GraphicObject;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.layout.LayoutTokenization;
+import org.grobid.core.tokenization.TaggingTokenCluster;
+import org.grobid.core.tokenization.TaggingTokenClusteror;
+import org.grobid.core.utilities.LayoutTokensUtil;
+import org.grobid.core.utilities.TextUtilities;
+import org.grobid.core.utilities.matching.EntityMatcherException;
+import org.grobid.core.utilities.matching.ReferenceMarkerMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structured serialization of the full text processing result, as an alternative to the TEI for machine
+ * consumers. It is written with a Jackson generator directly from the in-memory document and labeled
+ * results, so a JSON generator gives a JSON document and a generator of a binary Jackson format (e.g. Smile)
+ * gives the same structure in compact binary form.
+ *
+ * <pre>
+ * {
+ *   "header": {"title", "authors": [{"forename", "middlename", "surname", "email", "affiliations"}],
+ *              "date", "doi", "journal", "abstract", "keywords"},
+ *   "body": [{"head", "n", "paragraphs": [{"type", "text", "coords",
+ *                                          "refs": [{"type", "target", "start", "end", "coords"}]}]}],
+ *   "annex": [same as body],
+ *   "figures": [{"id", "type", "label", "head", "caption", "coords"}],
+ *   "references": [{"id", "title", "authors", "date", "journal", "bookTitle", "volume", "issue", "pages",
+ *                   "publisher", "doi", "raw", "coords"}]
+ * }
+ * </pre>
+ * The targets of the refs are the ids of the references and figures, the start and end of a ref are
+ * character offsets in the text of its paragraph. As for the TEI, the coordinates are only written for
+ * the element types requested in the configuration.
+ */
+public class JSONFormatter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JSONFormatter.class);
+
+    private final Document doc;
+
+    public JSONFormatter(Document doc) {
+        this.doc = doc;
+    }
+
+    /**
+     * A callout of a paragraph, its start and end being character offsets in the text of the paragraph
+     */
+    private static class Ref {
+        private final String type;
+        private final String target;
+        private final int start;
+        private final int end;
+        private final String coords;
+
+        private Ref(String type, String target, int start, int end, String coords) {
+            this.type = type;
+            this.target = target;
+            this.start = start;
+            this.end = end;
+            this.coords = coords;
+        }
+    }
+
+    /**
+     * A paragraph being built, it is written once complete because the refs are given as offsets in its text
+     */
+    private static class Paragraph {
+        private final String type;
+        private final StringBuilder text = new StringBuilder();
+        private final List<Ref> refs = new ArrayList<>();
+        private String coords;
+
+        private Paragraph(String type) {
+            this.type = type;
+        }
+
+        private void appendRef(String refType, String target, String refText, String refCoords) {
+            if (text.length() > 0 && text.charAt(text.length() - 1) != ' ')
+                text.append(' ');
+            int start = text.length();
+            text.append(refText);
+            refs.add(new Ref(refType, target, start, text.length(), refCoords));
+        }
+    }
+
+    public void toJSON(JsonGenerator generator,
+                       BiblioItem resHeader,
+                       String reseBody,
+                       LayoutTokenization layoutTokenization,
+                       String reseAnnex,
+                       List<LayoutToken> tokenizationsAnnex,
+                       List<Figure> figures,
+                       List<Table> tables,
+                       List<Equation> equations,
+                       GrobidAnalysisConfig config) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName("header");
+        writeHeader(generator, resHeader, config);
+
+        generator.writeArrayFieldStart("body");
+        if (reseBody != null && layoutTokenization != null && layoutTokenization.getTokenization() != null)
+            writeTextPiece(generator, reseBody, layoutTokenization.getTokenization(), figures, tables, equations, config);
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("annex");
+        if (reseAnnex != null && tokenizationsAnnex != null)
+            writeTextPiece(generator, reseAnnex, tokenizationsAnnex, figures, tables, equations, config);
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("figures");
+        if (figures != null) {
+            for (Figure figure : figures)
+                writeFigure(generator, figure, "figure", config);
+        }
+        if (tables != null) {
+            for (Table table : tables)
+                writeFigure(generator, table, "table", config);
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("references");
+        List<BibDataSet> bds = doc.getBibDataSets();
+        if (bds != null) {
+            for (BibDataSet bib : bds) {
+                if (bib.getResBib() != null)
+                    writeReference(generator, bib.getResBib(), bib.getRawBib(), config);
+            }
+        }
+        generator.writeEndArray();
+
+        // resources used so far, the serialization itself being excluded
+        if (config.isIncludeProcessingReport() && doc.getProcessingReport() != null) {
+            generator.writeFieldName("processingReport");
+            doc.getProcessingReport().toJSON(generator);
+        }
+
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void writeHeader(JsonGenerator generator, BiblioItem biblio, GrobidAnalysisConfig config) throws IOException {
+        generator.writeStartObject();
+        if (biblio != null) {
+            writeStringField(generator, "title", biblio.getTitle());
+            writeAuthors(generator, biblio.getFullAuthors(), true);
+            writeStringField(generator, "date", getDate(biblio));
+            writeStringField(generator, "doi", biblio.getDOI());
+            writeStringField(generator, "journal", biblio.getJournal());
+            writeStringField(generator, "abstract", biblio.getAbstract());
+            List<Keyword> keywords = biblio.getKeywords();
+            if (keywords != null && !keywords.isEmpty()) {
+                generator.writeArrayFieldStart("keywords");
+                for (Keyword keyword : keywords)
+                    generator.writeString(keyword.getKeyword());
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeAuthors(JsonGenerator generator, List<Person> authors, boolean withAffiliations) throws IOException {
+        if (authors == null || authors.isEmpty())
+            return;
+        generator.writeArrayFieldStart("authors");
+        for (Person author : authors) {
+            generator.writeStartObject();
+            writeStringField(generator, "forename", author.getFirstName());
+            writeStringField(generator, "middlename", author.getMiddleName());
+            writeStringField(generator, "surname", author.getLastName());
+            writeStringField(generator, "email", author.getEmail());
+            if (withAffiliations && author.getAffiliations() != null && !author.getAffiliations().isEmpty()) {
+                generator.writeArrayFieldStart("affiliations");
+                for (Affiliation affiliation : author.getAffiliations()) {
+                    generator.writeStartObject();
+                    writeStringListField(generator, "departments", affiliation.getDepartments());
+                    writeStringListField(generator, "laboratories", affiliation.getLaboratories());
+                    writeStringListField(generator, "institutions", affiliation.getInstitutions());
+                    writeStringField(generator, "settlement", affiliation.getSettlement());
+                    writeStringField(generator, "country", affiliation.getCountry());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Sections and paragraphs of a labeled body or annex, following the same clusters as the TEI
+     */
+    private void writeTextPiece(JsonGenerator generator,
+                                String result,
+                                List<LayoutToken> tokenizations,
+                                List<Figure> figures,
+                                List<Table> tables,
+                                List<Equation> equations,
+                                GrobidAnalysisConfig config) throws IOException {
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.FULLTEXT, result, tokenizations);
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+
+        boolean inSection = false;
+        Paragraph curParagraph = null;
+        TaggingLabel lastClusterLabel = null;
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            if (clusterLabel.equals(TaggingLabels.SECTION)) {
+                writeParagraph(generator, curParagraph);
+                curParagraph = null;
+                if (inSection)
+                    endSection(generator);
+                String clusterContent = LayoutTokensUtil.normalizeDehyphenizeText(cluster.concatTokens());
+                generator.writeStartObject();
+                org.grobid.core.utilities.Pair<String, String> numb = TEIFormatter.getSectionNumber(clusterContent);
+                if (numb != null) {
+                    generator.writeStringField("head", numb.a);
+                    generator.writeStringField("n", numb.b);
+                } else {
+                    generator.writeStringField("head", clusterContent);
+                }
+                generator.writeArrayFieldStart("paragraphs");
+                inSection = true;
+            } else {
+                if (!inSection) {
+                    // text before the first section head
+                    generator.writeStartObject();
+                    generator.writeArrayFieldStart("paragraphs");
+                    inSection = true;
+                }
+                if (clusterLabel.equals(TaggingLabels.PARAGRAPH)) {
+                    List<LayoutToken> tokens = cluster.concatTokens();
+                    if (curParagraph == null || !isContinuation(lastClusterLabel)) {
+                        writeParagraph(generator, curParagraph);
+                        curParagraph = new Paragraph("p");
+                        if (config.isGenerateTeiCoordinates("p"))
+                            curParagraph.coords = LayoutTokensUtil.getCoordsString(tokens);
+                    }
+                    curParagraph.text.append(LayoutTokensUtil.normalizeDehyphenizeText(tokens));
+                } else if (TEIFormatter.MARKER_LABELS.contains(clusterLabel)) {
+                    if (curParagraph == null)
+                        curParagraph = new Paragraph("p");
+                    appendMarker(curParagraph, clusterLabel, cluster.concatTokens(), figures, tables, equations, config);
+                } else if (clusterLabel.equals(TaggingLabels.ITEM) || clusterLabel.equals(TaggingLabels.OTHER)
+                        || clusterLabel.equals(TaggingLabels.EQUATION)) {
+                    writeParagraph(generator, curParagraph);
+                    curParagraph = null;
+                    String type = clusterLabel.equals(TaggingLabels.ITEM) ? "item" :
+                        (clusterLabel.equals(TaggingLabels.OTHER) ? "other" : "formula");
+                    Paragraph paragraph = new Paragraph(type);
+                    paragraph.text.append(LayoutTokensUtil.normalizeDehyphenizeText(cluster.concatTokens()));
+                    writeParagraph(generator, paragraph);
+                }
+            }
+            lastClusterLabel = clusterLabel;
+        }
+        writeParagraph(generator, curParagraph);
+        if (inSection)
+            endSection(generator);
+    }
+
+    /**
+     * As for the TEI, a paragraph cut by a callout, a figure or a table continues after it
+     */
+    private static boolean isContinuation(TaggingLabel lastClusterLabel) {
+        return TEIFormatter.MARKER_LABELS.contains(lastClusterLabel) || lastClusterLabel == TaggingLabels.FIGURE
+            || lastClusterLabel == TaggingLabels.TABLE;
+    }
+
+    private static void endSection(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private void appendMarker(Paragraph paragraph,
+                              TaggingLabel clusterLabel,
+                              List<LayoutToken> refTokens,
+                              List<Figure> figures,
+                              List<Table> tables,
+                              List<Equation> equations,
+                              GrobidAnalysisConfig config) {
+        refTokens = LayoutTokensUtil.dehyphenize(refTokens);
+        boolean withCoords = config.isGenerateTeiCoordinates("ref");
+        if (clusterLabel.equals(TaggingLabels.CITATION_MARKER)) {
+            List<ReferenceMarkerMatcher.MatchResult> matchResults = null;
+            try {
+                ReferenceMarkerMatcher markerMatcher = doc.getReferenceMarkerMatcher();
+                if (markerMatcher != null)
+                    matchResults = markerMatcher.match(refTokens);
+            } catch (EntityMatcherException e) {
+                LOGGER.warn("Cannot match the reference callout " + LayoutTokensUtil.toText(refTokens), e);
+            }
+            if (matchResults == null) {
+                paragraph.appendRef("bibr", null, LayoutTokensUtil.normalizeText(refTokens), null);
+                return;
+            }
+            for (ReferenceMarkerMatcher.MatchResult matchResult : matchResults) {
+                String target = matchResult.getBibDataSet() == null ? null :
+                    "b" + matchResult.getBibDataSet().getResBib().getOrdinal();
+                String coords = (withCoords && matchResult.getTokens() != null) ?
+                    LayoutTokensUtil.getCoordsString(matchResult.getTokens()) : null;
+                paragraph.appendRef("bibr", target, LayoutTokensUtil.normalizeText(matchResult.getText()), coords);
+            }
+        } else {
+            String text = LayoutTokensUtil.toText(refTokens).replace("\n", " ").trim();
+            String textLow = text.toLowerCase();
+            String type;
+            String target = null;
+            if (clusterLabel.equals(TaggingLabels.FIGURE_MARKER)) {
+                type = "figure";
+                if (figures != null) {
+                    for (Figure figure : figures) {
+                        if (matchesLabel(textLow, figure.getLabel())) {
+                            target = "fig_" + figure.getId();
+                            break;
+                        }
+                    }
+                }
+            } else if (clusterLabel.equals(TaggingLabels.TABLE_MARKER)) {
+                type = "table";
+                if (tables != null) {
+                    for (Table table : tables) {
+                        if (matchesLabel(textLow, table.getLabel())) {
+                            target = "tab_" + table.getId();
+                            break;
+                        }
+                    }
+                }
+            } else {
+                type = "formula";
+                if (equations != null) {
+                    for (Equation equation : equations) {
+                        if (matchesLabel(textLow, equation.getLabel())) {
+                            target = "formula_" + equation.getId();
+                            break;
+                        }
+                    }
+                }
+            }
+            paragraph.appendRef(type, target, text, withCoords ? LayoutTokensUtil.getCoordsString(refTokens) : null);
+        }
+    }
+
+    /**
+     * Same matching of a callout with a figure, table or formula label as for the TEI
+     */
+    private static boolean matchesLabel(String textLow, String label) {
+        if (label == null || label.length() == 0)
+            return false;
+        label = TextUtilities.cleanField(label, false);
+        return label.length() > 0 && textLow.contains(label.toLowerCase());
+    }
+
+    private static void writeParagraph(JsonGenerator generator, Paragraph paragraph) throws IOException {
+        if (paragraph == null || paragraph.text.length() == 0)
+            return;
+        generator.writeStartObject();
+        generator.writeStringField("type", paragraph.type);
+        generator.writeStringField("text", paragraph.text.toString());
+        writeStringField(generator, "coords", paragraph.coords);
+        if (!paragraph.refs.isEmpty()) {
+            generator.writeArrayFieldStart("refs");
+            for (Ref ref : paragraph.refs) {
+                generator.writeStartObject();
+                generator.writeStringField("type", ref.type);
+                writeStringField(generator, "target", ref.target);
+                generator.writeNumberField("start", ref.start);
+                generator.writeNumberField("end", ref.end);
+                writeStringField(generator, "coords", ref.coords);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeFigure(JsonGenerator generator, Figure figure, String type, GrobidAnalysisConfig config) throws IOException {
+        generator.writeStartObject();
+        writeStringField(generator, "id", figure.getId() == null ? null :
+            (type.equals("table") ? "tab_" : "fig_") + figure.getId());
+        generator.writeStringField("type", type);
+        writeStringField(generator, "label", LayoutTokensUtil.normalizeText(figure.getLabel()));
+        writeStringField(generator, "head", LayoutTokensUtil.normalizeText(figure.getHeader()));
+        writeStringField(generator, "caption", LayoutTokensUtil.normalizeText(figure.getCaption()));
+        if (config.isGenerateTeiCoordinates("figure")) {
+            List<GraphicObject> bitmaps = figure.getBitmapGraphicObjects();
+            if (bitmaps != null && !bitmaps.isEmpty())
+                writeStringField(generator, "coords", bitmaps.get(0).getBoundingBox().toString());
+            else
+                writeStringField(generator, "coords", LayoutTokensUtil.getCoordsString(figure.getLayoutTokens()));
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeReference(JsonGenerator generator, BiblioItem biblio, String raw, GrobidAnalysisConfig config) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", "b" + biblio.getOrdinal());
+        writeStringField(generator, "title", biblio.getTitle());
+        writeAuthors(generator, biblio.getFullAuthors(), false);
+        writeStringField(generator, "date", getDate(biblio));
+        writeStringField(generator, "journal", biblio.getJournal());
+        writeStringField(generator, "bookTitle", biblio.getBookTitle());
+        writeStringField(generator, "volume", biblio.getVolume());
+        writeStringField(generator, "issue", biblio.getIssue());
+        writeStringField(generator, "pages", biblio.getPageRange());
+        writeStringField(generator, "publisher", biblio.getPublisher());
+        writeStringField(generator, "doi", biblio.getDOI());
+        if (config.getIncludeRawCitations())
+            writeStringField(generator, "raw", raw);
+        if (config.isGenerateTeiCoordinates("biblStruct") && biblio.getCoordinates() != null) {
+            List<String> boxes = new ArrayList<>();
+            for (BoundingBox box : biblio.getCoordinates())
+                boxes.add(box.toString());
+            writeStringField(generator, "coords", String.join(";", boxes));
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * ISO form of the normalized date, as in the "when" attribute of the TEI, or the raw date
+     */
+    private static String getDate(BiblioItem biblio) {
+        Date date = biblio.getNormalizedPublicationDate();
+        if (date == null || date.getYear() == -1)
+            return biblio.getPublicationDate();
+        StringBuilder when = new StringBuilder();
+        when.append(date.getYear());
+        if (date.getMonth() != -1) {
+            when.append(date.getMonth() < 10 ? "-0" : "-").append(date.getMonth());
+            if (date.getDay() != -1)
+                when.append(date.getDay() < 10 ? "-0" : "-").append(date.getDay());
+        }
+        return when.toString();
+    }
+
+    private static void writeStringField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null && value.length() > 0)
+            generator.writeStringField(name, value);
+    }
+
+    private static void writeStringListField(JsonGenerator generator, String name, List<String> values) throws IOException {
+        if (values == null || values.isEmpty())
+            return;
+        generator.writeArrayFieldStart(name);
+        for (String value : values)
+            generator.writeString(value);
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,162 @@
+package org.grobid.core.document;
+
+import org.grobid.core.utilities.GrobidProperties;
+
+import java.io.File;
+
+/**
+ * Heap budget for the processing of one document, so that a pathological PDF (e.g. hundreds of thousands
+ * of tokens or thousands of vector graphics) degrades its own processing instead of exhausting the heap
+ * shared by the documents processed at the same time.
+ *
+ * The heap needed by a document is estimated from the size of the pdfalto output, before parsing it, and
+ * the processing is degraded as much as needed to fit in the budget (see Degradation). The number of tokens
+ * is then checked against the budget while the pdfalto output is parsed (see PDFALTOSaxHandler), in case
+ * the estimation was too low.
+ *
+ * The budget is given by the property grobid.pdf.memory.budget.mb, -1 (the default) for no budget, 0 for the
+ * maximum heap divided by the number of documents processed at the same time (see setConcurrency()).
+ */
+public class MemoryBudget {
+
+    /**
+     * Ways of processing a document with less memory, each level including the previous ones
+     */
+    public enum Degradation {
+        // complete processing
+        NONE,
+        // no vector graphics boxes and no image assets
+        NO_GRAPHICS,
+        // the segmentation is labelled by shards of pages, even if sharding is not configured
+        SHARDED,
+        // only the first pages of the document are processed, for its header
+        HEADER_ONLY
+    }
+
+    // average size in the pdfalto output of a token and its String element
+    static final int ALTO_BYTES_PER_TOKEN = 200;
+    // average number of tokens of a page
+    static final int TOKENS_PER_PAGE = 600;
+
+    // heap per token held for the whole processing: layout tokens, blocks and lines
+    static final int DOCUMENT_BYTES_PER_TOKEN = 1024;
+    // heap per token labelled by the segmentation model: line features and labelled result
+    static final int SEGMENTATION_BYTES_PER_TOKEN = 1024;
+    // heap per token labelled by the fulltext model: token features and labelled result
+    static final int FULLTEXT_BYTES_PER_TOKEN = 2048;
+    // heap per byte of the graphics files (vector graphics parsed for their boxes, decoded bitmaps)
+    static final int BYTES_PER_GRAPHICS_BYTE = 4;
+
+    // pages per shard of the segmentation when sharding is not configured
+    static final int DEFAULT_SHARD_PAGES = 10;
+
+    // number of documents processed at the same time, 0 for the maximum number of concurrent requests
+    private static volatile int concurrency = 0;
+
+    private MemoryBudget() {
+    }
+
+    /**
+     * Set the number of documents processed at the same time, among which the heap is divided when the
+     * budget is 0, e.g. the number of threads of a batch. By default, it is the maximum number of concurrent
+     * requests of the service (org.grobid.max.connections).
+     */
+    public static void setConcurrency(int nbDocuments) {
+        concurrency = nbDocuments;
+    }
+
+    /**
+     * Heap budget for one document in bytes, -1 if there is no budget
+     */
+    public static long getBudgetBytes() {
+        long budgetMb = GrobidProperties.getPdfMemoryBudgetMb();
+        if (budgetMb < 0)
+            return -1;
+        if (budgetMb > 0)
+            return budgetMb * 1024 * 1024;
+        int nbDocuments = (concurrency > 0) ? concurrency : GrobidProperties.getMaxPoolConnections();
+        return Runtime.getRuntime().maxMemory() / Math.max(1, nbDocuments);
+    }
+
+    /**
+     * Pages per shard of the segmentation, when it is sharded for the budget
+     */
+    public static int getShardPages() {
+        int shardPages = GrobidProperties.getPdfShardPages();
+        return shardPages > 0 ? shardPages : DEFAULT_SHARD_PAGES;
+    }
+
+    /**
+     * Estimated number of tokens of a pdfalto output
+     */
+    public static long estimateTokens(long altoBytes) {
+        return altoBytes / ALTO_BYTES_PER_TOKEN;
+    }
+
+    /**
+     * Estimated heap needed for processing a document at a given degradation level
+     *
+     * @param nbTokens      number of tokens of the document
+     * @param graphicsBytes size of the graphics files of the document
+     */
+    public static long estimateBytes(long nbTokens, long graphicsBytes, Degradation degradation) {
+        switch (degradation) {
+            case NONE:
+                return nbTokens * (DOCUMENT_BYTES_PER_TOKEN + SEGMENTATION_BYTES_PER_TOKEN + FULLTEXT_BYTES_PER_TOKEN) +
+                    graphicsBytes * BYTES_PER_GRAPHICS_BYTE;
+            case NO_GRAPHICS:
+                return nbTokens * (DOCUMENT_BYTES_PER_TOKEN + SEGMENTATION_BYTES_PER_TOKEN + FULLTEXT_BYTES_PER_TOKEN);
+            case SHARDED:
+                // the shards are labelled at the same time on the intra-document pool
+                long shardTokens = (long) getShardPages() * TOKENS_PER_PAGE * Math.max(1, GrobidProperties.getDocumentNBThreads());
+                return nbTokens * (DOCUMENT_BYTES_PER_TOKEN + FULLTEXT_BYTES_PER_TOKEN) +
+                    Math.min(nbTokens, shardTokens) * SEGMENTATION_BYTES_PER_TOKEN;
+            default:
+                return estimateBytes(Math.min(nbTokens, (long) GrobidProperties.getHeaderPages() * TOKENS_PER_PAGE), 0,
+                    Degradation.NONE);
+        }
+    }
+
+    /**
+     * Least degradation of the processing for which the estimated heap fits in the budget
+     */
+    public static Degradation plan(long altoBytes, long graphicsBytes, long budgetBytes) {
+        if (budgetBytes < 0)
+            return Degradation.NONE;
+        long nbTokens = estimateTokens(altoBytes);
+        for (Degradation degradation : Degradation.values()) {
+            if (estimateBytes(nbTokens, graphicsBytes, degradation) <= budgetBytes)
+                return degradation;
+        }
+        return Degradation.HEADER_ONLY;
+    }
+
+    /**
+     * Maximum number of tokens of a document processed at a given degradation level, 0 if there is no budget.
+     * At the HEADER_ONLY level, the limit is the one of a complete processing: the full text parser converts
+     * again only the first pages of the document, but the other processing (references, training data, etc.)
+     * parse the whole document and must stop before exhausting the heap.
+     */
+    public static long getMaxTokens(Degradation degradation, long budgetBytes) {
+        if (budgetBytes < 0)
+            return 0;
+        long bytesPerToken = estimateBytes(1, 0, degradation);
+        if (degradation == Degradation.SHARDED)
+            bytesPerToken = DOCUMENT_BYTES_PER_TOKEN + FULLTEXT_BYTES_PER_TOKEN;
+        return Math.max(1, budgetBytes / bytesPerToken);
+    }
+
+    /**
+     * Total size of the files of a directory, 0 if it does not exist
+     */
+    static long sizeOfFiles(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return 0;
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        return size;
+    }
+}
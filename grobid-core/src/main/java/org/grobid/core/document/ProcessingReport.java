@@ -0,0 +1,373 @@
+package org.grobid.core.document;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.grobid.core.utilities.counters.CntManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resources used for the processing of one document: time and output size of pdfalto, size of the
+ * document, degradation of its processing for its heap budget (see MemoryBudget), number of calls and
+ * time of each sequence labelling model, consolidation calls and time waiting for the consolidation
+ * service, size of the TEI and memory allocated by the threads working on the document.
+ *
+ * The report of the document being processed is bound to the current thread with attach(), the
+ * instrumented steps (pdfalto, labelling, consolidation) recording their costs in it through the static
+ * record methods, which do nothing when no report is attached. The intra-document pool attaches the
+ * report of the calling thread to the threads running its tasks (see DocumentStageExecutor).
+ *
+ * The allocated memory is the sum of the bytes allocated by each thread while the report is attached
+ * to it, as given by the allocation counters of the JVM threads, which is an upper bound of the heap
+ * used for the document, not its peak usage. It is -1 if the JVM does not support these counters.
+ */
+public class ProcessingReport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessingReport.class);
+
+    // group of the counters of the aggregated reports in the CntManager
+    public static final String COUNTERS_GROUP = "ProcessingReport";
+
+    private static final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+    private static final com.sun.management.ThreadMXBean threadMXBean = initThreadMXBean();
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final long startTime = System.nanoTime();
+    private volatile long endTime = -1;
+
+    private final LongAdder pdfaltoNanos = new LongAdder();
+    private final LongAdder pdfaltoCalls = new LongAdder();
+    private final LongAdder pdfaltoOutputBytes = new LongAdder();
+
+    private volatile int nbPages = 0;
+    private volatile int nbBlocks = 0;
+    private volatile int nbTokens = 0;
+
+    private volatile MemoryBudget.Degradation degradation = MemoryBudget.Degradation.NONE;
+
+    private final ConcurrentHashMap<String, ModelCost> models = new ConcurrentHashMap<>();
+
+    private final LongAdder consolidationCalls = new LongAdder();
+    private final LongAdder consolidationNanos = new LongAdder();
+
+    private volatile long teiChars = -1;
+
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private static class ModelCost {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    /**
+     * Binding of a report to a thread, to be closed on the same thread when its work for the document
+     * is done. The bindings of a thread are nested: while a task of another document runs on a thread
+     * (e.g. stolen by a thread of the pool waiting for its own tasks), the memory allocated by this task
+     * is not counted for the outer document.
+     */
+    public static class Scope implements AutoCloseable {
+        private final ProcessingReport report;
+        private final Scope previous;
+        private long since;
+
+        private Scope(ProcessingReport report, Scope previous, long since) {
+            this.report = report;
+            this.previous = previous;
+            this.since = since;
+        }
+
+        @Override
+        public void close() {
+            if (report == null)
+                return;
+            long now = currentThreadAllocatedBytes();
+            report.addAllocatedBytes(now - since);
+            currentScope.set(previous);
+            if (previous != null)
+                previous.since = now;
+        }
+    }
+
+    private static final Scope NO_SCOPE = new Scope(null, null, 0);
+
+    private static com.sun.management.ThreadMXBean initThreadMXBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+                    return sunBean;
+            }
+        } catch (Throwable t) {
+            LOGGER.debug("The allocation counters of the threads are not available", t);
+        }
+        return null;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (threadMXBean == null)
+            return 0;
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Report attached to the current thread, null if none
+     */
+    public static ProcessingReport current() {
+        Scope scope = currentScope.get();
+        return scope == null ? null : scope.report;
+    }
+
+    /**
+     * Attach this report to the current thread, until the returned scope is closed
+     */
+    public Scope attach() {
+        Scope previous = currentScope.get();
+        if (previous != null && previous.report == this)
+            return NO_SCOPE;
+        long now = currentThreadAllocatedBytes();
+        if (previous != null)
+            previous.report.addAllocatedBytes(now - previous.since);
+        Scope scope = new Scope(this, previous, now);
+        currentScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * Attach the given report, possibly null, to the current thread
+     */
+    public static Scope attach(ProcessingReport report) {
+        return report == null ? NO_SCOPE : report.attach();
+    }
+
+    public static void recordPdfalto(long nanos, long outputBytes) {
+        ProcessingReport report = current();
+        if (report != null) {
+            report.pdfaltoCalls.increment();
+            report.pdfaltoNanos.add(nanos);
+            report.pdfaltoOutputBytes.add(outputBytes);
+        }
+    }
+
+    public static void recordLabel(String model, long nanos) {
+        ProcessingReport report = current();
+        if (report != null) {
+            ModelCost cost = report.models.get(model);
+            if (cost == null)
+                cost = report.models.computeIfAbsent(model, m -> new ModelCost());
+            cost.calls.increment();
+            cost.nanos.add(nanos);
+        }
+    }
+
+    public static void recordConsolidation(int calls, long nanos) {
+        ProcessingReport report = current();
+        if (report != null && calls > 0) {
+            report.consolidationCalls.add(calls);
+            report.consolidationNanos.add(nanos);
+        }
+    }
+
+    private void addAllocatedBytes(long bytes) {
+        if (bytes > 0)
+            allocatedBytes.add(bytes);
+    }
+
+    /**
+     * Size of the document, once segmented
+     */
+    public void setDocumentCounts(Document doc) {
+        if (doc.getPages() != null)
+            nbPages = doc.getPages().size();
+        if (doc.getBlocks() != null)
+            nbBlocks = doc.getBlocks().size();
+        if (doc.getTokenizations() != null)
+            nbTokens = doc.getTokenizations().size();
+    }
+
+    public void setDegradation(MemoryBudget.Degradation degradation) {
+        this.degradation = degradation;
+    }
+
+    public void setTeiChars(long teiChars) {
+        this.teiChars = teiChars;
+    }
+
+    /**
+     * Same as setTeiChars(long), but if the TEI is serialized after the end of the processing (see 
+     * FullTextParser.FulltextResult), the report being already in the counters, its size is added to them
+     */
+    public void setTeiChars(long teiChars, CntManager cntManager) {
+        setTeiChars(teiChars);
+        if (endTime != -1 && cntManager != null)
+            cntManager.i(COUNTERS_GROUP, "tei_chars", teiChars);
+    }
+
+    /**
+     * End of the processing of the document, the report is then complete
+     */
+    public void finish() {
+        if (endTime == -1)
+            endTime = System.nanoTime();
+    }
+
+    /**
+     * Processing time of the document, up to now if not finished
+     */
+    public long getTotalNanos() {
+        return (endTime == -1 ? System.nanoTime() : endTime) - startTime;
+    }
+
+    public long getPdfaltoNanos() {
+        return pdfaltoNanos.sum();
+    }
+
+    public long getPdfaltoOutputBytes() {
+        return pdfaltoOutputBytes.sum();
+    }
+
+    public int getNbPages() {
+        return nbPages;
+    }
+
+    public int getNbBlocks() {
+        return nbBlocks;
+    }
+
+    public int getNbTokens() {
+        return nbTokens;
+    }
+
+    public MemoryBudget.Degradation getDegradation() {
+        return degradation;
+    }
+
+    public long getLabelCalls(String model) {
+        ModelCost cost = models.get(model);
+        return cost == null ? 0 : cost.calls.sum();
+    }
+
+    public long getLabelNanos(String model) {
+        ModelCost cost = models.get(model);
+        return cost == null ? 0 : cost.nanos.sum();
+    }
+
+    public long getConsolidationCalls() {
+        return consolidationCalls.sum();
+    }
+
+    public long getConsolidationNanos() {
+        return consolidationNanos.sum();
+    }
+
+    public long getTeiChars() {
+        return teiChars;
+    }
+
+    /**
+     * Bytes allocated for the document by the threads having the report attached, including the current
+     * thread up to now, -1 if not available
+     */
+    public long getAllocatedBytes() {
+        if (threadMXBean == null)
+            return -1;
+        long bytes = allocatedBytes.sum();
+        Scope scope = currentScope.get();
+        if (scope != null && scope.report == this)
+            bytes += Math.max(0, currentThreadAllocatedBytes() - scope.since);
+        return bytes;
+    }
+
+    /**
+     * Add the costs of the document to the counters of the group ProcessingReport, e.g. to get averages
+     * per document over a run or a server uptime. The times are in milliseconds.
+     */
+    public void addTo(CntManager cntManager) {
+        if (cntManager == null)
+            return;
+        cntManager.i(COUNTERS_GROUP, "documents");
+        cntManager.i(COUNTERS_GROUP, "total_ms", getTotalNanos() / 1000000);
+        cntManager.i(COUNTERS_GROUP, "pdfalto_calls", pdfaltoCalls.sum());
+        cntManager.i(COUNTERS_GROUP, "pdfalto_ms", getPdfaltoNanos() / 1000000);
+        cntManager.i(COUNTERS_GROUP, "pdfalto_output_bytes", getPdfaltoOutputBytes());
+        cntManager.i(COUNTERS_GROUP, "pages", nbPages);
+        cntManager.i(COUNTERS_GROUP, "blocks", nbBlocks);
+        cntManager.i(COUNTERS_GROUP, "tokens", nbTokens);
+        if (degradation != MemoryBudget.Degradation.NONE)
+            cntManager.i(COUNTERS_GROUP, "degraded_" + degradation.name().toLowerCase());
+        for (Map.Entry<String, ModelCost> model : models.entrySet()) {
+            cntManager.i(COUNTERS_GROUP, "label_calls_" + model.getKey(), model.getValue().calls.sum());
+            cntManager.i(COUNTERS_GROUP, "label_ms_" + model.getKey(), model.getValue().nanos.sum() / 1000000);
+        }
+        cntManager.i(COUNTERS_GROUP, "consolidation_calls", getConsolidationCalls());
+        cntManager.i(COUNTERS_GROUP, "consolidation_ms", getConsolidationNanos() / 1000000);
+        if (teiChars >= 0)
+            cntManager.i(COUNTERS_GROUP, "tei_chars", teiChars);
+        if (threadMXBean != null)
+            cntManager.i(COUNTERS_GROUP, "allocated_bytes", getAllocatedBytes());
+    }
+
+    /**
+     * Write the report as a JSON object, the times being in milliseconds
+     */
+    public void toJSON(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("totalMs", getTotalNanos() / 1000000);
+
+        generator.writeObjectFieldStart("pdfalto");
+        generator.writeNumberField("calls", pdfaltoCalls.sum());
+        generator.writeNumberField("ms", getPdfaltoNanos() / 1000000);
+        generator.writeNumberField("outputBytes", getPdfaltoOutputBytes());
+        generator.writeEndObject();
+
+        generator.writeNumberField("pages", nbPages);
+        generator.writeNumberField("blocks", nbBlocks);
+        generator.writeNumberField("tokens", nbTokens);
+        generator.writeStringField("degradation", degradation.name());
+
+        generator.writeObjectFieldStart("models");
+        for (Map.Entry<String, ModelCost> model : new TreeMap<>(models).entrySet()) {
+            generator.writeObjectFieldStart(model.getKey());
+            generator.writeNumberField("calls", model.getValue().calls.sum());
+            generator.writeNumberField("ms", model.getValue().nanos.sum() / 1000000);
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+
+        generator.writeObjectFieldStart("consolidation");
+        generator.writeNumberField("calls", getConsolidationCalls());
+        generator.writeNumberField("ms", getConsolidationNanos() / 1000000);
+        generator.writeEndObject();
+
+        if (teiChars >= 0)
+            generator.writeNumberField("teiChars", teiChars);
+        generator.writeNumberField("allocatedBytes", getAllocatedBytes());
+        generator.writeEndObject();
+    }
+
+    public String toJSON() {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            toJSON(generator);
+        } catch (IOException e) {
+            // not expected with a StringWriter
+            LOGGER.warn("Cannot serialize the processing report", e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJSON();
+    }
+}
@@ -72,6 +72,9 @@ public class TEIFormatter {
 
     private Boolean inParagraph = false;
 
+    // bibliographical reference callouts marked since the last collection of the citation contexts
+    private List<Element> pendingBibRefs = new ArrayList<>();
+
     private ArrayList<String> elements = null;
 
     // static variable for the position of italic and bold features in the CRF model
@@ -1404,7 +1407,7 @@ public class TEIFormatter {
         return result;
     }
 
-    private org.grobid.core.utilities.Pair<String, String> getSectionNumber(String text) {
+    static org.grobid.core.utilities.Pair<String, String> getSectionNumber(String text) {
         Matcher m1 = BasicStructureBuilder.headerNumbering1.matcher(text);
         Matcher m2 = BasicStructureBuilder.headerNumbering2.matcher(text);
         Matcher m3 = BasicStructureBuilder.headerNumbering3.matcher(text);
@@ -1429,6 +1432,22 @@ public class TEIFormatter {
         }
     }
 
+    /**
+     * Add to the document the contexts of the bibliographical reference callouts marked since the last
+     * call, from their TEI elements. To be called once the elements of the callouts are placed in the TEI,
+     * so that the contexts are available without parsing the serialized TEI again.
+     */
+    public void collectCitationContexts() {
+        List<BibDataSetContext> contexts = new ArrayList<>();
+        for (Element ref : pendingBibRefs) {
+            BibDataSetContext context = BibDataSetContextExtractor.getCitationContext(ref);
+            if (context != null)
+                contexts.add(context);
+        }
+        pendingBibRefs.clear();
+        doc.addCitationContexts(contexts);
+    }
+
     public StringBuilder toTEIReferences(StringBuilder tei,
                                          List<BibDataSet> bds,
                                          GrobidAnalysisConfig config) throws Exception {
@@ -1513,8 +1532,10 @@ public class TEIFormatter {
                     ref.addAttribute(new Attribute("target", "#b" + matchResult.getBibDataSet().getResBib().getOrdinal()));
                     solved = true;
                 }
-                if ( solved || (!solved && keepUnsolvedCallout) )
+                if ( solved || (!solved && keepUnsolvedCallout) ) {
                     nodes.add(ref);
+                    pendingBibRefs.add(ref);
+                }
                 else 
                     nodes.add(textNode(matchResult.getText()));
             }
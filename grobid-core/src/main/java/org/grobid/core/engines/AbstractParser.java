@@ -2,7 +2,9 @@ package org.grobid.core.engines;
 
 import org.grobid.core.GrobidModel;
 import org.grobid.core.analyzers.GrobidAnalyzer;
+import org.grobid.core.document.ProcessingReport;
 import org.grobid.core.engines.tagging.*;
+import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.utilities.counters.CntManager;
 import org.grobid.core.utilities.counters.impl.CntManagerFactory;
 import org.slf4j.Logger;
@@ -10,10 +12,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class AbstractParser implements GenericTagger, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractParser.class);
     private GenericTagger genericTagger;
+    private final String modelName;
     protected GrobidAnalyzer analyzer = GrobidAnalyzer.getInstance();
 
     protected CntManager cntManager = CntManagerFactory.getNoOpCntManager();
@@ -24,22 +29,89 @@ public abstract class AbstractParser implements GenericTagger, Closeable {
 
     protected AbstractParser(GrobidModel model, CntManager cntManager) {
         this.cntManager = cntManager;
+        modelName = model.getModelName();
         genericTagger = TaggerFactory.getTagger(model);
     }
 
     protected AbstractParser(GrobidModel model, CntManager cntManager, GrobidCRFEngine engine) {
         this.cntManager = cntManager;
+        modelName = model.getModelName();
         genericTagger = TaggerFactory.getTagger(model, engine);
     }
 
     @Override
     public String label(Iterable<String> data) {
-        return genericTagger.label(data);
+        long start = System.nanoTime();
+        String labelled = genericTagger.label(data);
+        ProcessingReport.recordLabel(modelName, System.nanoTime() - start);
+        return labelled;
     }
 
     @Override
     public String label(String data) {
-        return genericTagger.label(data);
+        long start = System.nanoTime();
+        String labelled = genericTagger.label(data);
+        ProcessingReport.recordLabel(modelName, System.nanoTime() - start);
+        return labelled;
+    }
+
+    /**
+     * Label a long sequence by shards of consecutive units (e.g. the lines of a few pages), the shards being
+     * labelled concurrently on the intra-document pool. Each shard is labelled with some units of context
+     * before and after it, so that the labels at the boundaries of the shards are still predicted in context,
+     * but only the labels of the lines of the shard itself are kept.
+     *
+     * @param lines         the feature vectors of the sequence, one per line
+     * @param unitStarts    index of the first line of each unit, in increasing order
+     * @param unitsPerShard number of units per shard
+     * @param overlap       number of units of context on each side of a shard
+     * @return the labelled sequence, in the same format as label()
+     */
+    protected String labelByShards(List<String> lines, List<Integer> unitStarts, int unitsPerShard, int overlap) {
+        int nbUnits = unitStarts.size();
+        // line ranges of the shards: context start, start, end, context end
+        List<int[]> shards = new ArrayList<>();
+        for (int unit = 0; unit < nbUnits; unit += unitsPerShard) {
+            int end = Math.min(unit + unitsPerShard, nbUnits);
+            shards.add(new int[] {
+                unitStartLine(lines, unitStarts, Math.max(0, unit - overlap)),
+                (unit == 0) ? 0 : unitStartLine(lines, unitStarts, unit),
+                unitStartLine(lines, unitStarts, end),
+                unitStartLine(lines, unitStarts, Math.min(end + overlap, nbUnits))
+            });
+        }
+        shards.get(0)[0] = 0;
+
+        List<String> labelledShards = DocumentStageExecutor.processAll(shards, shard -> {
+            StringBuilder input = new StringBuilder();
+            for (String line : lines.subList(shard[0], shard[3])) {
+                input.append(line).append("\n");
+            }
+            List<String> labelledLines = new ArrayList<>();
+            for (String labelledLine : label(input.toString()).split("\n")) {
+                if (labelledLine.trim().length() > 0)
+                    labelledLines.add(labelledLine);
+            }
+            if (labelledLines.size() != shard[3] - shard[0]) {
+                throw new GrobidException("Unexpected labelling of the lines " + shard[0] + "-" + shard[3] + 
+                    ": " + labelledLines.size() + " labelled lines");
+            }
+            StringBuilder output = new StringBuilder();
+            for (String labelledLine : labelledLines.subList(shard[1] - shard[0], shard[2] - shard[0])) {
+                output.append(labelledLine).append("\n");
+            }
+            return output.toString();
+        });
+
+        StringBuilder result = new StringBuilder();
+        for (String labelledShard : labelledShards) {
+            result.append(labelledShard);
+        }
+        return result.toString();
+    }
+
+    private static int unitStartLine(List<String> lines, List<Integer> unitStarts, int unit) {
+        return (unit < unitStarts.size()) ? unitStarts.get(unit) : lines.size();
     }
 
     @Override
@@ -193,56 +193,13 @@ public class CitationParser extends AbstractParser {
 
         // consolidation: if selected, is not done individually for each citation but 
         // in a second stage for all citations
-        if (references != null) {
-            for (LabeledReferenceResult ref : references) {
-                // paranoiac check
-                if (ref == null) 
-                    continue;
-
-                BiblioItem bib = processing(ref.getReferenceText(), 0);
-                if (bib == null) 
-                    continue;
-
-                // check if we have an interesting url annotation over this bib. ref.
-                List<LayoutToken> refTokens = ref.getTokens();
-                if ((refTokens != null) && (refTokens.size() > 0)) {
-                    List<Integer> localPages = new ArrayList<Integer>();
-                    for(LayoutToken token : refTokens) {
-                        if (!localPages.contains(token.getPage())) {
-                            localPages.add(token.getPage());
-                        }
-                    }
-                    for(PDFAnnotation annotation : doc.getPDFAnnotations()) {
-                        if (annotation.getType() != Type.URI) 
-                            continue;
-                        if (!localPages.contains(annotation.getPageNumber()))
-                            continue;
-                        for(LayoutToken token : refTokens) {
-                            if (annotation.cover(token)) {
-                                // annotation covers tokens, let's look at the href
-                                String uri = annotation.getDestination();
-                                // is it a DOI?
-                                Matcher doiMatcher = TextUtilities.DOIPattern.matcher(uri);
-                                if (doiMatcher.find()) { 
-                                    // the BiblioItem setter will take care of the prefix and doi cleaninng 
-                                    bib.setDOI(uri);
-                                }
-                                // TBD: is it something else? 
-                            }
-                        }
-                    }
-                }
-
-                if (!bib.rejectAsReference()) {
-                    BibDataSet bds = new BibDataSet();
-                    bds.setRefSymbol(ref.getLabel());
-                    bds.setResBib(bib);
-                    bib.setReference(ref.getReferenceText());
-                    bds.setRawBib(ref.getReferenceText());
-                    bds.getResBib().setCoordinates(ref.getCoordinates());
-                    results.add(bds);
-                }
-            }
+        // the references are independent, they are labelled concurrently if intra-document
+        // parallelism is enabled, the order of the references being preserved
+        List<BibDataSet> bibDataSets = DocumentStageExecutor.processAll(references,
+            ref -> processingReference(ref, doc));
+        for (BibDataSet bds : bibDataSets) {
+            if (bds != null)
+                results.add(bds);
         }
 
         // consolidate the set
@@ -276,6 +233,62 @@ public class CitationParser extends AbstractParser {
         return results;
     }
 
+    /**
+     * Parse one segmented bibliographical reference of a document, without consolidation.
+     *
+     * @return the parsed reference, or null if the reference is rejected
+     */
+    private BibDataSet processingReference(LabeledReferenceResult ref, Document doc) {
+        // paranoiac check
+        if (ref == null) 
+            return null;
+
+        BiblioItem bib = processing(ref.getReferenceText(), 0);
+        if (bib == null) 
+            return null;
+
+        // check if we have an interesting url annotation over this bib. ref.
+        List<LayoutToken> refTokens = ref.getTokens();
+        if ((refTokens != null) && (refTokens.size() > 0)) {
+            List<Integer> localPages = new ArrayList<Integer>();
+            for(LayoutToken token : refTokens) {
+                if (!localPages.contains(token.getPage())) {
+                    localPages.add(token.getPage());
+                }
+            }
+            for(PDFAnnotation annotation : doc.getPDFAnnotations()) {
+                if (annotation.getType() != Type.URI) 
+                    continue;
+                if (!localPages.contains(annotation.getPageNumber()))
+                    continue;
+                for(LayoutToken token : refTokens) {
+                    if (annotation.cover(token)) {
+                        // annotation covers tokens, let's look at the href
+                        String uri = annotation.getDestination();
+                        // is it a DOI?
+                        Matcher doiMatcher = TextUtilities.DOIPattern.matcher(uri);
+                        if (doiMatcher.find()) { 
+                            // the BiblioItem setter will take care of the prefix and doi cleaninng 
+                            bib.setDOI(uri);
+                        }
+                        // TBD: is it something else? 
+                    }
+                }
+            }
+        }
+
+        if (bib.rejectAsReference()) 
+            return null;
+
+        BibDataSet bds = new BibDataSet();
+        bds.setRefSymbol(ref.getLabel());
+        bds.setResBib(bib);
+        bib.setReference(ref.getReferenceText());
+        bds.setRawBib(ref.getReferenceText());
+        bds.getResBib().setCoordinates(ref.getCoordinates());
+        return bds;
+    }
+
     public List<BibDataSet> processingReferenceSection(File input,
                                                        ReferenceSegmenter referenceSegmenter,
                                                        int consolidate) {
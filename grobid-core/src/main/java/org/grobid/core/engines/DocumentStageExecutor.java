@@ -0,0 +1,228 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.document.ProcessingReport;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.utilities.GrobidProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Execution of the processing stages of one document as a DAG: a stage is started as soon as
+ * the stages it depends on are completed, so that independent stages (e.g. header and
+ * bibliographical references) run concurrently on a pool shared by all the documents.
+ *
+ * Stages must be added after the stages they depend on. If intra-document parallelism is
+ * disabled (grobid.document.nb_threads=0, the default), the stages are simply run when added,
+ * on the calling thread, in the order they were added, and the first failure stops the
+ * execution of the next stages.
+ *
+ * Each stage must only write to its own result objects, the final assembly of the results
+ * (e.g. the TEI serialization) being done after all the stages are completed, so that the
+ * output does not depend on the scheduling.
+ *
+ * The same pool is used to process in parallel the independent items of a stage, e.g. the
+ * bibliographical references of a document (see processAll()), so that the number of threads
+ * used for intra-document parallelism is capped by the pool size, whatever the number of
+ * documents processed at the same time.
+ *
+ * The processing report attached to the thread adding the stages or the items is attached to the
+ * threads of the pool running them (see ProcessingReport).
+ */
+public class DocumentStageExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DocumentStageExecutor.class);
+
+    private static volatile ForkJoinPool pool = null;
+
+    private final ForkJoinPool executor;
+    private final List<Stage<?>> stages = new ArrayList<>();
+
+    // in sequential mode, first failure which stops the execution of the next stages
+    private Throwable failure = null;
+
+    public interface StageTask<T> {
+        T run() throws Exception;
+    }
+
+    public static class Stage<T> {
+        private final String name;
+        private final CompletableFuture<T> future;
+
+        private Stage(String name, CompletableFuture<T> future) {
+            this.name = name;
+            this.future = future;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Result of the stage, to be called only by a depending stage or after the completion of the
+         * executor
+         */
+        public T get() {
+            return future.join();
+        }
+    }
+
+    public DocumentStageExecutor() {
+        this(getPool());
+    }
+
+    /**
+     * @param executor the pool running the stages, null for a sequential execution on the calling thread
+     */
+    public DocumentStageExecutor(ForkJoinPool executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Pool shared by all the documents for intra-document parallelism, null if disabled. Its size is given
+     * by the property grobid.document.nb_threads.
+     */
+    public static ForkJoinPool getPool() {
+        if (pool == null) {
+            synchronized (DocumentStageExecutor.class) {
+                if (pool == null) {
+                    int nbThreads = GrobidProperties.getDocumentNBThreads();
+                    if (nbThreads <= 0)
+                        return null;
+                    LOGGER.info("Intra-document parallel processing with " + nbThreads + " threads");
+                    pool = new ForkJoinPool(nbThreads);
+                }
+            }
+        }
+        return pool;
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Add a stage, which will be run when all the given stages are completed.
+     */
+    public <T> Stage<T> add(String name, StageTask<T> task, Stage<?>... dependencies) {
+        CompletableFuture<T> future;
+        if (executor == null) {
+            future = new CompletableFuture<>();
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                try {
+                    future.complete(task.run());
+                } catch (Exception e) {
+                    failure = e;
+                    future.completeExceptionally(e);
+                }
+            }
+        } else {
+            CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencyFutures[i] = dependencies[i].future;
+            }
+            ProcessingReport report = ProcessingReport.current();
+            future = CompletableFuture.allOf(dependencyFutures).thenApplyAsync(v -> {
+                try (ProcessingReport.Scope scope = ProcessingReport.attach(report)) {
+                    return task.run();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+        Stage<T> stage = new Stage<>(name, future);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Apply the function to all the items, concurrently on the shared pool if intra-document parallelism
+     * is enabled, and give back the results in the order of the items. When called from a stage, the
+     * waiting thread of the pool takes part to the processing of the items.
+     */
+    public static <T, R> List<R> processAll(List<T> items, Function<T, R> function) {
+        return processAll(items, function, getPool());
+    }
+
+    public static <T, R> List<R> processAll(List<T> items, Function<T, R> function, ForkJoinPool executor) {
+        List<R> results = new ArrayList<>(items.size());
+        if (executor == null || items.size() < 2) {
+            for (T item : items) {
+                results.add(function.apply(item));
+            }
+            return results;
+        }
+
+        ProcessingReport report = ProcessingReport.current();
+        List<Callable<R>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(() -> {
+                try (ProcessingReport.Scope scope = ProcessingReport.attach(report)) {
+                    return function.apply(item);
+                }
+            });
+        }
+        List<Future<R>> futures = executor.invokeAll(tasks);
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GrobidException("Interrupted while processing items in parallel", e);
+            } catch (ExecutionException e) {
+                throw toGrobidException(e, "An exception occurred while processing items in parallel");
+            }
+        }
+        return results;
+    }
+
+    private static GrobidException toGrobidException(ExecutionException e, String message) {
+        Throwable cause = e.getCause();
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+            cause = cause.getCause();
+        if (cause instanceof GrobidException)
+            return (GrobidException) cause;
+        return new GrobidException(message, cause);
+    }
+
+    /**
+     * Wait for the completion of all the stages. The exception of the first failing stage, in the order
+     * the stages were added, is thrown.
+     */
+    public void await() {
+        // wait first for all the stages to be completed, successfully or not, before reporting any failure
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[stages.size()];
+        for (int i = 0; i < stages.size(); i++) {
+            futures[i] = stages.get(i).future;
+        }
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while waiting for the document processing stages", e);
+        } catch (ExecutionException e) {
+            // the failing stage is reported below
+        }
+
+        for (Stage<?> stage : stages) {
+            try {
+                stage.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GrobidException("Interrupted while waiting for the stage " + stage.getName(), e);
+            } catch (ExecutionException e) {
+                throw toGrobidException(e, "An exception occurred while running the stage " + stage.getName());
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@
 
 package org.grobid.core.engines;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.io.Files;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -345,7 +346,7 @@ public class Engine implements Closeable {
     public String processHeader(String inputFile, int consolidate, BiblioItem result) {
         GrobidAnalysisConfig config = new GrobidAnalysisConfig.GrobidAnalysisConfigBuilder()
             .startPage(0)
-            .endPage(2)
+            .endPage(GrobidProperties.getHeaderPages())
             .consolidateHeader(consolidate)
             .build();
         return processHeader(inputFile, config, result);
@@ -468,6 +469,67 @@ public class Engine implements Closeable {
         return fullTextToTEIDoc(inputFile, config).getTei();
     }
 
+    /**
+     * Parse and convert the current article into TEI, the TEI being written to the given writer section
+     * by section as it is serialized, e.g. directly to a service response.
+     *
+     * @param inputFile            - absolute path to the pdf to be processed
+     * @param config               - Grobid config
+     * @param teiWriter            - output of the TEI, nothing is written if the document has no content
+     * @return the resulting structured document, without the TEI string
+     */
+    public Document fullTextToTEIDoc(File inputFile,
+                                     GrobidAnalysisConfig config,
+                                     Writer teiWriter) throws Exception {
+        FullTextParser fullTextParser = parsers.getFullTextParser();
+        LOGGER.debug("Starting processing fullTextToTEI on " + inputFile);
+        long time = System.currentTimeMillis();
+        Document resultDoc = fullTextParser.processing(inputFile, config, teiWriter);
+        LOGGER.debug("Ending processing fullTextToTEI on " + inputFile + ". Time to process: "
+			+ (System.currentTimeMillis() - time) + "ms");
+        return resultDoc;
+    }
+
+    /**
+     * Parse the current article and serialize the result as a structured document (see
+     * {@link org.grobid.core.document.JSONFormatter}) with the given generator, e.g. JSON or Smile.
+     *
+     * @param inputFile            - absolute path to the pdf to be processed
+     * @param config               - Grobid config
+     * @param generator            - output of the structured document, nothing is written if the document has no content
+     * @return the resulting structured document, without the TEI string
+     */
+    public Document fullTextToJSON(File inputFile,
+                                   GrobidAnalysisConfig config,
+                                   JsonGenerator generator) throws Exception {
+        FullTextParser fullTextParser = parsers.getFullTextParser();
+        LOGGER.debug("Starting processing fullTextToJSON on " + inputFile);
+        long time = System.currentTimeMillis();
+        Document resultDoc = fullTextParser.processing(inputFile, config, generator);
+        LOGGER.debug("Ending processing fullTextToJSON on " + inputFile + ". Time to process: "
+			+ (System.currentTimeMillis() - time) + "ms");
+        return resultDoc;
+    }
+
+    /**
+     * Parse the current article, without serializing it: the returned result is written afterwards as TEI or
+     * as a structured document, e.g. to a service response once the processing is known to have succeeded.
+     *
+     * @param inputFile            - absolute path to the pdf to be processed
+     * @param config               - Grobid config
+     * @return the results of the full text processing of the document
+     */
+    public FullTextParser.FulltextResult fullTextToResult(File inputFile,
+                                                          GrobidAnalysisConfig config) throws Exception {
+        FullTextParser fullTextParser = parsers.getFullTextParser();
+        LOGGER.debug("Starting processing fullTextToResult on " + inputFile);
+        long time = System.currentTimeMillis();
+        FullTextParser.FulltextResult result = fullTextParser.processingResult(inputFile, config);
+        LOGGER.debug("Ending processing fullTextToResult on " + inputFile + ". Time to process: "
+			+ (System.currentTimeMillis() - time) + "ms");
+        return result;
+    }
+
     public Document fullTextToTEIDoc(File inputFile,
                                      GrobidAnalysisConfig config) throws Exception {
         FullTextParser fullTextParser = parsers.getFullTextParser();
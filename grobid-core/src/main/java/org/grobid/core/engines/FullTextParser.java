@@ -1,10 +1,12 @@
 package org.grobid.core.engines;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Iterables;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.ProxyWriter;
 
 import java.nio.charset.StandardCharsets;
 
@@ -20,9 +22,13 @@ import org.grobid.core.document.Document;
 import org.grobid.core.document.DocumentPiece;
 import org.grobid.core.document.DocumentPointer;
 import org.grobid.core.document.DocumentSource;
+import org.grobid.core.document.JSONFormatter;
+import org.grobid.core.document.MemoryBudget;
+import org.grobid.core.document.ProcessingReport;
 import org.grobid.core.document.TEIFormatter;
 import org.grobid.core.engines.citations.LabeledReferenceResult;
 import org.grobid.core.engines.citations.ReferenceSegmenter;
+import org.grobid.core.engines.DocumentStageExecutor.Stage;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.engines.counters.CitationParserCounters;
 import org.grobid.core.engines.label.SegmentationLabels;
@@ -30,9 +36,12 @@ import org.grobid.core.engines.label.TaggingLabels;
 import org.grobid.core.engines.label.TaggingLabel;
 import org.grobid.core.engines.tagging.GenericTaggerUtils;
 import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.exceptions.GrobidExceptionStatus;
 import org.grobid.core.exceptions.GrobidResourceException;
+import org.grobid.core.features.FeatureBuffers;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorFulltext;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.lang.Language;
 import org.grobid.core.layout.*;
 import org.grobid.core.tokenization.TaggingTokenCluster;
@@ -53,6 +62,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 
 import java.nio.charset.StandardCharsets;
@@ -64,7 +74,8 @@ import java.util.HashMap;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.apache.commons.lang3.StringUtils.*;
 
@@ -107,10 +118,41 @@ public class FullTextParser extends AbstractParser {
 
 	public Document processing(File inputPdf,
 							   GrobidAnalysisConfig config) throws Exception {
-		DocumentSource documentSource = 
-			DocumentSource.fromPdf(inputPdf, config.getStartPage(), config.getEndPage(), 
-				config.getPdfAssetPath() != null, true, false);
-		return processing(documentSource, config);
+		return reported(() -> processingWithBudget(inputPdf, config, 
+			documentSource -> processing(documentSource, config)));
+	}
+
+	/**
+	 * Same as {@link #processing(File, GrobidAnalysisConfig)}, but the TEI is written to the given writer
+	 * section after section instead of being kept as a whole in the returned document.
+	 */
+	public Document processing(File inputPdf,
+							   GrobidAnalysisConfig config,
+							   Writer teiWriter) throws Exception {
+		return reported(() -> processingWithBudget(inputPdf, config, 
+			documentSource -> processing(documentSource, config, teiWriter)));
+	}
+
+	/**
+	 * Same as {@link #processing(File, GrobidAnalysisConfig)}, but the result is serialized with the given
+	 * generator as a structured document instead of TEI.
+	 */
+	public Document processing(File inputPdf,
+							   GrobidAnalysisConfig config,
+							   JsonGenerator generator) throws Exception {
+		return reported(() -> processingWithBudget(inputPdf, config, 
+			documentSource -> processing(documentSource, config, generator)));
+	}
+
+	/**
+	 * Same as {@link #processing(File, GrobidAnalysisConfig)}, but nothing is serialized: the returned result 
+	 * is written afterwards as TEI or as a structured document, e.g. to a service response once the processing 
+	 * of the document is known to have succeeded.
+	 */
+	public FulltextResult processingResult(File inputPdf,
+										   GrobidAnalysisConfig config) throws Exception {
+		return reported(() -> processingWithBudget(inputPdf, config, 
+			documentSource -> processingStages(documentSource, config)));
 	}
 
 	/**
@@ -122,6 +164,199 @@ public class FullTextParser extends AbstractParser {
      */
     public Document processing(DocumentSource documentSource,
                                GrobidAnalysisConfig config) {
+        StringWriter teiWriter = new StringWriter();
+        Document doc = processing(documentSource, config, teiWriter);
+        if (doc.getBlocks() != null)
+            doc.setTei(teiWriter.toString());
+        return doc;
+    }
+
+    /**
+     * Machine-learning recognition of the complete full text structures, the TEI being written to the
+     * given writer. The header, the body, the back sections and the bibliographical references are
+     * serialized one after the other, so that only one section is held in memory at a time, and the
+     * writer is flushed after each of them. Nothing is written if the document has no block.
+     *
+     * @param documentSource input
+     * @param config config
+     * @param teiWriter output of the TEI
+     * @return the document object, without TEI
+     */
+    public Document processing(DocumentSource documentSource,
+                               GrobidAnalysisConfig config,
+                               Writer teiWriter) {
+        return reported(() -> processing(documentSource, config, result -> result.writeTEI(teiWriter)));
+    }
+
+    /**
+     * Machine-learning recognition of the complete full text structures, the result being serialized as
+     * a structured document with the given generator instead of TEI (see {@link JSONFormatter}), e.g. JSON
+     * or a binary Jackson format. Nothing is written if the document has no block.
+     *
+     * @param documentSource input
+     * @param config config
+     * @param generator output of the structured document, flushed at the end
+     * @return the document object, without TEI
+     */
+    public Document processing(DocumentSource documentSource,
+                               GrobidAnalysisConfig config,
+                               JsonGenerator generator) {
+        return reported(() -> processing(documentSource, config, result -> result.writeJSON(generator)));
+    }
+
+    /**
+     * Conversion and processing of a PDF within its heap budget (see MemoryBudget). If the processing of the
+     * document does not fit in the budget, as estimated after its conversion or detected while parsing it, only
+     * the first pages are converted again and processed for the header.
+     */
+    static <T> T processingWithBudget(File inputPdf,
+                                      GrobidAnalysisConfig config,
+                                      Function<DocumentSource, T> processing) {
+        DocumentSource documentSource = 
+            DocumentSource.fromPdf(inputPdf, config.getStartPage(), config.getEndPage(), 
+                config.getPdfAssetPath() != null, true, false);
+        if (documentSource.getDegradation() != MemoryBudget.Degradation.HEADER_ONLY) {
+            try {
+                return processing.apply(documentSource);
+            } catch (GrobidException e) {
+                if (e.getStatus() != GrobidExceptionStatus.MEMORY_BUDGET_EXCEEDED)
+                    throw e;
+                LOGGER.warn("The processing of " + inputPdf + " is degraded to " + 
+                    MemoryBudget.Degradation.HEADER_ONLY + ": " + e.getMessage());
+            }
+        } else {
+            DocumentSource.close(documentSource, true, true, true);
+        }
+        DocumentSource headerSource = 
+            DocumentSource.fromPdf(inputPdf, -1, GrobidProperties.getHeaderPages(), false, true, false);
+        headerSource.setDegradation(MemoryBudget.Degradation.HEADER_ONLY);
+        return processing.apply(headerSource);
+    }
+
+    /**
+     * Processing of a document with a new processing report attached to the current thread, the report
+     * being completed and added to the global counters at the end, successful or not. If a report is already
+     * attached, the processing is part of a larger one which completes this report.
+     */
+    private static <T> T reported(Supplier<T> processing) {
+        if (ProcessingReport.current() != null)
+            return processing.get();
+        ProcessingReport report = new ProcessingReport();
+        try (ProcessingReport.Scope scope = report.attach()) {
+            return processing.get();
+        } finally {
+            report.finish();
+            report.addTo(Engine.getCntManager());
+        }
+    }
+
+    /**
+     * Results of the full text stages of a document, serialized on demand once all the stages are completed
+     */
+    public class FulltextResult {
+        private final Document doc;
+        private final Pair<String, LayoutTokenization> body;
+        private final Pair<String, LayoutTokenization> annex;
+        private final BiblioItem resHeader;
+        private final List<Figure> figures;
+        private final List<Table> tables;
+        private final List<Equation> equations;
+        private final GrobidAnalysisConfig config;
+
+        private FulltextResult(Document doc,
+                               Pair<String, LayoutTokenization> body,
+                               Pair<String, LayoutTokenization> annex,
+                               BiblioItem resHeader,
+                               List<Figure> figures,
+                               List<Table> tables,
+                               List<Equation> equations,
+                               GrobidAnalysisConfig config) {
+            this.doc = doc;
+            this.body = body;
+            this.annex = annex;
+            this.resHeader = resHeader;
+            this.figures = figures;
+            this.tables = tables;
+            this.equations = equations;
+            this.config = config;
+        }
+
+        /**
+         * @return the processed document, without TEI
+         */
+        public Document getDocument() {
+            return doc;
+        }
+
+        /**
+         * @return true if the document has no block, nothing being then serialized
+         */
+        public boolean isEmpty() {
+            return doc.getBlocks() == null;
+        }
+
+        /**
+         * Write the TEI to the given writer, section by section, followed by the processing report if requested
+         */
+        public void writeTEI(Writer teiWriter) throws Exception {
+            final long[] teiChars = {0};
+            Writer countingWriter = new ProxyWriter(teiWriter) {
+                @Override
+                protected void beforeWrite(int n) {
+                    teiChars[0] += n;
+                }
+            };
+            toTEI(doc, // document
+                body == null ? null : body.getLeft(), annex == null ? null : annex.getLeft(), // labeled data for body and annex
+                body == null ? null : body.getRight(), annex == null ? null : annex.getRight().getTokenization(), // tokenization for body and annex
+                resHeader, // header
+                figures, tables, equations,
+                config, countingWriter);
+            ProcessingReport report = doc.getProcessingReport();
+            report.setTeiChars(teiChars[0], Engine.getCntManager());
+            // the report follows the TEI document as a comment, written after the TEI so that it includes its size
+            if (config.isIncludeProcessingReport() && teiChars[0] > 0) {
+                teiWriter.write("\n<!-- processingReport " + report.toJSON().replace("--", "- -") + " -->\n");
+                teiWriter.flush();
+            }
+        }
+
+        /**
+         * Write the structured document with the given generator (see {@link JSONFormatter})
+         */
+        public void writeJSON(JsonGenerator generator) throws Exception {
+            if (isEmpty())
+                return;
+            new JSONFormatter(doc).toJSON(generator, resHeader,
+                body == null ? null : body.getLeft(), body == null ? null : body.getRight(),
+                annex == null ? null : annex.getLeft(), annex == null ? null : annex.getRight().getTokenization(),
+                figures, tables, equations, config);
+        }
+    }
+
+    /**
+     * Final serialization of the results of the full text stages
+     */
+    private interface FulltextSerializer {
+        void serialize(FulltextResult result) throws Exception;
+    }
+
+    private Document processing(DocumentSource documentSource,
+                                GrobidAnalysisConfig config,
+                                FulltextSerializer serializer) {
+        FulltextResult result = processingStages(documentSource, config);
+        try {
+            serializer.serialize(result);
+            return result.getDocument();
+        } catch (GrobidException e) {
+			throw e;
+		} catch (Exception e) {
+            throw new GrobidException("An exception occurred while running Grobid.", e);
+        }
+    }
+
+    private FulltextResult processingStages(DocumentSource documentSource,
+                                            GrobidAnalysisConfig config) {
         if (tmpPath == null) {
             throw new GrobidResourceException("Cannot process pdf file, because temp path is null.");
         }
@@ -132,194 +367,240 @@ public class FullTextParser extends AbstractParser {
         try {
 			// general segmentation
 			Document doc = parsers.getSegmentationParser().processing(documentSource, config);
-			SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(SegmentationLabels.BODY);
+            ProcessingReport report = ProcessingReport.current();
+            report.setDocumentCounts(doc);
+            report.setDegradation(doc.getDegradation());
+            doc.setProcessingReport(report);
 
-            // header processing
-            BiblioItem resHeader = new BiblioItem();
-            Pair<String, LayoutTokenization> featSeg = null;
-            if (GrobidProperties.isHeaderUseHeuristics()) {
-                // heuristics for identifying the header zone, this is the old version of the header block identification, 
-                // still used because more robust than the pure machine learning approach (lack of training data)
-                parsers.getHeaderParser().processingHeaderBlock(config.getConsolidateHeader(), doc, resHeader);
-            }
-            
-            if (isBlank(resHeader.getTitle()) || isBlank(resHeader.getAuthors()) || CollectionUtils.isEmpty(resHeader.getFullAuthors())) {
-                resHeader = new BiblioItem();
-                // using the segmentation model to identify the header zones
-                parsers.getHeaderParser().processingHeaderSection(config.getConsolidateHeader(), doc, resHeader);
-            } else {
-                // if the heuristics method was initially used, we anyway take the abstract derived from the segementation 
-                // model, because this structure is significantly more reliable with this approach
-                BiblioItem resHeader2 = new BiblioItem();
-                parsers.getHeaderParser().processingHeaderSection(0, doc, resHeader2);
-                if (isNotBlank(resHeader2.getAbstract())) {
-                    resHeader.setAbstract(resHeader2.getAbstract());
-                    resHeader.setLayoutTokensForLabel(resHeader2.getLayoutTokens(TaggingLabels.HEADER_ABSTRACT), TaggingLabels.HEADER_ABSTRACT);
-                }
-            }
+            // for the heap budget of the document, only its first pages may have been converted for the header 
+            boolean headerOnly = doc.getDegradation() == MemoryBudget.Degradation.HEADER_ONLY;
 
-            // The commented part below makes use of the PDF embedded metadata (the so-called XMP) if available 
-            // as fall back to set author and title if they have not been found. 
-            // However tests on PMC set 1942 did not improve recognition. This will have to be re-evaluated with
-            // another, more diverse, testing set and with further updates of the header model. 
-            // DO NOT DELETE !
-            /*if (isBlank(resHeader.getTitle()) || isBlank(resHeader.getAuthors()) || CollectionUtils.isEmpty(resHeader.getFullAuthors())) {
-                // try to exploit PDF embedded metadata (the so-called XMP) if we are still without title/authors
-                // this is risky as those metadata are highly unreliable, but as last chance, why not :)
-                Metadata metadata = doc.getMetadata();
-                if (metadata != null) { 
-                    boolean titleUpdated = false;
-                    boolean authorsUpdated = false;
-
-                    if (isNotBlank(metadata.getTitle()) && isBlank(resHeader.getTitle())) {
-                        if (!endsWithAny(lowerCase(metadata.getTitle()), ".doc", ".pdf", ".tex", ".dvi", ".docx", ".odf", ".odt", ".txt")) {
-                            resHeader.setTitle(metadata.getTitle());
-                            titleUpdated = true;
-                        }
-                    }
+            // the following stages only depend on the segmentation and on the stages indicated as dependencies,
+            // they are run concurrently if intra-document parallelism is enabled (see DocumentStageExecutor),
+            // the TEI being built only when all of them are completed
+            DocumentStageExecutor stages = new DocumentStageExecutor();
 
-                    if (isNotBlank(metadata.getAuthor())
-                        && (isBlank(resHeader.getAuthors()) || CollectionUtils.isEmpty(resHeader.getFullAuthors()))) {
-                        resHeader.setAuthors(metadata.getAuthor());
-                        resHeader.setOriginalAuthors(metadata.getAuthor());
-                        authorsUpdated = true;
-                        List<Person> localAuthors = parsers.getAuthorParser().processingHeader(metadata.getAuthor());
-                        if (localAuthors != null) {
-                            for (Person pers : localAuthors) {
-                                resHeader.addFullAuthor(pers);
-                            }
-                        }
-                    }
+            // header processing, including the structuring of the abstract
+            Stage<BiblioItem> headerStage = stages.add("header", () -> processingHeader(doc, config));
 
-                    // if title and author have been updated with embedded PDF metadata, we try to consolidate 
-                    // again as required 
-                    if ( titleUpdated || authorsUpdated ) {
-                        parsers.getHeaderParser().consolidateHeader(resHeader, config.getConsolidateHeader());
-                    }
-                }
-            }*/
-
-            // structure the abstract using the fulltext model
-            if (isNotBlank(resHeader.getAbstract())) {
-                List<LayoutToken> abstractTokens = resHeader.getLayoutTokens(TaggingLabels.HEADER_ABSTRACT);
-                if (CollectionUtils.isNotEmpty(abstractTokens)) {
-                    abstractTokens = BiblioItem.cleanAbstractLayoutTokens(abstractTokens);
-                    Pair<String, List<LayoutToken>> abstractProcessed = processShort(abstractTokens, doc);
-                    if (abstractProcessed != null) {
-                        // neutralize figure and table annotations (will be considered as paragraphs)
-                        String labeledAbstract = abstractProcessed.getLeft();
-                        labeledAbstract = postProcessLabeledAbstract(labeledAbstract);
-                        resHeader.setLabeledAbstract(labeledAbstract);
-                        resHeader.setLayoutTokensForLabel(abstractProcessed.getRight(), TaggingLabels.HEADER_ABSTRACT);
+            // citation processing
+            Stage<List<BibDataSet>> referenceStage = stages.add("references", () -> {
+                if (!headerOnly)
+                    return processingReferences(doc, config);
+                doc.setBibDataSets(new ArrayList<>());
+                return doc.getBibDataSets();
+            });
+
+			// full text processing, the bibliographical references are used for the features of the 
+            // reference callouts
+            Stage<Pair<String, LayoutTokenization>> bodyStage = stages.add("body", 
+                () -> headerOnly ? null : processingBodyParts(doc, doc.getDocumentPart(SegmentationLabels.BODY)), referenceStage);
+
+			// we apply now the figure, table and equation models based on the fulltext labeled output
+            Stage<List<Figure>> figureStage = stages.add("figures", () -> {
+                Pair<String, LayoutTokenization> labeledBody = bodyStage.get();
+                return labeledBody == null ? null : processingFigures(labeledBody.getLeft(), labeledBody.getRight(), doc);
+            }, bodyStage);
+            Stage<List<Table>> tableStage = stages.add("tables", () -> {
+                Pair<String, LayoutTokenization> labeledBody = bodyStage.get();
+                return labeledBody == null ? null : processingTables(labeledBody.getLeft(), labeledBody.getRight(), doc);
+            }, bodyStage);
+            Stage<List<Equation>> equationStage = stages.add("equations", () -> {
+                Pair<String, LayoutTokenization> labeledBody = bodyStage.get();
+                return labeledBody == null ? null : processEquations(labeledBody.getLeft(), labeledBody.getRight().getTokenization(), doc);
+            }, bodyStage);
+
+			// possible annexes (view as a piece of full text similar to the body)
+            Stage<Pair<String, LayoutTokenization>> annexStage = stages.add("annex", 
+                () -> headerOnly ? null : processingBodyParts(doc, doc.getDocumentPart(SegmentationLabels.ANNEX)), referenceStage);
+
+            stages.await();
+
+            // final combination
+            return new FulltextResult(doc, bodyStage.get(), annexStage.get(), headerStage.get(),
+                figureStage.get(), tableStage.get(), equationStage.get(), config);
+        } catch (GrobidException e) {
+			throw e;
+		} catch (Exception e) {
+            throw new GrobidException("An exception occurred while running Grobid.", e);
+        }
+    }
+
+    /**
+     * Header processing, based on the heuristics or on the segmentation model, and structuring
+     * of the abstract with the fulltext model.
+     */
+    private BiblioItem processingHeader(Document doc, GrobidAnalysisConfig config) throws Exception {
+        BiblioItem resHeader = new BiblioItem();
+        if (GrobidProperties.isHeaderUseHeuristics()) {
+            // heuristics for identifying the header zone, this is the old version of the header block identification, 
+            // still used because more robust than the pure machine learning approach (lack of training data)
+            parsers.getHeaderParser().processingHeaderBlock(config.getConsolidateHeader(), doc, resHeader);
+        }
+        
+        if (isBlank(resHeader.getTitle()) || isBlank(resHeader.getAuthors()) || CollectionUtils.isEmpty(resHeader.getFullAuthors())) {
+            resHeader = new BiblioItem();
+            // using the segmentation model to identify the header zones
+            parsers.getHeaderParser().processingHeaderSection(config.getConsolidateHeader(), doc, resHeader);
+        } else {
+            // if the heuristics method was initially used, we anyway take the abstract derived from the segementation 
+            // model, because this structure is significantly more reliable with this approach
+            BiblioItem resHeader2 = new BiblioItem();
+            parsers.getHeaderParser().processingHeaderSection(0, doc, resHeader2);
+            if (isNotBlank(resHeader2.getAbstract())) {
+                resHeader.setAbstract(resHeader2.getAbstract());
+                resHeader.setLayoutTokensForLabel(resHeader2.getLayoutTokens(TaggingLabels.HEADER_ABSTRACT), TaggingLabels.HEADER_ABSTRACT);
+            }
+        }
+
+        // The commented part below makes use of the PDF embedded metadata (the so-called XMP) if available 
+        // as fall back to set author and title if they have not been found. 
+        // However tests on PMC set 1942 did not improve recognition. This will have to be re-evaluated with
+        // another, more diverse, testing set and with further updates of the header model. 
+        // DO NOT DELETE !
+        /*if (isBlank(resHeader.getTitle()) || isBlank(resHeader.getAuthors()) || CollectionUtils.isEmpty(resHeader.getFullAuthors())) {
+            // try to exploit PDF embedded metadata (the so-called XMP) if we are still without title/authors
+            // this is risky as those metadata are highly unreliable, but as last chance, why not :)
+            Metadata metadata = doc.getMetadata();
+            if (metadata != null) { 
+                boolean titleUpdated = false;
+                boolean authorsUpdated = false;
+
+                if (isNotBlank(metadata.getTitle()) && isBlank(resHeader.getTitle())) {
+                    if (!endsWithAny(lowerCase(metadata.getTitle()), ".doc", ".pdf", ".tex", ".dvi", ".docx", ".odf", ".odt", ".txt")) {
+                        resHeader.setTitle(metadata.getTitle());
+                        titleUpdated = true;
                     }
                 }
-            }
 
-            // citation processing
-            // consolidation, if selected, is not done individually for each citation but 
-            // in a second stage for all citations which is much faster
-            List<BibDataSet> resCitations = parsers.getCitationParser().
-                processingReferenceSection(doc, parsers.getReferenceSegmenterParser(), 0);
-
-            // consolidate the set
-            if (config.getConsolidateCitations() != 0) {
-                Consolidation consolidator = Consolidation.getInstance();
-                if (consolidator.getCntManager() == null)
-                    consolidator.setCntManager(Engine.getCntManager());
-                try {
-                    Map<Integer,BiblioItem> resConsolidation = consolidator.consolidate(resCitations);
-                    for(int i=0; i<resCitations.size(); i++) {
-                        BiblioItem resCitation = resCitations.get(i).getResBib();
-                        BiblioItem bibo = resConsolidation.get(i);
-                        if (bibo != null) {
-                            if (config.getConsolidateCitations() == 1)
-                                BiblioItem.correct(resCitation, bibo);
-                            else if (config.getConsolidateCitations() == 2) 
-                                BiblioItem.injectDOI(resCitation, bibo);
+                if (isNotBlank(metadata.getAuthor())
+                    && (isBlank(resHeader.getAuthors()) || CollectionUtils.isEmpty(resHeader.getFullAuthors()))) {
+                    resHeader.setAuthors(metadata.getAuthor());
+                    resHeader.setOriginalAuthors(metadata.getAuthor());
+                    authorsUpdated = true;
+                    List<Person> localAuthors = parsers.getAuthorParser().processingHeader(metadata.getAuthor());
+                    if (localAuthors != null) {
+                        for (Person pers : localAuthors) {
+                            resHeader.addFullAuthor(pers);
                         }
                     }
-                } catch(Exception e) {
-                    throw new GrobidException(
-                    "An exception occured while running consolidation on bibliographical references.", e);
-                } 
-            }
-            doc.setBibDataSets(resCitations);
-
-			// full text processing
-			featSeg = getBodyTextFeatured(doc, documentBodyParts);
-			String rese = null;
-			LayoutTokenization layoutTokenization = null;
-			List<Figure> figures = null;
-			List<Table> tables = null;
-			List<Equation> equations = null;
-			if (featSeg != null) {
-				// if featSeg is null, it usually means that no body segment is found in the
-				// document segmentation
-				String bodytext = featSeg.getLeft();
-				layoutTokenization = featSeg.getRight();
-				//tokenizationsBody = featSeg.getB().getTokenization();
-                //layoutTokensBody = featSeg.getB().getLayoutTokens();
-				if ( (bodytext != null) && (bodytext.trim().length() > 0) ) {				
-					rese = label(bodytext);
-				} else {
-					LOGGER.debug("Fulltext model: The input to the CRF processing is empty");
-				}
+                }
 
-				// we apply now the figure and table models based on the fulltext labeled output
-				figures = processFigures(rese, layoutTokenization.getTokenization(), doc);
-                // further parse the caption
-                for(Figure figure : figures) {
-                    if ((figure.getCaptionLayoutTokens() != null) && (figure.getCaptionLayoutTokens().size() > 0) ) {
-                        Pair<String, List<LayoutToken>> captionProcess = processShort(figure.getCaptionLayoutTokens(), doc);
-                        figure.setLabeledCaption(captionProcess.getLeft());
-                        figure.setCaptionLayoutTokens(captionProcess.getRight());
-                    }
+                // if title and author have been updated with embedded PDF metadata, we try to consolidate 
+                // again as required 
+                if ( titleUpdated || authorsUpdated ) {
+                    parsers.getHeaderParser().consolidateHeader(resHeader, config.getConsolidateHeader());
                 }
+            }
+        }*/
+
+        // structure the abstract using the fulltext model
+        if (isNotBlank(resHeader.getAbstract())) {
+            List<LayoutToken> abstractTokens = resHeader.getLayoutTokens(TaggingLabels.HEADER_ABSTRACT);
+            if (CollectionUtils.isNotEmpty(abstractTokens)) {
+                abstractTokens = BiblioItem.cleanAbstractLayoutTokens(abstractTokens);
+                Pair<String, List<LayoutToken>> abstractProcessed = processShort(abstractTokens, doc);
+                if (abstractProcessed != null) {
+                    // neutralize figure and table annotations (will be considered as paragraphs)
+                    String labeledAbstract = abstractProcessed.getLeft();
+                    labeledAbstract = postProcessLabeledAbstract(labeledAbstract);
+                    resHeader.setLabeledAbstract(labeledAbstract);
+                    resHeader.setLayoutTokensForLabel(abstractProcessed.getRight(), TaggingLabels.HEADER_ABSTRACT);
+                }
+            }
+        }
+        return resHeader;
+    }
 
-				tables = processTables(rese, layoutTokenization.getTokenization(), doc);
-                // further parse the caption
-                for(Table table : tables) {
-                    if ( (table.getCaptionLayoutTokens() != null) && (table.getCaptionLayoutTokens().size() > 0) ) {
-                        Pair<String, List<LayoutToken>> captionProcess = processShort(table.getCaptionLayoutTokens(), doc);
-                        table.setLabeledCaption(captionProcess.getLeft());
-                        table.setCaptionLayoutTokens(captionProcess.getRight());
+    /**
+     * Parsing of the bibliographical reference section, with the consolidation of the
+     * resulting bibliographical references if selected.
+     */
+    private List<BibDataSet> processingReferences(Document doc, GrobidAnalysisConfig config) {
+        // consolidation, if selected, is not done individually for each citation but 
+        // in a second stage for all citations which is much faster
+        List<BibDataSet> resCitations = parsers.getCitationParser().
+            processingReferenceSection(doc, parsers.getReferenceSegmenterParser(), 0);
+
+        // consolidate the set
+        if (config.getConsolidateCitations() != 0) {
+            Consolidation consolidator = Consolidation.getInstance();
+            if (consolidator.getCntManager() == null)
+                consolidator.setCntManager(Engine.getCntManager());
+            try {
+                Map<Integer,BiblioItem> resConsolidation = consolidator.consolidate(resCitations);
+                for(int i=0; i<resCitations.size(); i++) {
+                    BiblioItem resCitation = resCitations.get(i).getResBib();
+                    BiblioItem bibo = resConsolidation.get(i);
+                    if (bibo != null) {
+                        if (config.getConsolidateCitations() == 1)
+                            BiblioItem.correct(resCitation, bibo);
+                        else if (config.getConsolidateCitations() == 2) 
+                            BiblioItem.injectDOI(resCitation, bibo);
                     }
                 }
+            } catch(Exception e) {
+                throw new GrobidException(
+                "An exception occured while running consolidation on bibliographical references.", e);
+            } 
+        }
+        doc.setBibDataSets(resCitations);
+        return resCitations;
+    }
 
-				equations = processEquations(rese, layoutTokenization.getTokenization(), doc);
-			} else {
-				LOGGER.debug("Fulltext model: The featured body is empty");
-			}
-
+    /**
+     * Labeling of body-like document parts (body or annex) with the fulltext model. 
+     * Return null if no such part is found in the document segmentation, otherwise the 
+     * labeled text (null if there is no text to label) and its layout tokenization.
+     */
+    private Pair<String, LayoutTokenization> processingBodyParts(Document doc, SortedSet<DocumentPiece> documentBodyParts) {
+        Pair<String, LayoutTokenization> featSeg = getBodyTextFeatured(doc, documentBodyParts);
+        if (featSeg == null) {
+            // if featSeg is null, it usually means that no body segment is found in the
+            // document segmentation
+            LOGGER.debug("Fulltext model: The featured body is empty");
+            return null;
+        }
+        String bodytext = featSeg.getLeft();
+        String rese = null;
+        if (isNotEmpty(trim(bodytext))) {
+            rese = label(bodytext);
+        } else {
+            LOGGER.debug("Fulltext model: The input to the CRF processing is empty");
+        }
+        return Pair.of(rese, featSeg.getRight());
+    }
 
-			// possible annexes (view as a piece of full text similar to the body)
-			documentBodyParts = doc.getDocumentPart(SegmentationLabels.ANNEX);
-            featSeg = getBodyTextFeatured(doc, documentBodyParts);
-			String rese2 = null;
-			List<LayoutToken> tokenizationsBody2 = null;
-			if (featSeg != null) {
-				// if featSeg is null, it usually means that no body segment is found in the
-				// document segmentation
-				String bodytext = featSeg.getLeft();
-				tokenizationsBody2 = featSeg.getRight().getTokenization();
-				if (isNotEmpty(trim(bodytext))) 
-	            	rese2 = label(bodytext);
-				//System.out.println(rese);
-			}
+    /**
+     * Figure processing based on the fulltext labeled output, with the parsing of the captions.
+     */
+    private List<Figure> processingFigures(String rese, LayoutTokenization layoutTokenization, Document doc) {
+        List<Figure> figures = processFigures(rese, layoutTokenization.getTokenization(), doc);
+        // further parse the caption
+        for(Figure figure : figures) {
+            if ((figure.getCaptionLayoutTokens() != null) && (figure.getCaptionLayoutTokens().size() > 0) ) {
+                Pair<String, List<LayoutToken>> captionProcess = processShort(figure.getCaptionLayoutTokens(), doc);
+                figure.setLabeledCaption(captionProcess.getLeft());
+                figure.setCaptionLayoutTokens(captionProcess.getRight());
+            }
+        }
+        return figures;
+    }
 
-            // final combination
-            toTEI(doc, // document
-				rese, rese2, // labeled data for body and annex
-				layoutTokenization, tokenizationsBody2, // tokenization for body and annex
-				resHeader, // header 
-				figures, tables, equations, 
-				config);
-            return doc;
-        } catch (GrobidException e) {
-			throw e;
-		} catch (Exception e) {
-            throw new GrobidException("An exception occurred while running Grobid.", e);
+    /**
+     * Table processing based on the fulltext labeled output, with the parsing of the captions.
+     */
+    private List<Table> processingTables(String rese, LayoutTokenization layoutTokenization, Document doc) {
+        List<Table> tables = processTables(rese, layoutTokenization.getTokenization(), doc);
+        // further parse the caption
+        for(Table table : tables) {
+            if ( (table.getCaptionLayoutTokens() != null) && (table.getCaptionLayoutTokens().size() > 0) ) {
+                Pair<String, List<LayoutToken>> captionProcess = processShort(table.getCaptionLayoutTokens(), doc);
+                table.setLabeledCaption(captionProcess.getLeft());
+                table.setCaptionLayoutTokens(captionProcess.getRight());
+            }
         }
+        return tables;
     }
 
     /**
@@ -473,7 +754,7 @@ public class FullTextParser extends AbstractParser {
 			return null;
 		}
 		FeatureFactory featureFactory = FeatureFactory.getInstance();
-        StringBuilder fulltext = new StringBuilder();
+        StringBuilder fulltext = FeatureBuffers.acquire();
         String currentFont = null;
         int currentFontSize = -1;
 
@@ -724,8 +1005,7 @@ public class FullTextParser extends AbstractParser {
 		                    	previousFeatures.lineStatus = "LINEEND";
 	                    }
 	                }
-	                Matcher m0 = featureFactory.isPunct.matcher(text);
-	                if (m0.find()) {
+	                if (featureFactory.test_punct(text)) {
 	                    features.punctType = "PUNCT";
 	                }
                     if (text.equals("(") || text.equals("[")) {
@@ -825,20 +1105,20 @@ public class FullTextParser extends AbstractParser {
 	                    features.singleChar = true;
 	                }
 
-	                if (Character.isUpperCase(text.charAt(0))) {
+	                int shape = TokenShape.of(text);
+	                if (TokenShape.isInitCap(shape)) {
 	                    features.capitalisation = "INITCAP";
 	                }
 
-	                if (featureFactory.test_all_capital(text)) {
+	                if (TokenShape.isAllCap(shape)) {
 	                    features.capitalisation = "ALLCAP";
 	                }
 
-	                if (featureFactory.test_digit(text)) {
+	                if (TokenShape.hasDigit(shape)) {
 	                    features.digit = "CONTAINSDIGITS";
 	                }
 
-	                Matcher m = featureFactory.isDigit.matcher(text);
-	                if (m.find()) {
+	                if (TokenShape.isAllAsciiDigits(shape)) {
 	                    features.digit = "ALLDIGIT";
 	                }
 
@@ -920,7 +1200,7 @@ public class FullTextParser extends AbstractParser {
 							previousFeatures.blockStatus = "BLOCKEND";
 							previousFeatures.lineStatus = "LINEEND";
 						}
-                        fulltext.append(previousFeatures.printVector());
+                        previousFeatures.printVector(fulltext);
                     }
 	                n++;
 	                mm += text.length();
@@ -934,11 +1214,12 @@ public class FullTextParser extends AbstractParser {
 			}
         }
         if (previousFeatures != null) {
-            fulltext.append(previousFeatures.printVector());
-
+            previousFeatures.printVector(fulltext);
         }
 
-        return Pair.of(fulltext.toString(),
+        String bodyFeatured = fulltext.toString();
+        FeatureBuffers.release(fulltext);
+        return Pair.of(bodyFeatured,
             new LayoutTokenization(layoutTokens));
 	}
 
@@ -2288,7 +2569,7 @@ public class FullTextParser extends AbstractParser {
 
     /**
      * Create the TEI representation for a document based on the parsed header, references
-     * and body sections.
+     * and body sections, and write it section by section.
      */
     private void toTEI(Document doc,
                        String reseBody,
@@ -2299,7 +2580,8 @@ public class FullTextParser extends AbstractParser {
                        List<Figure> figures,
                        List<Table> tables,
                        List<Equation> equations,
-                       GrobidAnalysisConfig config) {
+                       GrobidAnalysisConfig config,
+                       Writer teiWriter) {
         if (doc.getBlocks() == null) {
             return;
         }
@@ -2308,6 +2590,7 @@ public class FullTextParser extends AbstractParser {
         StringBuilder tei;
         try {
             tei = teiFormatter.toTEIHeader(resHeader, null, resCitations, config);
+            writeSection(tei, teiFormatter, teiWriter);
 
 			//System.out.println(rese);
             //int mode = config.getFulltextProcessingMode();
@@ -2315,6 +2598,7 @@ public class FullTextParser extends AbstractParser {
 					layoutTokenization, figures, tables, equations, doc, config);
 
 			tei.append("\t\t<back>\n");
+            writeSection(tei, teiFormatter, teiWriter);
 
 			// acknowledgement is in the back
 			SortedSet<DocumentPiece> documentAcknowledgementParts =
@@ -2336,6 +2620,7 @@ public class FullTextParser extends AbstractParser {
 
 			tei = teiFormatter.toTEIAnnex(tei, reseAnnex, resHeader, resCitations,
 				tokenizationsAnnex, doc, config);
+            writeSection(tei, teiFormatter, teiWriter);
 
 			tei = teiFormatter.toTEIReferences(tei, resCitations, config);
             doc.calculateTeiIdToBibDataSets();
@@ -2344,10 +2629,10 @@ public class FullTextParser extends AbstractParser {
 
             tei.append("\t</text>\n");
             tei.append("</TEI>\n");
+            writeSection(tei, teiFormatter, teiWriter);
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running Grobid.", e);
         }
-		doc.setTei(tei.toString());
 
 		//TODO: reevaluate
 //		doc.setTei(
@@ -2357,6 +2642,17 @@ public class FullTextParser extends AbstractParser {
 //		);
 	}
 
+    /**
+     * Write a serialized TEI section and empty the buffer for the next one, the citation contexts of the
+     * section being collected first
+     */
+    private static void writeSection(StringBuilder tei, TEIFormatter teiFormatter, Writer teiWriter) throws IOException {
+        teiFormatter.collectCitationContexts();
+        teiWriter.append(tei);
+        teiWriter.flush();
+        tei.setLength(0);
+    }
+
 	private static List<TaggingLabel> inlineFullTextLabels = Arrays.asList(TaggingLabels.CITATION_MARKER, TaggingLabels.TABLE_MARKER, 
                                 TaggingLabels.FIGURE_MARKER, TaggingLabels.EQUATION_LABEL);
 
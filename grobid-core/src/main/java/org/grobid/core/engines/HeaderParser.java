@@ -1,6 +1,7 @@
 package org.grobid.core.engines;
 
 import com.google.common.base.Splitter;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.grobid.core.GrobidModels;
@@ -19,12 +20,15 @@ import org.grobid.core.engines.label.SegmentationLabels;
 import org.grobid.core.engines.label.TaggingLabels;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.exceptions.GrobidExceptionStatus;
+import org.grobid.core.features.FeatureBuffers;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorHeader;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.lang.Language;
 import org.grobid.core.layout.Block;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.utilities.Consolidation;
+import org.grobid.core.utilities.GrobidPatterns;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.LanguageUtilities;
 import org.grobid.core.utilities.LayoutTokensUtil;
@@ -45,7 +49,6 @@ import java.util.List;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Patrice Lopez
@@ -71,13 +74,26 @@ public class HeaderParser extends AbstractParser {
 
     /**
      * Processing with application of the segmentation model
+     *
+     * Only the pages of the config are converted, without annotations, outline and images which are not used
+     * for the header. If the segmentation model finds no header in these pages, the conversion is done again
+     * with grobid.header.retry_pages pages.
      */
     public Pair<String, Document> processing(File input, BiblioItem resHeader, GrobidAnalysisConfig config) {
         DocumentSource documentSource = null;
         try {
-            documentSource = DocumentSource.fromPdf(input, config.getStartPage(), config.getEndPage());
+            documentSource = convertPages(input, config.getStartPage(), config.getEndPage());
             Document doc = parsers.getSegmentationParser().processing(documentSource, config);
 
+            SortedSet<DocumentPiece> documentHeaderParts = doc.getDocumentPart(SegmentationLabels.HEADER);
+            if ((documentHeaderParts == null || documentHeaderParts.isEmpty()) && isHeaderRetry(config)) {
+                LOGGER.debug("No header found in the first " + config.getEndPage() + " pages of " + input + 
+                    ", trying with " + GrobidProperties.getHeaderRetryPages() + " pages");
+                // the temporary files of the first conversion are already removed by the segmentation
+                documentSource = convertPages(input, config.getStartPage(), GrobidProperties.getHeaderRetryPages());
+                doc = parsers.getSegmentationParser().processing(documentSource, config);
+            }
+
             String tei = processingHeaderSection(config.getConsolidateHeader(), doc, resHeader);
             return new ImmutablePair<String, Document>(tei, doc);
         } finally {
@@ -90,14 +106,27 @@ public class HeaderParser extends AbstractParser {
     /**
      * Processing without application of the segmentation model, regex are used to identify the header
      * zone.
+     *
+     * As for processing(), only the pages of the config are converted, with a second attempt on 
+     * grobid.header.retry_pages pages if the heuristics find no header.
      */
     public Pair<String, Document> processing2(String pdfInput, BiblioItem resHeader, GrobidAnalysisConfig config) {
         DocumentSource documentSource = null;
         try {
-            documentSource = DocumentSource.fromPdf(new File(pdfInput), config.getStartPage(), config.getEndPage());
+            documentSource = convertPages(new File(pdfInput), config.getStartPage(), config.getEndPage());
             Document doc = new Document(documentSource);
             doc.addTokenizedDocument(config);
 
+            if (StringUtils.isBlank(doc.getHeader()) && isHeaderRetry(config)) {
+                LOGGER.debug("No header found in the first " + config.getEndPage() + " pages of " + pdfInput + 
+                    ", trying with " + GrobidProperties.getHeaderRetryPages() + " pages");
+                documentSource.close(true, true, true);
+                documentSource = convertPages(new File(pdfInput), config.getStartPage(), 
+                    GrobidProperties.getHeaderRetryPages());
+                doc = new Document(documentSource);
+                doc.addTokenizedDocument(config);
+            }
+
             if (doc.getBlocks() == null) {
                 throw new GrobidException("PDF parsing resulted in empty content");
             }
@@ -113,6 +142,21 @@ public class HeaderParser extends AbstractParser {
         }
     }
 
+    /**
+     * True if a header-only processing on the first pages of a document can be tried again with more pages
+     */
+    private static boolean isHeaderRetry(GrobidAnalysisConfig config) {
+        return (config.getEndPage() > 0) && (GrobidProperties.getHeaderRetryPages() > config.getEndPage());
+    }
+
+    /**
+     * Conversion of the given pages of a PDF, without annotations, outline and images which are not used
+     * for the header
+     */
+    protected DocumentSource convertPages(File input, int startPage, int endPage) {
+        return DocumentSource.fromPdf(input, startPage, endPage, false, false, false);
+    }
+
     /**
      * Header processing after identification of the header blocks with heuristics (old approach)
      */
@@ -179,7 +223,7 @@ public class HeaderParser extends AbstractParser {
                 if (resHeader.getAuthors() != null) {
                     ArrayList<String> auts;
                     authorSegments = resHeader.getAuthors().split("\n");
-                    List<List<LayoutToken>> tokenAuthorSegments = LayoutTokensUtil.split(resHeader.getAuthorsTokens(), Pattern.compile("\n"), false);
+                    List<List<LayoutToken>> tokenAuthorSegments = LayoutTokensUtil.split(resHeader.getAuthorsTokens(), GrobidPatterns.NEWLINE, false);
                     if (authorSegments.length > 1) {
                         fragmentedAuthors = true;
                     }
@@ -523,7 +567,7 @@ public class HeaderParser extends AbstractParser {
                                            SortedSet<DocumentPiece> documentHeaderParts,
                                            boolean withRotation) {
         FeatureFactory featureFactory = FeatureFactory.getInstance();
-        StringBuilder header = new StringBuilder();
+        StringBuilder header = FeatureBuffers.acquire();
         String currentFont = null;
         int currentFontSize = -1;
 
@@ -604,8 +648,7 @@ public class HeaderParser extends AbstractParser {
 
                     if (newline)
                         features.lineStatus = "LINESTART";
-                    Matcher m0 = featureFactory.isPunct.matcher(text);
-                    if (m0.find()) {
+                    if (featureFactory.test_punct(text)) {
                         features.punctType = "PUNCT";
                     }
                     if (text.equals("(") || text.equals("[")) {
@@ -694,15 +737,16 @@ public class HeaderParser extends AbstractParser {
                         features.singleChar = true;
                     }
 
-                    if (Character.isUpperCase(text.charAt(0))) {
+                    int shape = TokenShape.of(text);
+                    if (TokenShape.isInitCap(shape)) {
                         features.capitalisation = "INITCAP";
                     }
 
-                    if (featureFactory.test_all_capital(text)) {
+                    if (TokenShape.isAllCap(shape)) {
                         features.capitalisation = "ALLCAP";
                     }
 
-                    if (featureFactory.test_digit(text)) {
+                    if (TokenShape.hasDigit(shape)) {
                         features.digit = "CONTAINSDIGITS";
                     }
 
@@ -722,13 +766,11 @@ public class HeaderParser extends AbstractParser {
                         features.containDash = true;
                     }
 
-                    Matcher m = featureFactory.isDigit.matcher(text);
-                    if (m.find()) {
+                    if (TokenShape.isAllAsciiDigits(shape)) {
                         features.digit = "ALLDIGIT";
                     }
 
-                    Matcher m2 = featureFactory.year.matcher(text);
-                    if (m2.find()) {
+                    if (featureFactory.test_year(text)) {
                         features.year = true;
                     }
 
@@ -737,8 +779,7 @@ public class HeaderParser extends AbstractParser {
                         features.email = true;
                     }
 
-                    Matcher m4 = featureFactory.http.matcher(text);
-                    if (m4.find()) {
+                    if (featureFactory.test_http(text)) {
                         features.http = true;
                     }
 
@@ -786,14 +827,16 @@ public class HeaderParser extends AbstractParser {
                     if (features.punctType == null)
                         features.punctType = "NOPUNCT";
 
-                    header.append(features.printVector(withRotation));
+                    features.printVector(header, withRotation);
 
                     n++;
                 }
             }
         }
 
-        return Pair.of(header.toString(), headerTokenizations);
+        String headerFeatured = header.toString();
+        FeatureBuffers.release(header);
+        return Pair.of(headerFeatured, headerTokenizations);
     }
 
 
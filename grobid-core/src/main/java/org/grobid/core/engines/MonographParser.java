@@ -14,6 +14,7 @@ import org.grobid.core.exceptions.GrobidResourceException;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorMonograph;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.layout.*;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.LanguageUtilities;
@@ -481,15 +482,16 @@ public class MonographParser extends AbstractParser {
                         features.singleChar = true;
                     }
 
-                    if (Character.isUpperCase(text.charAt(0))) {
+                    int shape = TokenShape.of(text);
+                    if (TokenShape.isInitCap(shape)) {
                         features.capitalisation = "INITCAP";
                     }
 
-                    if (featureFactory.test_all_capital(text)) {
+                    if (TokenShape.isAllCap(shape)) {
                         features.capitalisation = "ALLCAP";
                     }
 
-                    if (featureFactory.test_digit(text)) {
+                    if (TokenShape.hasDigit(shape)) {
                         features.digit = "CONTAINSDIGITS";
                     }
 
@@ -505,13 +507,11 @@ public class MonographParser extends AbstractParser {
                         features.month = true;
                     }
 
-                    Matcher m = featureFactory.isDigit.matcher(text);
-                    if (m.find()) {
+                    if (TokenShape.isAllAsciiDigits(shape)) {
                         features.digit = "ALLDIGIT";
                     }
 
-                    Matcher m2 = featureFactory.year.matcher(text);
-                    if (m2.find()) {
+                    if (featureFactory.test_year(text)) {
                         features.year = true;
                     }
 
@@ -520,8 +520,7 @@ public class MonographParser extends AbstractParser {
                         features.email = true;
                     }
 
-                    Matcher m4 = featureFactory.http.matcher(text);
-                    if (m4.find()) {
+                    if (featureFactory.test_http(text)) {
                         features.http = true;
                     }
 
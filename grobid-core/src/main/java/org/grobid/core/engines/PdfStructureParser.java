@@ -1,8 +1,5 @@
 package org.grobid.core.engines;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.tuple.Pair;
 import org.grobid.core.GrobidModels;
@@ -38,7 +35,10 @@ public class PdfStructureParser {
     private static final Logger LOGGER = LoggerFactory.getLogger(PdfStructureParser.class);
 
     public PdfStructure extractStructure(Engine engine, Document doc) {
-        PdfTextElements elements = new PdfTextElements();
+        // the document tokens are indexed first, so that the elements are built directly in terms of
+        // document token indices
+        PdfTokens tokens = new PdfTokens(doc);
+        PdfTextElements elements = new PdfTextElements(tokens);
 
         processReferences(engine, doc, elements);
         processEquations(doc, elements);
@@ -48,7 +48,6 @@ public class PdfStructureParser {
         processHeader(engine, doc, elements);
 //        processSymbols(doc, elements); // This should be done external to Grobid
 
-        PdfTokens tokens = new PdfTokens(doc);
         PdfStructure structure = new PdfStructure(tokens, elements);
         return structure;
     }
@@ -70,9 +69,9 @@ public class PdfStructureParser {
                 BibDataSet bib = byText.get(ref.getReferenceText());
                 if (bib != null) {
                     String bibItemId = String.valueOf(bib.getResBib().getOrdinal());
-                    elements.addElement("<bibItem>", doc, ref.getTokens())
+                    elements.addElement("<bibItem>", ref.getTokens())
                         .addTag(Tags.ID, bibItemId);
-                    bibliography.addTokens(doc, ref.getTokens());
+                    bibliography.addTokens(elements.getTokens(), ref.getTokens());
                     // Grobid parses the bib-entry with a standalone model,
                     // which is separate from the top-level document model.
                     // This logic recovers the tokens in the document based on
@@ -84,19 +83,22 @@ public class PdfStructureParser {
                             tokensFromBib.addAll(e.getValue());
                         }
                         Collections.sort(tokensFromBib, Comparator.comparingInt(t -> t.getOffset()));
+                        // the bib tokens are aligned in one pass, as both sequences are in reading order,
+                        // and are then found back by their offset in the bib-item with a binary search
+                        int[] bibOffsets = new int[tokensFromBib.size()];
                         int[] positionInDoc = new int[tokensFromBib.size()];
-                        Map<Integer, Integer> offsetToIndex = new HashMap<Integer, Integer>();
                         int docI = 0, bibI = 0;
                         outerloop:
                         while (bibI < tokensFromBib.size()) {
-                            while (!tokensFromDocument.get(docI).getText().equals(tokensFromBib.get(bibI).getText())) {
+                            String bibText = tokensFromBib.get(bibI).getText();
+                            while (!tokensFromDocument.get(docI).getText().equals(bibText)) {
                                 docI++;
                                 if (docI >= tokensFromDocument.size()) {
                                     break outerloop;
                                 }
                             }
+                            bibOffsets[bibI] = tokensFromBib.get(bibI).getOffset();
                             positionInDoc[bibI] = docI;
-                            offsetToIndex.put(tokensFromBib.get(bibI).getOffset(), bibI);
                             bibI++;
                         }
                         if (bibI < tokensFromBib.size()) {
@@ -105,12 +107,12 @@ public class PdfStructureParser {
                             for (Map.Entry<String, List<LayoutToken>> e : bib.getResBib().getLabeledTokens().entrySet()) {
                                 List<LayoutToken> elementTokens = new ArrayList<LayoutToken>();
                                 for (LayoutToken t : e.getValue()) {
-                                    int docIndex = positionInDoc[offsetToIndex.get(t.getOffset())];
+                                    int docIndex = positionInDoc[Arrays.binarySearch(bibOffsets, t.getOffset())];
                                     LayoutToken originalToken = tokensFromDocument.get(docIndex);
                                     elementTokens.add(originalToken);
                                 }
                                 String elementType = "<bibItem_" + e.getKey().substring(1);
-                                elements.addElement(elementType, doc, elementTokens)
+                                elements.addElement(elementType, elementTokens)
                                     .addTag(Tags.ID, bibItemId);
                             }
                         }
@@ -125,7 +127,7 @@ public class PdfStructureParser {
         List<Equation> equations = doc.getEquations();
         if (equations != null) {
             for (Equation eq : equations) {
-                elements.addElement(TaggingLabels.EQUATION.getLabel(), doc, eq.getLayoutTokens())
+                elements.addElement(TaggingLabels.EQUATION.getLabel(), eq.getLayoutTokens())
                     .addTag(Tags.ID, eq.getId());
             }
         }
@@ -136,7 +138,7 @@ public class PdfStructureParser {
         List<Figure> figures = doc.getFigures();
         if (figures != null) {
             for (Figure fig : figures) {
-                elements.addElement(TaggingLabels.FIGURE.getLabel(), doc, fig.getLayoutTokens())
+                elements.addElement(TaggingLabels.FIGURE.getLabel(), fig.getLayoutTokens())
                     .addTag(Tags.ID, fig.getId());
             }
         }
@@ -147,7 +149,7 @@ public class PdfStructureParser {
         List<Table> tables = doc.getTables();
         if (tables != null) {
             for (Table tab : tables) {
-                elements.addElement(TaggingLabels.TABLE.getLabel(), doc, tab.getLayoutTokens())
+                elements.addElement(TaggingLabels.TABLE.getLabel(), tab.getLayoutTokens())
                     .addTag(Tags.ID, tab.getId());
             }
         }
@@ -158,7 +160,7 @@ public class PdfStructureParser {
             BiblioItem resHeader = new BiblioItem();
             engine.getParsers().getHeaderParser().processingHeaderBlock(0, doc, resHeader);
             for (Map.Entry<String, List<LayoutToken>> e : resHeader.getLabeledTokens().entrySet()) {
-                elements.addElement(e.getKey(), doc, e.getValue());
+                elements.addElement(e.getKey(), e.getValue());
             }
 
         } catch (Exception ex) {
@@ -210,12 +212,12 @@ public class PdfStructureParser {
                 if (clusterLabel.equals(TaggingLabels.ITEM)) {
                     // As in bullet item from a list
                     String clusterContent = LayoutTokensUtil.normalizeText(cluster.concatTokens());
-                    addTo(currentParagraph, doc, clusterTokens);
-                    addTo(currentSection, doc, clusterTokens);
+                    addTo(currentParagraph, elements, clusterTokens);
+                    addTo(currentSection, elements, clusterTokens);
                 } else if (clusterLabel.equals(TaggingLabels.SECTION)) {
                     currentSection = new TextElement(TaggingLabels.SECTION.getLabel());
                     elements.add(currentSection);
-                    currentSection.addTokens(doc, clusterTokens);
+                    currentSection.addTokens(elements.getTokens(), clusterTokens);
                 } else if (clusterLabel.equals(TaggingLabels.PARAGRAPH)) {
                     boolean isNewParagraph = currentParagraph == null
                         || !canInterruptParagraph.contains(lastClusterLabel);
@@ -223,8 +225,8 @@ public class PdfStructureParser {
                         currentParagraph = new TextElement(TaggingLabels.PARAGRAPH.getLabel());
                         elements.add(currentParagraph);
                     }
-                    currentParagraph.addTokens(doc, clusterTokens);
-                    addTo(currentSection, doc, clusterTokens);
+                    currentParagraph.addTokens(elements.getTokens(), clusterTokens);
+                    addTo(currentSection, elements, clusterTokens);
                 } else if (clusterLabel.equals(TaggingLabels.CITATION_MARKER)) {
                     // A citation. Find the matching bib-entry
                     boolean foundMatch = false;
@@ -232,7 +234,7 @@ public class PdfStructureParser {
                         List<ReferenceMarkerMatcher.MatchResult> matchResults = doc.getReferenceMarkerMatcher().match(cluster.concatTokens());
                         if (matchResults != null) {
                             for (ReferenceMarkerMatcher.MatchResult matchResult : matchResults) {
-                                TextElement citRef = elements.addElement(clusterLabel.getLabel(), doc, matchResult.getTokens());
+                                TextElement citRef = elements.addElement(clusterLabel.getLabel(), matchResult.getTokens());
                                 foundMatch = true;
                                 if (matchResult.getBibDataSet() != null) {
                                     citRef.addTag(Tags.REF, String.valueOf(matchResult.getBibDataSet().getResBib().getOrdinal()));
@@ -243,7 +245,7 @@ public class PdfStructureParser {
                         LOGGER.warn("Error attempting to match citation reference", e);
                     }
                     if (!foundMatch) {
-                        elements.addElement(clusterLabel.getLabel(), doc, clusterTokens);
+                        elements.addElement(clusterLabel.getLabel(), clusterTokens);
                     }
 
                 } else if (clusterLabel.equals(TaggingLabels.FIGURE_MARKER)) {
@@ -261,12 +263,12 @@ public class PdfStructureParser {
                             }
                         }
                     }
-                    TextElement el = elements.addElement(clusterLabel.getLabel(), doc, clusterTokens);
+                    TextElement el = elements.addElement(clusterLabel.getLabel(), clusterTokens);
                     if (refId != null) {
                         el.addTag(Tags.REF, refId);
                     }
-                    addTo(currentParagraph, doc, clusterTokens);
-                    addTo(currentSection, doc, clusterTokens);
+                    addTo(currentParagraph, elements, clusterTokens);
+                    addTo(currentSection, elements, clusterTokens);
                 } else if (clusterLabel.equals(TaggingLabels.TABLE_MARKER)) {
                     // A reference to a table. Find the matching table
                     String refId = null;
@@ -282,12 +284,12 @@ public class PdfStructureParser {
                             }
                         }
                     }
-                    TextElement el = elements.addElement(clusterLabel.getLabel(), doc, clusterTokens);
+                    TextElement el = elements.addElement(clusterLabel.getLabel(), clusterTokens);
                     if (refId != null) {
                         el.addTag(Tags.REF, refId);
                     }
-                    addTo(currentParagraph, doc, clusterTokens);
-                    addTo(currentSection, doc, clusterTokens);
+                    addTo(currentParagraph, elements, clusterTokens);
+                    addTo(currentSection, elements, clusterTokens);
                 } else if (clusterLabel.equals(TaggingLabels.EQUATION_MARKER)) {
                     // A reference to an equation. Find the matching equation.
                     String refId = null;
@@ -303,12 +305,12 @@ public class PdfStructureParser {
                             }
                         }
                     }
-                    TextElement el = elements.addElement(clusterLabel.getLabel(), doc, clusterTokens);
+                    TextElement el = elements.addElement(clusterLabel.getLabel(), clusterTokens);
                     if (refId != null) {
                         el.addTag(Tags.REF, refId);
                     }
-                    addTo(currentParagraph, doc, clusterTokens);
-                    addTo(currentSection, doc, clusterTokens);
+                    addTo(currentParagraph, elements, clusterTokens);
+                    addTo(currentSection, elements, clusterTokens);
                 } else {
                     LOGGER.debug("Skipping label " + clusterLabel);
                 }
@@ -358,14 +360,14 @@ public class PdfStructureParser {
                 if (index > 0) {
                     font = font.substring(0, index);
                 }
-                elements.addElement("<symbol>", doc, Collections.singletonList(t))
+                elements.addElement("<symbol>", Collections.singletonList(t))
                     .addTag(Tags.ID, font + ":" + t.getText());
             }
     }
 
-    private void addTo(TextElement element, Document doc, List<LayoutToken> tokens) {
+    private void addTo(TextElement element, PdfTextElements elements, List<LayoutToken> tokens) {
         if (element != null) {
-            element.addTokens(doc, tokens);
+            element.addTokens(elements.getTokens(), tokens);
         }
     }
 
@@ -380,8 +382,7 @@ public class PdfStructureParser {
         public PdfStructure(PdfTokens tokens, PdfTextElements elements) {
             this.tokens = tokens;
             this.elements = elements;
-            elements.dehyphenize(tokens);
-            elements.useNonwhitespaceIndices(tokens);
+            elements.resolveSpans(tokens);
         }
 
         public PdfTextElements getElements() {
@@ -415,8 +416,15 @@ public class PdfStructureParser {
      */
     public static class PdfTextElements {
         private Map<String, ArrayList<TextElement>> elementTypes = new HashMap<>();
+        private PdfTokens tokens;
+
+        public PdfTextElements(PdfTokens tokens) {
+            this.tokens = tokens;
+        }
 
-        public PdfTextElements() {
+        // not a bean property, the tokens are serialized with the PdfStructure
+        PdfTokens getTokens() {
+            return tokens;
         }
 
         public void add(TextElement element) {
@@ -426,10 +434,10 @@ public class PdfStructureParser {
             }
         }
 
-        public TextElement addElement(String elementType, Document doc, List<LayoutToken> tokens) {
+        public TextElement addElement(String elementType, List<LayoutToken> tokens) {
             ArrayList<TextElement> elements = elementTypes.computeIfAbsent(elementType, k -> new ArrayList<TextElement>());
             TextElement el = new TextElement(elementType);
-            el.addTokens(doc, tokens);
+            el.addTokens(this.tokens, tokens);
             elements.add(el);
             return el;
         }
@@ -438,12 +446,16 @@ public class PdfStructureParser {
             return elementTypes;
         }
 
-        // Mutate each text element so that the spans refer to token offsets
-        // in the list of non-whitespace tokens,
-        // instead of the list of whitespace-plus-non-whitespace tokens
-        public void useNonwhitespaceIndices(PdfTokens tokens) {
+        // Mutate each text element so that the spans specify dehyphenized text, if appropriate,
+        // and then refer to token offsets in the list of non-whitespace tokens,
+        // instead of the list of whitespace-plus-non-whitespace tokens.
+        // Both are done in a single pass over the elements
+        public void resolveSpans(PdfTokens tokens) {
             for (List<TextElement> els : elementTypes.values()) {
                 for (TextElement el : els) {
+                    if (shouldDehyphenize.contains(el.getType())) {
+                        el.dehyphenize(tokens);
+                    }
                     el.useNonwhitespaceIndices(tokens);
                 }
             }
@@ -454,18 +466,6 @@ public class PdfStructureParser {
             TaggingLabels.ABSTRACT_LABEL,
             "<bibItem_" + TaggingLabels.CITATION_TITLE.getLabel().substring(1));
 
-        // Mutate the text elements to specify dehyphenized text, if appropriate
-        public void dehyphenize(PdfTokens tokens) {
-            for (List<TextElement> els : elementTypes.values()) {
-                for (TextElement el : els) {
-                    if (shouldDehyphenize.contains(el.getType())) {
-                        el.dehyphenize(tokens);
-                    }
-                }
-
-            }
-        }
-
     }
 
     /**
@@ -476,6 +476,7 @@ public class PdfStructureParser {
      * Here, only non-whitespace tokens are retained.
      */
     public static class PdfTokens {
+        private int[] offsets;
         private int[] nonwhitespaceIndex;
         private List<LayoutToken> allTokens;
         private List<LayoutToken> nonwhitespaceTokens;
@@ -487,10 +488,12 @@ public class PdfStructureParser {
             allTokens = doc.getTokenizations();
             nonwhitespaceTokens = new ArrayList<LayoutToken>(allTokens.size() / 2);
 
+            this.offsets = new int[allTokens.size()];
             this.nonwhitespaceIndex = new int[allTokens.size()];
             int originalIndex = 0;
             int nonwhitespaceIndex = -1;
             for (LayoutToken token : allTokens) {
+                offsets[originalIndex] = token.getOffset();
                 if (!isWhitespace(token)) {
                     nonwhitespaceTokens.add(token);
                     nonwhitespaceIndex++;
@@ -502,6 +505,7 @@ public class PdfStructureParser {
             HashMap<TextStyle, String> styleNames = new HashMap<TextStyle, String>();
             int styleCount = 0;
             pages = new ArrayList<PageTokens>();
+            Map<Integer, PageTokens> pagesByNumber = new HashMap<Integer, PageTokens>();
             for (LayoutToken token : nonwhitespaceTokens) {
                 TextStyle style = TextStyle.from(token);
                 String styleName = styleNames.get(style);
@@ -511,18 +515,13 @@ public class PdfStructureParser {
                     styleCount++;
                 }
                 int pageNumber = doc.getBlocks().get(token.getBlockPtr()).getPageNumber();
-                PageTokens page = null;
-                for (PageTokens p : pages) {
-                    if (p.getPage().pageNumber == pageNumber) {
-                        page = p;
-                        break;
-                    }
-                }
+                PageTokens page = pagesByNumber.get(pageNumber);
                 if (page == null) {
                     for (Page p : doc.getPages()) {
                         if (p.getNumber() == pageNumber) {
                             page = new PageTokens(new PdfPage(p.getNumber(), p.getWidth(), p.getHeight()));
                             pages.add(page);
+                            pagesByNumber.put(pageNumber, page);
                             break;
                         }
                     }
@@ -554,6 +553,21 @@ public class PdfStructureParser {
             }
         }
 
+        // Index of the given token in the document tokenization, i.e. the first document token
+        // at or after the offset of the token, as FullTextParser.getDocIndexToken but with a binary
+        // search on the offsets instead of a scan of the block of the token
+        public int indexOf(LayoutToken token) {
+            int index = Arrays.binarySearch(offsets, token.getOffset());
+            if (index < 0) {
+                return -index - 1;
+            }
+            // first of the tokens with the same offset
+            while (index > 0 && offsets[index - 1] == offsets[index]) {
+                index--;
+            }
+            return index;
+        }
+
         // For the given input span, in terms of whitespace-included tokens,
         // Find the corresponding span in terms of non-whitespace tokens
         public Span nonwhitespaceIndices(Span span) {
@@ -783,31 +797,26 @@ public class PdfStructureParser {
             return this;
         }
 
-        public void addTokens(Document doc, List<LayoutToken> tokens) {
-            Iterable<Span> spans = Iterables.transform(tokens,
-                new Function<LayoutToken, Span>() {
-                    @Override
-                    public Span apply(LayoutToken token) {
-                        int index = FullTextParser.getDocIndexToken(doc, token);
-                        return new Span(index, index + 1);
-                    }
-                });
-            List<Span> spanList = Lists.<Span>newArrayList();
-            for (Span span : spans) {
-                if (spanList.isEmpty()) {
-                    spanList.add(span);
+        public void addTokens(PdfTokens pdfTokens, List<LayoutToken> tokens) {
+            // the spans of consecutive tokens are merged as they are computed
+            int left = -1;
+            int right = -1;
+            for (LayoutToken token : tokens) {
+                int index = pdfTokens.indexOf(token);
+                if (left == -1) {
+                    left = index;
+                    right = index + 1;
+                } else if (right >= index) {
+                    right = Math.max(index + 1, right);
                 } else {
-                    int lastIndex = spanList.size() - 1;
-                    Span lastSpan = spanList.get(lastIndex);
-                    if (lastSpan.right >= span.left) {
-                        spanList.set(lastIndex, new Span(lastSpan.left, Math.max(span.right, lastSpan.right)));
-                    } else {
-                        spanList.add(span);
-                    }
+                    this.spans.add(new Span(left, right));
+                    left = index;
+                    right = index + 1;
                 }
-
             }
-            this.spans.addAll(spanList);
+            if (left != -1) {
+                this.spans.add(new Span(left, right));
+            }
         }
 
         public String getType() {
@@ -841,6 +850,10 @@ public class PdfStructureParser {
             spanLoop:
             for (Span span : spans) {
                 List<LayoutToken> originalTokens = tokens.allTokens.subList(span.left, span.right);
+                if (!containsHyphen(originalTokens)) {
+                    // nothing to dehyphenize, the text of the span is unchanged
+                    continue;
+                }
                 List<LayoutToken> dehyphenizedTokens = LayoutTokensUtil.dehyphenize(originalTokens);
                 if (!dehyphenizedTokens.equals(originalTokens)) {
                     List<String> text = new ArrayList<String>();
@@ -882,6 +895,15 @@ public class PdfStructureParser {
                 }
             }
         }
+
+        private static boolean containsHyphen(List<LayoutToken> tokens) {
+            for (LayoutToken token : tokens) {
+                if ("-".equals(token.getText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     public static class Tags {
@@ -7,12 +7,15 @@ import org.grobid.core.data.*;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.exceptions.GrobidResourceException;
 import org.grobid.core.factory.GrobidFactory;
+import org.grobid.core.main.batch.DirectoryBatch;
 import org.grobid.core.main.batch.GrobidMainArgs;
 import org.grobid.core.utilities.IOUtilities;
 import org.grobid.core.utilities.KeyGen;
+import org.grobid.core.visualization.AnnotatedPdf;
 import org.grobid.core.visualization.CitationsVisualizer;
 import org.grobid.core.document.Document;
 import org.grobid.core.document.DocumentSource;
+import org.grobid.core.document.MemoryBudget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,57 +77,11 @@ public class ProcessEngine implements Closeable {
     public void processHeader(final GrobidMainArgs pGbdArgs) throws Exception {
         inferPdfInputPath(pGbdArgs);
         inferOutputPath(pGbdArgs);
-        final File pdfDirectory = new File(pGbdArgs.getPath2Input());
-        File[] files = pdfDirectory.listFiles();
-        if (files == null) {
-            LOGGER.warn("No files in directory: " + pdfDirectory);
-        } else {
-            processHeaderDirectory(files, pGbdArgs, pGbdArgs.getPath2Output());
-        }
-    }
-
-    /**
-     * Process the header recursively or not using pGbdArgs parameters.
-     *
-     * @param files    list of files to be processed
-     * @param pGbdArgs The parameters.
-     * @throws Exception
-     */
-    private void processHeaderDirectory(File[] files, final GrobidMainArgs pGbdArgs, String outputPath) {
-        if (files != null) {
-            boolean recurse = pGbdArgs.isRecursive();
-            String result;
-            for (final File currPdf : files) {
-                try {
-                    if (currPdf.getName().toLowerCase().endsWith(".pdf")) {
-                        result = getEngine().processHeader(currPdf.getAbsolutePath(), 0, null);
-                        File outputPathFile = new File(outputPath);
-                        if (!outputPathFile.exists()) {
-                            outputPathFile.mkdirs();
-                        }
-                        if (currPdf.getName().endsWith(".pdf")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                    + new File(currPdf.getAbsolutePath())
-                                    .getName().replace(".pdf", ".tei.xml"), result.toString());
-                        } else if (currPdf.getName().endsWith(".PDF")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                    + new File(currPdf.getAbsolutePath())
-                                    .getName().replace(".PDF", ".tei.xml"), result.toString());
-                        }
-                    } else if (recurse && currPdf.isDirectory()) {
-                        File[] newFiles = currPdf.listFiles();
-                        if (newFiles != null) {
-                            String newLevel = currPdf.getName();
-                            processHeaderDirectory(newFiles, pGbdArgs, outputPath +
-                                    File.separator + newLevel);
-                        }
-                    }
-                } catch (final Exception exp) {
-                    LOGGER.error("An error occured while processing the file " + currPdf.getAbsolutePath()
-                            + ". Continuing the process for the other files", exp);
-                }
-            }
-        }
+        newDirectoryBatch(pGbdArgs, "processHeader").process(ProcessEngine::newEngine,
+            (engine, currPdf, outputDirectory, index) -> {
+                String result = engine.processHeader(currPdf.getAbsolutePath(), 0, null);
+                IOUtilities.writeInFile(getOutputPath(outputDirectory, currPdf, ".tei.xml"), result);
+            });
     }
 
     /**
@@ -136,78 +93,26 @@ public class ProcessEngine implements Closeable {
     public void processFullText(final GrobidMainArgs pGbdArgs) throws Exception {
         inferPdfInputPath(pGbdArgs);
         inferOutputPath(pGbdArgs);
-        final File pdfDirectory = new File(pGbdArgs.getPath2Input());
-        File[] files = pdfDirectory.listFiles();
-        if (files == null) {
-            LOGGER.warn("No files in directory: " + pdfDirectory);
-        } else {
-            List<String> elementCoordinates = null;
-            if (pGbdArgs.getTeiCoordinates()) {
-                elementCoordinates = Arrays.asList("figure", "persName", "ref", "biblStruct", "formula");
-            }
-            processFullTextDirectory(files, pGbdArgs, pGbdArgs.getPath2Output(), pGbdArgs.getSaveAssets(), elementCoordinates);
-            System.out.println(Engine.getCntManager());
-        }
-    }
-
-    /**
-     * Process the full text recursively or not using pGbdArgs parameters.
-     *
-     * @param files    list of files to be processed
-     * @param pGbdArgs The parameters.
-     * @throws Exception
-     */
-    private void processFullTextDirectory(File[] files,
-                                          final GrobidMainArgs pGbdArgs,
-                                          String outputPath,
-                                          boolean saveAssets,
-                                          List<String> elementCoordinates) {
-        if (files != null) {
-            boolean recurse = pGbdArgs.isRecursive();
-            String result;
-            for (final File currPdf : files) {
-                try {
-                    if (currPdf.getName().toLowerCase().endsWith(".pdf")) {
-                        System.out.println("Processing: " + currPdf.getPath());
-                        GrobidAnalysisConfig config = null;
-                        // path for saving assets
-                        if (saveAssets) {
-                            String baseName = currPdf.getName().replace(".pdf", "").replace(".PDF", "");
-                            String assetPath = outputPath + File.separator + baseName + "_assets";
-                            config = GrobidAnalysisConfig.builder()
-                                    .pdfAssetPath(new File(assetPath))
-                                    .generateTeiCoordinates(elementCoordinates)
-                                    .build();
-                        } else
-                            config = GrobidAnalysisConfig.builder().generateTeiCoordinates(elementCoordinates).build();
-                        result = getEngine().fullTextToTEI(currPdf, config);
-                        File outputPathFile = new File(outputPath);
-                        if (!outputPathFile.exists()) {
-                            outputPathFile.mkdir();
-                        }
-                        if (currPdf.getName().endsWith(".pdf")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                    + new File(currPdf.getAbsolutePath())
-                                    .getName().replace(".pdf", ".tei.xml"), result.toString());
-                        } else if (currPdf.getName().endsWith(".PDF")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                    + new File(currPdf.getAbsolutePath())
-                                    .getName().replace(".PDF", ".tei.xml"), result.toString());
-                        }
-                    } else if (recurse && currPdf.isDirectory()) {
-                        File[] newFiles = currPdf.listFiles();
-                        if (newFiles != null) {
-                            String newLevel = currPdf.getName();
-                            processFullTextDirectory(newFiles, pGbdArgs, outputPath +
-                                    File.separator + newLevel, saveAssets, elementCoordinates);
-                        }
-                    }
-                } catch (final Exception exp) {
-                    LOGGER.error("An error occured while processing the file " + currPdf.getAbsolutePath()
-                            + ". Continuing the process for the other files", exp);
-                }
-            }
-        }
+        final List<String> elementCoordinates = pGbdArgs.getTeiCoordinates() ?
+            Arrays.asList("figure", "persName", "ref", "biblStruct", "formula") : null;
+        final boolean saveAssets = pGbdArgs.getSaveAssets();
+        newDirectoryBatch(pGbdArgs, "processFullText").process(ProcessEngine::newEngine,
+            (engine, currPdf, outputDirectory, index) -> {
+                System.out.println("Processing: " + currPdf.getPath());
+                GrobidAnalysisConfig config = null;
+                // path for saving assets
+                if (saveAssets) {
+                    String assetPath = getOutputPath(outputDirectory, currPdf, "_assets");
+                    config = GrobidAnalysisConfig.builder()
+                            .pdfAssetPath(new File(assetPath))
+                            .generateTeiCoordinates(elementCoordinates)
+                            .build();
+                } else
+                    config = GrobidAnalysisConfig.builder().generateTeiCoordinates(elementCoordinates).build();
+                String result = engine.fullTextToTEI(currPdf, config);
+                IOUtilities.writeInFile(getOutputPath(outputDirectory, currPdf, ".tei.xml"), result);
+            });
+        System.out.println(Engine.getCntManager());
     }
 
     /**
@@ -297,75 +202,59 @@ public class ProcessEngine implements Closeable {
     public void processReferences(final GrobidMainArgs pGbdArgs) throws Exception {
         inferPdfInputPath(pGbdArgs);
         inferOutputPath(pGbdArgs);
-        final File pdfDirectory = new File(pGbdArgs.getPath2Input());
-        File[] files = pdfDirectory.listFiles();
-        if (files == null) {
-            LOGGER.warn("No files in directory: " + pdfDirectory);
-        } else {
-            processReferencesDirectory(files, pGbdArgs, pGbdArgs.getPath2Output());
-        }
+        newDirectoryBatch(pGbdArgs, "processReferences").process(ProcessEngine::newEngine,
+            (engine, currPdf, outputDirectory, id) -> {
+                final List<BibDataSet> results = engine.processReferences(currPdf, 0);
+
+                StringBuilder result = new StringBuilder();
+                // dummy header
+                result.append("<?xml version=\"1.0\" ?>\n<TEI xmlns=\"http://www.tei-c.org/ns/1.0\" " +
+                        "xmlns:xlink=\"http://www.w3.org/1999/xlink\" " +
+                        "\n xmlns:mml=\"http://www.w3.org/1998/Math/MathML\">\n");
+
+                result.append("\t<teiHeader>\n\t\t<fileDesc xml:id=\"f_" + id +
+                        "\"/>\n\t</teiHeader>\n");
+
+                result.append("\t<text>\n\t\t<front/>\n\t\t<body/>\n\t\t<back>\n\t\t\t<listBibl>\n");
+                for (BibDataSet res : results) {
+                    result.append(res.toTEI());
+                    result.append("\n");
+                }
+                result.append("\t\t\t</listBibl>\n\t\t</back>\n\t</text>\n</TEI>\n");
+
+                IOUtilities.writeInFile(getOutputPath(outputDirectory, currPdf, ".references.tei.xml"),
+                        result.toString());
+            });
     }
 
     /**
-     * Process the references recursively or not using pGbdArgs parameters.
+     * Batch of the PDF files of the input directory, recursively or not, on the number of threads
+     * given in pGbdArgs parameters.
      *
-     * @param files    list of files to be processed
      * @param pGbdArgs The parameters.
+     * @param name     name of the batch command, used for the checkpoint manifest.
      */
-    private void processReferencesDirectory(File[] files, final GrobidMainArgs pGbdArgs, String outputPath) {
-        if (files != null) {
-            boolean recurse = pGbdArgs.isRecursive();
-            int id = 0;
-            for (final File currPdf : files) {
-                try {
-                    if (currPdf.getName().toLowerCase().endsWith(".pdf")) {
-                        final List<BibDataSet> results =
-                                getEngine().processReferences(currPdf, 0);
-                        File outputPathFile = new File(outputPath);
-                        if (!outputPathFile.exists()) {
-                            outputPathFile.mkdir();
-                        }
-
-                        StringBuilder result = new StringBuilder();
-                        // dummy header
-                        result.append("<?xml version=\"1.0\" ?>\n<TEI xmlns=\"http://www.tei-c.org/ns/1.0\" " +
-                                "xmlns:xlink=\"http://www.w3.org/1999/xlink\" " +
-                                "\n xmlns:mml=\"http://www.w3.org/1998/Math/MathML\">\n");
-
-                        result.append("\t<teiHeader>\n\t\t<fileDesc xml:id=\"f_" + id +
-                                "\"/>\n\t</teiHeader>\n");
-
-                        result.append("\t<text>\n\t\t<front/>\n\t\t<body/>\n\t\t<back>\n\t\t\t<listBibl>\n");
-                        for (BibDataSet res : results) {
-                            result.append(res.toTEI());
-                            result.append("\n");
-                        }
-                        result.append("\t\t\t</listBibl>\n\t\t</back>\n\t</text>\n</TEI>\n");
-
-                        if (currPdf.getName().endsWith(".pdf")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                            + new File(currPdf.getAbsolutePath()).getName().replace(".pdf", ".references.tei.xml"),
-                                    result.toString());
-                        } else if (currPdf.getName().endsWith(".PDF")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                            + new File(currPdf.getAbsolutePath()).getName().replace(".PDF", ".references.tei.xml"),
-                                    result.toString());
-                        }
-                    } else if (recurse && currPdf.isDirectory()) {
-                        File[] newFiles = currPdf.listFiles();
-                        if (newFiles != null) {
-                            String newLevel = currPdf.getName();
-                            processReferencesDirectory(newFiles, pGbdArgs, outputPath +
-                                    File.separator + newLevel);
-                        }
-                    }
-                } catch (final Exception exp) {
-                    LOGGER.error("An error occured while processing the file " + currPdf.getAbsolutePath()
-                            + ". Continuing the process for the other files", exp);
-                }
-                id++;
-            }
-        }
+    private static DirectoryBatch<Engine> newDirectoryBatch(final GrobidMainArgs pGbdArgs, String name) {
+        // the heap is shared by the documents processed by the threads of the batch
+        MemoryBudget.setConcurrency(pGbdArgs.getNbThreads());
+        return new DirectoryBatch<>(new File(pGbdArgs.getPath2Input()), new File(pGbdArgs.getPath2Output()),
+            pGbdArgs.isRecursive(), pGbdArgs.getNbThreads(), name);
+    }
+
+    /**
+     * @return a new engine for a worker thread of a batch.
+     */
+    private static Engine newEngine() {
+        return GrobidFactory.getInstance().createEngine();
+    }
+
+    /**
+     * @return the path of an output file for a PDF file, its name being the name of the PDF file
+     * with the extension replaced.
+     */
+    private static String getOutputPath(File outputDirectory, File pdf, String extension) {
+        String name = pdf.getName();
+        return outputDirectory.getPath() + File.separator + name.substring(0, name.length() - ".pdf".length()) + extension;
     }
 
     /**
@@ -572,7 +461,7 @@ public class ProcessEngine implements Closeable {
                             .build();
 
                     Document teiDoc = getEngine().fullTextToTEIDoc(currPDF, config);
-                    document = PDDocument.load(currPDF);
+                    document = PDDocument.load(currPDF, AnnotatedPdf.getMemoryUsageSetting());
                     //If no pages, skip the document
                     if (document.getNumberOfPages() > 0) {
                         DocumentSource documentSource = teiDoc.getDocumentSource();
@@ -12,8 +12,10 @@ import org.grobid.core.engines.citations.ReferenceSegmenter;
 import org.grobid.core.engines.label.SegmentationLabels;
 import org.grobid.core.engines.tagging.GenericTaggerUtils;
 import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.features.FeatureBuffers;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorReferenceSegmenter;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.layout.Block;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.tokenization.LabeledTokensContainer;
@@ -426,7 +428,7 @@ public class ReferenceSegmenterParser extends AbstractParser implements Referenc
 			return null;
 		}
 
-		StringBuilder citations = new StringBuilder();
+		StringBuilder citations = FeatureBuffers.acquire();
         boolean newline;
 //        String currentFont = null;
 //        int currentFontSize = -1;
@@ -603,8 +605,7 @@ System.out.println("");
                 if (newline) {
                     features.lineStatus = "LINESTART";
                 }
-                Matcher m0 = featureFactory.isPunct.matcher(text);
-                if (m0.find()) {
+                if (featureFactory.test_punct(text)) {
                     features.punctType = "PUNCT";
                 }
                 if (text.equals("(") || text.equals("[")) {
@@ -711,15 +712,16 @@ System.out.println("");
                     features.singleChar = true;
                 }
 
-                if (Character.isUpperCase(text.charAt(0))) {
+                int shape = TokenShape.of(text);
+                if (TokenShape.isInitCap(shape)) {
                     features.capitalisation = "INITCAP";
                 }
 
-                if (featureFactory.test_all_capital(text)) {
+                if (TokenShape.isAllCap(shape)) {
                     features.capitalisation = "ALLCAP";
                 }
 
-                if (featureFactory.test_digit(text)) {
+                if (TokenShape.hasDigit(shape)) {
                     features.digit = "CONTAINSDIGITS";
                 }
 
@@ -735,13 +737,11 @@ System.out.println("");
                     features.month = true;
                 }
 
-                Matcher m = featureFactory.isDigit.matcher(text);
-                if (m.find()) {
+                if (TokenShape.isAllAsciiDigits(shape)) {
                     features.digit = "ALLDIGIT";
                 }
 
-                Matcher m2 = featureFactory.year.matcher(text);
-                if (m2.find()) {
+                if (featureFactory.test_year(text)) {
                     features.year = true;
                 }
 
@@ -750,8 +750,7 @@ System.out.println("");
                     features.email = true;
                 }
 
-                Matcher m4 = featureFactory.http.matcher(text);
-                if (m4.find()) {
+                if (featureFactory.test_http(text)) {
                     features.http = true;
                 }
 
@@ -779,14 +778,16 @@ System.out.println("");
 				features.punctuationProfile = currentLineProfile;
 
                 if (previousFeatures != null)
-                    citations.append(previousFeatures.printVector());
+                    previousFeatures.printVector(citations);
                 //mm++;
                 previousFeatures = features;
 			}
 		}
 		if (previousFeatures != null)
-	      	citations.append(previousFeatures.printVector());
+	      	previousFeatures.printVector(citations);
 
-	   	return Pair.of(citations.toString(), tokenizationsReferences);
+		String citationsFeatured = citations.toString();
+		FeatureBuffers.release(citations);
+	   	return Pair.of(citationsFeatured, tokenizationsReferences);
 	}
 }
@@ -6,12 +6,17 @@ import org.grobid.core.GrobidModels;
 import org.grobid.core.document.BasicStructureBuilder;
 import org.grobid.core.document.Document;
 import org.grobid.core.document.DocumentSource;
+import org.grobid.core.document.MemoryBudget;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.exceptions.GrobidExceptionStatus;
+import org.grobid.core.features.FeatureBuffers;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorSegmentation;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.layout.*;
+import org.grobid.core.sax.PDFALTOSaxHandler;
+import org.grobid.core.utilities.GrobidPatterns;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.LanguageUtilities;
 import org.grobid.core.utilities.TextUtilities;
@@ -22,6 +27,8 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 
 import static org.apache.commons.lang3.StringUtils.*;
@@ -91,8 +98,19 @@ public class Segmentation extends AbstractParser {
             Document doc = new Document(documentSource);
             if (config.getAnalyzer() != null)
                 doc.setAnalyzer(config.getAnalyzer());
-            doc.addTokenizedDocument(config);
-            doc = prepareDocument(doc);
+            Map<Integer, CompletableFuture<List<List<LineFeatures>>>> pagesLineFeatures = null;
+            ForkJoinPool pool = DocumentStageExecutor.getPool();
+            if (pool != null) {
+                // the line features of each page are computed as soon as the page is parsed, 
+                // while the next pages are still being parsed
+                Map<Integer, CompletableFuture<List<List<LineFeatures>>>> futures = new HashMap<>();
+                doc.addTokenizedDocument(config, page -> 
+                    futures.put(page.getNumber(), CompletableFuture.supplyAsync(() -> getPageLineFeatures(page), pool)));
+                pagesLineFeatures = futures;
+            } else {
+                doc.addTokenizedDocument(config);
+            }
+            doc = prepareDocument(doc, pagesLineFeatures);
 
             // if assets is true, the images are still there under directory pathXML+"_data"
             // we copy them to the assetPath directory
@@ -120,6 +138,13 @@ public class Segmentation extends AbstractParser {
     }
 
     public Document prepareDocument(Document doc) {
+        return prepareDocument(doc, null);
+    }
+
+    /**
+     * @param pagesLineFeatures line features of the pages already computed, by page number, possibly null
+     */
+    private Document prepareDocument(Document doc, Map<Integer, CompletableFuture<List<List<LineFeatures>>>> pagesLineFeatures) {
 
         List<LayoutToken> tokenizations = doc.getTokenizations();
         if (tokenizations.size() > GrobidProperties.getPdfTokensMax()) {
@@ -128,16 +153,51 @@ public class Segmentation extends AbstractParser {
         }
 
         doc.produceStatistics();
-        String content = getAllLinesFeatured(doc);
+        List<Integer> pageStartLines = new ArrayList<>();
+        String content = getAllLinesFeatured(doc, pageStartLines, pagesLineFeatures);
         if (isNotEmpty(trim(content))) {
-            String labelledResult = label(content);
+            String labelledResult;
+            int shardPages = getShardPages(doc);
+            if (shardPages > 0 && pageStartLines.size() > shardPages) {
+                // long document, labelled by shards of pages
+                List<String> lines = Arrays.asList(content.split("\n"));
+                labelledResult = labelByShards(lines, pageStartLines, shardPages, GrobidProperties.getPdfShardOverlap());
+            } else {
+                labelledResult = label(content);
+            }
             // set the different sections of the Document object
             doc = BasicStructureBuilder.generalResultSegmentation(doc, labelledResult, tokenizations);
         }
         return doc;
     }
 
+    /**
+     * Number of pages per shard for labelling the document by shards of pages, 0 if it is labelled at once.
+     * Besides the configured sharding of long documents, a document is labelled by shards when its processing
+     * is degraded for its heap budget, and when it has more blocks than grobid.pdf.blocks.max, with shards
+     * having about half of this number of blocks.
+     */
+    private static int getShardPages(Document doc) {
+        if (doc.getPages() == null || doc.getBlocks() == null)
+            return 0;
+        int nbPages = doc.getPages().size();
+        int shardPages = GrobidProperties.getPdfShardPages();
+        if (shardPages <= 0 && doc.getDegradation().compareTo(MemoryBudget.Degradation.SHARDED) >= 0)
+            shardPages = MemoryBudget.getShardPages();
+        int nbBlocks = doc.getBlocks().size();
+        int blocksMax = GrobidProperties.getPdfBlocksMax();
+        if (nbBlocks > blocksMax) {
+            int pages = (int) Math.max(1, (long) nbPages * blocksMax / (2L * nbBlocks));
+            shardPages = (shardPages > 0) ? Math.min(shardPages, pages) : pages;
+        }
+        return (shardPages > 0 && nbPages > shardPages) ? shardPages : 0;
+    }
+
     private void dealWithImages(DocumentSource documentSource, Document doc, File assetFile, GrobidAnalysisConfig config) {
+        if (doc.getDegradation().compareTo(MemoryBudget.Degradation.NO_GRAPHICS) >= 0) {
+            LOGGER.warn("The image assets of " + documentSource.getPdfFile() + " are not extracted for its heap budget");
+            return;
+        }
         if (assetFile != null) {
             // copy the files under the directory pathXML+"_data" (the asset files) into the path specified by assetPath
 
@@ -236,6 +296,16 @@ public class Segmentation extends AbstractParser {
      * Regarding layout features: font, size and style are the one associated to the first token of the line.
      */
     public String getAllLinesFeatured(Document doc) {
+        return getAllLinesFeatured(doc, null, null);
+    }
+
+    /**
+     * @param pageStartLines    if not null, filled with the index of the first feature line of each page
+     *                          having some lines
+     * @param pagesLineFeatures line features of the pages already computed, by page number, possibly null
+     */
+    private String getAllLinesFeatured(Document doc, List<Integer> pageStartLines, 
+                                       Map<Integer, CompletableFuture<List<List<LineFeatures>>>> pagesLineFeatures) {
 
         List<Block> blocks = doc.getBlocks();
         if ((blocks == null) || blocks.size() == 0) {
@@ -243,7 +313,22 @@ public class Segmentation extends AbstractParser {
         }
 
         //guaranteeing quality of service. Otherwise, there are some PDF that may contain 300k blocks and thousands of extracted "images" that ruins the performance
-        if (blocks.size() > GrobidProperties.getPdfBlocksMax()) {
+        int shardPages = getShardPages(doc);
+        if (shardPages > 0) {
+            // the document is labelled by shards of pages, the limit applies to each shard
+            for (int start = 0; start < doc.getPages().size(); start += shardPages) {
+                int end = Math.min(start + shardPages, doc.getPages().size());
+                int nbBlocks = 0;
+                for (Page page : doc.getPages().subList(start, end)) {
+                    if (page.getBlocks() != null)
+                        nbBlocks += page.getBlocks().size();
+                }
+                if (nbBlocks > GrobidProperties.getPdfBlocksMax()) {
+                    throw new GrobidException("Postprocessed document is too big, contains: " + nbBlocks + 
+                        " blocks in pages " + (start + 1) + "-" + end, GrobidExceptionStatus.TOO_MANY_BLOCKS);
+                }
+            }
+        } else if (blocks.size() > GrobidProperties.getPdfBlocksMax()) {
             throw new GrobidException("Postprocessed document is too big, contains: " + blocks.size(), GrobidExceptionStatus.TOO_MANY_BLOCKS);
         }
 
@@ -255,27 +340,32 @@ public class Segmentation extends AbstractParser {
         Map<String, Integer> patterns = new TreeMap<String, Integer>();
         Map<String, Boolean> firstTimePattern = new TreeMap<String, Boolean>();
 
+        List<List<List<LineFeatures>>> linesFeatures = new ArrayList<>();
         for (Page page : doc.getPages()) {
+            List<List<LineFeatures>> pageLineFeatures = null;
+            CompletableFuture<List<List<LineFeatures>>> future = 
+                (pagesLineFeatures == null) ? null : pagesLineFeatures.get(page.getNumber());
+            if (future != null)
+                pageLineFeatures = future.join();
+            else
+                pageLineFeatures = getPageLineFeatures(page);
+            linesFeatures.add(pageLineFeatures);
+
             // we just look at the two first and last blocks of the page
             if ((page.getBlocks() != null) && (page.getBlocks().size() > 0)) {
                 for(int blockIndex=0; blockIndex < page.getBlocks().size(); blockIndex++) {
                     if ( (blockIndex < 2) || (blockIndex > page.getBlocks().size()-2)) {
-                        Block block = page.getBlocks().get(blockIndex);
-                        String localText = block.getText();
-                        if ((localText != null) && (localText.length() > 0)) {
-                            String[] lines = localText.split("[\\n\\r]");
-                            if (lines.length > 0) {
-                                String line = lines[0];
-                                String pattern = featureFactory.getPattern(line);
-                                if (pattern.length() > 8) {
-                                    Integer nb = patterns.get(pattern);
-                                    if (nb == null) {
-                                        patterns.put(pattern, Integer.valueOf(1));
-                                        firstTimePattern.put(pattern, false);
-                                    }
-                                    else
-                                        patterns.put(pattern, Integer.valueOf(nb+1));
+                        List<LineFeatures> blockLineFeatures = pageLineFeatures.get(blockIndex);
+                        if (blockLineFeatures.size() > 0) {
+                            String pattern = blockLineFeatures.get(0).pattern;
+                            if (pattern.length() > 8) {
+                                Integer nb = patterns.get(pattern);
+                                if (nb == null) {
+                                    patterns.put(pattern, Integer.valueOf(1));
+                                    firstTimePattern.put(pattern, false);
                                 }
+                                else
+                                    patterns.put(pattern, Integer.valueOf(nb+1));
                             }
                         }
                     }
@@ -284,14 +374,157 @@ public class Segmentation extends AbstractParser {
         }
 
         String featuresAsString = getFeatureVectorsAsString(doc,
-                patterns, firstTimePattern);
+                patterns, firstTimePattern, pageStartLines, linesFeatures);
 
         return featuresAsString;
     }
 
+    /**
+     * Features of a line of a block which only depend on the line and its block, so that they can be
+     * computed independently for each page, for instance as soon as the page is parsed.
+     */
+    private static class LineFeatures {
+        String line;
+        // pattern of the line, only for the two first and last blocks of the page
+        String pattern = null;
+        // first token of the line, null if the line is ignored
+        String text = null;
+        String secondText = null;
+        int lineLength;
+        String punctuationProfile;
+        boolean singleChar = false;
+        String capitalisation = null;
+        String digit = null;
+        boolean commonName = false;
+        boolean properName = false;
+        boolean month = false;
+        boolean year = false;
+        boolean email = false;
+        boolean http = false;
+    }
+
+    /**
+     * Line features of each block of the page, in the order of the blocks of the page.
+     */
+    private List<List<LineFeatures>> getPageLineFeatures(Page page) {
+        List<List<LineFeatures>> pageLineFeatures = new ArrayList<>();
+        if (page.getBlocks() == null)
+            return pageLineFeatures;
+        for(int blockIndex=0; blockIndex < page.getBlocks().size(); blockIndex++) {
+            boolean withPattern = (blockIndex < 2) || (blockIndex > page.getBlocks().size()-2);
+            pageLineFeatures.add(getBlockLineFeatures(page.getBlocks().get(blockIndex), withPattern));
+        }
+        return pageLineFeatures;
+    }
+
+    private List<LineFeatures> getBlockLineFeatures(Block block, boolean withPattern) {
+        List<LineFeatures> blockLineFeatures = new ArrayList<>();
+        String localText = block.getText();
+        if (localText == null)
+            return blockLineFeatures;
+
+        String[] lines = GrobidPatterns.splitLines(localText);
+        // set the max length of the lines in the block, in number of characters
+        int maxLineLength = 0;
+        for(int p=0; p<lines.length; p++) {
+            if (lines[p].length() > maxLineLength) 
+                maxLineLength = lines[p].length();
+        }
+
+        for (String line : lines) {
+            LineFeatures lineFeatures = new LineFeatures();
+            lineFeatures.line = line;
+            blockLineFeatures.add(lineFeatures);
+            if (withPattern)
+                lineFeatures.pattern = featureFactory.getPattern(line);
+
+            // we consider the first token of the line as usual lexical CRF token
+            // and the second token of the line as feature
+            StringTokenizer st2 = new StringTokenizer(line, " \t");
+            // alternatively, use a grobid analyser
+            String text = null;
+            String text2 = null;
+            if (st2.hasMoreTokens())
+                text = st2.nextToken();
+            if (st2.hasMoreTokens())
+                text2 = st2.nextToken();
+
+            if (text == null)
+                continue;
+
+            // final sanitisation and filtering
+            text = replaceChars(text, " \n", "");
+            text = text.trim();
+
+            if ( (text.length() == 0) ||
+//                    (text.equals("\n")) ||
+//                    (text.equals("\r")) ||
+//                    (text.equals("\n\r")) ||
+                    (TextUtilities.filterLine(line))) {
+                continue;
+            }
+
+            lineFeatures.text = text;
+            lineFeatures.secondText = text2;
+            //lineFeatures.lineLength = line.length() / LINESCALE;
+            lineFeatures.lineLength = featureFactory
+                    .linearScaling(line.length(), maxLineLength, LINESCALE);
+            lineFeatures.punctuationProfile = TextUtilities.punctuationProfile(line);
+
+            if (text.length() == 1) {
+                lineFeatures.singleChar = true;
+            }
+
+            int shape = TokenShape.of(text);
+            if (TokenShape.isInitCap(shape)) {
+                lineFeatures.capitalisation = "INITCAP";
+            }
+
+            if (TokenShape.isAllCap(shape)) {
+                lineFeatures.capitalisation = "ALLCAP";
+            }
+
+            if (TokenShape.hasDigit(shape)) {
+                lineFeatures.digit = "CONTAINSDIGITS";
+            }
+
+            if (featureFactory.test_common(text)) {
+                lineFeatures.commonName = true;
+            }
+
+            if (featureFactory.test_names(text)) {
+                lineFeatures.properName = true;
+            }
+
+            if (featureFactory.test_month(text)) {
+                lineFeatures.month = true;
+            }
+
+            if (TokenShape.isAllAsciiDigits(shape)) {
+                lineFeatures.digit = "ALLDIGIT";
+            }
+
+            if (featureFactory.test_year(text)) {
+                lineFeatures.year = true;
+            }
+
+            Matcher m3 = featureFactory.email.matcher(text);
+            if (m3.find()) {
+                lineFeatures.email = true;
+            }
+
+            if (featureFactory.test_http(text)) {
+                lineFeatures.http = true;
+            }
+        }
+        return blockLineFeatures;
+    }
+
     private String getFeatureVectorsAsString(Document doc, Map<String, Integer> patterns,
-                                     Map<String, Boolean> firstTimePattern) {
-        StringBuilder fulltext = new StringBuilder();
+                                     Map<String, Boolean> firstTimePattern, List<Integer> pageStartLines, 
+                                     List<List<List<LineFeatures>>> linesFeatures) {
+        StringBuilder fulltext = FeatureBuffers.acquire();
+        int nbLines = 0; // number of feature lines
         int documentLength = doc.getDocumentLenghtChar();
 
         String currentFont = null;
@@ -308,7 +541,9 @@ public class Segmentation extends AbstractParser {
         FeaturesVectorSegmentation features;
         FeaturesVectorSegmentation previousFeatures = null;
 
+        Iterator<List<List<LineFeatures>>> pagesLineFeatures = linesFeatures.iterator();
         for (Page page : doc.getPages()) {
+            List<List<LineFeatures>> pageLineFeatures = pagesLineFeatures.next();
             pageHeight = page.getHeight();
             newPage = true;
             double spacingPreviousBlock = 0.0; // discretized
@@ -382,19 +617,14 @@ public class Segmentation extends AbstractParser {
                 if (pageBoundingBox == null || (!pageBoundingBox.contains(blockBoundingBox) && !pageBoundingBox.intersect(blockBoundingBox)))
                     inPageMainArea = false;
 
-                String[] lines = localText.split("[\\n\\r]");
-    			// set the max length of the lines in the block, in number of characters
-    			int maxLineLength = 0;
-    			for(int p=0; p<lines.length; p++) {
-    				if (lines[p].length() > maxLineLength) 
-    					maxLineLength = lines[p].length();
-    			}
+                List<LineFeatures> blockLineFeatures = pageLineFeatures.get(blockIndex);
                 List<LayoutToken> tokens = block.getTokens();
                 if ((tokens == null) || (tokens.size() == 0)) {
                     continue;
                 }
-                for (int li = 0; li < lines.length; li++) {
-                    String line = lines[li];
+                for (int li = 0; li < blockLineFeatures.size(); li++) {
+                    LineFeatures lineFeatures = blockLineFeatures.get(li);
+                    String line = lineFeatures.line;
                     /*boolean firstPageBlock = false;
                     boolean lastPageBlock = false;
 
@@ -416,7 +646,7 @@ public class Segmentation extends AbstractParser {
                     features.line = line;
 
                     if ( (blockIndex < 2) || (blockIndex > page.getBlocks().size()-2)) {
-                        String pattern = featureFactory.getPattern(line);
+                        String pattern = lineFeatures.pattern;
                         Integer nb = patterns.get(pattern);
                         if ((nb != null) && (nb > 1)) {
                             features.repetitivePattern = true;
@@ -429,42 +659,17 @@ public class Segmentation extends AbstractParser {
                         }
                     }
 
-                    // we consider the first token of the line as usual lexical CRF token
-                    // and the second token of the line as feature
-                    StringTokenizer st2 = new StringTokenizer(line, " \t");
-                    // alternatively, use a grobid analyser
-                    String text = null;
-                    String text2 = null;
-                    if (st2.hasMoreTokens())
-                        text = st2.nextToken();
-                    if (st2.hasMoreTokens())
-                        text2 = st2.nextToken();
-
-                    if (text == null)
+                    if (lineFeatures.text == null)
                         continue;
 
-                    // final sanitisation and filtering
-                    text = text.replaceAll("[ \n]", "");
-                    text = text.trim();
-
-                    if ( (text.length() == 0) ||
-//                            (text.equals("\n")) ||
-//                            (text.equals("\r")) ||
-//                            (text.equals("\n\r")) ||
-                            (TextUtilities.filterLine(line))) {
-                        continue;
-                    }
-
-                    features.string = text;
-                    features.secondString = text2;
+                    features.string = lineFeatures.text;
+                    features.secondString = lineFeatures.secondText;
 
                     features.firstPageBlock = firstPageBlock;
                     features.lastPageBlock = lastPageBlock;
-                    //features.lineLength = line.length() / LINESCALE;
-                    features.lineLength = featureFactory
-                            .linearScaling(line.length(), maxLineLength, LINESCALE);
+                    features.lineLength = lineFeatures.lineLength;
     				
-                    features.punctuationProfile = TextUtilities.punctuationProfile(line);
+                    features.punctuationProfile = lineFeatures.punctuationProfile;
 
                     if (graphicBitmap) {
                     	features.bitmapAround = true;
@@ -479,7 +684,7 @@ public class Segmentation extends AbstractParser {
                     if ((li == 0) ||
                             ((previousFeatures != null) && previousFeatures.blockStatus.equals("BLOCKEND"))) {
                         features.blockStatus = "BLOCKSTART";
-                    } else if (li == lines.length - 1) {
+                    } else if (li == blockLineFeatures.size() - 1) {
                         features.blockStatus = "BLOCKEND";
                         //endblock = true;
                     } else if (features.blockStatus == null) {
@@ -488,6 +693,8 @@ public class Segmentation extends AbstractParser {
 
                     if (newPage) {
                         features.pageStatus = "PAGESTART";
+                        if (pageStartLines != null)
+                            pageStartLines.add(nbLines);
                         newPage = false;
                         //endPage = false;
                         if (previousFeatures != null)
@@ -498,53 +705,15 @@ public class Segmentation extends AbstractParser {
                         //endPage = false;
                     }
 
-                    if (text.length() == 1) {
-                        features.singleChar = true;
-                    }
-
-                    if (Character.isUpperCase(text.charAt(0))) {
-                        features.capitalisation = "INITCAP";
-                    }
-
-                    if (featureFactory.test_all_capital(text)) {
-                        features.capitalisation = "ALLCAP";
-                    }
-
-                    if (featureFactory.test_digit(text)) {
-                        features.digit = "CONTAINSDIGITS";
-                    }
-
-                    if (featureFactory.test_common(text)) {
-                        features.commonName = true;
-                    }
-
-                    if (featureFactory.test_names(text)) {
-                        features.properName = true;
-                    }
-
-                    if (featureFactory.test_month(text)) {
-                        features.month = true;
-                    }
-
-                    Matcher m = featureFactory.isDigit.matcher(text);
-                    if (m.find()) {
-                        features.digit = "ALLDIGIT";
-                    }
-
-                    Matcher m2 = featureFactory.year.matcher(text);
-                    if (m2.find()) {
-                        features.year = true;
-                    }
-
-                    Matcher m3 = featureFactory.email.matcher(text);
-                    if (m3.find()) {
-                        features.email = true;
-                    }
-
-                    Matcher m4 = featureFactory.http.matcher(text);
-                    if (m4.find()) {
-                        features.http = true;
-                    }
+                    features.singleChar = lineFeatures.singleChar;
+                    features.capitalisation = lineFeatures.capitalisation;
+                    features.digit = lineFeatures.digit;
+                    features.commonName = lineFeatures.commonName;
+                    features.properName = lineFeatures.properName;
+                    features.month = lineFeatures.month;
+                    features.year = lineFeatures.year;
+                    features.email = lineFeatures.email;
+                    features.http = lineFeatures.http;
 
                     if (currentFont == null) {
                         currentFont = token.getFont();
@@ -616,11 +785,10 @@ public class Segmentation extends AbstractParser {
 //System.out.println((density-doc.getMinCharacterDensity()) + " " + (doc.getMaxCharacterDensity()-doc.getMinCharacterDensity()) + " " + NBBINS_DENSITY + " " + features.characterDensity);             
                     }
 
-                    if (previousFeatures != null) {
-                        String vector = previousFeatures.printVector();
-                        fulltext.append(vector);
-                    }
+                    if (previousFeatures != null)
+                        previousFeatures.printVector(fulltext);
                     previousFeatures = features;
+                    nbLines++;
                 }
 
 //System.out.println((spacingPreviousBlock-doc.getMinBlockSpacing()) + " " + (doc.getMaxBlockSpacing()-doc.getMinBlockSpacing()) + " " + NBBINS_SPACE + " " 
@@ -637,9 +805,11 @@ public class Segmentation extends AbstractParser {
             }
         }
         if (previousFeatures != null)
-            fulltext.append(previousFeatures.printVector());
+            previousFeatures.printVector(fulltext);
 
-        return fulltext.toString();
+        String result = fulltext.toString();
+        FeatureBuffers.release(fulltext);
+        return result;
     }
 
 
@@ -858,7 +1028,7 @@ public class Segmentation extends AbstractParser {
                         continue;
                     }
                     //String[] lines = localText.split("\n");
-                    String[] lines = localText.split("[\\n\\r]");
+                    String[] lines = GrobidPatterns.splitLines(localText);
                     if ((lines.length == 0) || (indexLine >= lines.length)) {
                         currentBlockIndex++;
                         indexLine = 0;
@@ -27,6 +27,8 @@ import org.grobid.core.analyzers.Analyzer;
  * resulting TEI
  * analyzer in case a particular Grobid Analyzer to be used for 
  * tokenizing/filtering text
+ * includeProcessingReport if true, the resources used for processing the document
+ * (see ProcessingReport) are added to the result
  */
 public class GrobidAnalysisConfig {
     private GrobidAnalysisConfig() {
@@ -77,6 +79,9 @@ public class GrobidAnalysisConfig {
     // a particular Grobid Analyzer to be used for tokenizing/filtering text
     private Analyzer analyzer = null;
 
+    // if the processing report of the document should be included in the result
+    private boolean includeProcessingReport = false;
+
     // BUILDER
 
     public static class GrobidAnalysisConfigBuilder {
@@ -142,6 +147,11 @@ public class GrobidAnalysisConfig {
             return this;
         }
 
+        public GrobidAnalysisConfigBuilder includeProcessingReport(boolean b) {
+            config.includeProcessingReport = b;
+            return this;
+        }
+
         public GrobidAnalysisConfig build() {
             postProcessAndValidate();
             return config;
@@ -222,4 +232,8 @@ public class GrobidAnalysisConfig {
     public Analyzer getAnalyzer() {
         return analyzer;
     }
+
+    public boolean isIncludeProcessingReport() {
+        return includeProcessingReport;
+    }
 }
@@ -13,5 +13,6 @@ public enum GrobidExceptionStatus {
     NO_BLOCKS,
     PDFTOXML_CONVERSION_FAILURE,
     TOO_MANY_TOKENS,
+    MEMORY_BUDGET_EXCEEDED,
     GENERAL
 }
@@ -100,6 +100,23 @@ public class GrobidPoolingFactory extends AbstractEngineFactory implements
 		}
 	}
 
+	/**
+	 * @return the number of engines currently borrowed from the pool, 0 if the pool
+	 * is not created yet
+	 */
+	public static int getNumActive() {
+		GenericObjectPool pool = grobidEnginePool;
+		return (pool == null) ? 0 : pool.getNumActive();
+	}
+
+	/**
+	 * @return the maximum number of engines which can be borrowed at the same time
+	 */
+	public static int getMaxActive() {
+		GenericObjectPool pool = grobidEnginePool;
+		return (pool == null) ? GrobidProperties.getMaxPoolConnections() : pool.getMaxActive();
+	}
+
 	/**
 	 * Creates and returns an instance of GROBIDFactory. The init() method will
 	 * be called.
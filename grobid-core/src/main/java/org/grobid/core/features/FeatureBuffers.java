@@ -0,0 +1,57 @@
+package org.grobid.core.features;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Thread-confined reusable buffers for writing the feature vectors of a complete sequence (all the lines of
+ * a document, all the tokens of a section, etc.), so that the large buffers are not re-allocated and
+ * re-grown for each document processed by the same thread.
+ *
+ * A buffer must be released by the thread which acquired it, once its content has been copied:
+ * <pre>
+ *     StringBuilder features = FeatureBuffers.acquire();
+ *     ...
+ *     String result = features.toString();
+ *     FeatureBuffers.release(features);
+ * </pre>
+ * A buffer which is not released (e.g. in case of exception) is simply garbage collected. Buffers can be
+ * acquired in a nested way, each acquisition getting its own buffer.
+ */
+public final class FeatureBuffers {
+    // buffers grown beyond this capacity (in chars, about the features of a typical article) are not kept:
+    // the buffers of every service and intra-document worker thread are retained as long as the thread
+    // lives, outside of the heap budget of the documents
+    static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    // number of free buffers kept per thread, the parsers featurizing one sequence at a time
+    static final int MAX_RETAINED_BUFFERS = 2;
+
+    private static final ThreadLocal<Deque<StringBuilder>> BUFFERS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private FeatureBuffers() {
+    }
+
+    /**
+     * Get an empty buffer, reused from a previous document processed by the current thread if possible.
+     */
+    public static StringBuilder acquire() {
+        StringBuilder buffer = BUFFERS.get().pollFirst();
+        if (buffer == null)
+            return new StringBuilder();
+        return buffer;
+    }
+
+    /**
+     * Give back a buffer acquired by the current thread, which must not be used anymore by the caller.
+     */
+    public static void release(StringBuilder buffer) {
+        if (buffer == null || buffer.capacity() > MAX_RETAINED_CAPACITY)
+            return;
+        Deque<StringBuilder> buffers = BUFFERS.get();
+        if (buffers.size() >= MAX_RETAINED_BUFFERS)
+            return;
+        buffer.setLength(0);
+        buffers.addFirst(buffer);
+    }
+}
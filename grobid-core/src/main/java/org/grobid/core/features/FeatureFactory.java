@@ -1,6 +1,7 @@
 package org.grobid.core.features;
 
 import org.grobid.core.lexicon.Lexicon;
+import org.grobid.core.utilities.GrobidPatterns;
 import org.grobid.core.utilities.OffsetPosition;
 
 import java.util.ArrayList;
@@ -20,13 +21,15 @@ public class FeatureFactory {
     public boolean newline = true;
     public Lexicon lexicon = Lexicon.getInstance();
 
-    public Pattern year = Pattern.compile("[1,2][0-9][0-9][0-9]");
-    public Pattern http = Pattern.compile("http(s)?");
-    public Pattern isDigit = Pattern.compile("^\\d+$");
-    public Pattern email2 = Pattern.compile("\\w+((\\.|\\-|_)\\w+)*@\\w+((\\.|\\-)\\w+)+");
-    public Pattern email = Pattern.compile("^(?:[a-zA-Z0-9_'^&amp;/+-])+(?:\\.(?:[a-zA-Z0-9_'^&amp;/+-])+)*@(?:(?:\\[?(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?))\\.){3}(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\]?)|(?:[a-zA-Z0-9-]+\\.)+(?:[a-zA-Z]){2,}\\.?)$");
-    public Pattern acronym = Pattern.compile("[A-Z]\\.([A-Z]\\.)*");
-    public Pattern isPunct = Pattern.compile("^[\\,\\:;\\?\\.]+$");
+    // compiled once in the shared registry, the digit, year, punctuation and http tests are
+    // better done with the test_* scanners below, which do not create a Matcher
+    public final Pattern year = GrobidPatterns.YEAR;
+    public final Pattern http = GrobidPatterns.HTTP;
+    public final Pattern isDigit = GrobidPatterns.ALL_DIGITS;
+    public final Pattern email2 = GrobidPatterns.EMAIL_IN_TEXT;
+    public final Pattern email = GrobidPatterns.EMAIL;
+    public final Pattern acronym = GrobidPatterns.ACRONYM;
+    public final Pattern isPunct = GrobidPatterns.PUNCT;
 
     static public List<String> KEYWORDSPUB = Arrays.asList(
             new String[]{
@@ -224,6 +227,34 @@ public class FeatureFactory {
     }
 
 
+    /**
+     * Test for the current string contains only ASCII digits, same as the isDigit pattern
+     */
+    public boolean test_all_digit(String tok) {
+        return tok != null && GrobidPatterns.isAllDigits(tok);
+    }
+
+    /**
+     * Test for the current string contains a year-like sequence, same as the year pattern
+     */
+    public boolean test_year(String tok) {
+        return tok != null && GrobidPatterns.containsYear(tok);
+    }
+
+    /**
+     * Test for the current string contains only punctuations among , : ; ? ., same as the isPunct pattern
+     */
+    public boolean test_punct(String tok) {
+        return tok != null && GrobidPatterns.isPunct(tok);
+    }
+
+    /**
+     * Test for the current string contains http, same as the http pattern
+     */
+    public boolean test_http(String tok) {
+        return tok != null && GrobidPatterns.containsHttp(tok);
+    }
+
     /**
      * Test for the current string is a number or a decimal number, i.e. containing only digits or ",", "."
      */
@@ -361,8 +392,15 @@ public class FeatureFactory {
      * remaining text in lowercase
      */
     public String getPattern(String text) {
-        String pattern = text.replaceAll("[^a-zA-Z ]", "").toLowerCase();
-        pattern = pattern.replaceAll("[0-9]", "X");
-        return pattern;
+        // only ASCII letters and spaces are kept, so that digits are in practice removed
+        StringBuilder pattern = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'z' || c == ' ')
+                pattern.append(c);
+            else if (c >= 'A' && c <= 'Z')
+                pattern.append((char) (c + ('a' - 'A')));
+        }
+        return pattern.toString();
     }
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package org.grobid.core.features;
 
 import java.util.List;
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
 
 import org.grobid.core.utilities.OffsetPosition;
 import org.grobid.core.exceptions.GrobidException;
@@ -238,16 +237,17 @@ public class FeaturesVectorAffiliationAddress {
                 featuresVector.singleChar = true;
             }
 
-            if (featureFactory.test_all_capital(word))
+            int shape = TokenShape.of(word);
+            if (TokenShape.isAllCap(shape))
                 featuresVector.capitalisation = "ALLCAPS";
-            else if (featureFactory.test_first_capital(word))
+            else if (TokenShape.isInitCap(shape))
                 featuresVector.capitalisation = "INITCAP";
             else
                 featuresVector.capitalisation = "NOCAPS";
 
-            if (featureFactory.test_number(word))
+            if (TokenShape.isAllDigits(shape))
                 featuresVector.digit = "ALLDIGIT";
-            else if (featureFactory.test_digit(word))
+            else if (TokenShape.hasDigit(shape))
                 featuresVector.digit = "CONTAINDIGIT";
             else
                 featuresVector.digit = "NODIGIT";
@@ -258,8 +258,7 @@ public class FeaturesVectorAffiliationAddress {
             if (featureFactory.test_names(word))
                 featuresVector.properName = true;
 
-            Matcher m0 = featureFactory.isPunct.matcher(word);
-            if (m0.find()) {
+            if (featureFactory.test_punct(word)) {
                 featuresVector.punctType = "PUNCT";
             }
             if ((word.equals("(")) | (word.equals("["))) {
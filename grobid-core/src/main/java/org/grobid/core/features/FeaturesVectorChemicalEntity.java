@@ -3,7 +3,6 @@ package org.grobid.core.features;
 import org.grobid.core.utilities.TextUtilities;
 
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
 
 /**
  * Class for features used for chemical entity identification in raw texts such as scientific articles
@@ -140,16 +139,17 @@ public class FeaturesVectorChemicalEntity {
                 featuresVector.singleChar = true;
             }
 
-            if (featureFactory.test_all_capital(word))
+            int shape = TokenShape.of(word);
+            if (TokenShape.isAllCap(shape))
                 featuresVector.capitalisation = "ALLCAPS";
-            else if (featureFactory.test_first_capital(word))
+            else if (TokenShape.isInitCap(shape))
                 featuresVector.capitalisation = "INITCAP";
             else
                 featuresVector.capitalisation = "NOCAPS";
 
-            if (featureFactory.test_number(word))
+            if (TokenShape.isAllDigits(shape))
                 featuresVector.digit = "ALLDIGIT";
-            else if (featureFactory.test_digit(word))
+            else if (TokenShape.hasDigit(shape))
                 featuresVector.digit = "CONTAINDIGIT";
             else
                 featuresVector.digit = "NODIGIT";
@@ -160,8 +160,7 @@ public class FeaturesVectorChemicalEntity {
             if (featureFactory.test_names(word))
                 featuresVector.properName = true;
 
-            Matcher m0 = featureFactory.isPunct.matcher(word);
-            if (m0.find()) {
+            if (featureFactory.test_punct(word)) {
                 featuresVector.punctType = "PUNCT";
             }
             if ((word.equals("(")) | (word.equals("["))) {
@@ -455,8 +455,7 @@ public class FeaturesVectorCitation {
                 features.lineStatus = "LINESTART";
                 outputLineStatus = true;
             }
-            Matcher m0 = featureFactory.isPunct.matcher(text);
-            if (m0.find()) {
+            if (featureFactory.test_punct(text)) {
                 features.punctType = "PUNCT";
             }
 
@@ -495,15 +494,16 @@ public class FeaturesVectorCitation {
                 features.singleChar = true;
             }
 
-            if (Character.isUpperCase(text.charAt(0))) {
+            int shape = TokenShape.of(text);
+            if (TokenShape.isInitCap(shape)) {
                 features.capitalisation = "INITCAP";
             }
 
-            if (featureFactory.test_all_capital(text)) {
+            if (TokenShape.isAllCap(shape)) {
                 features.capitalisation = "ALLCAP";
             }
 
-            if (featureFactory.test_digit(text)) {
+            if (TokenShape.hasDigit(shape)) {
                 features.digit = "CONTAINSDIGITS";
             }
 
@@ -527,13 +527,11 @@ public class FeaturesVectorCitation {
                 features.firstName = true;
             }
 
-            Matcher m = featureFactory.isDigit.matcher(text);
-            if (m.find()) {
+            if (TokenShape.isAllAsciiDigits(shape)) {
                 features.digit = "ALLDIGIT";
             }
 
-            Matcher m2 = featureFactory.year.matcher(text);
-            if (m2.find()) {
+            if (featureFactory.test_year(text)) {
                 features.year = true;
             }
 
@@ -3,7 +3,6 @@ package org.grobid.core.features;
 import org.grobid.core.utilities.TextUtilities;
 
 import java.util.List;
-import java.util.regex.Matcher;
 
 /**
  * Class for features used for parsing date chunk.
@@ -174,8 +173,7 @@ public class FeaturesVectorDate {
                 outputLineStatus = true;
             }
 
-            Matcher m0 = featureFactory.isPunct.matcher(text);
-            if (m0.find()) {
+            if (featureFactory.test_punct(text)) {
                 features.punctType = "PUNCT";
             }
 
@@ -249,18 +247,19 @@ public class FeaturesVectorDate {
                 ;
             }
 
-            if (Character.isUpperCase(text.charAt(0))) {
+            int shape = TokenShape.of(text);
+            if (TokenShape.isInitCap(shape)) {
                 features.capitalisation = "INITCAP";
             }
 
-            if (featureFactory.test_all_capital(text)) {
+            if (TokenShape.isAllCap(shape)) {
                 features.capitalisation = "ALLCAP";
             }
 
             if (features.capitalisation == null)
                 features.capitalisation = "NOCAPS";
 
-            if (featureFactory.test_digit(text)) {
+            if (TokenShape.hasDigit(shape)) {
                 features.digit = "CONTAINSDIGITS";
             }
 
@@ -268,16 +267,14 @@ public class FeaturesVectorDate {
                 features.month = true;
             }
 
-            Matcher m = featureFactory.isDigit.matcher(text);
-            if (m.find()) {
+            if (TokenShape.isAllAsciiDigits(shape)) {
                 features.digit = "ALLDIGIT";
             }
 
             if (features.digit == null)
                 features.digit = "NODIGIT";
 
-            Matcher m2 = featureFactory.year.matcher(text);
-            if (m2.find()) {
+            if (featureFactory.test_year(text)) {
                 features.year = true;
             }
 
@@ -49,42 +49,53 @@ public class FeaturesVectorFulltext {
     public String printVector() {
         if (string == null) return null;
         if (string.length() == 0) return null;
-        StringBuffer res = new StringBuffer();
+        StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, nothing if there is no token string, so that
+     * the vectors of a sequence can be written without intermediate strings.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string
-        res.append(" " + string.toLowerCase());
+        res.append(" ").append(string.toLowerCase());
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        res.append(" ").append(TextUtilities.prefix(string, 1));
+        res.append(" ").append(TextUtilities.prefix(string, 2));
+        res.append(" ").append(TextUtilities.prefix(string, 3));
+        res.append(" ").append(TextUtilities.prefix(string, 4));
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        res.append(" ").append(TextUtilities.suffix(string, 1));
+        res.append(" ").append(TextUtilities.suffix(string, 2));
+        res.append(" ").append(TextUtilities.suffix(string, 3));
+        res.append(" ").append(TextUtilities.suffix(string, 4));
 
 		// at this stage, we have written 10 features
 
         // block information (1)
-        res.append(" " + blockStatus);
+        res.append(" ").append(blockStatus);
 
         // line information (1)
-        res.append(" " + lineStatus);
+        res.append(" ").append(lineStatus);
 		
 		// line position/identation (1)
-		res.append(" " + alignmentStatus);
+		res.append(" ").append(alignmentStatus);
 
         // font information (1)
-        res.append(" " + fontStatus);
+        res.append(" ").append(fontStatus);
 
         // font size information (1)
-        res.append(" " + fontSize);
+        res.append(" ").append(fontSize);
 
         // string type information (3)
         if (bold)
@@ -101,10 +112,10 @@ public class FeaturesVectorFulltext {
         if (digit.equals("ALLDIGIT"))
             res.append(" NOCAPS");
         else
-            res.append(" " + capitalisation);
+            res.append(" ").append(capitalisation);
 
         // digit information (1)
-        res.append(" " + digit);
+        res.append(" ").append(digit);
 
         // character information (1)
         if (singleChar)
@@ -115,13 +126,13 @@ public class FeaturesVectorFulltext {
 		// at this stage, we have written 20 features
 
         // punctuation information (1)
-        res.append(" " + punctType); // in case the token is a punctuation (NO otherwise)
+        res.append(" ").append(punctType); // in case the token is a punctuation (NO otherwise)
 
         // relative document position (1)
-        res.append(" " + relativeDocumentPosition);
+        res.append(" ").append(relativeDocumentPosition);
 
         // relative page position (1)
-        res.append(" " + relativePagePosition);
+        res.append(" ").append(relativePagePosition);
 
 		// proximity of a graphic to the current block (2)
         if (bitmapAround)
@@ -144,13 +155,13 @@ public class FeaturesVectorFulltext {
 
         // label - for training data (1)
         /*if (label != null)
-              res.append(" " + label + "\n");
+              res.append(" ").append(label).append("\n");
           else
               res.append(" 0\n");
           */
 
         if (calloutType != null) 
-            res.append(" " + calloutType);
+            res.append(" ").append(calloutType);
         else 
             res.append(" UNKNOWN");
  
@@ -160,8 +171,6 @@ public class FeaturesVectorFulltext {
             res.append(" 0");
 
         res.append("\n");
-
-        return res.toString();
     }
 
 }
\ No newline at end of file
@@ -48,44 +48,55 @@ public class FeaturesVectorHeader {
     public String printVector(boolean withRotation) {
         if (string == null) return null;
         if (string.length() == 0) return null;
-        StringBuffer res = new StringBuffer();
+        StringBuilder res = new StringBuilder();
+        printVector(res, withRotation);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, nothing if there is no token string, so that
+     * the vectors of a sequence can be written without intermediate strings.
+     */
+    public void printVector(StringBuilder res, boolean withRotation) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string
-        res.append(" " + string.toLowerCase());
+        res.append(" ").append(string.toLowerCase());
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        res.append(" ").append(TextUtilities.prefix(string, 1));
+        res.append(" ").append(TextUtilities.prefix(string, 2));
+        res.append(" ").append(TextUtilities.prefix(string, 3));
+        res.append(" ").append(TextUtilities.prefix(string, 4));
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        res.append(" ").append(TextUtilities.suffix(string, 1));
+        res.append(" ").append(TextUtilities.suffix(string, 2));
+        res.append(" ").append(TextUtilities.suffix(string, 3));
+        res.append(" ").append(TextUtilities.suffix(string, 4));
 
         // 10 first features written at this stage
 
         // block information (1)
-        res.append(" " + blockStatus);
+        res.append(" ").append(blockStatus);
         //res.append(" 0");
 
         // line information (1)
-        res.append(" " + lineStatus);
+        res.append(" ").append(lineStatus);
 		
 		// line position/identation
 		//res.append(" " + alignmentStatus);
 
         // font information (1)
-        res.append(" " + fontStatus);
+        res.append(" ").append(fontStatus);
         //res.append(" 0");
 
         // font size information (1)
-        res.append(" " + fontSize);
+        res.append(" ").append(fontSize);
 
         // string type information (3)
         if (bold)
@@ -109,10 +120,10 @@ public class FeaturesVectorHeader {
         if (digit.equals("ALLDIGIT"))
             res.append(" NOCAPS");
         else
-            res.append(" " + capitalisation);
+            res.append(" ").append(capitalisation);
 
         // digit information (1)
-        res.append(" " + digit);
+        res.append(" ").append(digit);
 
         // character information (1)
         if (singleChar)
@@ -169,7 +180,7 @@ public class FeaturesVectorHeader {
             res.append(" 0");
 
         // punctuation information (2)
-        res.append(" " + punctType); // in case the token is a punctuation (NO otherwise)
+        res.append(" ").append(punctType); // in case the token is a punctuation (NO otherwise)
 
         // 30 features written at this point
 
@@ -180,11 +191,9 @@ public class FeaturesVectorHeader {
 
         // label - for training data (1)
         if (label != null)
-            res.append(" " + label + "\n");
+            res.append(" ").append(label).append("\n");
         else
             res.append(" 0\n");
-
-        return res.toString();
     }
 
     /**
@@ -293,8 +302,7 @@ public class FeaturesVectorHeader {
                 features.blockStatus = "BLOCKSTART";
                 outputBlockStatus = true;
             }
-            Matcher m0 = featureFactory.isPunct.matcher(text);
-            if (m0.find()) {
+            if (featureFactory.test_punct(text)) {
                 features.punctType = "PUNCT";
             }
 
@@ -422,18 +430,19 @@ public class FeaturesVectorHeader {
                 ;
             }
 
-            if (Character.isUpperCase(text.charAt(0))) {
+            int shape = TokenShape.of(text);
+            if (TokenShape.isInitCap(shape)) {
                 features.capitalisation = "INITCAP";
             }
 
-            if (featureFactory.test_all_capital(text)) {
+            if (TokenShape.isAllCap(shape)) {
                 features.capitalisation = "ALLCAP";
             }
 
             if (features.capitalisation == null)
                 features.capitalisation = "NOCAPS";
 
-            if (featureFactory.test_digit(text)) {
+            if (TokenShape.hasDigit(shape)) {
                 features.digit = "CONTAINSDIGITS";
             }
 
@@ -453,8 +462,7 @@ public class FeaturesVectorHeader {
                 features.containDash = true;
             }
 
-            Matcher m = featureFactory.isDigit.matcher(text);
-            if (m.find()) {
+            if (TokenShape.isAllAsciiDigits(shape)) {
                 features.digit = "ALLDIGIT";
             }
 
@@ -462,8 +470,7 @@ public class FeaturesVectorHeader {
             if (features.digit == null)
                 features.digit = "NODIGIT";
 
-            Matcher m2 = featureFactory.year.matcher(text);
-            if (m2.find()) {
+            if (featureFactory.test_year(text)) {
                 features.year = true;
             }
 
@@ -472,8 +479,7 @@ public class FeaturesVectorHeader {
                 features.email = true;
             }
 
-            Matcher m4 = featureFactory.http.matcher(text);
-            if (m4.find()) {
+            if (featureFactory.test_http(text)) {
                 features.http = true;
             }
 
@@ -11,7 +11,6 @@ import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.layout.LayoutToken;
 
 import java.util.List;
-import java.util.regex.Matcher;
 
 /**
  * Class for features used for parsing sequence of names.
@@ -248,8 +247,7 @@ public class FeaturesVectorName {
                 outputLineStatus = true;
             }
 
-            Matcher m0 = featureFactory.isPunct.matcher(text);
-            if (m0.find()) {
+            if (featureFactory.test_punct(text)) {
                 features.punctType = "PUNCT";
             }
 
@@ -314,18 +312,19 @@ public class FeaturesVectorName {
                 features.singleChar = true;
             }
 
-            if (Character.isUpperCase(text.charAt(0))) {
+            int shape = TokenShape.of(text);
+            if (TokenShape.isInitCap(shape)) {
                 features.capitalisation = "INITCAP";
             }
 
-            if (featureFactory.test_all_capital(text)) {
+            if (TokenShape.isAllCap(shape)) {
                 features.capitalisation = "ALLCAP";
             }
 
             if (features.capitalisation == null)
                 features.capitalisation = "NOCAPS";
 
-            if (featureFactory.test_digit(text)) {
+            if (TokenShape.hasDigit(shape)) {
                 features.digit = "CONTAINSDIGITS";
             }
 
@@ -341,8 +340,7 @@ public class FeaturesVectorName {
                 features.lastName = true;
             }
 
-            Matcher m = featureFactory.isDigit.matcher(text);
-            if (m.find()) {
+            if (TokenShape.isAllAsciiDigits(shape)) {
                 features.digit = "ALLDIGIT";
             }
 
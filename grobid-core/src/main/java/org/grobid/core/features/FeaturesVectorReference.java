@@ -3,7 +3,6 @@ package org.grobid.core.features;
 import org.grobid.core.utilities.TextUtilities;
 
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
 
 /**
  * Class for features used for reference identification in raw texts such as patent descriptions.
@@ -191,16 +190,17 @@ public class FeaturesVectorReference {
                 featuresVector.singleChar = true;
             }
 
-            if (featureFactory.test_all_capital(word))
+            int shape = TokenShape.of(word);
+            if (TokenShape.isAllCap(shape))
                 featuresVector.capitalisation = "ALLCAPS";
-            else if (featureFactory.test_first_capital(word))
+            else if (TokenShape.isInitCap(shape))
                 featuresVector.capitalisation = "INITCAP";
             else
                 featuresVector.capitalisation = "NOCAPS";
 
-            if (featureFactory.test_number(word))
+            if (TokenShape.isAllDigits(shape))
                 featuresVector.digit = "ALLDIGIT";
-            else if (featureFactory.test_digit(word))
+            else if (TokenShape.hasDigit(shape))
                 featuresVector.digit = "CONTAINDIGIT";
             else
                 featuresVector.digit = "NODIGIT";
@@ -214,8 +214,7 @@ public class FeaturesVectorReference {
             if (featureFactory.test_month(word))
                 featuresVector.month = true;
 
-            Matcher m0 = featureFactory.isPunct.matcher(word);
-            if (m0.find()) {
+            if (featureFactory.test_punct(word)) {
                 featuresVector.punctType = "PUNCT";
             }
             if ((word.equals("(")) | (word.equals("["))) {
@@ -232,13 +231,11 @@ public class FeaturesVectorReference {
                 featuresVector.punctType = "QUOTE";
             }
 
-            Matcher m2 = featureFactory.year.matcher(word);
-            if (m2.find()) {
+            if (featureFactory.test_year(word)) {
                 featuresVector.year = true;
             }
 
-            Matcher m4 = featureFactory.http.matcher(word);
-            if (m4.find()) {
+            if (featureFactory.test_http(word)) {
                 featuresVector.http = true;
             }
 
@@ -50,6 +50,17 @@ public class FeaturesVectorReferenceSegmenter {
         if (string == null) return null;
         if (string.length() == 0) return null;
         StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, nothing if there is no token string, so that
+     * the vectors of a sequence can be written without intermediate strings.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
@@ -58,22 +69,22 @@ public class FeaturesVectorReferenceSegmenter {
         res.append(" ").append(string.toLowerCase());
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        res.append(" ").append(TextUtilities.prefix(string, 1));
+        res.append(" ").append(TextUtilities.prefix(string, 2));
+        res.append(" ").append(TextUtilities.prefix(string, 3));
+        res.append(" ").append(TextUtilities.prefix(string, 4));
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        res.append(" ").append(TextUtilities.suffix(string, 1));
+        res.append(" ").append(TextUtilities.suffix(string, 2));
+        res.append(" ").append(TextUtilities.suffix(string, 3));
+        res.append(" ").append(TextUtilities.suffix(string, 4));
 
         // line information (1)
         res.append(" ").append(lineStatus);
 		
 		// line position/indentation (1)
-		res.append(" " + alignmentStatus);
+		res.append(" ").append(alignmentStatus);
 
         // capitalisation (1)
         if (digit.equals("ALLDIGIT"))
@@ -138,11 +149,11 @@ public class FeaturesVectorReferenceSegmenter {
         res.append(" ").append(relativePosition);
 
 		// relative position in the line on a predefined scale (1)
-		res.append(" " + lineLength);
+		res.append(" ").append(lineLength);
 
         // block information (1)
 		//if (blockStatus != null)
-		res.append(" " + blockStatus);
+		res.append(" ").append(blockStatus);
 
 		// punctuation profile
 		if ( (punctuationProfile == null) || (punctuationProfile.length() == 0) )
@@ -151,14 +162,12 @@ public class FeaturesVectorReferenceSegmenter {
 			int theLength = punctuationProfile.length();
 			if (theLength > 10) 
 				theLength = 10;
-			res.append(" " + theLength);
+			res.append(" ").append(theLength);
 		}
         // label - for training data (1)
         if (label != null)
             res.append(" ").append(label).append("\n");
         else
             res.append(" 0\n");
-
-        return res.toString();
     }
 }
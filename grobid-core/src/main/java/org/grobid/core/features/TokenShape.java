@@ -0,0 +1,224 @@
+package org.grobid.core.features;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Capitalization, digit and word shape features of a token, computed for every token by the
+ * feature vectors of all the models.
+ *
+ * The capitalization and digit properties of a token are computed in a single pass over its
+ * characters into an int code of bit flags, which can be done on a range of a char array or of a
+ * CharSequence without creating a String:
+ * <pre>
+ *     int shape = TokenShape.of(text);
+ *     if (TokenShape.isInitCap(shape))
+ *         ...
+ * </pre>
+ * The word shapes are kept in a bounded cache, so that the frequent tokens get the same shape
+ * instance without allocating it again.
+ */
+public final class TokenShape {
+
+    // first character is an upper case letter, as FeatureFactory.test_first_capital()
+    public static final int INIT_CAP = 1;
+    // no lower case letter, as FeatureFactory.test_all_capital()
+    public static final int ALL_CAP = 1 << 1;
+    // at least one digit, as FeatureFactory.test_digit()
+    public static final int HAS_DIGIT = 1 << 2;
+    // only digits, as FeatureFactory.test_number()
+    public static final int ALL_DIGITS = 1 << 3;
+    // only ASCII digits, possibly followed by a final line terminator, as FeatureFactory.test_all_digit()
+    public static final int ALL_ASCII_DIGITS = 1 << 4;
+
+    // number of cached word shapes, a power of 2
+    static final int CACHE_SIZE = 4096;
+
+    private static final AtomicReferenceArray<CachedShape> wordShapes = new AtomicReferenceArray<>(CACHE_SIZE);
+    private static final AtomicReferenceArray<CachedShape> trimmedWordShapes = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private static final class CachedShape {
+        private final String word;
+        private final String shape;
+
+        private CachedShape(String word, String shape) {
+            this.word = word;
+            this.shape = shape;
+        }
+    }
+
+    private TokenShape() {
+    }
+
+    public static int of(CharSequence text) {
+        return text == null ? 0 : of(text, 0, text.length());
+    }
+
+    public static int of(CharSequence text, int start, int end) {
+        if (end <= start)
+            return 0;
+        int flags = initialFlags(text.charAt(start));
+        int terminator = terminatorLength(text.charAt(end - 1), end - start > 1 ? text.charAt(end - 2) : 0);
+        int digitsEnd = end - terminator;
+        if (digitsEnd == start)
+            flags &= ~ALL_ASCII_DIGITS;
+        for (int i = start; i < end; i++) {
+            flags = update(flags, text.charAt(i), i < digitsEnd);
+        }
+        return flags;
+    }
+
+    public static int of(char[] chars, int start, int end) {
+        if (end <= start)
+            return 0;
+        int flags = initialFlags(chars[start]);
+        int terminator = terminatorLength(chars[end - 1], end - start > 1 ? chars[end - 2] : 0);
+        int digitsEnd = end - terminator;
+        if (digitsEnd == start)
+            flags &= ~ALL_ASCII_DIGITS;
+        for (int i = start; i < end; i++) {
+            flags = update(flags, chars[i], i < digitsEnd);
+        }
+        return flags;
+    }
+
+    public static boolean isInitCap(int shape) {
+        return (shape & INIT_CAP) != 0;
+    }
+
+    public static boolean isAllCap(int shape) {
+        return (shape & ALL_CAP) != 0;
+    }
+
+    public static boolean hasDigit(int shape) {
+        return (shape & HAS_DIGIT) != 0;
+    }
+
+    public static boolean isAllDigits(int shape) {
+        return (shape & ALL_DIGITS) != 0;
+    }
+
+    public static boolean isAllAsciiDigits(int shape) {
+        return (shape & ALL_ASCII_DIGITS) != 0;
+    }
+
+    private static int initialFlags(char first) {
+        int flags = ALL_CAP | ALL_DIGITS | ALL_ASCII_DIGITS;
+        if (Character.isUpperCase(first))
+            flags |= INIT_CAP;
+        return flags;
+    }
+
+    private static int update(int flags, char c, boolean beforeTerminator) {
+        if (Character.isLowerCase(c))
+            flags &= ~ALL_CAP;
+        if (Character.isDigit(c))
+            flags |= HAS_DIGIT;
+        else
+            flags &= ~ALL_DIGITS;
+        if (beforeTerminator && (c < '0' || c > '9'))
+            flags &= ~ALL_ASCII_DIGITS;
+        return flags;
+    }
+
+    /**
+     * Length of the final line terminator of a token, which is allowed after the ASCII digits as the $
+     * of the former isDigit pattern allowed it
+     */
+    private static int terminatorLength(char last, char beforeLast) {
+        if (last == '\n')
+            return beforeLast == '\r' ? 2 : 1;
+        if (last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029')
+            return 1;
+        return 0;
+    }
+
+    /**
+     * Word shape, e.g. "Xxxx" for "Grobid", see TextUtilities.wordShape()
+     */
+    public static String wordShape(String word) {
+        int index = cacheIndex(word);
+        CachedShape cached = wordShapes.get(index);
+        if (cached != null && cached.word.equals(word))
+            return cached.shape;
+        String shape = wordShape(word, 0, word.length());
+        wordShapes.lazySet(index, new CachedShape(word, shape));
+        return shape;
+    }
+
+    /**
+     * Word shape with the first character and the two last ones preserved, and the runs of identical
+     * shape characters between them collapsed
+     */
+    public static String wordShape(CharSequence word, int start, int end) {
+        int n = end - start;
+        if (n == 0)
+            return "";
+        char[] shape = new char[n + 2];
+        int length = 0;
+        shape[length++] = shapeChar(word.charAt(start));
+
+        if (n > 3) {
+            char ch = shapeChar(word.charAt(start + 1));
+            for (int i = 1; i < n - 2; i++) {
+                shape[length++] = ch;
+                while (ch == shapeChar(word.charAt(start + i)) && i < n - 2) {
+                    i++;
+                }
+                ch = shapeChar(word.charAt(start + i));
+            }
+            if (ch != shape[length - 1])
+                shape[length++] = ch;
+        }
+
+        if (n > 2)
+            shape[length++] = shapeChar(word.charAt(end - 2));
+        if (n > 1)
+            shape[length++] = shapeChar(word.charAt(end - 1));
+        return new String(shape, 0, length);
+    }
+
+    /**
+     * Word shape with all the runs of identical shape characters collapsed, see TextUtilities.wordShapeTrimmed()
+     */
+    public static String wordShapeTrimmed(String word) {
+        int index = cacheIndex(word);
+        CachedShape cached = trimmedWordShapes.get(index);
+        if (cached != null && cached.word.equals(word))
+            return cached.shape;
+        String shape = wordShapeTrimmed(word, 0, word.length());
+        trimmedWordShapes.lazySet(index, new CachedShape(word, shape));
+        return shape;
+    }
+
+    public static String wordShapeTrimmed(CharSequence word, int start, int end) {
+        int n = end - start;
+        if (n == 0)
+            return "";
+        char[] shape = new char[n + 1];
+        int length = 0;
+        char ch = shapeChar(word.charAt(start));
+        for (int i = 0; i < n; i++) {
+            shape[length++] = ch;
+            while (ch == shapeChar(word.charAt(start + i)) && i < n - 1) {
+                i++;
+            }
+            ch = shapeChar(word.charAt(start + i));
+        }
+        if (ch != shape[length - 1])
+            shape[length++] = ch;
+        return new String(shape, 0, length);
+    }
+
+    private static char shapeChar(char c) {
+        if (Character.isLetter(c))
+            return Character.isUpperCase(c) ? 'X' : 'x';
+        if (Character.isDigit(c))
+            return 'd';
+        return c;
+    }
+
+    private static int cacheIndex(String word) {
+        int h = word.hashCode();
+        return (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+    }
+}
@@ -5,6 +5,7 @@ import fr.limsi.wapiti.Wapiti;
 import org.grobid.core.GrobidModel;
 import org.grobid.core.GrobidModels;
 import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.utilities.MemoryFootprint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,7 +39,9 @@ public class WapitiModel {
             throw new GrobidException("Model file does not exists or a directory: " + modelFile.getAbsolutePath());
         }
         LOGGER.info("Loading model: " + modelFile + " (size: " + modelFile.length() + ")");
+        long residentBefore = MemoryFootprint.getResidentBytes();
         model = WapitiWrapper.getModel(modelFile);
+        MemoryFootprint.recordModel(modelFile.getParentFile().getName(), residentBefore, MemoryFootprint.getResidentBytes());
     }
 
     public String label(String data) {
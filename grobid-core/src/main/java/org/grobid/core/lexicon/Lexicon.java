@@ -26,6 +26,7 @@ import org.grobid.core.lang.Language;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.sax.CountryCodeSaxParser;
 import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.MemoryFootprint;
 import org.grobid.core.utilities.OffsetPosition;
 import org.grobid.core.utilities.LayoutTokensUtil;
 import org.grobid.core.utilities.Utilities;
@@ -91,23 +92,106 @@ public class Lexicon {
         initDictionary();
         initNames();
 		// the loading of the journal and conference names is lazy
-        addDictionary(GrobidProperties.getGrobidHomePath() + File.separator + 
-			"lexicon"+File.separator+"wordforms"+File.separator+"english.wf", Language.EN);
-        addDictionary(GrobidProperties.getGrobidHomePath() + File.separator + 
-			"lexicon"+File.separator+"wordforms"+File.separator+"german.wf", Language.EN);
-        addLastNames(GrobidProperties.getGrobidHomePath() + File.separator +
-			"lexicon"+File.separator+"names"+File.separator+"names.family");
-		addLastNames(GrobidProperties.getGrobidHomePath() + File.separator +
-			"lexicon"+File.separator+"names"+File.separator+"lastname.5k");
-        addFirstNames(GrobidProperties.getGrobidHomePath() + File.separator + 
-			"lexicon"+File.separator+"names"+File.separator+"names.female");
-        addFirstNames(GrobidProperties.getGrobidHomePath() + File.separator + 
-			"lexicon"+File.separator+"names"+File.separator+"names.male");
-		addFirstNames(GrobidProperties.getGrobidHomePath() + File.separator + 
-			"lexicon"+File.separator+"names"+File.separator+"firstname.5k");
+        String lexiconPath = GrobidProperties.getGrobidHomePath() + File.separator + "lexicon" + File.separator;
+        String[] dictionaryPaths = {
+            lexiconPath + "wordforms" + File.separator + "english.wf",
+            lexiconPath + "wordforms" + File.separator + "german.wf"
+        };
+        String[] lastNamePaths = {
+            lexiconPath + "names" + File.separator + "names.family",
+            lexiconPath + "names" + File.separator + "lastname.5k"
+        };
+        String[] firstNamePaths = {
+            lexiconPath + "names" + File.separator + "names.female",
+            lexiconPath + "names" + File.separator + "names.male",
+            lexiconPath + "names" + File.separator + "firstname.5k"
+        };
+
+        boolean mapped = GrobidProperties.isLexiconMapped() && GrobidProperties.isResourcesInHome();
+        // compiled in the temp directory, grobid-home being left as distributed
+        File compiledDir = new File(GrobidProperties.getTempPath(), "lexicon");
+
+        Set<String> compiled = mapped ? loadCompiledSet(new File(compiledDir, "dictionary_en.sst"), dictionaryPaths) : null;
+        if (compiled != null) {
+            dictionary_en = compiled;
+        } else {
+            for (String path : dictionaryPaths)
+                addDictionary(path, Language.EN);
+            if (mapped)
+                dictionary_en = compileSet(dictionary_en, new File(compiledDir, "dictionary_en.sst"));
+        }
+
+        compiled = mapped ? loadCompiledSet(new File(compiledDir, "lastnames.sst"), lastNamePaths) : null;
+        if (compiled != null) {
+            lastNames = compiled;
+        } else {
+            for (String path : lastNamePaths)
+                addLastNames(path);
+            if (mapped)
+                lastNames = compileSet(lastNames, new File(compiledDir, "lastnames.sst"));
+        }
+
+        compiled = mapped ? loadCompiledSet(new File(compiledDir, "firstnames.sst"), firstNamePaths) : null;
+        if (compiled != null) {
+            firstNames = compiled;
+        } else {
+            for (String path : firstNamePaths)
+                addFirstNames(path);
+            if (mapped)
+                firstNames = compileSet(firstNames, new File(compiledDir, "firstnames.sst"));
+        }
+
         initCountryCodes();
-        addCountryCodes(GrobidProperties.getGrobidHomePath() + File.separator +
-            "lexicon"+File.separator+"countries"+File.separator+"CountryCodes.xml");
+        addCountryCodes(lexiconPath + "countries" + File.separator + "CountryCodes.xml");
+    }
+
+    /**
+     * Map a compiled word list, if it exists and is more recent than all its source files.
+     *
+     * @return the mapped set, or null if the word list has to be parsed again from the source files
+     */
+    private Set<String> loadCompiledSet(File compiledFile, String[] sourcePaths) {
+        if (!compiledFile.exists())
+            return null;
+        for (String sourcePath : sourcePaths) {
+            if (new File(sourcePath).lastModified() > compiledFile.lastModified())
+                return null;
+        }
+        try {
+            MappedStringSet set = MappedStringSet.load(compiledFile);
+            LOGGER.info("Mapped " + set.size() + " entries from " + compiledFile.getPath());
+            MemoryFootprint.recordMappedFile("lexicon/" + compiledFile.getName(), compiledFile);
+            return set;
+        } catch (IOException | GrobidResourceException e) {
+            LOGGER.warn("Cannot map the compiled word list " + compiledFile.getPath() + ", it will be compiled again", e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a parsed word list in compiled form, so that the next start-ups map it instead of parsing
+     * the source files, and use the mapped version. The parsed set is kept if the compiled file cannot
+     * be written, e.g. when the temp directory is read-only.
+     */
+    private Set<String> compileSet(Set<String> set, File compiledFile) {
+        try {
+            if (!compiledFile.getParentFile().exists() && !compiledFile.getParentFile().mkdirs())
+                throw new IOException("Cannot create the directory " + compiledFile.getParent());
+            MappedStringSet.write(set, compiledFile);
+            MappedStringSet mappedSet = MappedStringSet.load(compiledFile);
+            MemoryFootprint.recordMappedFile("lexicon/" + compiledFile.getName(), compiledFile);
+            return mappedSet;
+        } catch (IOException | GrobidResourceException e) {
+            LOGGER.warn("Cannot compile the word list " + compiledFile.getPath() + ", the parsed word list is used", e);
+            return set;
+        }
+    }
+
+    /**
+     * The mapped word lists are read-only, entries added after start-up go to a copy in heap
+     */
+    private static Set<String> mutable(Set<String> set) {
+        return (set instanceof MappedStringSet) ? new HashSet<>(set) : set;
     }
 
     private void initDictionary() {
@@ -127,6 +211,7 @@ public class Lexicon {
             throw new GrobidResourceException("Cannot add entries to dictionary (language '" + lang +
                     "'), because cannot read file '" + file.getAbsolutePath() + "'.");
         }
+        dictionary_en = mutable(dictionary_en);
         InputStream ist = null;
         InputStreamReader isr = null;
         BufferedReader dis = null;
@@ -251,6 +336,7 @@ public class Lexicon {
             throw new GrobidResourceException("Cannot add first names to dictionary, because cannot read file '" +
                     file.getAbsolutePath() + "'.");
         }
+        firstNames = mutable(firstNames);
         InputStream ist = null;
         BufferedReader dis = null;
         try {
@@ -301,6 +387,7 @@ public class Lexicon {
             throw new GrobidResourceException("Cannot add last names to dictionary, because cannot read file '" +
                     file.getAbsolutePath() + "'.");
         }
+        lastNames = mutable(lastNames);
         InputStream ist = null;
         BufferedReader dis = null;
         try {
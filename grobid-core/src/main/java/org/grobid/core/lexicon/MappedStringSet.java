@@ -0,0 +1,239 @@
+package org.grobid.core.lexicon;
+
+import org.grobid.core.exceptions.GrobidResourceException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Read-only set of strings stored in a precompiled binary file which is memory-mapped, so that
+ * loading the set requires no parsing and no heap, and the pages of the file are shared by all the
+ * JVMs of a host using the same file.
+ *
+ * The file is a string table with an open addressing hash index:
+ * <pre>
+ *     int magic, int version, int n, int number of slots (power of two, at least 2n)
+ *     int[n+1] offsets of the entries in the data section
+ *     int[2*slots] slots: String.hashCode() of the entry and its index + 1, 0 for an empty slot
+ *     byte[] data: UTF-8 entries in unsigned byte order, without duplicates
+ * </pre>
+ * A look-up probes the slots from the hash code of the query, which is cached by the String, and only
+ * compares an entry having the same hash code, the query being encoded in UTF-8 on the fly so that
+ * the look-up allocates nothing.
+ */
+public class MappedStringSet extends AbstractSet<String> {
+    static final int MAGIC = 0x47534554; // "GSET"
+    static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int slotMask;
+    private final int slotsStart;
+    private final int dataStart;
+
+    private MappedStringSet(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new GrobidResourceException("Not a compiled string set, or compiled with another version");
+        this.size = buffer.getInt(8);
+        int nbSlots = buffer.getInt(12);
+        this.slotMask = nbSlots - 1;
+        this.slotsStart = HEADER_SIZE + 4 * (size + 1);
+        this.dataStart = slotsStart + 8 * nbSlots;
+    }
+
+    /**
+     * Map a compiled string set file
+     */
+    public static MappedStringSet load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedStringSet(buffer);
+        }
+    }
+
+    private static class Entry {
+        private final String string;
+        private final byte[] bytes;
+
+        private Entry(String string) {
+            this.string = string;
+            this.bytes = string.getBytes(UTF_8);
+        }
+    }
+
+    /**
+     * Write the given strings as a compiled string set. The file is written next to its final location
+     * and then renamed, so that another process never maps a partial file.
+     */
+    public static void write(Collection<String> strings, File file) throws IOException {
+        List<Entry> entries = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            entries.add(new Entry(string));
+        }
+        entries.sort((a, b) -> compare(a.bytes, b.bytes));
+        List<Entry> distinct = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (distinct.isEmpty() || compare(distinct.get(distinct.size() - 1).bytes, entry.bytes) != 0)
+                distinct.add(entry);
+        }
+
+        int nbSlots = Integer.highestOneBit(Math.max(1, distinct.size()) * 2 - 1) << 1;
+        int[] slots = new int[2 * nbSlots];
+        for (int i = 0; i < distinct.size(); i++) {
+            int hash = distinct.get(i).string.hashCode();
+            int slot = spread(hash) & (nbSlots - 1);
+            while (slots[2 * slot + 1] != 0)
+                slot = (slot + 1) & (nbSlots - 1);
+            slots[2 * slot] = hash;
+            slots[2 * slot + 1] = i + 1;
+        }
+
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(distinct.size());
+                out.writeInt(nbSlots);
+                int offset = 0;
+                for (Entry entry : distinct) {
+                    out.writeInt(offset);
+                    offset += entry.bytes.length;
+                }
+                out.writeInt(offset);
+                for (int slot : slots) {
+                    out.writeInt(slot);
+                }
+                for (Entry entry : distinct) {
+                    out.write(entry.bytes);
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String))
+            return false;
+        String key = (String) o;
+        int hash = key.hashCode();
+        int slot = spread(hash) & slotMask;
+        while (true) {
+            int position = slotsStart + 8 * slot;
+            int index = buffer.getInt(position + 4);
+            if (index == 0)
+                return false;
+            if (buffer.getInt(position) == hash && entryEquals(index - 1, key))
+                return true;
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+     * Compare the UTF-8 bytes of the entry at the given index with the key, encoded as by String.getBytes()
+     */
+    private boolean entryEquals(int index, String key) {
+        int position = dataStart + buffer.getInt(HEADER_SIZE + 4 * index);
+        int end = dataStart + buffer.getInt(HEADER_SIZE + 4 * (index + 1));
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, key.charAt(++i));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, replaced by the encoder
+                codePoint = '?';
+            }
+            if (codePoint < 0x80) {
+                if (position >= end || buffer.get(position++) != (byte) codePoint)
+                    return false;
+            } else {
+                int nbBytes = codePoint < 0x800 ? 2 : (codePoint < 0x10000 ? 3 : 4);
+                if (position + nbBytes > end)
+                    return false;
+                int shift = 6 * (nbBytes - 1);
+                int first = (0xff00 >> nbBytes) & 0xff;
+                if (buffer.get(position++) != (byte) (first | (codePoint >> shift)))
+                    return false;
+                for (shift -= 6; shift >= 0; shift -= 6) {
+                    if (buffer.get(position++) != (byte) (0x80 | ((codePoint >> shift) & 0x3f)))
+                        return false;
+                }
+            }
+        }
+        return position == end;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return a.length - b.length;
+    }
+
+    private String entry(int index) {
+        int start = dataStart + buffer.getInt(HEADER_SIZE + 4 * index);
+        int end = dataStart + buffer.getInt(HEADER_SIZE + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public String next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                return entry(next++);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
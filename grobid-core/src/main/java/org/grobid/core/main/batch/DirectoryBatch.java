@@ -0,0 +1,288 @@
+package org.grobid.core.main.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Batch processing of the PDF files of a directory on a pool of worker threads, each thread using its own
+ * engine.
+ *
+ * The directory is listed with a stream, so that the files of very large directories are never held in memory
+ * at the same time, and the number of files waiting for a worker is bounded. The output files are written
+ * in the same sub-directories as the input files.
+ *
+ * The input files successfully processed are appended to a checkpoint manifest in the output directory,
+ * so that a batch interrupted or rerun skips them. The manifest has to be deleted to process them again.
+ * The progress, the throughput and the estimated remaining time are logged during the batch.
+ *
+ * @param <E> type of the engine used by the worker threads
+ */
+public class DirectoryBatch<E extends Closeable> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBatch.class);
+
+    // interval between two logs of the progress
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    // number of files listed and waiting for a worker, per worker
+    private static final int PENDING_FILES_PER_THREAD = 4;
+
+    /**
+     * Processing of one PDF file with the engine of the worker thread
+     */
+    public interface PdfProcessor<E> {
+        /**
+         * @param engine          engine of the worker thread
+         * @param pdf             PDF file to process
+         * @param outputDirectory directory of the output files for this PDF file, existing
+         * @param index           rank of the PDF file in the listing of the input directory
+         */
+        void process(E engine, File pdf, File outputDirectory, long index) throws Exception;
+    }
+
+    private final File inputDirectory;
+    private final File outputDirectory;
+    private final boolean recursive;
+    private final int nbThreads;
+    private final File manifestFile;
+
+    private final AtomicLong listed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastProgressNanos = new AtomicLong();
+    private volatile boolean listingComplete = false;
+    private long startNanos;
+
+    /**
+     * @param name name of the batch, used for the name of the checkpoint manifest
+     */
+    public DirectoryBatch(File inputDirectory, File outputDirectory, boolean recursive, int nbThreads, String name) {
+        this.inputDirectory = inputDirectory;
+        this.outputDirectory = outputDirectory;
+        this.recursive = recursive;
+        this.nbThreads = Math.max(1, nbThreads);
+        this.manifestFile = new File(outputDirectory, "grobid-" + name + ".done");
+    }
+
+    public File getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * Process all the PDF files of the input directory which are not in the checkpoint manifest.
+     *
+     * @param engineFactory creates the engine of each worker thread, closed at the end of the batch
+     */
+    public void process(Supplier<? extends E> engineFactory, PdfProcessor<? super E> processor) throws IOException,
+        InterruptedException {
+        if (!inputDirectory.isDirectory()) {
+            LOGGER.warn("No files in directory: " + inputDirectory);
+            return;
+        }
+        if (!outputDirectory.exists()) {
+            outputDirectory.mkdirs();
+        }
+        Set<String> completed = readManifest();
+        if (!completed.isEmpty()) {
+            LOGGER.info(completed.size() + " files already processed according to " + manifestFile + ", they are skipped");
+        }
+
+        List<E> engines = new ArrayList<>();
+        ThreadLocal<E> engine = ThreadLocal.withInitial(() -> {
+            E workerEngine = engineFactory.get();
+            synchronized (engines) {
+                engines.add(workerEngine);
+            }
+            return workerEngine;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "grobid-batch-" + count.incrementAndGet());
+            }
+        });
+        Semaphore pending = new Semaphore(nbThreads * PENDING_FILES_PER_THREAD);
+
+        startNanos = System.nanoTime();
+        lastProgressNanos.set(startNanos);
+        try (BufferedWriter manifest = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            try {
+                walk(inputDirectory.toPath(), outputDirectory, completed, pdf -> {
+                    pending.acquire();
+                    executor.execute(() -> {
+                        try {
+                            processOne(engine.get(), processor, pdf, manifest);
+                        } finally {
+                            pending.release();
+                        }
+                    });
+                });
+                listingComplete = true;
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            for (E workerEngine : engines) {
+                try {
+                    workerEngine.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot close the engine of a batch worker", e);
+                }
+            }
+        }
+        System.out.println(getSummary());
+    }
+
+    private interface PdfConsumer {
+        void accept(ListedPdf pdf) throws InterruptedException;
+    }
+
+    private static class ListedPdf {
+        final File file;
+        final File outputDirectory;
+        final String key;
+        final long index;
+
+        ListedPdf(File file, File outputDirectory, String key, long index) {
+            this.file = file;
+            this.outputDirectory = outputDirectory;
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    private void walk(Path directory, File currentOutputDirectory, Set<String> completed, PdfConsumer consumer)
+        throws IOException, InterruptedException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                File file = path.toFile();
+                if (file.getName().toLowerCase().endsWith(".pdf") && file.isFile()) {
+                    long index = listed.getAndIncrement();
+                    String key = inputDirectory.toPath().relativize(path).toString();
+                    if (completed.remove(key)) {
+                        skipped.incrementAndGet();
+                    } else {
+                        consumer.accept(new ListedPdf(file, currentOutputDirectory, key, index));
+                    }
+                } else if (recursive && file.isDirectory()) {
+                    walk(path, new File(currentOutputDirectory, file.getName()), completed, consumer);
+                }
+            }
+        }
+    }
+
+    private void processOne(E engine, PdfProcessor<? super E> processor, ListedPdf pdf, BufferedWriter manifest) {
+        try {
+            if (!pdf.outputDirectory.exists()) {
+                pdf.outputDirectory.mkdirs();
+            }
+            processor.process(engine, pdf.file, pdf.outputDirectory, pdf.index);
+            synchronized (manifest) {
+                manifest.write(pdf.key);
+                manifest.newLine();
+                manifest.flush();
+            }
+            processed.incrementAndGet();
+        } catch (final Exception exp) {
+            failed.incrementAndGet();
+            LOGGER.error("An error occured while processing the file " + pdf.file.getAbsolutePath()
+                + ". Continuing the process for the other files", exp);
+        }
+        logProgress();
+    }
+
+    private Set<String> readManifest() throws IOException {
+        Set<String> completed = new HashSet<>();
+        if (manifestFile.exists()) {
+            for (String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.isEmpty())
+                    completed.add(line);
+            }
+        }
+        return completed;
+    }
+
+    private void logProgress() {
+        long now = System.nanoTime();
+        long last = lastProgressNanos.get();
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgressNanos.compareAndSet(last, now)) {
+            LOGGER.info(getProgress(now));
+        }
+    }
+
+    private String getProgress(long now) {
+        long done = processed.get() + failed.get();
+        double seconds = (now - startNanos) / 1e9;
+        double throughput = seconds > 0 ? done / seconds : 0;
+        StringBuilder progress = new StringBuilder();
+        progress.append(done).append(" files processed (").append(failed.get()).append(" failed, ")
+            .append(skipped.get()).append(" skipped), ")
+            .append(String.format("%.2f", throughput)).append(" files/s");
+        if (listingComplete) {
+            long remaining = listed.get() - skipped.get() - done;
+            progress.append(", ").append(remaining).append(" remaining");
+            if (throughput > 0) {
+                progress.append(", ETA ").append(formatDuration((long) (remaining / throughput)));
+            }
+        } else {
+            progress.append(", ").append(listed.get()).append(" files listed so far");
+        }
+        return progress.toString();
+    }
+
+    /**
+     * Summary of the batch: files processed, failed and skipped, elapsed time and throughput
+     */
+    public String getSummary() {
+        long now = System.nanoTime();
+        long done = processed.get() + failed.get();
+        double seconds = (now - startNanos) / 1e9;
+        return "Batch of " + inputDirectory + " with " + nbThreads + " threads: "
+            + processed.get() + " files processed, " + failed.get() + " failed, " + skipped.get() + " skipped in "
+            + formatDuration((long) seconds) + " ("
+            + String.format("%.2f", seconds > 0 ? done / seconds : 0) + " files/s)";
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    static String formatDuration(long seconds) {
+        return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+}
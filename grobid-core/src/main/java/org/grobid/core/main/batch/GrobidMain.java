@@ -74,6 +74,7 @@ public class GrobidMain {
 		help.append("-dOut: gives the path to the directory where the result files will be saved. The default output directory is the curent directory.\n");
 		help.append("-s: is the parameter used for process using string as input and not file.\n");
 		help.append("-r: recursive directory processing, default processing is not recursive.\n");
+		help.append("-n: number of threads processing the files of the directory (processHeader, processFullText, processReferences), default is 1. The processed files are listed in a checkpoint file of the output directory and skipped by the next runs.\n");
 		help.append("-ignoreAssets: do not extract and save the PDF assets (bitmaps, vector graphics), by default the assets are extracted and saved.\n");
 		help.append("-teiCoordinates: output a subset of the identified structures with coordinates in the original PDF, by default no coordinates are present.\n");
 		help.append("-exe: gives the command to execute. The value should be one of these:\n");
@@ -154,6 +155,19 @@ public class GrobidMain {
 					gbdArgs.setTeiCoordinates(true);
 					continue;
 				}
+				if (currArg.equals("-n")) {
+					if (pArgs[i + 1] != null) {
+						try {
+							gbdArgs.setNbThreads(Integer.parseInt(pArgs[i + 1]));
+						} catch (final NumberFormatException exp) {
+							System.err.println("-n value should be a number of threads: " + pArgs[i + 1]);
+							result = false;
+							break;
+						}
+					}
+					i++;
+					continue;
+				}
 				if (currArg.equals("-r")) {
 					gbdArgs.setRecursive(true);
 					continue;
@@ -32,6 +32,8 @@ public class GrobidMainArgs {
 
 	private boolean consolidateCitation = false;
 
+	private int nbThreads = 1;
+
 	/**
 	 * @return the path2grobidHome
 	 */
@@ -209,4 +211,19 @@ public class GrobidMainArgs {
 		teiCoordinates = pTeiCoordinates;
 	}
 
+	/**
+	 * @return the number of threads processing the files of a directory
+	 */
+	public final int getNbThreads() {
+		return nbThreads;
+	}
+
+	/**
+	 * @param pNbThreads
+	 *            the number of threads processing the files of a directory
+	 */
+	public final void setNbThreads(final int pNbThreads) {
+		nbThreads = pNbThreads;
+	}
+
 }
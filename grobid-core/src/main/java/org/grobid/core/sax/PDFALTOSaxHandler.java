@@ -4,6 +4,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.grobid.core.analyzers.Analyzer;
 import org.grobid.core.analyzers.GrobidAnalyzer;
 import org.grobid.core.document.Document;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.exceptions.GrobidExceptionStatus;
 import org.grobid.core.layout.*;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.UnicodeUtil;
@@ -31,6 +33,9 @@ import static shadedwipo.org.apache.commons.lang3.StringUtils.isNotBlank;
  * from docx files. 
  *
  * TBD: character-level ALTO files
+ *
+ * The pages can be consumed as soon as they are parsed with a PageListener, e.g. to start the
+ * processing of the first pages while the next ones are still being parsed.
  * 
  */
 public class PDFALTOSaxHandler extends DefaultHandler {
@@ -62,6 +67,22 @@ public class PDFALTOSaxHandler extends DefaultHandler {
 
 	private int currentOffset = 0;
 
+	private PageListener pageListener = null;
+
+	// maximum number of tokens for the heap budget of the document, 0 if unlimited
+	private long maxTokens = 0;
+
+	/**
+	 * Listener notified of each page of the document, in the document order, when its parsing is completed.
+	 * It is called on the parsing thread, so it should only hand the page over to some other processing.
+	 */
+	public interface PageListener {
+		/**
+		 * @param page the completed page, with its blocks and their tokens
+		 */
+		void onPage(Page page);
+	}
+
 	public PDFALTOSaxHandler(Document d, List<GraphicObject> im) {
 		doc = d;
 		blabla = new StringBuffer();
@@ -77,7 +98,25 @@ public class PDFALTOSaxHandler extends DefaultHandler {
 		return this.analyzer;
 	}
 
+	public void setPageListener(PageListener pageListener) {
+		this.pageListener = pageListener;
+	}
+
+	/**
+	 * Stop the parsing with a MEMORY_BUDGET_EXCEEDED exception when the document has more tokens than
+	 * the given number, before the tokens in excess exhaust the heap (see MemoryBudget)
+	 *
+	 * @param maxTokens maximum number of tokens, 0 if unlimited
+	 */
+	public void setMaxTokens(long maxTokens) {
+		this.maxTokens = maxTokens;
+	}
+
 	private void addToken(LayoutToken layoutToken) {
+		if (maxTokens > 0 && tokenizations.size() >= maxTokens) {
+			throw new GrobidException("The document has more than " + maxTokens + 
+				" tokens, which exceeds its heap budget", GrobidExceptionStatus.MEMORY_BUDGET_EXCEEDED);
+		}
 		layoutToken.setOffset(currentOffset);
 		currentOffset += layoutToken.getText().length();
 		tokenizations.add(layoutToken);
@@ -173,6 +212,8 @@ public class PDFALTOSaxHandler extends DefaultHandler {
 			localTok.setPage(currentPage);
 			addToken(localTok);*/
 			doc.addPage(page);
+			if (pageListener != null)
+				pageListener.onPage(page);
 		} else if (qName.equals("IMAGE")) {
 			// this is normally the bitmap graphics
 			if (block != null) {
@@ -4,10 +4,14 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
 import net.sf.saxon.om.Item;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.ParentNode;
 import net.sf.saxon.om.SequenceIterator;
 import net.sf.saxon.trans.XPathException;
 import org.apache.commons.io.IOUtils;
 import org.grobid.core.data.BibDataSetContext;
+import org.grobid.core.document.Document;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -80,6 +84,47 @@ public class BibDataSetContextExtractor {
         return contexts;
     }
 
+    /**
+     * Citation contexts of a processed document. The contexts collected in memory during the generation
+     * of the TEI are used when available, otherwise they are extracted from the serialized TEI.
+     */
+    public static Multimap<String, BibDataSetContext> getCitationReferences(Document doc) throws XPathException, IOException {
+        if (doc.getCitationContexts() != null)
+            return doc.getCitationContexts();
+        return getCitationReferences(doc.getTei());
+    }
+
+    /**
+     * Context of a bibliographical reference callout, from its TEI element still in memory. The context
+     * is the same as the one extracted from the serialized TEI: the text of the parent element around
+     * the callout.
+     *
+     * @return the context, or null if the callout element has not been added to a TEI element
+     */
+    public static BibDataSetContext getCitationContext(Element ref) {
+        ParentNode parent = ref.getParent();
+        if (parent == null)
+            return null;
+        StringBuilder cont = new StringBuilder();
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            Node child = parent.getChild(i);
+            if (child == ref)
+                cont.append("<ref>").append(ref.getValue()).append("</ref>");
+            else
+                cont.append(child.getValue());
+        }
+
+        String target = ref.getAttributeValue("target");
+        String citationTeiId = target == null ? "" : (target.startsWith("#") ? target.substring(1) : target);
+        String coords = ref.getAttributeValue("coords");
+
+        BibDataSetContext pcc = new BibDataSetContext();
+        pcc.setContext(extractContextSentence(cutContextSimple(cont.toString())));
+        pcc.setDocumentCoords(coords == null ? "" : coords);
+        pcc.setTeiId(citationTeiId);
+        return pcc;
+    }
+
     private static String extractContextSentence(String cont) {
         Matcher m = REF_PATTERN.matcher(cont);
         if (m.find()) {
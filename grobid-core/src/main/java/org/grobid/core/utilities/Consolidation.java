@@ -7,6 +7,7 @@ import org.apache.commons.collections4.CollectionUtils;
 
 import org.grobid.core.data.BiblioItem;
 import org.grobid.core.data.BibDataSet;
+import org.grobid.core.document.ProcessingReport;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.sax.CrossrefUnixrefSaxParser;
 import org.grobid.core.utilities.crossref.*;
@@ -249,6 +250,7 @@ public class Consolidation {
         }
 
         final boolean doiQuery;
+        long start = System.nanoTime();
         try {
             //CrossrefRequestListener<BiblioItem> requestListener = new CrossrefRequestListener<BiblioItem>();
             if (cntManager != null) {
@@ -316,6 +318,7 @@ public class Consolidation {
         } 
 
         client.finish(threadId);
+        ProcessingReport.recordConsolidation(1, System.nanoTime() - start);
         if (results.size() == 0)
             return null;
         else
@@ -336,6 +339,8 @@ public class Consolidation {
             results.put(Integer.valueOf(n), null);
         }
         n = 0;
+        int nbRequests = 0;
+        long start = System.nanoTime();
         long threadId = Thread.currentThread().getId();
         for(BibDataSet bibDataSet : biblios) {
             final BiblioItem theBiblio = bibDataSet.getResBib();
@@ -475,6 +480,7 @@ public class Consolidation {
                     doiQuery = false;
                 }
 
+                nbRequests++;
                 client.<BiblioItem>pushRequest("works", arguments, workDeserializer, threadId, new CrossrefRequestListener<BiblioItem>(n) {
                     
                     @Override
@@ -508,6 +514,7 @@ public class Consolidation {
             n++;
         }
         client.finish(threadId);
+        ProcessingReport.recordConsolidation(nbRequests, System.nanoTime() - start);
 
         return results;
     }
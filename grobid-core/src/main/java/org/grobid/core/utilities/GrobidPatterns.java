@@ -0,0 +1,150 @@
+package org.grobid.core.utilities;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the regular expressions shared by the feature extractors and the text utilities.
+ *
+ * The patterns are compiled once, a compiled Pattern being immutable and safe to share between
+ * threads (only its Matcher is not). The hottest tests (digits, year, punctuation, line breaks)
+ * are also available as char scanners, which give the same answers as find() on these patterns
+ * without creating a Matcher.
+ */
+public class GrobidPatterns {
+
+    public static final Pattern YEAR = Pattern.compile("[1,2][0-9][0-9][0-9]");
+    public static final Pattern HTTP = Pattern.compile("http(s)?");
+    public static final Pattern ALL_DIGITS = Pattern.compile("^\\d+$");
+    public static final Pattern EMAIL_IN_TEXT = Pattern.compile("\\w+((\\.|\\-|_)\\w+)*@\\w+((\\.|\\-)\\w+)+");
+    public static final Pattern EMAIL = Pattern.compile("^(?:[a-zA-Z0-9_'^&amp;/+-])+(?:\\.(?:[a-zA-Z0-9_'^&amp;/+-])+)*@(?:(?:\\[?(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?))\\.){3}(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\]?)|(?:[a-zA-Z0-9-]+\\.)+(?:[a-zA-Z]){2,}\\.?)$");
+    public static final Pattern ACRONYM = Pattern.compile("[A-Z]\\.([A-Z]\\.)*");
+    public static final Pattern PUNCT = Pattern.compile("^[\\,\\:;\\?\\.]+$");
+    public static final Pattern NEWLINE = Pattern.compile("\n");
+    public static final Pattern LINE_BREAK = Pattern.compile("[\\n\\r]");
+
+    private static final ConcurrentMap<String, Pattern> compiled = new ConcurrentHashMap<>();
+
+    private GrobidPatterns() {
+    }
+
+    /**
+     * @return the compiled pattern of a regular expression given at runtime, compiled once
+     */
+    public static Pattern get(String regex) {
+        Pattern pattern = compiled.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            Pattern previous = compiled.putIfAbsent(regex, pattern);
+            if (previous != null)
+                pattern = previous;
+        }
+        return pattern;
+    }
+
+    /**
+     * Same as YEAR.matcher(text).find(): a 1, 2 or comma followed by three ASCII digits
+     */
+    public static boolean containsYear(CharSequence text) {
+        int run = 0;
+        for (int i = text.length() - 1; i >= 0; i--) {
+            char c = text.charAt(i);
+            if (run >= 3 && (c == '1' || c == '2' || c == ','))
+                return true;
+            run = isAsciiDigit(c) ? run + 1 : 0;
+        }
+        return false;
+    }
+
+    /**
+     * Same as HTTP.matcher(text).find()
+     */
+    public static boolean containsHttp(String text) {
+        return text.contains("http");
+    }
+
+    /**
+     * Same as ALL_DIGITS.matcher(text).find(): only ASCII digits, possibly followed by a final line terminator
+     */
+    public static boolean isAllDigits(CharSequence text) {
+        int end = endBeforeFinalTerminator(text);
+        if (end == 0)
+            return false;
+        for (int i = 0; i < end; i++) {
+            if (!isAsciiDigit(text.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as PUNCT.matcher(text).find(): only , : ; ? . characters, possibly followed by a final line terminator
+     */
+    public static boolean isPunct(CharSequence text) {
+        int end = endBeforeFinalTerminator(text);
+        if (end == 0)
+            return false;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != ',' && c != ':' && c != ';' && c != '?' && c != '.')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as LINE_BREAK.split(text): the lines of the text, without the trailing empty ones
+     */
+    public static String[] splitLines(String text) {
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r')
+                n++;
+        }
+        if (n == 0)
+            return new String[]{text};
+
+        String[] lines = new String[n + 1];
+        int start = 0;
+        int k = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines[k++] = text.substring(start, i);
+                start = i + 1;
+            }
+        }
+        lines[k++] = text.substring(start);
+        while (k > 0 && lines[k - 1].isEmpty())
+            k--;
+        if (k == lines.length)
+            return lines;
+        String[] result = new String[k];
+        System.arraycopy(lines, 0, result, 0, k);
+        return result;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * The end of the text without its final line terminator, where a $ outside of the multiline mode matches
+     */
+    private static int endBeforeFinalTerminator(CharSequence text) {
+        int end = text.length();
+        if (end == 0)
+            return 0;
+        char last = text.charAt(end - 1);
+        if (last == '\n') {
+            end--;
+            if (end > 0 && text.charAt(end - 1) == '\r')
+                end--;
+        } else if (last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -425,6 +425,29 @@ public class GrobidProperties {
         );
     }
 
+    /**
+     * Returns the number of first pages of a PDF converted for a header-only processing.
+     *
+     * @return number of pages for the header extraction
+     */
+    public static int getHeaderPages() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_HEADER_PAGES, "2"));
+    }
+
+    /**
+     * Returns the number of first pages of a PDF converted for a second attempt of header-only processing,
+     * when no header is found in the first pages (e.g. because of cover pages). 0 means no second attempt.
+     *
+     * @return number of pages for the second attempt of header extraction
+     */
+    public static int getHeaderRetryPages() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_HEADER_RETRY_PAGES, "4"));
+    }
+
+    public static void setHeaderRetryPages(final String nbPages) {
+        setPropertyValue(GrobidPropertyKeys.PROP_HEADER_RETRY_PAGES, nbPages);
+    }
+
     /**
      * Returns the installation path of DeLFT if set, null otherwise. It is required for using
      * a Deep Learning sequence labelling engine.
@@ -585,6 +608,14 @@ public class GrobidProperties {
         return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_3RD_PARTY_PDFTOXML_TIMEOUT_SEC, "60"), 10) * 1000;
     }
 
+    /**
+     * Returns the heap in MB used by PDFBox for a PDF to be annotated before buffering it in a scratch file,
+     * 0 for a scratch file only and a negative value for no limit.
+     */
+    public static Integer getPdfAnnotationMemoryLimitMb() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_PDF_ANNOTATION_MEMORY_LIMIT, "64"), 10);
+    }
+
     /**
      * Returns the number of threads, given in the grobid-property file.
      *
@@ -598,6 +629,40 @@ public class GrobidProperties {
         return nbThreadsConfig;
     }
 
+    /**
+     * Returns true if the featurized files of the training corpora are cached in the temporary directory,
+     * so that the unchanged corpus files are not featurized again by the next trainings.
+     */
+    public static boolean isTrainingFeatureCache() {
+        return Utilities.stringToBoolean(getPropertyValue(GrobidPropertyKeys.PROP_TRAINING_FEATURE_CACHE, "false"));
+    }
+
+    /**
+     * Returns the number of folds of a n-fold evaluation trained and evaluated at the same time, sharing the
+     * grobid.nb_threads threads, 0 for as many folds as threads.
+     */
+    public static int getTrainingParallelFolds() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_TRAINING_PARALLEL_FOLDS, "0"), 10);
+    }
+
+    /**
+     * Returns the number of threads of the pool used for intra-document parallel processing,
+     * given in the grobid-property file. 0 means that the documents are processed sequentially.
+     *
+     * @return number of threads for intra-document parallelism
+     */
+    public static int getDocumentNBThreads() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_DOCUMENT_NB_THREADS, "0"));
+    }
+
+    /**
+     * Sets the number of threads for intra-document parallel processing.
+     *
+     * @param nbThreads number of threads, 0 for sequential processing of each document
+     */
+    public static void setDocumentNBThreads(final String nbThreads) {
+        setPropertyValue(GrobidPropertyKeys.PROP_DOCUMENT_NB_THREADS, nbThreads);
+    }
 
     // PDFs with more blocks will be skipped
 
@@ -609,6 +674,50 @@ public class GrobidProperties {
         return Integer.valueOf(getPropertyValue(GrobidPropertyKeys.PROP_PDF_TOKENS_MAX, "1000000"));
     }
 
+    /**
+     * Returns the number of pages of a shard for the processing of long PDF documents, given in the
+     * grobid-property file. Documents with more pages are converted and segmented by shards of pages.
+     * 0 means that the documents are never sharded.
+     *
+     * @return number of pages per shard
+     */
+    public static int getPdfShardPages() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_PDF_SHARD_PAGES, "0"));
+    }
+
+    public static void setPdfShardPages(final String nbPages) {
+        setPropertyValue(GrobidPropertyKeys.PROP_PDF_SHARD_PAGES, nbPages);
+    }
+
+    /**
+     * Returns the number of pages added as context before and after a shard when labelling it,
+     * given in the grobid-property file.
+     *
+     * @return number of overlapping pages between two shards
+     */
+    public static int getPdfShardOverlap() {
+        return Integer.parseInt(getPropertyValue(GrobidPropertyKeys.PROP_PDF_SHARD_OVERLAP, "1"));
+    }
+
+    public static void setPdfShardOverlap(final String nbPages) {
+        setPropertyValue(GrobidPropertyKeys.PROP_PDF_SHARD_OVERLAP, nbPages);
+    }
+
+    /**
+     * Returns the heap budget in MB for the processing of one PDF document, given in the grobid-property file.
+     * -1 (default) means no budget, 0 means the maximum heap divided by the number of documents processed
+     * at the same time (see MemoryBudget).
+     *
+     * @return heap budget of a document in MB
+     */
+    public static long getPdfMemoryBudgetMb() {
+        return Long.parseLong(getPropertyValue(GrobidPropertyKeys.PROP_PDF_MEMORY_BUDGET, "-1"));
+    }
+
+    public static void setPdfMemoryBudgetMb(final String budgetMb) {
+        setPropertyValue(GrobidPropertyKeys.PROP_PDF_MEMORY_BUDGET, budgetMb);
+    }
+
     /**
      * Sets the number of threads, given in the grobid-property file.
      *
@@ -666,6 +775,15 @@ public class GrobidProperties {
         setPropertyValue(GrobidPropertyKeys.PROP_RESOURCE_INHOME, resourceInHome);
     }
 
+    /**
+     * Returns if the word forms and name lists are memory-mapped from their compiled form in the temp
+     * directory instead of being parsed in heap, which only applies when the resources are read from
+     * grobid-home. The mapped look-ups are slower than the heap ones, so it is off by default.
+     */
+    public static Boolean isLexiconMapped() {
+        return Utilities.stringToBoolean(getPropertyValue(GrobidPropertyKeys.PROP_LEXICON_MAPPED, "false"));
+    }
+
     /**
      * Returns the path to the home folder of pdf to xml converter.
      */
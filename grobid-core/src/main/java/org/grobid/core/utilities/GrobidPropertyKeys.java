@@ -16,6 +16,12 @@ public interface GrobidPropertyKeys {
     String PROP_3RD_PARTY_PDFTOXML_MEMORY_LIMIT = "grobid.3rdparty.pdf2xml.memory.limit.mb";
     String PROP_3RD_PARTY_PDFTOXML_TIMEOUT_SEC = "grobid.3rdparty.pdf2xml.memory.timeout.sec";
 
+    /**
+     * Heap used by PDFBox for a PDF to be annotated, beyond which the document is buffered in a scratch
+     * file (0 for a scratch file only, -1 for no limit)
+     */
+    String PROP_PDF_ANNOTATION_MEMORY_LIMIT = "grobid.pdf.annotation.memory.limit.mb";
+
     String PROP_GROBID_CRF_ENGINE = "grobid.crf.engine";
     String PROP_GROBID_DELFT_PATH = "grobid.delft.install";
     String PROP_GROBID_DELFT_REDIRECT_OUTPUT = "grobid.delft.redirect_output";
@@ -24,6 +30,8 @@ public interface GrobidPropertyKeys {
     String PROP_LANG_DETECTOR_FACTORY = "grobid.language_detector_factory";
 
     String PROP_HEADER_USE_HEURISTICS = "grobid.header.use_heuristics";
+    String PROP_HEADER_PAGES = "grobid.header.pages";
+    String PROP_HEADER_RETRY_PAGES = "grobid.header.retry_pages";
 
     String PROP_CROSSREF_ID = "grobid.crossref_id";
     String PROP_CROSSREF_PW = "grobid.crossref_pw";
@@ -53,9 +61,20 @@ public interface GrobidPropertyKeys {
     String PROP_PROXY_PORT = "grobid.proxy_port";
 
     String PROP_NB_THREADS = "grobid.nb_threads";
+    String PROP_TRAINING_FEATURE_CACHE = "grobid.training.feature_cache";
+    String PROP_TRAINING_PARALLEL_FOLDS = "grobid.training.parallel_folds";
+
+    /**
+     * Number of threads of the pool shared by the documents for running independent processing
+     * stages of one document concurrently (0 to process each document sequentially)
+     */
+    String PROP_DOCUMENT_NB_THREADS = "grobid.document.nb_threads";
 
     String PROP_PDF_BLOCKS_MAX = "grobid.pdf.blocks.max";
     String PROP_PDF_TOKENS_MAX = "grobid.pdf.tokens.max";
+    String PROP_PDF_SHARD_PAGES = "grobid.pdf.shard.pages";
+    String PROP_PDF_SHARD_OVERLAP = "grobid.pdf.shard.overlap";
+    String PROP_PDF_MEMORY_BUDGET = "grobid.pdf.memory.budget.mb";
 
     String PROP_GROBID_MAX_CONNECTIONS = "org.grobid.max.connections";
     String PROP_GROBID_POOL_MAX_WAIT = "org.grobid.pool.max.wait";
@@ -70,6 +89,13 @@ public interface GrobidPropertyKeys {
      */
     String PROP_RESOURCE_INHOME = "grobid.resources.inHome";
 
+    /**
+     * Determines if the word forms and name lists are compiled once under the temp directory and then
+     * memory-mapped instead of being parsed in heap at each start-up (possible values (true|false)
+     * default is false)
+     */
+    String PROP_LEXICON_MAPPED = "grobid.lexicon.mapped";
+
     /**
      * The name of the env-entry located in the web.xml, via which the
      * grobid-service.propeties path is set.
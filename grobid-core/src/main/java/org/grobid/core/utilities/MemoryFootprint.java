@@ -0,0 +1,167 @@
+package org.grobid.core.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Memory taken by the models and the memory-mapped resources of the process, to size the number of
+ * GROBID JVMs which can run on a host.
+ *
+ * A model is measured by the growth of the resident memory of the process while it is loaded. A Wapiti
+ * model is parsed by the native library in its own heap, so this memory is private to the process.
+ * A memory-mapped resource (e.g. the compiled lexicon word lists) is measured from /proc/self/smaps:
+ * its resident pages which are also mapped by other processes are shared through the page cache.
+ *
+ * The measures are only available on Linux, they are reported as unknown elsewhere.
+ */
+public class MemoryFootprint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryFootprint.class);
+
+    private static final File PROC_STATUS = new File("/proc/self/status");
+    private static final File PROC_SMAPS = new File("/proc/self/smaps");
+
+    private static final Map<String, Long> modelResidentBytes = new LinkedHashMap<>();
+    private static final Map<String, File> mappedFiles = new LinkedHashMap<>();
+
+    /**
+     * Resident bytes of a mapped file: all its resident pages, and the ones also mapped by another process
+     */
+    public static class Mapping {
+        private long residentBytes = 0;
+        private long sharedBytes = 0;
+
+        public long getResidentBytes() {
+            return residentBytes;
+        }
+
+        public long getSharedBytes() {
+            return sharedBytes;
+        }
+    }
+
+    /**
+     * @return the resident memory of the process, -1 if unknown
+     */
+    public static long getResidentBytes() {
+        if (!PROC_STATUS.exists())
+            return -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(PROC_STATUS), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:"))
+                    return parseKiloBytes(line);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read " + PROC_STATUS, e);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the resident and shared memory of all the mappings of the given file, null if unknown
+     */
+    public static Mapping getMapping(File file) {
+        if (!PROC_SMAPS.exists())
+            return null;
+        String path = file.getAbsolutePath();
+        Mapping mapping = new Mapping();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(PROC_SMAPS), UTF_8))) {
+            boolean inMapping = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon == -1 || line.indexOf(' ') < colon) {
+                    // header of a mapping: address perms offset dev inode [pathname]
+                    inMapping = line.endsWith(path);
+                } else if (inMapping) {
+                    if (line.startsWith("Rss:"))
+                        mapping.residentBytes += parseKiloBytes(line);
+                    else if (line.startsWith("Shared_Clean:") || line.startsWith("Shared_Dirty:"))
+                        mapping.sharedBytes += parseKiloBytes(line);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read " + PROC_SMAPS, e);
+            return null;
+        }
+        return mapping;
+    }
+
+    private static long parseKiloBytes(String line) {
+        // e.g. "Rss:                 132 kB"
+        String[] tokens = line.trim().split("\\s+");
+        try {
+            return Long.parseLong(tokens[1]) * 1024;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Record the memory taken by the loading of a model, from the resident memory of the process
+     * before and after the loading
+     */
+    public static synchronized void recordModel(String name, long residentBefore, long residentAfter) {
+        if (residentBefore < 0 || residentAfter < 0)
+            return;
+        modelResidentBytes.put(name, Math.max(0, residentAfter - residentBefore));
+    }
+
+    /**
+     * Record a resource file which is memory-mapped by the process
+     */
+    public static synchronized void recordMappedFile(String name, File file) {
+        mappedFiles.put(name, file);
+    }
+
+    /**
+     * @return a report of the memory taken by the loaded models and the mapped resources
+     */
+    public static synchronized String report() {
+        StringBuilder report = new StringBuilder();
+        report.append("Memory footprint (resident / shared with other processes):\n");
+        long totalResident = 0;
+        long totalShared = 0;
+        for (Map.Entry<String, Long> entry : modelResidentBytes.entrySet()) {
+            report.append(String.format(Locale.ROOT, "  model %-40s %12s / %12s%n", entry.getKey(),
+                format(entry.getValue()), format(0)));
+            totalResident += entry.getValue();
+        }
+        for (Map.Entry<String, File> entry : mappedFiles.entrySet()) {
+            Mapping mapping = getMapping(entry.getValue());
+            if (mapping == null) {
+                report.append(String.format(Locale.ROOT, "  mapped %-39s %12s / %12s%n", entry.getKey(),
+                    "unknown", "unknown"));
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, "  mapped %-39s %12s / %12s%n", entry.getKey(),
+                format(mapping.getResidentBytes()), format(mapping.getSharedBytes())));
+            totalResident += mapping.getResidentBytes();
+            totalShared += mapping.getSharedBytes();
+        }
+        report.append(String.format(Locale.ROOT, "  %-46s %12s / %12s%n", "total", format(totalResident), format(totalShared)));
+        long processResident = getResidentBytes();
+        report.append(String.format(Locale.ROOT, "  %-46s %12s%n", "process",
+            processResident < 0 ? "unknown" : format(processResident)));
+        return report.toString();
+    }
+
+    private static String format(long bytes) {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
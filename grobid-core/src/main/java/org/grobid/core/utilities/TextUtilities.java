@@ -3,6 +3,7 @@ package org.grobid.core.utilities;
 import org.apache.commons.lang3.StringUtils;
 import org.grobid.core.analyzers.GrobidAnalyzer;
 import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.features.TokenShape;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.lexicon.Lexicon;
 
@@ -1043,84 +1044,18 @@ public class TextUtilities {
         return output;
     }
 
+    /**
+     * @see TokenShape#wordShape(String)
+     */
     public static String wordShape(String word) {
-        StringBuilder shape = new StringBuilder();
-        for (char c : word.toCharArray()) {
-            if (Character.isLetter(c)) {
-                if (Character.isUpperCase(c)) {
-                    shape.append("X");
-                } else {
-                    shape.append("x");
-                }
-            } else if (Character.isDigit(c)) {
-                shape.append("d");
-            } else {
-                shape.append(c);
-            }
-        }
-
-        StringBuilder finalShape = new StringBuilder().append(shape.charAt(0));
-
-        String suffix = "";
-        if (word.length() > 2) {
-            suffix = shape.substring(shape.length() - 2);
-        } else if (word.length() > 1) {
-            suffix = shape.substring(shape.length() - 1);
-        }
-
-        StringBuilder middle = new StringBuilder();
-        if (shape.length() > 3) {
-            char ch = shape.charAt(1);
-            for (int i = 1; i < shape.length() - 2; i++) {
-                middle.append(ch);
-                while (ch == shape.charAt(i) && i < shape.length() - 2) {
-                    i++;
-                }
-                ch = shape.charAt(i);
-            }
-
-            if (ch != middle.charAt(middle.length() - 1)) {
-                middle.append(ch);
-            }
-        }
-        return finalShape.append(middle).append(suffix).toString();
-
+        return TokenShape.wordShape(word);
     }
 
+    /**
+     * @see TokenShape#wordShapeTrimmed(String)
+     */
     public static String wordShapeTrimmed(String word) {
-        StringBuilder shape = new StringBuilder();
-        for (char c : word.toCharArray()) {
-            if (Character.isLetter(c)) {
-                if (Character.isUpperCase(c)) {
-                    shape.append("X");
-                } else {
-                    shape.append("x");
-                }
-            } else if (Character.isDigit(c)) {
-                shape.append("d");
-            } else {
-                shape.append(c);
-            }
-        }
-
-        StringBuilder middle = new StringBuilder();
-
-        char ch = shape.charAt(0);
-        for (int i = 0; i < shape.length(); i++) {
-            middle.append(ch);
-            while (ch == shape.charAt(i) && i < shape.length() - 1) {
-                i++;
-            }
-            ch = shape.charAt(i);
-        }
-
-        if (ch != middle.charAt(middle.length() - 1)) {
-            middle.append(ch);
-        }
-
-
-        return middle.toString();
-
+        return TokenShape.wordShapeTrimmed(word);
     }
 
     /**
@@ -1132,19 +1067,22 @@ public class TextUtilities {
      * @throws Exception
      */
     public static String punctuationProfile(String line) {
-        String profile = "";
         if ((line == null) || (line.length() == 0)) {
-            return profile;
+            return "";
         }
+        StringBuilder profile = null;
         for (int i = 0; i < line.length(); i++) {
             char c = line.charAt(i);
             if (c == ' ') {
                 continue;
             }
-            if (fullPunctuations.indexOf(c) != -1)
-                profile += c;
+            if (fullPunctuations.indexOf(c) != -1) {
+                if (profile == null)
+                    profile = new StringBuilder();
+                profile.append(c);
+            }
         }
-        return profile;
+        return profile == null ? "" : profile.toString();
     }
 
     /**
@@ -1209,10 +1147,10 @@ public class TextUtilities {
     }
 
     /**
-     * The equivalent of String.replaceAll() for StringBuilder
+     * The equivalent of String.replaceAll() for StringBuilder, the regex being compiled only once
      */
     public static StringBuilder replaceAll(StringBuilder sb, String regex, String replacement) {
-        Pattern pattern = Pattern.compile(regex);
+        Pattern pattern = GrobidPatterns.get(regex);
         Matcher m = pattern.matcher(sb);
         int start = 0;
         while (m.find(start)) {
@@ -33,4 +33,10 @@ public interface CntManager extends Serializable {
     void addMetric(String name, CntsMetric cntsMetric);
 
     void removeMetric(String name);
+
+    /**
+     * Add the counts of another manager to this one, e.g. the counters of the scope of a document
+     * to the global counters
+     */
+    void addAll(CntManager other);
 }
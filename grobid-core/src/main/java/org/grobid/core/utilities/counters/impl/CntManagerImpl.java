@@ -6,16 +6,27 @@ import org.grobid.core.utilities.counters.CntsMetric;
 import org.grobid.core.utilities.counters.Counter;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Counters grouped by the class of their Countable or by an explicit group name, each counter being
+ * striped over the incrementing threads.
+ *
+ * The counter of a Countable is resolved once and then found by the identity of the Countable in a
+ * copy-on-write map, so that counting a Countable neither computes its name nor allocates anything.
+ * Hot paths can also keep the Counter returned by getCounter() and increment it directly.
+ */
 class CntManagerImpl implements CntManager {
     private static final long serialVersionUID = 2305126306757162275L;
 
     private ConcurrentMap<String, ConcurrentMap<String, Counter>> classCounters = new ConcurrentHashMap<>();
     private ConcurrentMap<String, ConcurrentMap<String, Counter>> strCnts = new ConcurrentHashMap<>();
-    transient private ConcurrentMap<String, CntsMetric> metrics = null;
+    transient private volatile ConcurrentMap<String, CntsMetric> metrics = null;
+    // counters already resolved for the Countable objects, never modified once published
+    transient private volatile Map<Countable, Counter> handles = null;
 
     private void checkGroupName(String groupName) {
         if (classCounters.containsKey(groupName)) {
@@ -36,15 +47,41 @@ class CntManagerImpl implements CntManager {
 
     @Override
     public void i(Countable e, long val) {
+        handle(e).i(val);
+    }
+
+    private Counter handle(Countable e) {
+        Map<Countable, Counter> current = handles;
+        Counter cnt = (current == null) ? null : current.get(e);
+        return (cnt == null) ? resolve(e) : cnt;
+    }
+
+    private synchronized Counter resolve(Countable e) {
+        Map<Countable, Counter> current = handles;
+        if (current != null && current.containsKey(e)) {
+            return current.get(e);
+        }
         final String groupName = getCounterEnclosingName(e);
         checkClass(groupName);
-             
-        classCounters.putIfAbsent(groupName, new ConcurrentHashMap<String, Counter>());
-        ConcurrentMap<String, Counter> cntMap = classCounters.get(groupName);
+        Counter cnt = counter(classCounters, groupName, e.getName());
 
-        cntMap.putIfAbsent(e.getName(), new CounterImpl());
-        Counter cnt = cntMap.get(e.getName());
-        cnt.i(val);
+        Map<Countable, Counter> updated = (current == null) ? new IdentityHashMap<Countable, Counter>() : new IdentityHashMap<>(current);
+        updated.put(e, cnt);
+        handles = updated;
+        return cnt;
+    }
+
+    private static Counter counter(ConcurrentMap<String, ConcurrentMap<String, Counter>> counters, String group, String name) {
+        // look-ups first, as computeIfAbsent() locks even when the value is present
+        ConcurrentMap<String, Counter> cntMap = counters.get(group);
+        if (cntMap == null) {
+            cntMap = counters.computeIfAbsent(group, g -> new ConcurrentHashMap<>());
+        }
+        Counter cnt = cntMap.get(name);
+        if (cnt == null) {
+            cnt = cntMap.computeIfAbsent(name, n -> new CounterImpl());
+        }
+        return cnt;
     }
 
     @Override
@@ -55,18 +92,15 @@ class CntManagerImpl implements CntManager {
     @Override
     public void i(String group, String name, long val) {
         checkGroupName(group);
-
-        strCnts.putIfAbsent(group, new ConcurrentHashMap<String, Counter>());
-        ConcurrentMap<String, Counter> cntMap = strCnts.get(group);
-
-        cntMap.putIfAbsent(name, new CounterImpl());
-        Counter cnt = cntMap.get(name);
-
-        cnt.i(val);
+        counter(strCnts, group, name).i(val);
     }
 
     @Override
     public long cnt(Countable e) {
+        Map<Countable, Counter> current = handles;
+        if (current != null && current.containsKey(e)) {
+            return current.get(e).cnt();
+        }
         Map<String, Counter> cntMap = classCounters.get(getCounterEnclosingName(e));
         if (cntMap == null) {
             return 0;
@@ -87,61 +121,44 @@ class CntManagerImpl implements CntManager {
 
     @Override
     public Counter getCounter(Countable e) {
-        checkClass(e.getName());
-        classCounters.putIfAbsent(e.getName(), new ConcurrentHashMap<String, Counter>());
-
-        ConcurrentMap<String, Counter> cntMap = classCounters.get(e.getClass().getName());
-        cntMap.putIfAbsent(e.getName(), new CounterImpl());
-        return cntMap.get(e.getName());
+        return handle(e);
     }
 
     @Override
     public Counter getCounter(String group, String name) {
         checkGroupName(group);
-        strCnts.putIfAbsent(group, new ConcurrentHashMap<String, Counter>());
-        ConcurrentMap<String, Counter> cntMap = strCnts.get(group);
-        cntMap.putIfAbsent(name, new CounterImpl());
-
-        return cntMap.get(name);
+        return counter(strCnts, group, name);
     }
 
     @Override
     public Map<String, Long> getCounters(Class<? extends Countable> countableClass) {
-        Map<String, Long> toReturn = new ConcurrentHashMap<>();
-        final ConcurrentMap<String, Counter> stringCounterConcurrentMap = classCounters.get(countableClass.getName());
-        for (String key : stringCounterConcurrentMap.keySet()) {
-            toReturn.put(key, stringCounterConcurrentMap.get(key).cnt());
-        }
-        return toReturn;
+        return snapshot(classCounters.get(countableClass.getName()));
     }
 
     @Override
     public Map<String, Long> getCounters(String group) {
+        return snapshot(strCnts.get(group));
+    }
+
+    private static Map<String, Long> snapshot(Map<String, Counter> cntMap) {
         Map<String, Long> toReturn = new ConcurrentHashMap<>();
-        if (strCnts.containsKey(group)) {
-            for (Map.Entry<String, Counter> e : strCnts.get(group).entrySet()) {
+        if (cntMap != null) {
+            for (Map.Entry<String, Counter> e : cntMap.entrySet()) {
                 toReturn.put(e.getKey(), e.getValue().cnt());
             }
         }
         return toReturn;
     }
 
-    @SuppressWarnings({"unchecked"})
     @Override
     public Map<String, Map<String, Long>> getAllCounters() {
         Map<String, Map<String, Long>> map = new ConcurrentHashMap<>();
-        for (String e : classCounters.keySet()) {
-            try {
-                map.put(e, getCounters((Class<? extends Countable>) Class.forName(e)));
-            } catch (ClassNotFoundException e1) {
-                throw new IllegalStateException(e1);
-            }
+        for (Map.Entry<String, ConcurrentMap<String, Counter>> e : classCounters.entrySet()) {
+            map.put(e.getKey(), snapshot(e.getValue()));
         }
-
-        for (String e : strCnts.keySet()) {
-            map.put(e, getCounters(e));
+        for (Map.Entry<String, ConcurrentMap<String, Counter>> e : strCnts.entrySet()) {
+            map.put(e.getKey(), snapshot(e.getValue()));
         }
-
         return map;
     }
 
@@ -173,7 +190,41 @@ class CntManagerImpl implements CntManager {
     }
 
     @Override
-    public synchronized String toString() {
+    public void addAll(CntManager other) {
+        if (other == null || other == this) {
+            return;
+        }
+        if (other instanceof CntManagerImpl) {
+            CntManagerImpl that = (CntManagerImpl) other;
+            for (Map.Entry<String, ConcurrentMap<String, Counter>> group : that.classCounters.entrySet()) {
+                checkClass(group.getKey());
+                for (Map.Entry<String, Counter> e : group.getValue().entrySet()) {
+                    counter(classCounters, group.getKey(), e.getKey()).i(e.getValue().cnt());
+                }
+            }
+            for (Map.Entry<String, ConcurrentMap<String, Counter>> group : that.strCnts.entrySet()) {
+                checkGroupName(group.getKey());
+                for (Map.Entry<String, Counter> e : group.getValue().entrySet()) {
+                    counter(strCnts, group.getKey(), e.getKey()).i(e.getValue().cnt());
+                }
+            }
+            return;
+        }
+        Map<String, Map<String, Long>> allCounters = other.getAllCounters();
+        if (allCounters == null) {
+            return;
+        }
+        for (Map.Entry<String, Map<String, Long>> group : allCounters.entrySet()) {
+            ConcurrentMap<String, ConcurrentMap<String, Counter>> counters =
+                    classCounters.containsKey(group.getKey()) ? classCounters : strCnts;
+            for (Map.Entry<String, Long> e : group.getValue().entrySet()) {
+                counter(counters, group.getKey(), e.getKey()).i(e.getValue());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
         StringBuilder sb = new StringBuilder(1000);
         for (Map.Entry<String, Map<String, Long>> m : getAllCounters().entrySet()) {
             sb.append("\n************************************************************************************\n").
@@ -194,6 +245,7 @@ class CntManagerImpl implements CntManager {
             sb.append("====================================================================================\n");
         }
 
+        ConcurrentMap<String, CntsMetric> metrics = this.metrics;
         if (metrics != null && !metrics.isEmpty()) {
             sb.append("\n++++++++++++++++++++++++++++++ METRICS +++++++++++++++++++++++++++++++++++++++++++++\n");
             for (Map.Entry<String, CntsMetric> e : metrics.entrySet()) {
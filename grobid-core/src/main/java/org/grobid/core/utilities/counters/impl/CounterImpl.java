@@ -3,37 +3,45 @@ package org.grobid.core.utilities.counters.impl;
 
 import org.grobid.core.utilities.counters.Counter;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counter striped over the incrementing threads, so that concurrent increments do not contend on
+ * a single value. Reading the count sums the stripes.
+ */
 class CounterImpl implements Counter {
-    private static final long serialVersionUID = 4764636620333386314L;
-    private volatile AtomicLong cnt = new AtomicLong(0);
+    private static final long serialVersionUID = -1591470632415452470L;
+    private final LongAdder cnt = new LongAdder();
 
     public CounterImpl() {
     }
 
     public CounterImpl(long cnt) {
-        this.cnt.set(cnt);
+        this.cnt.add(cnt);
     }
 
     @Override
     public void i() {
-        cnt.incrementAndGet();
+        cnt.increment();
     }
 
     @Override
     public void i(long val) {
-        cnt.addAndGet(val);
+        cnt.add(val);
     }
 
     @Override
     public long cnt() {
-        return cnt.longValue();
+        return cnt.sum();
     }
 
+    /**
+     * Not atomic with respect to concurrent increments, which can be lost
+     */
     @Override
     public void set(long val) {
-        cnt.set(val);
+        cnt.reset();
+        cnt.add(val);
     }
 
     @Override
@@ -42,11 +50,11 @@ class CounterImpl implements Counter {
         if (o == null || getClass() != o.getClass()) return false;
 
         CounterImpl counter = (CounterImpl) o;
-        return cnt.get() == counter.cnt.get();
+        return cnt() == counter.cnt();
     }
 
     @Override
     public int hashCode() {
-        return cnt.hashCode();
+        return Long.hashCode(cnt());
     }
 }
@@ -8,6 +8,8 @@ import org.grobid.core.utilities.counters.Counter;
 import java.util.Map;
 
 class NoOpCntManagerImpl implements CntManager {
+    private static final Counter NOOP_COUNTER = new NoOpCounterImpl();
+
     @Override
     public void i(Countable e) {
 
@@ -40,12 +42,12 @@ class NoOpCntManagerImpl implements CntManager {
 
     @Override
     public Counter getCounter(Countable e) {
-        return null;
+        return NOOP_COUNTER;
     }
 
     @Override
     public Counter getCounter(String group, String name) {
-        return null;
+        return NOOP_COUNTER;
     }
 
     @Override
@@ -77,4 +79,9 @@ class NoOpCntManagerImpl implements CntManager {
     public void removeMetric(String name) {
 
     }
+
+    @Override
+    public void addAll(CntManager other) {
+
+    }
 }
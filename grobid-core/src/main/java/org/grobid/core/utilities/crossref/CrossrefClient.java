@@ -4,6 +4,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
@@ -43,6 +45,22 @@ public class CrossrefClient implements Closeable {
 	//private List<Future<?>> futures = new ArrayList<Future<?>>();
 	protected volatile Map<Long, List<Future<?>>> futures = new HashMap<>();
 
+	// requests submitted and not yet answered, indexed by their normalized query, so that 
+	// identical queries pushed concurrently share one call to the service (single-flight)
+	protected final Map<String, PendingRequest> pendingRequests = new HashMap<>();
+
+	/**
+	 * A request in progress, with the future to wait for its completion.
+	 */
+	protected static class PendingRequest {
+		protected final SharedRequest<?> request;
+		protected Future<?> future;
+
+		protected PendingRequest(SharedRequest<?> request) {
+			this.request = request;
+		}
+	}
+
 	public static CrossrefClient getInstance() {
         if (instance == null) {
 			getNewInstance();
@@ -119,18 +137,14 @@ public class CrossrefClient implements Closeable {
 		if (listener != null)
 			request.addListener(listener);
 		synchronized(this) {
-			Future<?> f = executorService.submit(new CrossrefRequestTask<T>(this, request));
-			List<Future<?>> localFutures = this.futures.get(new Long(threadId));
-			if (localFutures == null)
-				localFutures = new ArrayList<Future<?>>();
-			localFutures.add(f);
-			this.futures.put(new Long(threadId), localFutures);
-//System.out.println("add request to thread " + threadId + " / current total for the thread: " +  localFutures.size());			
+			submitTask(new CrossrefRequestTask<T>(this, request), threadId);
 		}
 	}
 	
 	/**
 	 * Push a request in pool to be executed soon as possible, then wait a response through the listener.
+	 * If an identical request is already in progress, the listener is attached to this request 
+	 * instead of sending a new one.
 	 * @see <a href="https://github.com/CrossRef/rest-api-doc/blob/master/rest_api.md">Crossref API Documentation</a>
 	 * 
 	 * @param params		query parameters, can be null, ex: ?query.title=[title]&query.author=[author]
@@ -140,10 +154,124 @@ public class CrossrefClient implements Closeable {
 	 */
 	public <T extends Object> void pushRequest(String model, Map<String, String> params, CrossrefDeserializer<T> deserializer, 
 			long threadId, CrossrefRequestListener<T> listener) throws URISyntaxException, ClientProtocolException, IOException {
-		CrossrefRequest<T> request = new CrossrefRequest<T>(model, params, deserializer);
+		String key = pendingRequestKey(model, params, deserializer);
 		synchronized(this) {
-			this.<T>pushRequest(request, listener, threadId);
+			if (joinPendingRequest(key, listener, threadId))
+				return;
+			CrossrefRequest<T> request = new CrossrefRequest<T>(model, params, deserializer);
+			if (listener != null)
+				request.addListener(listener);
+			submitSharedTask(key, request, new CrossrefRequestTask<T>(this, request), threadId);
+		}
+	}
+
+	/**
+	 * Submit a request task to the executor and keep track of its future for the given thread
+	 */
+	protected synchronized Future<?> submitTask(Runnable task, long threadId) {
+		Future<?> f = executorService.submit(task);
+		registerFuture(f, threadId);
+		return f;
+	}
+
+	protected synchronized void registerFuture(Future<?> f, long threadId) {
+		List<Future<?>> localFutures = this.futures.get(new Long(threadId));
+		if (localFutures == null)
+			localFutures = new ArrayList<Future<?>>();
+		localFutures.add(f);
+		this.futures.put(new Long(threadId), localFutures);
+//System.out.println("add request to thread " + threadId + " / current total for the thread: " +  localFutures.size());
+	}
+
+	/**
+	 * Submit a request task which can be shared by identical queries pushed while 
+	 * it is in progress
+	 */
+	protected synchronized Future<?> submitSharedTask(String key, SharedRequest<?> request, Runnable task, long threadId) {
+		PendingRequest pending = addPendingRequest(key, request);
+		Future<?> f = submitTask(task, threadId);
+		if (pending != null)
+			pending.future = f;
+		return f;
+	}
+
+	/**
+	 * Attach the listener to an identical request currently in progress, if any. 
+	 * The future of the shared request is registered for the given thread, so that 
+	 * finish(threadId) also waits for it.
+	 *
+	 * @return true if the listener has been attached to a request in progress
+	 */
+	@SuppressWarnings("unchecked")
+	protected synchronized <T extends Object> boolean joinPendingRequest(String key, CrossrefRequestListener<T> listener, 
+		long threadId) {
+		if (key == null || listener == null)
+			return false;
+		PendingRequest pending = pendingRequests.get(key);
+		if (pending == null || pending.future == null)
+			return false;
+		if (!((SharedRequest<T>) pending.request).addListenerIfPending(listener))
+			return false;
+		registerFuture(pending.future, threadId);
+		logger.debug("Sharing request in progress: " + key);
+		return true;
+	}
+
+	/**
+	 * Register a new request as in progress under the given key. The request is 
+	 * released as soon as its response starts being dispatched to its listeners.
+	 */
+	protected synchronized <T extends Object> PendingRequest addPendingRequest(String key, SharedRequest<T> request) {
+		if (key == null)
+			return null;
+		final PendingRequest pending = new PendingRequest(request);
+		pendingRequests.put(key, pending);
+		CrossrefRequestListener<T> releaseListener = new CrossrefRequestListener<T>() {
+			@Override
+			public void onResponse(Response<T> response) {
+				releasePendingRequest(key, pending);
+			}
+
+			@Override
+			public boolean isResultsConsumer() {
+				return false;
+			}
+		};
+		request.addListenerIfPending(releaseListener);
+		return pending;
+	}
+
+	protected synchronized void releasePendingRequest(String key, PendingRequest pending) {
+		pendingRequests.remove(key, pending);
+	}
+
+	/**
+	 * Build the key identifying identical queries: same model, same deserializer and same
+	 * query parameters, independently of their order. DOI are case insensitive.
+	 */
+	protected static String pendingRequestKey(String model, Map<String, String> params, CrossrefDeserializer<?> deserializer) {
+		if (params == null)
+			return null;
+		Map<String, String> normalizedParams = new TreeMap<>();
+		for (Entry<String, String> cursor : params.entrySet()) {
+			String name = cursor.getKey();
+			String value = cursor.getValue();
+			if (name == null || value == null)
+				continue;
+			value = value.trim();
+			if (name.equalsIgnoreCase("doi")) {
+				name = "doi";
+				value = value.toLowerCase();
+			}
+			normalizedParams.put(name, value);
 		}
+		StringBuilder key = new StringBuilder();
+		key.append(model);
+		if (deserializer != null)
+			key.append("|").append(deserializer.getClass().getName());
+		for (Entry<String, String> cursor : normalizedParams.entrySet())
+			key.append("|").append(cursor.getKey()).append("=").append(cursor.getValue());
+		return key.toString();
 	}
 
 	/**
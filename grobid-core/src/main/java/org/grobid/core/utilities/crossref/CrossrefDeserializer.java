@@ -1,102 +1,219 @@
 package org.grobid.core.utilities.crossref;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
-import org.apache.http.client.ClientProtocolException;
-
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
  * Abstract deserializer to parse json response from crossref.
  * Normalize results to a list of java objects even if only one result is given.
  * As example: WorkDeserializer.
  *
+ * The response is parsed in streaming: only the fields of interest for the item
+ * are read by the ItemReader, the rest of the response is skipped without building
+ * any json tree.
+ *
  * @author Vincent Kaestle, Patrice
  */
 public abstract class CrossrefDeserializer<T extends Object> extends JsonDeserializer<List<T>> {
-	
+
 	protected ObjectMapper mapper;
-	protected SimpleModule module;
-	
+	protected JsonFactory factory;
+
 	public CrossrefDeserializer() {
 		mapper = new ObjectMapper();
-		module = new SimpleModule();
-		module.addDeserializer(List.class, this);
-		mapper.registerModule(module);
+		factory = mapper.getFactory();
+	}
+
+	/**
+	 * Streaming reader of the fields of one json item.
+	 */
+	protected interface ItemReader<T> {
+		/**
+		 * Read the value of a field of the item. The parser is positioned on the first
+		 * token of the value and the whole value must be consumed, for instance with
+		 * skipChildren() if the field is not used.
+		 */
+		void readField(String name, JsonParser parser) throws IOException;
+
+		/**
+		 * Give back the java object for the fields read so far
+		 */
+		T build();
 	}
-	
+
+	/**
+	 * Create a reader for one json item of the response
+	 */
+	protected abstract ItemReader<T> createItemReader();
+
 	/**
 	 * Describe how to deserialize one json item from response
 	 */
-	protected abstract T deserializeOneItem(JsonNode item);
-	
+	protected T deserializeOneItem(JsonNode item) throws IOException {
+		if (item == null || !item.isObject())
+			return null;
+		try (JsonParser parser = item.traverse(mapper)) {
+			parser.nextToken();
+			return readItem(parser);
+		}
+	}
+
 	/**
 	 * Parse a json String, usually the response body. Give back a list of java objects.
 	 */
-	@SuppressWarnings("unchecked")
 	public List<T> parse(String body) throws JsonParseException, JsonMappingException, IOException {
-		return (List<T>)mapper.readValue(body, List.class);
+		try (JsonParser parser = factory.createParser(body)) {
+			return parse(parser);
+		}
 	}
-	
+
 	/**
-	 * Normalize results to get always an object list even if you fetch only one object.
+	 * Parse a json stream, usually the response entity content, without loading the
+	 * complete body in memory. Give back a list of java objects.
 	 */
-	protected ArrayNode normalizeResults(JsonParser parser) throws IOException {
-		JsonNode treeNode = parser.readValueAsTree();
-		ArrayNode results = null;
-
-		JsonNode messageNode = treeNode.get("message");
-		
-		if (messageNode == null || !messageNode.isObject()) {
-			//throw new ClientProtocolException("No message found in json result.");
-			// glutton
-			results = mapper.createArrayNode();
-			results.add(treeNode);
-		} else {
-			ObjectNode message = (ObjectNode)messageNode;
-			JsonNode itemsNode = message.get("items");
-			
-			if (itemsNode == null || !itemsNode.isArray()) {
-				results = mapper.createArrayNode();
-				results.add(message);
-			} 
-			else
-				results = (ArrayNode)itemsNode;
+	public List<T> parse(InputStream body) throws JsonParseException, JsonMappingException, IOException {
+		try (JsonParser parser = factory.createParser(body)) {
+			return parse(parser);
 		}
-		
-		return results;
 	}
-	
+
+	protected List<T> parse(JsonParser parser) throws IOException {
+		if (parser.nextToken() == null)
+			throw new JsonMappingException(parser, "Empty json response");
+		return deserialize(parser, null);
+	}
+
+	/**
+	 * Normalize results to get always an object list even if you fetch only one object.
+	 * The parser is positioned on the start of the json object of the response (crossref) or of
+	 * the item (glutton). Depending on the service and the query, we have:
+	 * - glutton: the item is the response object itself
+	 * - crossref, single work (e.g. DOI lookup): the item is under "message"
+	 * - crossref, query: the items are under "message"/"items"
+	 */
 	@Override
 	public List<T> deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
-		
-		ArrayList<T> res = new ArrayList<T>();
-		
-		ArrayNode items = normalizeResults(parser);
-		
-		Iterator<JsonNode> it = items.elements();
-		while (it.hasNext()) {
-			
-			JsonNode item = it.next();
-			
-			T one = deserializeOneItem(item);
-			
-			res.add(one);
+		List<T> res = new ArrayList<T>();
+
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return res;
+		}
+
+		// fields at top level are read as an item, in case we have a glutton response
+		ItemReader<T> reader = createItemReader();
+		boolean hasMessage = false;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ("message".equals(name) && token == JsonToken.START_OBJECT) {
+				hasMessage = true;
+				readMessage(parser, res);
+			} else if (hasMessage) {
+				parser.skipChildren();
+			} else {
+				reader.readField(name, parser);
+			}
+		}
+
+		if (!hasMessage) {
+			T one = reader.build();
+			if (one != null)
+				res.add(one);
 		}
-		
+
 		return res;
 	}
+
+	/**
+	 * Read a crossref message object, which is either one item or a list of items
+	 */
+	protected void readMessage(JsonParser parser, List<T> res) throws IOException {
+		ItemReader<T> reader = createItemReader();
+		boolean hasItems = false;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ("items".equals(name) && token == JsonToken.START_ARRAY) {
+				hasItems = true;
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					T one = readItem(parser);
+					if (one != null)
+						res.add(one);
+				}
+			} else if (hasItems) {
+				parser.skipChildren();
+			} else {
+				reader.readField(name, parser);
+			}
+		}
+
+		if (!hasItems) {
+			T one = reader.build();
+			if (one != null)
+				res.add(one);
+		}
+	}
+
+	/**
+	 * Read a complete json item, the parser being positioned on its start
+	 */
+	protected T readItem(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		ItemReader<T> reader = createItemReader();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			reader.readField(name, parser);
+		}
+		return reader.build();
+	}
+
+	/**
+	 * Read a scalar value as text, null if the value is null or is not a scalar
+	 * (in this case the value is skipped)
+	 */
+	protected static String readText(JsonParser parser) throws IOException {
+		if (parser.currentToken().isScalarValue())
+			return parser.getValueAsString();
+		parser.skipChildren();
+		return null;
+	}
+
+	/**
+	 * Read the first scalar value of an array as text, the rest of the array being skipped
+	 */
+	protected static String readFirstText(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return null;
+		}
+		String first = null;
+		boolean firstRead = false;
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (!firstRead) {
+				first = readText(parser);
+				firstRead = true;
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return first;
+	}
 }
@@ -1,5 +1,6 @@
 package org.grobid.core.utilities.crossref;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -11,11 +12,15 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
-import org.apache.http.util.EntityUtils;
 import org.grobid.core.utilities.GrobidProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Observable;
@@ -26,7 +31,9 @@ import java.util.Observable;
  *
  * @author Vincent Kaestle, Patrice
  */
-public class CrossrefRequest<T extends Object> extends Observable {
+public class CrossrefRequest<T extends Object> extends Observable implements SharedRequest<T> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CrossrefRequest.class);
 
 	protected static final String BASE_URL = "https://api.crossref.org";
 	
@@ -54,6 +61,11 @@ public class CrossrefRequest<T extends Object> extends Observable {
 	protected CrossrefDeserializer<T> deserializer;
 	
 	protected ArrayList<CrossrefRequestListener<T>> listeners;
+
+	/**
+	 * True once the response has started to be dispatched to the listeners
+	 */
+	protected boolean notified = false;
 	
 	public CrossrefRequest(String model, Map<String, String> params, CrossrefDeserializer<T> deserializer) {
 		this.model = model;
@@ -66,16 +78,83 @@ public class CrossrefRequest<T extends Object> extends Observable {
 	/**
 	 * Add listener to catch response when request is executed.
 	 */
-	public void addListener(CrossrefRequestListener<T> listener) {
+	public synchronized void addListener(CrossrefRequestListener<T> listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public synchronized boolean addListenerIfPending(CrossrefRequestListener<T> listener) {
+		if (notified)
+			return false;
 		this.listeners.add(listener);
+		return true;
 	}
 	
 	/**
 	 * Notify all connected listeners
 	 */
 	protected void notifyListeners(CrossrefRequestListener.Response<T> message) {
-		for (CrossrefRequestListener<T> listener : listeners)
-			listener.notify(message);
+		notifyListeners(message, null);
+	}
+
+	/**
+	 * Notify all connected listeners, the results being deserialized from the response body
+	 * for each listener consuming them
+	 */
+	protected void notifyListeners(CrossrefRequestListener.Response<T> message, InputStream body) {
+		List<CrossrefRequestListener<T>> currentListeners;
+		synchronized(this) {
+			notified = true;
+			currentListeners = new ArrayList<CrossrefRequestListener<T>>(listeners);
+		}
+		dispatch(currentListeners, message, body, deserializer, this.toString());
+	}
+
+	/**
+	 * Dispatch a response to the listeners of a request. The results are only deserialized for
+	 * the listeners consuming them (see CrossrefRequestListener.isResultsConsumer()). The listeners
+	 * of a shared request can consolidate different documents in different threads, so each of
+	 * them gets its own result objects: the response body is parsed in streaming when there is
+	 * a single such listener, and otherwise buffered and parsed again for each of them. A listener
+	 * throwing an exception does not prevent the next listeners from being notified.
+	 *
+	 * @param body the response body, or null if the response has no results to deserialize
+	 */
+	public static <T extends Object> void dispatch(List<CrossrefRequestListener<T>> listeners,
+			CrossrefRequestListener.Response<T> message, InputStream body, CrossrefDeserializer<T> deserializer,
+			String requestString) {
+		int nbConsumers = 0;
+		for (CrossrefRequestListener<T> listener : listeners) {
+			if (listener.isResultsConsumer())
+				nbConsumers++;
+		}
+		byte[] buffer = null;
+		if (body != null && nbConsumers > 1) {
+			try {
+				buffer = IOUtils.toByteArray(body);
+			} catch (IOException e) {
+				message = message.copy(null);
+				message.setException(e, requestString);
+				body = null;
+			}
+		}
+
+		for (CrossrefRequestListener<T> listener : listeners) {
+			CrossrefRequestListener.Response<T> listenerMessage = message;
+			if (body != null && listener.isResultsConsumer()) {
+				listenerMessage = message.copy(null);
+				try (InputStream input = (buffer != null) ? new ByteArrayInputStream(buffer) : body) {
+					listenerMessage.results = deserializer.parse(input);
+				} catch (IOException e) {
+					listenerMessage.setException(e, requestString);
+				}
+			}
+			try {
+				listener.notify(listenerMessage);
+			} catch (Exception e) {
+				LOGGER.warn("A listener failed to handle the response of the request" + requestString, e);
+			}
+		}
 	}
 	
 	/**
@@ -166,16 +245,13 @@ public class CrossrefRequest<T extends Object> extends Observable {
 					if (message.status < 200 || message.status >= 300) {
 						message.errorMessage = response.getStatusLine().getReasonPhrase();
 						notifyListeners(message);
+						return null;
 					}
 					
 					HttpEntity entity = response.getEntity();
 					
-					if (entity != null) {
-						String body = EntityUtils.toString(entity);
-						message.results = deserializer.parse(body);
-					}
-					
-					notifyListeners(message);
+					// the results are deserialized from the content stream for the listeners consuming them
+					notifyListeners(message, (entity != null) ? entity.getContent() : null);
 
 					return null;
 				}
@@ -66,6 +66,21 @@ public class CrossrefRequestListener<T extends Object> {
 		public boolean hasResults() {
 			return (results != null) && (results.size() > 0);
 		}
+
+		/**
+		 * Copy of the response status and limits, with the given results
+		 */
+		public Response<T> copy(List<T> results) {
+			Response<T> copy = new Response<T>();
+			copy.status = status;
+			copy.results = results;
+			copy.interval = interval;
+			copy.limitIterations = limitIterations;
+			copy.time = time;
+			copy.errorMessage = errorMessage;
+			copy.errorException = errorException;
+			return copy;
+		}
 	}
 	
 	/**
@@ -83,6 +98,14 @@ public class CrossrefRequestListener<T extends Object> {
 	 */
 	public void onError(int status, String message, Exception exception) {}
 
+	/**
+	 * False for the listeners only using the status and the rate limits of the response,
+	 * for which the results are not deserialized
+	 */
+	public boolean isResultsConsumer() {
+		return true;
+	}
+
 	public void notify(Response<T> response) {
 		
 		onResponse(response);
@@ -49,4 +49,9 @@ public class CrossrefRequestTask<T extends Object> extends CrossrefRequestListen
 	@Override
 	public void onError(int status, String message, Exception exception) {}
 
+	@Override
+	public boolean isResultsConsumer() {
+		return false;
+	}
+
 }
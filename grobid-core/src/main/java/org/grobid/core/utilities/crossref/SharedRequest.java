@@ -0,0 +1,20 @@
+package org.grobid.core.utilities.crossref;
+
+/**
+ * A consolidation request which can be shared by several identical queries submitted
+ * concurrently, so that only one call is made to the consolidation service and the
+ * deserialized response is dispatched to all the listeners.
+ *
+ * @author Patrice
+ */
+public interface SharedRequest<T extends Object> {
+
+	/**
+	 * Attach an additional listener to the request if its response has not been
+	 * dispatched yet.
+	 *
+	 * @return true if the listener will be notified with the response of this request,
+	 * false if the response has already been dispatched and a new request is required
+	 */
+	boolean addListenerIfPending(CrossrefRequestListener<T> listener);
+}
@@ -1,233 +1,309 @@
 package org.grobid.core.utilities.crossref;
 
-import java.util.Iterator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.grobid.core.data.BiblioItem;
 import org.grobid.core.data.Person;
 import org.grobid.core.data.Date;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 /**
  * Convert a JSON Work model - from a glutton or crossref response - to a BiblioItem 
  * (understandable by this stupid GROBID
  *
+ * Only the fields used for the consolidation (see BiblioItem.correct() and BiblioItem.injectDOI())
+ * are read, the rest of the work record (references, funders, licenses, etc.) is skipped.
+ *
  * @author Vincent Kaestle, Patrice
  */
 public class WorkDeserializer extends CrossrefDeserializer<BiblioItem> {
 
+	// the date fields in order of preference for the publication date
+	private static final String[] DATE_FIELDS = {"issued", "published-online", "published-print"};
+
 	@Override
-	protected BiblioItem deserializeOneItem(JsonNode item) {
-		BiblioItem biblio = null;
-		String type = null; // the crossref type of the item, see http://api.crossref.org/types
-
-		if (item.isObject()) {
-			biblio = new BiblioItem();
-			//System.out.println(item.toString());			
-			
-			biblio.setDOI(item.get("DOI").asText());
-
-			// the following are usually provided by biblio-glutton which index augmented/aggregated 
-			// metadata 
-			JsonNode pmidNode = item.get("pmid");
-            if (pmidNode != null && (!pmidNode.isMissingNode()) ) {
-                String pmid = pmidNode.asText();
-                biblio.setPMID(pmid);
-            }
-
-            JsonNode pmcidNode = item.get("pmcid");
-            if (pmcidNode != null && (!pmcidNode.isMissingNode()) ) {
-                String pmcid = pmcidNode.asText();
-                biblio.setPMCID(pmcid);
-            }
-
-            JsonNode piiNode = item.get("pii");
-            if (piiNode != null && (!piiNode.isMissingNode()) ) {
-                String pii = piiNode.asText();
-                biblio.setPII(pii);
-            }
-
-            JsonNode arkNode = item.get("ark");
-            if (arkNode != null && (!arkNode.isMissingNode()) ) {
-                String ark = arkNode.asText();
-                biblio.setArk(ark);
-            }
-
-            JsonNode istexNode = item.get("istexId");
-            if (istexNode != null && (!istexNode.isMissingNode()) ) {
-                String istexId = istexNode.asText();
-                biblio.setIstexId(istexId);
-            }
-
-            // the open access url - if available, from the glorious UnpayWall dataset provided
-            // by biblio-glutton
-            JsonNode oaLinkNode = item.get("oaLink");
-            if (oaLinkNode != null && (!oaLinkNode.isMissingNode()) ) {
-                String oaLink = oaLinkNode.asText();
-                biblio.setOAURL(oaLink);
-            }
-
-            // all the following is now pure crossref metadata
-			JsonNode typeNode = item.get("type");
-			if (typeNode != null && (!typeNode.isMissingNode()) ) {
-				type = typeNode.asText();
+	protected ItemReader<BiblioItem> createItemReader() {
+		return new WorkReader();
+	}
+
+	/**
+	 * Accumulate the fields of a work, the ones depending on other fields (container titles
+	 * depending on the type, dates in order of preference) being resolved when building the
+	 * BiblioItem, because the order of the json fields is not guaranteed.
+	 */
+	private static class WorkReader implements ItemReader<BiblioItem> {
+		private BiblioItem biblio = new BiblioItem();
+		private String type = null; // the crossref type of the item, see http://api.crossref.org/types
+		private String containerTitle = null;
+		private String shortContainerTitle = null;
+		// date fields present in the work, with their date parts ([year, month, day], last two optional)
+		private Map<String, List<String>> dates = new HashMap<>();
+		private boolean empty = true;
+
+		@Override
+		public void readField(String name, JsonParser parser) throws IOException {
+			if (parser.currentToken() == JsonToken.VALUE_NULL)
+				return;
+			empty = false;
+			switch (name) {
+				case "DOI":
+					biblio.setDOI(readText(parser));
+					break;
+				// the following are usually provided by biblio-glutton which index augmented/aggregated 
+				// metadata 
+				case "pmid":
+					biblio.setPMID(readText(parser));
+					break;
+				case "pmcid":
+					biblio.setPMCID(readText(parser));
+					break;
+				case "pii":
+					biblio.setPII(readText(parser));
+					break;
+				case "ark":
+					biblio.setArk(readText(parser));
+					break;
+				case "istexId":
+					biblio.setIstexId(readText(parser));
+					break;
+				// the open access url - if available, from the glorious UnpayWall dataset provided
+				// by biblio-glutton
+				case "oaLink":
+					biblio.setOAURL(readText(parser));
+					break;
+				// all the following is now pure crossref metadata
+				case "type":
+					type = readText(parser);
+					break;
+				case "title":
+					String title = readFirstText(parser);
+					if (title != null)
+						biblio.setTitle(title);
+					break;
+				case "author":
+					readAuthors(parser);
+					break;
+				case "publisher":
+					biblio.setPublisher(readText(parser));
+					break;
+				case "page":
+					biblio.setPageRange(readText(parser));
+					break;
+				case "volume":
+					String volume = readText(parser);
+					if (volume != null)
+						biblio.setVolumeBlock(volume, false);
+					break;
+				case "issue":
+					biblio.setIssue(readText(parser));
+					break;
+				case "container-title":
+					containerTitle = readFirstText(parser);
+					break;
+				case "short-container-title":
+					shortContainerTitle = readFirstText(parser);
+					break;
+				case "issn-type":
+					readIssns(parser);
+					break;
+				case "issued":
+				case "published-online":
+				case "published-print":
+					dates.put(name, readDateParts(parser));
+					break;
+				default:
+					parser.skipChildren();
 			}
-			
-			JsonNode titlesNode = item.get("title");
-			if (titlesNode != null && (!titlesNode.isMissingNode()) &&
-				titlesNode.isArray() && (((ArrayNode)titlesNode).size() > 0))
-				biblio.setTitle(((ArrayNode)titlesNode).get(0).asText());
-			
-			JsonNode authorsNode = item.get("author");
-			if (authorsNode != null && (!authorsNode.isMissingNode()) && 
-				authorsNode.isArray() && (((ArrayNode)authorsNode).size() > 0)) {
-				Iterator<JsonNode> authorIt = ((ArrayNode)authorsNode).elements();
-				while (authorIt.hasNext()) {
-					JsonNode authorNode = authorIt.next();
-					
-					Person person = new Person();
-					if (authorNode.get("given") != null && !authorNode.get("given").isMissingNode()) {
-						person.setFirstName(authorNode.get("given").asText());
-						person.normalizeCrossRefFirstName();
-					}
-					if (authorNode.get("family") != null && !authorNode.get("family").isMissingNode()) {
-						person.setLastName(authorNode.get("family").asText());
-    	   			}
-    	   			// for cases like JM Smith and for case normalisation
-    	   			person.normalizeName();
-					biblio.addFullAuthor(person);
-				}
+		}
+
+		private void readAuthors(JsonParser parser) throws IOException {
+			if (parser.currentToken() != JsonToken.START_ARRAY) {
+				parser.skipChildren();
+				return;
 			}
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				if (parser.currentToken() != JsonToken.START_OBJECT) {
+					parser.skipChildren();
+					continue;
+				}
+				String given = null;
+				String family = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					if ("given".equals(field))
+						given = readText(parser);
+					else if ("family".equals(field))
+						family = readText(parser);
+					else
+						parser.skipChildren();
+				}
 
-			JsonNode publisherNode = item.get("publisher");
-			if (publisherNode != null && (!publisherNode.isMissingNode()))
-				biblio.setPublisher(publisherNode.asText());
+				Person person = new Person();
+				if (given != null) {
+					person.setFirstName(given);
+					person.normalizeCrossRefFirstName();
+				}
+				if (family != null) {
+					person.setLastName(family);
+				}
+				// for cases like JM Smith and for case normalisation
+				person.normalizeName();
+				biblio.addFullAuthor(person);
+			}
+		}
 
-			JsonNode pageNode = item.get("page");
-			if (pageNode != null && (!pageNode.isMissingNode()) )
-				biblio.setPageRange(pageNode.asText());
+		private void readIssns(JsonParser parser) throws IOException {
+			if (parser.currentToken() != JsonToken.START_ARRAY) {
+				parser.skipChildren();
+				return;
+			}
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				if (parser.currentToken() != JsonToken.START_OBJECT) {
+					parser.skipChildren();
+					continue;
+				}
+				String theType = null;
+				String value = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					if ("type".equals(field))
+						theType = readText(parser);
+					else if ("value".equals(field))
+						value = readText(parser);
+					else
+						parser.skipChildren();
+				}
+				if (theType != null && value != null) {
+					if (theType.equals("print")) {
+						biblio.setISSN(value);
+					} else if (theType.equals("electronic")) {
+						biblio.setISSNe(value);
+					}
+				}
+			}
+		}
 
-			JsonNode volumeNode = item.get("volume");
-			if (volumeNode != null && (!volumeNode.isMissingNode()))
-				biblio.setVolumeBlock(volumeNode.asText(), false);
+		/**
+		 * Read the first date parts of a date object, e.g. {"date-parts":[[2018,3,12]]}
+		 */
+		private List<String> readDateParts(JsonParser parser) throws IOException {
+			List<String> parts = new ArrayList<>();
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				parser.skipChildren();
+				return parts;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if (!"date-parts".equals(field) || token != JsonToken.START_ARRAY) {
+					parser.skipChildren();
+					continue;
+				}
+				boolean first = true;
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					if (!first || parser.currentToken() != JsonToken.START_ARRAY) {
+						parser.skipChildren();
+						continue;
+					}
+					first = false;
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						parts.add(readText(parser));
+					}
+				}
+			}
+			return parts;
+		}
 
-			JsonNode issueNode = item.get("issue");
-			if (issueNode != null && (!issueNode.isMissingNode()))
-				biblio.setIssue(issueNode.asText());
+		@Override
+		public BiblioItem build() {
+			if (empty)
+				return null;
 
-			JsonNode containerTitlesNode = item.get("container-title");
-			if (containerTitlesNode != null && (!containerTitlesNode.isMissingNode()) &&
-				containerTitlesNode.isArray() && (((ArrayNode)containerTitlesNode).size() > 0)) {
+			if (containerTitle != null && type != null) {
 				// container title depends on the type of object
 				// if journal
-				if ( (type != null) && (type.equals("journal-article")) )
-					biblio.setJournal(((ArrayNode)containerTitlesNode).get(0).asText());
+				if (type.equals("journal-article"))
+					biblio.setJournal(containerTitle);
 
 				// if book chapter or proceedings article
-				if ( (type != null) && (type.equals("book-section") || 
-					type.equals("proceedings-article") || type.equals("book-chapter")) )
-					biblio.setBookTitle(((ArrayNode)containerTitlesNode).get(0).asText());
+				if (type.equals("book-section") || type.equals("proceedings-article") || type.equals("book-chapter"))
+					biblio.setBookTitle(containerTitle);
 			}
 
-			JsonNode shortContainerTitlesNode = item.get("short-container-title");
-			if (shortContainerTitlesNode != null && (!shortContainerTitlesNode.isMissingNode()) &&
-				shortContainerTitlesNode.isArray() && (((ArrayNode)shortContainerTitlesNode).size() > 0)) {
-				// container title depends on the type of object
-				// if journal
-				if ( (type != null) && (type.equals("journal-article")) )
-					biblio.setJournalAbbrev(((ArrayNode)shortContainerTitlesNode).get(0).asText());
-			}
+			if (shortContainerTitle != null && type != null && type.equals("journal-article"))
+				biblio.setJournalAbbrev(shortContainerTitle);
 
-			JsonNode issnTypeNode = item.get("issn-type");
-			if (issnTypeNode != null && (!issnTypeNode.isMissingNode()) &&
-				issnTypeNode.isArray() && (((ArrayNode)issnTypeNode).size() > 0)) {
-				Iterator<JsonNode> issnIt = ((ArrayNode)issnTypeNode).elements();
-				while (issnIt.hasNext()) {
-					JsonNode issnNode = issnIt.next();
-					JsonNode theTypeNode = issnNode.get("type");
-					JsonNode valueNode = issnNode.get("value");
-
-					if (theTypeNode != null && (!theTypeNode.isMissingNode()) &&
-						valueNode != null && (!valueNode.isMissingNode()) ) {
-						String theType = theTypeNode.asText();
-						if (theType.equals("print")) {
-							biblio.setISSN(valueNode.asText());
-						} else if (theType.equals("electronic")) {
-							biblio.setISSNe(valueNode.asText());
-						}
-					}
+			for (String dateField : DATE_FIELDS) {
+				if (dates.containsKey(dateField)) {
+					Date date = buildDate(dates.get(dateField));
+					if (date != null)
+						biblio.setNormalizedPublicationDate(date);
+					break;
 				}
 			}
 
-			JsonNode publishPrintNode = item.get("issued");
-			if (publishPrintNode == null || publishPrintNode.isMissingNode()) {
-				publishPrintNode = item.get("published-online");
-			}
-			if (publishPrintNode == null || publishPrintNode.isMissingNode()) {
-				publishPrintNode = item.get("published-print");
+			return biblio;
+		}
+	}
+
+	/**
+	 * Build a date from crossref date parts, format is [year, month, day], last two optional
+	 */
+	private static Date buildDate(List<String> dateParts) {
+		if (dateParts == null || dateParts.size() == 0 || dateParts.get(0) == null)
+			return null;
+
+		String year = dateParts.get(0);
+		String month = null;
+		String day = null;
+		if (dateParts.size() > 1) {
+			month = dateParts.get(1);
+			if (dateParts.size() > 2) {
+				day = dateParts.get(2);
 			}
-			if (publishPrintNode != null && (!publishPrintNode.isMissingNode())) {
-				JsonNode datePartNode = publishPrintNode.get("date-parts");
-				if (datePartNode != null && (!datePartNode.isMissingNode()) &&
-					datePartNode.isArray() && (((ArrayNode)datePartNode).size() > 0)) {
-					JsonNode firstDatePartNode = ((ArrayNode)datePartNode).get(0);
-					if (firstDatePartNode != null && (!firstDatePartNode.isMissingNode()) &&
-						firstDatePartNode.isArray() && (((ArrayNode)firstDatePartNode).size() > 0)) {
-
-						// format is [year, month, day], last two optional
-						String year = ((ArrayNode)firstDatePartNode).get(0).asText();
-						String month = null;
-						String day = null;
-						if (((ArrayNode)firstDatePartNode).size() > 1) {
-							month = ((ArrayNode)firstDatePartNode).get(1).asText();
-							if (((ArrayNode)firstDatePartNode).size() > 2) {
-								day = ((ArrayNode)firstDatePartNode).get(2).asText();
-							}
-						}
-						Date date = new Date();
-						date.setYearString(year);
-						int yearInt = -1;
-						try {
-							yearInt = Integer.parseInt(year);
-						} catch(Exception e) {
-							// log something
-						}
-						if (yearInt != -1)
-							date.setYear(yearInt);
-						
-						if (month != null) {
-							date.setMonthString(month);
-							int monthInt = -1;
-							try {
-								monthInt = Integer.parseInt(month);
-							} catch(Exception e) {
-								// log something
-							}
-							if (monthInt != -1)
-								date.setMonth(monthInt);
-						}
-						
-						if (day != null) {
-							date.setDayString(month);
-							int dayInt = -1;
-							try {
-								dayInt = Integer.parseInt(day);
-							} catch(Exception e) {
-								// log something
-							}
-							if (dayInt != -1)
-								date.setDay(dayInt);
-						}
-						biblio.setNormalizedPublicationDate(date);
-					}
-				}
+		}
+		Date date = new Date();
+		date.setYearString(year);
+		int yearInt = -1;
+		try {
+			yearInt = Integer.parseInt(year);
+		} catch(Exception e) {
+			// log something
+		}
+		if (yearInt != -1)
+			date.setYear(yearInt);
+		
+		if (month != null) {
+			date.setMonthString(month);
+			int monthInt = -1;
+			try {
+				monthInt = Integer.parseInt(month);
+			} catch(Exception e) {
+				// log something
 			}
-
-           	//System.out.println(biblio.toTEI(0));
+			if (monthInt != -1)
+				date.setMonth(monthInt);
 		}
 		
-		return biblio;
+		if (day != null) {
+			date.setDayString(day);
+			int dayInt = -1;
+			try {
+				dayInt = Integer.parseInt(day);
+			} catch(Exception e) {
+				// log something
+			}
+			if (dayInt != -1)
+				date.setDay(dayInt);
+		}
+		return date;
 	}
 }
@@ -116,18 +116,14 @@ public class GluttonClient extends CrossrefClient {
         if (listener != null)
             request.addListener(listener);
         synchronized(this) {
-            Future<?> f = executorService.submit(new GluttonRequestTask<T>(this, request));
-            List<Future<?>> localFutures = this.futures.get(new Long(threadId));
-            if (localFutures == null)
-                localFutures = new ArrayList<Future<?>>();
-            localFutures.add(f);
-            this.futures.put(new Long(threadId), localFutures);
-//System.out.println("add request to thread " + threadId + " / current total for the thread: " +  localFutures.size());         
+            submitTask(new GluttonRequestTask<T>(this, request), threadId);
         }
     }
     
     /**
      * Push a request in pool to be executed soon as possible, then wait a response through the listener.
+     * If an identical request is already in progress, the listener is attached to this request 
+     * instead of sending a new one.
      * 
      * @param params        query parameters, can be null, ex: ?query.title=[title]&query.author=[author]
      * @param deserializer  json response deserializer, ex: WorkDeserializer to convert Work to BiblioItem
@@ -137,9 +133,14 @@ public class GluttonClient extends CrossrefClient {
     @Override
     public <T extends Object> void pushRequest(String model, Map<String, String> params, CrossrefDeserializer<T> deserializer, 
             long threadId, CrossrefRequestListener<T> listener) throws URISyntaxException, ClientProtocolException, IOException {
-        GluttonRequest<T> request = new GluttonRequest<T>(model, params, deserializer);
+        String key = pendingRequestKey(model, params, deserializer);
         synchronized(this) {
-            this.<T>pushRequest(request, listener, threadId);
+            if (joinPendingRequest(key, listener, threadId))
+                return;
+            GluttonRequest<T> request = new GluttonRequest<T>(model, params, deserializer);
+            if (listener != null)
+                request.addListener(listener);
+            submitSharedTask(key, request, new GluttonRequestTask<T>(this, request), threadId);
         }
     }
 
@@ -20,15 +20,16 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.conn.params.*;
 import org.apache.http.impl.conn.*;
+import org.apache.http.util.EntityUtils;
 
 import org.grobid.core.utilities.crossref.CrossrefRequestListener;
 import org.grobid.core.utilities.crossref.CrossrefRequestListener.Response;
 import org.grobid.core.utilities.crossref.CrossrefDeserializer;
 import org.grobid.core.utilities.crossref.CrossrefRequest;
+import org.grobid.core.utilities.crossref.SharedRequest;
 import org.grobid.core.exceptions.GrobidResourceException;
 
 import org.apache.commons.io.IOUtils;
@@ -40,7 +41,7 @@ import java.io.*;
  *
  * @author Patrice
  */
-public class GluttonRequest<T extends Object> extends Observable {
+public class GluttonRequest<T extends Object> extends Observable implements SharedRequest<T> {
 
     protected String BASE_PATH = "/service/lookup";
     protected static final List<String> identifiers = Arrays.asList("doi", "DOI", "pmid", "PMID", "pmcid", "PMCID", "pmc", "PMC");
@@ -58,6 +59,11 @@ public class GluttonRequest<T extends Object> extends Observable {
     protected CrossrefDeserializer<T> deserializer;
     
     protected ArrayList<CrossrefRequestListener<T>> listeners;
+
+    /**
+     * True once the response has started to be dispatched to the listeners
+     */
+    protected boolean notified = false;
     
     public GluttonRequest(String model, Map<String, String> params, CrossrefDeserializer<T> deserializer) {
         this.params = params;
@@ -68,16 +74,36 @@ public class GluttonRequest<T extends Object> extends Observable {
     /**
      * Add listener to catch response when request is executed.
      */
-    public void addListener(CrossrefRequestListener<T> listener) {
+    public synchronized void addListener(CrossrefRequestListener<T> listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public synchronized boolean addListenerIfPending(CrossrefRequestListener<T> listener) {
+        if (notified)
+            return false;
         this.listeners.add(listener);
+        return true;
     }
     
     /**
      * Notify all connected listeners
      */
     protected void notifyListeners(CrossrefRequestListener.Response<T> message) {
-        for (CrossrefRequestListener<T> listener : listeners)
-            listener.notify(message);
+        notifyListeners(message, null);
+    }
+
+    /**
+     * Notify all connected listeners, the results being deserialized from the response body
+     * for each listener consuming them
+     */
+    protected void notifyListeners(CrossrefRequestListener.Response<T> message, InputStream body) {
+        List<CrossrefRequestListener<T>> currentListeners;
+        synchronized(this) {
+            notified = true;
+            currentListeners = new ArrayList<CrossrefRequestListener<T>>(listeners);
+        }
+        CrossrefRequest.dispatch(currentListeners, message, body, deserializer, this.toString());
     }
     
     /**
@@ -157,6 +183,7 @@ public class GluttonRequest<T extends Object> extends Observable {
             ResponseHandler<Void> responseHandler = response -> {
 
                 Response<T> message = new Response<T>();
+                InputStream body = null;
 
                 message.status = response.getStatusLine().getStatusCode();
 
@@ -173,13 +200,12 @@ public class GluttonRequest<T extends Object> extends Observable {
 
                     HttpEntity entity = response.getEntity();
 
-                    if (entity != null) {
-                        String body = EntityUtils.toString(entity);
-                        message.results = deserializer.parse(body);
-                    }
+                    // the results are deserialized from the content stream for the listeners consuming them
+                    if (entity != null)
+                        body = entity.getContent();
                 }
 
-                notifyListeners(message);
+                notifyListeners(message, body);
 
                 return null;
             };
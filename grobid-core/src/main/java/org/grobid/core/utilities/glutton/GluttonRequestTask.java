@@ -52,4 +52,8 @@ public class GluttonRequestTask<T extends Object> extends CrossrefRequestListene
     @Override
     public void onError(int status, String message, Exception exception) {}
 
+    @Override
+    public boolean isResultsConsumer() {
+        return false;
+    }
 }
@@ -0,0 +1,202 @@
+package org.grobid.core.visualization;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSUpdateInfo;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.grobid.core.utilities.GrobidProperties;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A PDF loaded for being annotated by the visualizers, with a bounded use of the heap: PDFBox buffers
+ * the document in memory up to the limit given by grobid.pdf.annotation.memory.limit.mb and then in a
+ * scratch file under the GROBID temp path.
+ *
+ * The annotated PDF can be written as a whole, or as an incremental update only containing the pages
+ * which have been annotated. The update is to be appended to the original PDF by the client, so that the
+ * unchanged pages are neither serialized again nor transferred.
+ */
+public class AnnotatedPdf implements Closeable {
+
+    private final File pdfFile;
+    private final PDDocument document;
+
+    // state of the pages before the annotation: their annotations and content streams
+    private final List<COSBase> annotsBefore = new ArrayList<>();
+    private final List<Integer> annotsSizeBefore = new ArrayList<>();
+    private final List<COSBase> contentsBefore = new ArrayList<>();
+    private final List<Integer> contentsSizeBefore = new ArrayList<>();
+
+    private AnnotatedPdf(File pdfFile, PDDocument document) {
+        this.pdfFile = pdfFile;
+        this.document = document;
+        for (PDPage page : document.getPages()) {
+            COSBase annots = page.getCOSObject().getDictionaryObject(COSName.ANNOTS);
+            annotsBefore.add(annots);
+            annotsSizeBefore.add(size(annots));
+            COSBase contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+            contentsBefore.add(contents);
+            contentsSizeBefore.add(size(contents));
+        }
+    }
+
+    /**
+     * Load a PDF to be annotated
+     */
+    public static AnnotatedPdf load(File pdfFile) throws IOException {
+        return new AnnotatedPdf(pdfFile, PDDocument.load(pdfFile, getMemoryUsageSetting()));
+    }
+
+    /**
+     * Buffering of the loaded PDF documents, a negative limit meaning an unbounded use of the heap
+     */
+    public static MemoryUsageSetting getMemoryUsageSetting() {
+        long limitMb = GrobidProperties.getPdfAnnotationMemoryLimitMb();
+        if (limitMb < 0)
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        MemoryUsageSetting setting = (limitMb == 0) ? MemoryUsageSetting.setupTempFileOnly() :
+            MemoryUsageSetting.setupMixed(limitMb * 1024 * 1024);
+        return setting.setTempDir(GrobidProperties.getTempPath());
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Write the complete annotated PDF
+     */
+    public void write(OutputStream out) throws IOException {
+        document.save(out);
+    }
+
+    /**
+     * Write the incremental update of the original PDF with the annotated pages, without the bytes of the
+     * original PDF: appended to the original PDF, it gives the annotated PDF.
+     *
+     * @return the number of annotated pages
+     */
+    public int writeIncrementalUpdate(OutputStream out) throws IOException {
+        int nbAnnotatedPages = markAnnotatedPages();
+        // PDFBox writes the original PDF followed by the update, the original bytes are skipped
+        document.saveIncremental(new SkippingOutputStream(out, pdfFile.length()));
+        return nbAnnotatedPages;
+    }
+
+    /**
+     * Mark for the incremental update the pages whose annotations or content streams have been changed
+     * by the annotation, with the arrays and dictionaries they directly refer to, and the path from the
+     * document catalog to these pages: PDFBox only walks from the catalog through the marked objects
+     */
+    private int markAnnotatedPages() {
+        int nbAnnotatedPages = 0;
+        int i = 0;
+        for (PDPage page : document.getPages()) {
+            COSDictionary pageDict = page.getCOSObject();
+            COSBase annots = pageDict.getDictionaryObject(COSName.ANNOTS);
+            COSBase contents = pageDict.getDictionaryObject(COSName.CONTENTS);
+            boolean annotated = (annots != annotsBefore.get(i)) || (size(annots) != annotsSizeBefore.get(i))
+                || (contents != contentsBefore.get(i)) || (size(contents) != contentsSizeBefore.get(i));
+            if (annotated) {
+                pageDict.setNeedToBeUpdated(true);
+                markWithItems(annots);
+                markWithItems(contents);
+                markParents(pageDict);
+                nbAnnotatedPages++;
+            }
+            i++;
+        }
+        if (nbAnnotatedPages > 0) {
+            COSDictionary catalog = document.getDocumentCatalog().getCOSObject();
+            catalog.setNeedToBeUpdated(true);
+            COSBase pages = catalog.getDictionaryObject(COSName.PAGES);
+            if (pages instanceof COSUpdateInfo)
+                ((COSUpdateInfo) pages).setNeedToBeUpdated(true);
+        }
+        return nbAnnotatedPages;
+    }
+
+    /**
+     * Mark the nodes of the page tree from a page up to the root
+     */
+    private static void markParents(COSDictionary pageDict) {
+        COSBase parent = pageDict.getDictionaryObject(COSName.PARENT);
+        // bounded, in case of a cycle in a malformed page tree
+        for (int depth = 0; parent instanceof COSDictionary && depth < 1024; depth++) {
+            COSDictionary node = (COSDictionary) parent;
+            node.setNeedToBeUpdated(true);
+            parent = node.getDictionaryObject(COSName.PARENT);
+        }
+    }
+
+    private static void markWithItems(COSBase base) {
+        if (base instanceof COSUpdateInfo)
+            ((COSUpdateInfo) base).setNeedToBeUpdated(true);
+        if (base instanceof COSArray) {
+            for (COSBase item : (COSArray) base) {
+                if (item instanceof COSObject)
+                    item = ((COSObject) item).getObject();
+                if (item instanceof COSUpdateInfo)
+                    ((COSUpdateInfo) item).setNeedToBeUpdated(true);
+            }
+        }
+    }
+
+    private static int size(COSBase base) {
+        return (base instanceof COSArray) ? ((COSArray) base).size() : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+
+    /**
+     * Output stream discarding the given number of first bytes
+     */
+    private static class SkippingOutputStream extends FilterOutputStream {
+        private long toSkip;
+
+        private SkippingOutputStream(OutputStream out, long toSkip) {
+            super(out);
+            this.toSkip = toSkip;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (toSkip > 0)
+                toSkip--;
+            else
+                out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (toSkip >= len) {
+                toSkip -= len;
+                return;
+            }
+            int skipped = (int) toSkip;
+            toSkip = 0;
+            out.write(b, off + skipped, len - skipped);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the underlying stream is closed by its owner
+            flush();
+        }
+    }
+}
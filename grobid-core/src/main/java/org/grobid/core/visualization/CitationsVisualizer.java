@@ -62,12 +62,10 @@ public class CitationsVisualizer {
      */
     public static PDDocument annotatePdfWithCitations(PDDocument document, Document teiDoc,
             List<String> resolvedBibRefUrl) throws IOException, XPathException {
-        String tei = teiDoc.getTei();
-        //System.out.println(tei);
         int totalBib = 0;
         int totalMarkers1 = 0;
         int totalMarkers2 = 0;
-        Multimap<String, BibDataSetContext> contexts = BibDataSetContextExtractor.getCitationReferences(tei);
+        Multimap<String, BibDataSetContext> contexts = BibDataSetContextExtractor.getCitationReferences(teiDoc);
 		Map<String, Pair<Integer, Integer>> dictionary = new HashMap<>();
         int indexBib = 0;
         for (BibDataSet cit : teiDoc.getBibDataSets()) {
@@ -300,9 +298,8 @@ public class CitationsVisualizer {
         int totalBib = 0;
 
         jsonRef.writeArrayFieldStart("refBibs");
-        String tei = teiDoc.getTei();
         Multimap<String, BibDataSetContext> contexts =
-            BibDataSetContextExtractor.getCitationReferences(tei);
+            BibDataSetContextExtractor.getCitationReferences(teiDoc);
         int bibIndex = 0;
         for (BibDataSet cit : teiDoc.getBibDataSets()) {
             String teiId = cit.getResBib().getTeiId();
@@ -419,8 +416,7 @@ public class CitationsVisualizer {
             StringBuilder jsonMark = new StringBuilder();
             boolean refMarkOutput = false;
 
-            String tei = teiDoc.getTei();
-            Multimap<String, BibDataSetContext> contexts = BibDataSetContextExtractor.getCitationReferences(tei);
+            Multimap<String, BibDataSetContext> contexts = BibDataSetContextExtractor.getCitationReferences(teiDoc);
 
             boolean beginMark = true;
             boolean begin = true;
@@ -0,0 +1,64 @@
+package org.grobid.core.document;
+
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.layout.GraphicObject;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DocumentSourceIntegrationTest {
+
+    private DocumentSource documentSource;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        LibraryLoader.load();
+        GrobidProperties.getInstance();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        GrobidProperties.setPdfShardPages("0");
+        DocumentSource.close(documentSource, true, true, true);
+    }
+
+    @Test
+    public void testFromPdf_sharded_shouldKeepDistinctAssetFiles() throws Exception {
+        // one shard per page, the figures of the document being on different pages
+        GrobidProperties.setPdfShardPages("1");
+        documentSource = DocumentSource.fromPdf(new File("src/test/resources/test/ApplPhysLett_98_082505.pdf"),
+            -1, -1, true, true, false);
+        assertThat(documentSource.isSharded(), is(true));
+
+        Document doc = new Document(documentSource);
+        doc.addTokenizedDocument(GrobidAnalysisConfig.defaultInstance());
+
+        File xmlDirectory = documentSource.getXmlFile().getParentFile();
+        List<File> assetFiles = new ArrayList<>();
+        Set<Integer> pages = new HashSet<>();
+        for (GraphicObject image : doc.getImages()) {
+            if (image.getFilePath() == null)
+                continue;
+            File assetFile = new File(image.getFilePath());
+            if (!assetFile.isAbsolute())
+                assetFile = new File(xmlDirectory, image.getFilePath());
+            assertThat(assetFile.getPath(), assetFile.exists(), is(true));
+            assetFiles.add(assetFile.getCanonicalFile());
+            pages.add(image.getPage());
+        }
+
+        assertThat(pages.size() > 1, is(true));
+        assertThat(new HashSet<>(assetFiles).size(), is(assetFiles.size()));
+    }
+}
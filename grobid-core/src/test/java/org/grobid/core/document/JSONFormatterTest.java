@@ -0,0 +1,165 @@
+package org.grobid.core.document;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nu.xom.Builder;
+import nu.xom.Nodes;
+import org.grobid.core.data.BibDataSet;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.data.Person;
+import org.grobid.core.engines.Engine;
+import org.grobid.core.engines.FullTextParser;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.factory.GrobidFactory;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class JSONFormatterTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeClass
+    public static void setInitialContext() throws Exception {
+        LibraryLoader.load();
+        GrobidProperties.getInstance();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        GrobidFactory.reset();
+    }
+
+    private static JsonNode toJSON(Document doc, BiblioItem header, GrobidAnalysisConfig config) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+            new JSONFormatter(doc).toJSON(generator, header, null, null, null, null, null, null, null, config);
+        }
+        return mapper.readTree(writer.toString());
+    }
+
+    @Test
+    public void testToJSON_headerAndReferences_shouldWriteTheirFields() throws Exception {
+        BiblioItem header = new BiblioItem();
+        header.setTitle("Attention is all you need");
+        header.setDOI("10.48550/arXiv.1706.03762");
+        Person author = new Person();
+        author.setFirstName("Ashish");
+        author.setLastName("Vaswani");
+        header.addFullAuthor(author);
+
+        BiblioItem reference = new BiblioItem();
+        reference.setOrdinal(0);
+        reference.setTitle("Long short-term memory");
+        BibDataSet bds = new BibDataSet();
+        bds.setResBib(reference);
+        bds.setRawBib("Hochreiter and Schmidhuber. Long short-term memory. 1997");
+        List<BibDataSet> bibDataSets = new ArrayList<>();
+        bibDataSets.add(bds);
+        Document doc = new Document();
+        doc.setBibDataSets(bibDataSets);
+
+        JsonNode json = toJSON(doc, header, GrobidAnalysisConfig.defaultInstance());
+
+        assertThat(json.get("header").get("title").asText(), is("Attention is all you need"));
+        assertThat(json.get("header").get("doi").asText(), is("10.48550/arXiv.1706.03762"));
+        assertThat(json.get("header").get("authors").size(), is(1));
+        assertThat(json.get("header").get("authors").get(0).get("surname").asText(), is("Vaswani"));
+        assertThat(json.get("body").size(), is(0));
+        assertThat(json.get("annex").size(), is(0));
+        assertThat(json.get("figures").size(), is(0));
+        assertThat(json.get("references").size(), is(1));
+        assertThat(json.get("references").get(0).get("id").asText(), is("b0"));
+        assertThat(json.get("references").get(0).get("title").asText(), is("Long short-term memory"));
+        // the raw citations are only included on request
+        assertThat(json.get("references").get(0).has("raw"), is(false));
+        assertThat(json.has("processingReport"), is(false));
+    }
+
+    @Test
+    public void testToJSON_rawCitations_shouldBeIncludedOnRequest() throws Exception {
+        BiblioItem reference = new BiblioItem();
+        reference.setOrdinal(0);
+        BibDataSet bds = new BibDataSet();
+        bds.setResBib(reference);
+        bds.setRawBib("Hochreiter and Schmidhuber. Long short-term memory. 1997");
+        List<BibDataSet> bibDataSets = new ArrayList<>();
+        bibDataSets.add(bds);
+        Document doc = new Document();
+        doc.setBibDataSets(bibDataSets);
+
+        JsonNode json = toJSON(doc, null, GrobidAnalysisConfig.builder().includeRawCitations(true).build());
+
+        assertThat(json.get("header").size(), is(0));
+        assertThat(json.get("references").get(0).get("raw").asText(),
+            is("Hochreiter and Schmidhuber. Long short-term memory. 1997"));
+    }
+
+    @Test
+    public void testToJSON_fulltext_shouldBeConsistentWithTheTei() throws Exception {
+        Engine engine = GrobidFactory.getInstance().createEngine();
+        FullTextParser.FulltextResult result = engine.fullTextToResult(
+            new File("src/test/resources/test/ApplPhysLett_98_082505.pdf"), GrobidAnalysisConfig.defaultInstance());
+        assertThat(result.isEmpty(), is(false));
+
+        StringWriter teiWriter = new StringWriter();
+        result.writeTEI(teiWriter);
+        nu.xom.Document tei = new Builder().build(teiWriter.toString(), "");
+
+        StringWriter jsonWriter = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(jsonWriter)) {
+            result.writeJSON(generator);
+        }
+        JsonNode json = mapper.readTree(jsonWriter.toString());
+
+        // same header title
+        Nodes teiTitle = tei.query("//*[local-name()='titleStmt']/*[local-name()='title']");
+        if (json.get("header").has("title")) {
+            assertThat(teiTitle.size(), is(1));
+            assertThat(json.get("header").get("title").asText().trim(), is(teiTitle.get(0).getValue().trim()));
+        }
+
+        // same bibliographical references
+        Nodes teiReferenceIds = tei.query("//*[local-name()='listBibl']/*[local-name()='biblStruct']/@xml:id");
+        Set<String> teiIds = new HashSet<>();
+        for (int i = 0; i < teiReferenceIds.size(); i++)
+            teiIds.add(teiReferenceIds.get(i).getValue());
+        Set<String> jsonIds = new HashSet<>();
+        for (JsonNode reference : json.get("references"))
+            jsonIds.add(reference.get("id").asText());
+        assertThat(jsonIds.size() > 0, is(true));
+        assertThat(jsonIds, is(teiIds));
+
+        // the refs of the body are offsets in the text of their paragraph, targeting the references
+        int nbRefs = 0;
+        for (JsonNode section : json.get("body")) {
+            for (JsonNode paragraph : section.get("paragraphs")) {
+                String text = paragraph.get("text").asText();
+                if (!paragraph.has("refs"))
+                    continue;
+                for (JsonNode ref : paragraph.get("refs")) {
+                    int start = ref.get("start").asInt();
+                    int end = ref.get("end").asInt();
+                    assertThat(start >= 0 && start < end && end <= text.length(), is(true));
+                    if (ref.get("type").asText().equals("bibr") && ref.has("target"))
+                        assertThat(jsonIds.contains(ref.get("target").asText()), is(true));
+                    nbRefs++;
+                }
+            }
+        }
+        assertThat(nbRefs > 0, is(true));
+    }
+}
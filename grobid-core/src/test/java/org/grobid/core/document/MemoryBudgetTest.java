@@ -0,0 +1,64 @@
+package org.grobid.core.document;
+
+import org.grobid.core.document.MemoryBudget.Degradation;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MemoryBudgetTest {
+
+    private static final long BUDGET = 100 * 1024 * 1024;
+
+    @BeforeClass
+    public static void setInitialContext() throws Exception {
+        GrobidProperties.getInstance();
+    }
+
+    @Test
+    public void testPlan_noBudget() throws Exception {
+        assertThat(MemoryBudget.plan(100000000, 100000000, -1), is(Degradation.NONE));
+    }
+
+    @Test
+    public void testPlan_smallDocument() throws Exception {
+        assertThat(MemoryBudget.plan(1000000, 0, BUDGET), is(Degradation.NONE));
+    }
+
+    @Test
+    public void testPlan_largeGraphics() throws Exception {
+        assertThat(MemoryBudget.plan(1000000, 30000000, BUDGET), is(Degradation.NO_GRAPHICS));
+    }
+
+    @Test
+    public void testPlan_largeText() throws Exception {
+        assertThat(MemoryBudget.plan(6000000, 0, BUDGET), is(Degradation.SHARDED));
+        assertThat(MemoryBudget.plan(20000000, 0, BUDGET), is(Degradation.HEADER_ONLY));
+    }
+
+    @Test
+    public void testGetMaxTokens() throws Exception {
+        assertThat(MemoryBudget.getMaxTokens(Degradation.NONE, BUDGET), is(25600L));
+        assertThat(MemoryBudget.getMaxTokens(Degradation.NONE, -1), is(0L));
+        assertThat(MemoryBudget.getMaxTokens(Degradation.HEADER_ONLY, BUDGET), is(25600L));
+        assertThat(MemoryBudget.getMaxTokens(Degradation.HEADER_ONLY, -1), is(0L));
+    }
+
+    @Test
+    public void testGetBudgetBytes() throws Exception {
+        try {
+            GrobidProperties.setPdfMemoryBudgetMb("-1");
+            assertThat(MemoryBudget.getBudgetBytes(), is(-1L));
+            GrobidProperties.setPdfMemoryBudgetMb("100");
+            assertThat(MemoryBudget.getBudgetBytes(), is(BUDGET));
+            GrobidProperties.setPdfMemoryBudgetMb("0");
+            MemoryBudget.setConcurrency(4);
+            assertThat(MemoryBudget.getBudgetBytes(), is(Runtime.getRuntime().maxMemory() / 4));
+        } finally {
+            GrobidProperties.setPdfMemoryBudgetMb("-1");
+            MemoryBudget.setConcurrency(0);
+        }
+    }
+}
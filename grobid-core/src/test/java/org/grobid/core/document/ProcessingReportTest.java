@@ -0,0 +1,96 @@
+package org.grobid.core.document;
+
+import org.grobid.core.engines.DocumentStageExecutor;
+import org.grobid.core.utilities.counters.CntManager;
+import org.grobid.core.utilities.counters.impl.CntManagerFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ProcessingReportTest {
+
+    @Test
+    public void testRecord_withoutReport_ignored() throws Exception {
+        ProcessingReport.recordLabel("header", 1000);
+        assertThat(ProcessingReport.current(), nullValue());
+    }
+
+    @Test
+    public void testAttach_nested() throws Exception {
+        ProcessingReport outer = new ProcessingReport();
+        ProcessingReport inner = new ProcessingReport();
+        try (ProcessingReport.Scope scope = outer.attach()) {
+            ProcessingReport.recordLabel("header", 1000);
+            try (ProcessingReport.Scope innerScope = inner.attach()) {
+                assertThat(ProcessingReport.current(), sameInstance(inner));
+                ProcessingReport.recordLabel("header", 2000);
+            }
+            assertThat(ProcessingReport.current(), sameInstance(outer));
+            ProcessingReport.recordConsolidation(3, 5000);
+        }
+        assertThat(ProcessingReport.current(), nullValue());
+
+        assertThat(outer.getLabelCalls("header"), is(1L));
+        assertThat(outer.getLabelNanos("header"), is(1000L));
+        assertThat(outer.getConsolidationCalls(), is(3L));
+        assertThat(inner.getLabelCalls("header"), is(1L));
+        assertThat(inner.getLabelNanos("header"), is(2000L));
+        assertThat(inner.getConsolidationCalls(), is(0L));
+    }
+
+    @Test
+    public void testAttach_propagatedToThePool() throws Exception {
+        ProcessingReport report = new ProcessingReport();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (ProcessingReport.Scope scope = report.attach()) {
+            DocumentStageExecutor.processAll(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), i -> {
+                ProcessingReport.recordLabel("citation", i);
+                return i;
+            }, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(report.getLabelCalls("citation"), is(8L));
+        assertThat(report.getLabelNanos("citation"), is(36L));
+    }
+
+    @Test
+    public void testAddTo() throws Exception {
+        ProcessingReport report = new ProcessingReport();
+        try (ProcessingReport.Scope scope = report.attach()) {
+            ProcessingReport.recordPdfalto(3000000, 1024);
+            ProcessingReport.recordLabel("segmentation", 2000000);
+        }
+        report.setTeiChars(512);
+        report.finish();
+
+        CntManager cntManager = CntManagerFactory.getCntManager();
+        report.addTo(cntManager);
+        report.addTo(cntManager);
+        assertThat(cntManager.cnt(ProcessingReport.COUNTERS_GROUP, "documents"), is(2L));
+        assertThat(cntManager.cnt(ProcessingReport.COUNTERS_GROUP, "pdfalto_ms"), is(6L));
+        assertThat(cntManager.cnt(ProcessingReport.COUNTERS_GROUP, "pdfalto_output_bytes"), is(2048L));
+        assertThat(cntManager.cnt(ProcessingReport.COUNTERS_GROUP, "label_calls_segmentation"), is(2L));
+        assertThat(cntManager.cnt(ProcessingReport.COUNTERS_GROUP, "tei_chars"), is(1024L));
+    }
+
+    @Test
+    public void testToJSON() throws Exception {
+        ProcessingReport report = new ProcessingReport();
+        try (ProcessingReport.Scope scope = report.attach()) {
+            ProcessingReport.recordLabel("fulltext", 4000000);
+        }
+        report.finish();
+
+        String json = report.toJSON();
+        assertThat(json, containsString("\"models\":{\"fulltext\":{\"calls\":1,\"ms\":4}}"));
+        assertThat(json, containsString("\"allocatedBytes\":"));
+    }
+}
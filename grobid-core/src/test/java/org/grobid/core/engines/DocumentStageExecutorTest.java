@@ -0,0 +1,146 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.engines.DocumentStageExecutor.Stage;
+import org.grobid.core.exceptions.GrobidException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DocumentStageExecutorTest {
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSequential_runInOrder() {
+        DocumentStageExecutor target = new DocumentStageExecutor(null);
+        List<String> executed = new ArrayList<>();
+
+        Stage<String> a = target.add("a", () -> { executed.add("a"); return "A"; });
+        Stage<String> b = target.add("b", () -> { executed.add("b"); return "B"; });
+        Stage<String> c = target.add("c", () -> { executed.add("c"); return a.get() + b.get(); }, a, b);
+        target.await();
+
+        assertThat(executed, is(Arrays.asList("a", "b", "c")));
+        assertThat(c.get(), is("AB"));
+    }
+
+    @Test
+    public void testParallel_independentStagesRunConcurrently() {
+        DocumentStageExecutor target = new DocumentStageExecutor(pool);
+        // the two stages can only complete if they are run at the same time
+        CountDownLatch latch = new CountDownLatch(2);
+
+        Stage<Boolean> a = target.add("a", () -> { latch.countDown(); return latch.await(10, TimeUnit.SECONDS); });
+        Stage<Boolean> b = target.add("b", () -> { latch.countDown(); return latch.await(10, TimeUnit.SECONDS); });
+        target.await();
+
+        assertThat(a.get(), is(true));
+        assertThat(b.get(), is(true));
+    }
+
+    @Test
+    public void testParallel_dependenciesAreRespected() {
+        DocumentStageExecutor target = new DocumentStageExecutor(pool);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        Stage<String> a = target.add("a", () -> { Thread.sleep(50); executed.add("a"); return "A"; });
+        Stage<String> b = target.add("b", () -> { executed.add("b"); return a.get() + "B"; }, a);
+        Stage<String> c = target.add("c", () -> { executed.add("c"); return b.get() + "C"; }, b);
+        target.await();
+
+        assertThat(executed, is(Arrays.asList("a", "b", "c")));
+        assertThat(c.get(), is("ABC"));
+    }
+
+    @Test
+    public void testParallel_failureIsPropagated() {
+        DocumentStageExecutor target = new DocumentStageExecutor(pool);
+
+        Stage<String> a = target.add("a", () -> { throw new GrobidException("failing stage"); });
+        target.add("b", () -> a.get() + "B", a);
+        try {
+            target.await();
+            fail("The failure of the stage should be propagated");
+        } catch (GrobidException e) {
+            assertThat(e.getMessage(), containsString("failing stage"));
+        }
+    }
+
+    @Test
+    public void testSequential_failureStopsNextStages() {
+        DocumentStageExecutor target = new DocumentStageExecutor(null);
+        List<String> executed = new ArrayList<>();
+
+        target.add("a", () -> { throw new IllegalStateException("failing stage"); });
+        target.add("b", () -> { executed.add("b"); return "B"; });
+        try {
+            target.await();
+            fail("The failure of the stage should be propagated");
+        } catch (GrobidException e) {
+            assertThat(e.getCause().getMessage(), is("failing stage"));
+        }
+        assertThat(executed.size(), is(0));
+    }
+
+    @Test
+    public void testProcessAll_orderIsPreserved() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+
+        List<Integer> results = DocumentStageExecutor.processAll(items, i -> i * 2, pool);
+
+        assertThat(results.size(), is(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(results.get(i), is(i * 2));
+        }
+    }
+
+    @Test
+    public void testProcessAll_fromStage() {
+        DocumentStageExecutor target = new DocumentStageExecutor(pool);
+
+        Stage<List<String>> a = target.add("a",
+            () -> DocumentStageExecutor.processAll(Arrays.asList("x", "y", "z"), String::toUpperCase, pool));
+        target.await();
+
+        assertThat(a.get(), is(Arrays.asList("X", "Y", "Z")));
+    }
+
+    @Test
+    public void testProcessAll_failureIsPropagated() {
+        try {
+            DocumentStageExecutor.processAll(Arrays.asList("x", "y"), s -> {
+                if (s.equals("y"))
+                    throw new GrobidException("failing item");
+                return s;
+            }, pool);
+            fail("The failure of the item should be propagated");
+        } catch (GrobidException e) {
+            assertThat(e.getMessage(), containsString("failing item"));
+        }
+    }
+}
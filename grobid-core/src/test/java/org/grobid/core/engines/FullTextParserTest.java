@@ -3,6 +3,11 @@ package org.grobid.core.engines;
 import org.grobid.core.analyzers.GrobidAnalyzer;
 import org.grobid.core.document.Document;
 import org.grobid.core.document.DocumentPiece;
+import org.grobid.core.document.DocumentSource;
+import org.grobid.core.document.MemoryBudget;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.exceptions.GrobidExceptionStatus;
 import org.grobid.core.factory.GrobidFactory;
 import org.grobid.core.layout.Block;
 import org.grobid.core.layout.LayoutToken;
@@ -13,6 +18,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
@@ -43,6 +49,30 @@ public class FullTextParserTest {
         GrobidFactory.reset();
     }
 
+    @Test
+    public void testProcessingWithBudget_budgetExceeded_shouldFallBackToHeaderOnly() throws Exception {
+        File input = new File("src/test/resources/test/ApplPhysLett_98_082505.pdf");
+        List<DocumentSource> sources = new ArrayList<>();
+        Document doc = FullTextParser.processingWithBudget(input, GrobidAnalysisConfig.defaultInstance(), documentSource -> {
+            sources.add(documentSource);
+            try {
+                // the estimation of the first conversion was too low
+                if (sources.size() == 1)
+                    throw new GrobidException("budget exceeded", GrobidExceptionStatus.MEMORY_BUDGET_EXCEEDED);
+                Document document = new Document(documentSource);
+                document.addTokenizedDocument(GrobidAnalysisConfig.defaultInstance());
+                return document;
+            } finally {
+                DocumentSource.close(documentSource, true, true, true);
+            }
+        });
+
+        assertThat(sources, hasSize(2));
+        assertThat(sources.get(0).getDegradation(), is(MemoryBudget.Degradation.NONE));
+        assertThat(doc.getDegradation(), is(MemoryBudget.Degradation.HEADER_ONLY));
+        assertThat(doc.getPages().size() <= GrobidProperties.getHeaderPages(), is(true));
+    }
+
 //    @Test
 //    public void testProcess2() throws Exception {
 //        String text = "(a) shows the temperature variation of the 31 P-\n" +
@@ -0,0 +1,106 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.document.Document;
+import org.grobid.core.document.DocumentSource;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.factory.GrobidFactory;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HeaderParserTest {
+
+    private static final File PDF_FILE = new File("src/test/resources/test/ApplPhysLett_98_082505.pdf");
+
+    private HeaderParser target;
+    private List<Integer> convertedEndPages;
+    private String retryPages;
+
+    @BeforeClass
+    public static void init() {
+        LibraryLoader.load();
+        GrobidProperties.getInstance();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        GrobidFactory.reset();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        retryPages = String.valueOf(GrobidProperties.getHeaderRetryPages());
+        convertedEndPages = new ArrayList<>();
+
+        // the segmentation finds no header in the converted pages
+        Document document = createNiceMock(Document.class);
+        Segmentation segmentation = createMock(Segmentation.class);
+        expect(segmentation.processing(anyObject(DocumentSource.class), anyObject(GrobidAnalysisConfig.class)))
+            .andAnswer(() -> {
+                DocumentSource documentSource = (DocumentSource) getCurrentArguments()[0];
+                documentSource.close(true, true, true);
+                return document;
+            }).anyTimes();
+        EngineParsers parsers = createMock(EngineParsers.class);
+        expect(parsers.getSegmentationParser()).andReturn(segmentation).anyTimes();
+        replay(document, segmentation, parsers);
+
+        target = new HeaderParser(parsers) {
+            @Override
+            protected DocumentSource convertPages(File input, int startPage, int endPage) {
+                convertedEndPages.add(endPage);
+                return super.convertPages(input, startPage, endPage);
+            }
+        };
+    }
+
+    @After
+    public void resetProperties() {
+        GrobidProperties.setHeaderRetryPages(retryPages);
+    }
+
+    private static GrobidAnalysisConfig firstPages(int endPage) {
+        return GrobidAnalysisConfig.builder().startPage(-1).endPage(endPage).build();
+    }
+
+    @Test
+    public void testProcessing_noHeaderInTheFirstPages_shouldConvertAgainWithTheRetryPages() throws Exception {
+        GrobidProperties.setHeaderRetryPages("2");
+
+        target.processing(PDF_FILE, new BiblioItem(), firstPages(1));
+
+        assertThat(convertedEndPages, is(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void testProcessing_retryPagesNotAboveTheEndPage_shouldNotConvertAgain() throws Exception {
+        GrobidProperties.setHeaderRetryPages("2");
+
+        target.processing(PDF_FILE, new BiblioItem(), firstPages(2));
+
+        assertThat(convertedEndPages, is(Arrays.asList(2)));
+    }
+
+    @Test
+    public void testProcessing_noRetryPages_shouldNotConvertAgain() throws Exception {
+        GrobidProperties.setHeaderRetryPages("0");
+
+        target.processing(PDF_FILE, new BiblioItem(), firstPages(1));
+
+        assertThat(convertedEndPages, is(Arrays.asList(1)));
+    }
+}
@@ -0,0 +1,62 @@
+package org.grobid.core.features;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class FeatureBuffersTest {
+
+    @Test
+    public void testAcquire_releasedBufferIsReusedEmpty() throws Exception {
+        StringBuilder first = FeatureBuffers.acquire();
+        first.append("token feature1 feature2 I-<title>\n");
+        FeatureBuffers.release(first);
+
+        StringBuilder second = FeatureBuffers.acquire();
+        assertThat(second, sameInstance(first));
+        assertThat(second.length(), is(0));
+        FeatureBuffers.release(second);
+    }
+
+    @Test
+    public void testAcquire_nestedBuffersAreDistinct() throws Exception {
+        StringBuilder outer = FeatureBuffers.acquire();
+        StringBuilder inner = FeatureBuffers.acquire();
+        assertThat(inner, not(sameInstance(outer)));
+        FeatureBuffers.release(inner);
+        FeatureBuffers.release(outer);
+    }
+
+    @Test
+    public void testRelease_largeBufferIsNotRetained() throws Exception {
+        StringBuilder large = FeatureBuffers.acquire();
+        large.ensureCapacity(FeatureBuffers.MAX_RETAINED_CAPACITY + 1);
+        FeatureBuffers.release(large);
+
+        StringBuilder next = FeatureBuffers.acquire();
+        assertThat(next, not(sameInstance(large)));
+        FeatureBuffers.release(next);
+    }
+
+    @Test
+    public void testRelease_atMostMaxRetainedBuffersAreKept() throws Exception {
+        StringBuilder[] buffers = new StringBuilder[FeatureBuffers.MAX_RETAINED_BUFFERS + 1];
+        for (int i = 0; i < buffers.length; i++)
+            buffers[i] = FeatureBuffers.acquire();
+        for (StringBuilder buffer : buffers)
+            FeatureBuffers.release(buffer);
+
+        StringBuilder[] reacquired = new StringBuilder[buffers.length];
+        for (int i = 0; i < reacquired.length; i++)
+            reacquired[i] = FeatureBuffers.acquire();
+        // the buffer released last is not kept, the other ones are reused
+        for (StringBuilder buffer : reacquired)
+            assertThat(buffer, not(sameInstance(buffers[buffers.length - 1])));
+        assertThat(reacquired[0], sameInstance(buffers[buffers.length - 2]));
+        for (StringBuilder buffer : reacquired)
+            FeatureBuffers.release(buffer);
+    }
+}
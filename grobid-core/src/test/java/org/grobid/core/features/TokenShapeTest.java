@@ -0,0 +1,47 @@
+package org.grobid.core.features;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class TokenShapeTest {
+
+    private final FeatureFactory featureFactory = FeatureFactory.getInstance();
+
+    @Test
+    public void testOf_sameAnswersAsFeatureFactory() throws Exception {
+        for (String token : Arrays.asList("Grobid", "GROBID", "grobid", "G", "2015", "2015\n", "١٢٣", "B12", "b12",
+            "12b", "-", "É", "é", "\n")) {
+            int shape = TokenShape.of(token);
+            assertThat(token, TokenShape.isInitCap(shape), is(featureFactory.test_first_capital(token)));
+            assertThat(token, TokenShape.isAllCap(shape), is(featureFactory.test_all_capital(token)));
+            assertThat(token, TokenShape.hasDigit(shape), is(FeatureFactory.test_digit(token)));
+            assertThat(token, TokenShape.isAllDigits(shape), is(featureFactory.test_number(token)));
+            assertThat(token, TokenShape.isAllAsciiDigits(shape), is(featureFactory.test_all_digit(token)));
+        }
+    }
+
+    @Test
+    public void testOf_range() throws Exception {
+        char[] chars = "a 2015 Grobid".toCharArray();
+        assertThat(TokenShape.of(chars, 2, 6), is(TokenShape.of("2015")));
+        assertThat(TokenShape.of("a 2015 Grobid", 7, 13), is(TokenShape.of("Grobid")));
+        assertThat(TokenShape.of(chars, 2, 2), is(0));
+    }
+
+    @Test
+    public void testWordShape_range() throws Exception {
+        assertThat(TokenShape.wordShape("a Grobid-2015 b", 2, 13), is(TokenShape.wordShape("Grobid-2015")));
+        assertThat(TokenShape.wordShapeTrimmed("a Grobid-2015 b", 2, 13), is(TokenShape.wordShapeTrimmed("Grobid-2015")));
+    }
+
+    @Test
+    public void testWordShape_cached() throws Exception {
+        String shape = TokenShape.wordShape("Lopez");
+        assertThat(TokenShape.wordShape(new String("Lopez")), sameInstance(shape));
+    }
+}
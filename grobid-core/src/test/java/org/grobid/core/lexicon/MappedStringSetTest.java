@@ -0,0 +1,64 @@
+package org.grobid.core.lexicon;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedStringSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testContains_sameAnswersAsHashSet() throws Exception {
+        List<String> words = Arrays.asList("the", "Zoé", "zoe", "a", "Müller", "ß", "𝛼-helix", "the", "");
+        File file = folder.newFile("words.sst");
+        MappedStringSet.write(words, file);
+        MappedStringSet set = MappedStringSet.load(file);
+
+        Set<String> expected = new HashSet<>(words);
+        assertThat(set.size(), is(expected.size()));
+        for (String word : expected) {
+            assertThat(word, set.contains(word), is(true));
+        }
+        for (String word : Arrays.asList("th", "then", "Zoe", "muller", "b", "𝛼")) {
+            assertThat(word, set.contains(word), is(false));
+        }
+        assertThat(new HashSet<>(set), is(expected));
+    }
+
+    @Test
+    public void testContains_sameHashCode() throws Exception {
+        // "Aa" and "BB" have the same hash code, as have "AaAa", "AaBB" and "BBAa"
+        List<String> words = Arrays.asList("Aa", "AaAa", "BBAa");
+        File file = folder.newFile("collisions.sst");
+        MappedStringSet.write(words, file);
+        MappedStringSet set = MappedStringSet.load(file);
+
+        for (String word : words) {
+            assertThat(word, set.contains(word), is(true));
+        }
+        for (String word : Arrays.asList("BB", "AaBB", "BBBB")) {
+            assertThat(word, set.contains(word), is(false));
+        }
+    }
+
+    @Test
+    public void testContains_emptySet() throws Exception {
+        File file = folder.newFile("empty.sst");
+        MappedStringSet.write(new HashSet<String>(), file);
+        MappedStringSet set = MappedStringSet.load(file);
+
+        assertThat(set.size(), is(0));
+        assertThat(set.contains("word"), is(false));
+    }
+}
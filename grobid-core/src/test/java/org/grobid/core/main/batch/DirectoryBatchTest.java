@@ -0,0 +1,101 @@
+package org.grobid.core.main.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DirectoryBatchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class CountingEngine implements Closeable {
+        static final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+
+    private static final DirectoryBatch.PdfProcessor<CountingEngine> WRITE_OUTPUT =
+        (engine, pdf, outputDirectory, index) -> Files.write(new File(outputDirectory, pdf.getName() + ".out").toPath(),
+            Collections.singletonList(pdf.getName()), StandardCharsets.UTF_8);
+
+    private File createInput() throws IOException {
+        File input = folder.newFolder("in");
+        new File(input, "a.pdf").createNewFile();
+        new File(input, "b.PDF").createNewFile();
+        new File(input, "notes.txt").createNewFile();
+        File sub = new File(input, "sub");
+        sub.mkdir();
+        new File(sub, "c.pdf").createNewFile();
+        return input;
+    }
+
+    @Test
+    public void testProcess_recursive() throws Exception {
+        File input = createInput();
+        File output = new File(folder.getRoot(), "out");
+        CountingEngine.closed.set(0);
+
+        DirectoryBatch<CountingEngine> batch = new DirectoryBatch<>(input, output, true, 4, "test");
+        batch.process(CountingEngine::new, WRITE_OUTPUT);
+
+        assertThat(batch.getProcessed(), is(3L));
+        assertThat(new File(output, "a.pdf.out").exists(), is(true));
+        assertThat(new File(output, "b.PDF.out").exists(), is(true));
+        assertThat(new File(output, "sub" + File.separator + "c.pdf.out").exists(), is(true));
+        assertThat(Files.readAllLines(batch.getManifestFile().toPath()).size(), is(3));
+        assertThat(CountingEngine.closed.get() >= 1, is(true));
+    }
+
+    @Test
+    public void testProcess_notRecursive() throws Exception {
+        File input = createInput();
+        File output = new File(folder.getRoot(), "out");
+
+        DirectoryBatch<CountingEngine> batch = new DirectoryBatch<>(input, output, false, 2, "test");
+        batch.process(CountingEngine::new, WRITE_OUTPUT);
+
+        assertThat(batch.getProcessed(), is(2L));
+        assertThat(new File(output, "sub").exists(), is(false));
+    }
+
+    @Test
+    public void testProcess_resumeSkipsCompletedFiles() throws Exception {
+        File input = createInput();
+        File output = new File(folder.getRoot(), "out");
+
+        DirectoryBatch<CountingEngine> first = new DirectoryBatch<>(input, output, true, 2, "test");
+        first.process(CountingEngine::new, (engine, pdf, outputDirectory, index) -> {
+            if (pdf.getName().equals("c.pdf"))
+                throw new IllegalStateException("failing file");
+            WRITE_OUTPUT.process(engine, pdf, outputDirectory, index);
+        });
+        assertThat(first.getProcessed(), is(2L));
+        assertThat(first.getFailed(), is(1L));
+
+        DirectoryBatch<CountingEngine> second = new DirectoryBatch<>(input, output, true, 2, "test");
+        second.process(CountingEngine::new, WRITE_OUTPUT);
+        assertThat(second.getSkipped(), is(2L));
+        assertThat(second.getProcessed(), is(1L));
+        assertThat(new File(output, "sub" + File.separator + "c.pdf.out").exists(), is(true));
+    }
+
+    @Test
+    public void testFormatDuration() throws Exception {
+        assertThat(DirectoryBatch.formatDuration(3725), is("1:02:05"));
+    }
+}
@@ -1,11 +1,22 @@
 package org.grobid.core.utilities;
 
+import com.google.common.collect.Multimap;
+import nu.xom.Element;
+import nu.xom.Nodes;
+import nu.xom.XPathContext;
 import org.apache.commons.io.IOUtils;
 
+import org.grobid.core.data.BibDataSetContext;
+import org.grobid.core.document.xml.XmlBuilderUtils;
 import org.junit.Test;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 
 public class BibDataSetContextExtractorTest {
 
@@ -17,4 +28,27 @@ public class BibDataSetContextExtractorTest {
         BibDataSetContextExtractor.getCitationReferences(tei);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetCitationContext_sameAsFromSerializedTei() throws Exception {
+        InputStream is = this.getClass().getResourceAsStream("/test/tei-escape.xml");
+        String tei = IOUtils.toString(is, StandardCharsets.UTF_8);
+        is.close();
+        Multimap<String, BibDataSetContext> expected = BibDataSetContextExtractor.getCitationReferences(tei);
+
+        Element root = XmlBuilderUtils.fromString(tei);
+        Nodes refs = root.query("//tei:ref[@type='bibr']", new XPathContext("tei", XmlBuilderUtils.TEI_NS));
+        List<BibDataSetContext> contexts = new ArrayList<>();
+        for (int i = 0; i < refs.size(); i++) {
+            contexts.add(BibDataSetContextExtractor.getCitationContext((Element) refs.get(i)));
+        }
+
+        assertThat(contexts.size(), is(expected.size()));
+        for (BibDataSetContext context : contexts) {
+            List<BibDataSetContext> expectedContexts = new ArrayList<>(expected.get(context.getTeiId()));
+            assertThat(expectedContexts.size(), is(1));
+            assertThat(context.getContext(), is(expectedContexts.get(0).getContext()));
+            assertThat(context.getDocumentCoords(), is(expectedContexts.get(0).getDocumentCoords()));
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.grobid.core.utilities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class GrobidPatternsTest {
+
+    private static final List<String> SAMPLES = Arrays.asList(
+        "", "1", "123", "1999", "2018a", "(1987)", ",123", "3000", "a1234", "12 34", "12\n", "12\r\n", "12\n\n",
+        "\n", "12 ", "١٢٣", "12a", ".", ",:;?.", "..\n", ". ", "?!", "http", "https://x.org", "htt p",
+        "a\nb", "a\r\nb\n", "\nb", "a\n\n", "\n\n", "a\rb\r");
+
+    @Test
+    public void testScanners_sameAnswersAsPatterns() {
+        for (String text : SAMPLES) {
+            assertThat(text, GrobidPatterns.containsYear(text), is(GrobidPatterns.YEAR.matcher(text).find()));
+            assertThat(text, GrobidPatterns.containsHttp(text), is(GrobidPatterns.HTTP.matcher(text).find()));
+            assertThat(text, GrobidPatterns.isAllDigits(text), is(GrobidPatterns.ALL_DIGITS.matcher(text).find()));
+            assertThat(text, GrobidPatterns.isPunct(text), is(GrobidPatterns.PUNCT.matcher(text).find()));
+        }
+    }
+
+    @Test
+    public void testSplitLines_sameAsPatternSplit() {
+        for (String text : SAMPLES) {
+            assertThat(text, GrobidPatterns.splitLines(text), is(GrobidPatterns.LINE_BREAK.split(text)));
+        }
+    }
+
+    @Test
+    public void testGet_compiledOnce() {
+        assertThat(GrobidPatterns.get("</p>\\s*<p>"), sameInstance(GrobidPatterns.get("</p>\\s*<p>")));
+    }
+}
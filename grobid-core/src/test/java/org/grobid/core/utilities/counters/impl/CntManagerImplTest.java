@@ -5,6 +5,7 @@ import org.grobid.core.engines.counters.CitationParserCounters;
 import org.grobid.core.engines.counters.Countable;
 import org.grobid.core.engines.counters.FigureCounters;
 import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.counters.Counter;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -156,4 +157,51 @@ public class CntManagerImplTest {
         assertThat(target.getCounterEnclosingName(FigureCounters.TOO_MANY_FIGURES_PER_PAGE), is("org.grobid.core.engines.counters.FigureCounters"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getCounter_beforeIncrement_shouldBeTheCountedOne() throws Exception {
+        Counter counter = target.getCounter(FigureCounters.STANDALONE_FIGURES);
+        target.i(FigureCounters.STANDALONE_FIGURES);
+        counter.i(2);
+
+        assertThat(target.cnt(FigureCounters.STANDALONE_FIGURES), is(3l));
+        assertThat(target.getAllCounters().size(), is(1));
+    }
+
+    @Test
+    public void addAll_shouldMergeDocumentScope() throws Exception {
+        target.i(FigureCounters.STANDALONE_FIGURES);
+        target.i("figures", "element");
+
+        CntManagerImpl documentScope = new CntManagerImpl();
+        documentScope.i(FigureCounters.STANDALONE_FIGURES, 2);
+        documentScope.i(CitationParserCounters.SEGMENTED_REFERENCES);
+        documentScope.i("figures", "element", 3);
+        target.addAll(documentScope);
+
+        assertThat(target.cnt(FigureCounters.STANDALONE_FIGURES), is(3l));
+        assertThat(target.cnt(CitationParserCounters.SEGMENTED_REFERENCES), is(1l));
+        assertThat(target.cnt("figures", "element"), is(4l));
+        assertThat(documentScope.cnt("figures", "element"), is(3l));
+    }
+
+    @Test
+    public void i_concurrentIncrements_shouldAllBeCounted() throws Exception {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < 10000; k++) {
+                    target.i(TaggingLabels.ITEM);
+                    target.i("figures", "element");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(target.cnt(TaggingLabels.ITEM), is(80000l));
+        assertThat(target.cnt("figures", "element"), is(80000l));
+    }
+
+}
@@ -0,0 +1,233 @@
+package org.grobid.core.utilities.crossref;
+
+import org.apache.commons.io.IOUtils;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CrossrefClientTest {
+
+    @BeforeClass
+    public static void setInitialContext() throws Exception {
+        GrobidProperties.getInstance();
+    }
+
+    @Test
+    public void testPendingRequestKey_sameQueryDifferentOrder() {
+        Map<String, String> params1 = new LinkedHashMap<>();
+        params1.put("query.title", "Attention is all you need");
+        params1.put("query.author", "Vaswani");
+        params1.put("rows", "1");
+
+        Map<String, String> params2 = new LinkedHashMap<>();
+        params2.put("rows", "1");
+        params2.put("query.author", "Vaswani ");
+        params2.put("query.title", "Attention is all you need");
+
+        WorkDeserializer deserializer = new WorkDeserializer();
+        assertThat(CrossrefClient.pendingRequestKey("works", params1, deserializer),
+            is(CrossrefClient.pendingRequestKey("works", params2, deserializer)));
+    }
+
+    @Test
+    public void testPendingRequestKey_doiIsCaseInsensitive() {
+        Map<String, String> params1 = new HashMap<>();
+        params1.put("DOI", "10.1038/NATURE14539");
+        Map<String, String> params2 = new HashMap<>();
+        params2.put("doi", "10.1038/nature14539");
+
+        assertThat(CrossrefClient.pendingRequestKey("works", params1, null),
+            is(CrossrefClient.pendingRequestKey("works", params2, null)));
+    }
+
+    @Test
+    public void testPendingRequestKey_differentQueries() {
+        Map<String, String> params1 = new HashMap<>();
+        params1.put("doi", "10.1038/nature14539");
+        Map<String, String> params2 = new HashMap<>();
+        params2.put("doi", "10.1038/nature14540");
+
+        assertThat(CrossrefClient.pendingRequestKey("works", params1, null),
+            not(CrossrefClient.pendingRequestKey("works", params2, null)));
+        assertNull(CrossrefClient.pendingRequestKey("works", null, null));
+    }
+
+    @Test
+    public void testSharedRequest_listenersNotifiedOnce() {
+        CrossrefRequest<BiblioItem> request = new CrossrefRequest<>("works", new HashMap<>(), new WorkDeserializer());
+        final List<BiblioItem> received = new ArrayList<>();
+        CrossrefRequestListener<BiblioItem> listener = new CrossrefRequestListener<BiblioItem>() {
+            @Override
+            public void onSuccess(List<BiblioItem> results) {
+                received.addAll(results);
+            }
+        };
+        assertTrue(request.addListenerIfPending(listener));
+        assertTrue(request.addListenerIfPending(listener));
+
+        CrossrefRequestListener.Response<BiblioItem> response = new CrossrefRequestListener.Response<>();
+        response.results = new ArrayList<>();
+        response.results.add(new BiblioItem());
+        request.notifyListeners(response);
+
+        assertThat(received.size(), is(2));
+        assertFalse(request.addListenerIfPending(listener));
+    }
+
+    private byte[] readWorkResponse() throws Exception {
+        try (InputStream is = this.getClass().getResourceAsStream("crossref_response.work.json")) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    private static class ResultListener extends CrossrefRequestListener<BiblioItem> {
+        private volatile List<BiblioItem> results;
+
+        @Override
+        public void onSuccess(List<BiblioItem> results) {
+            this.results = results;
+        }
+    }
+
+    @Test
+    public void testSharedRequest_concurrentIdenticalQueriesGetDistinctResults() throws Exception {
+        final byte[] body = readWorkResponse();
+        final CountDownLatch joined = new CountDownLatch(1);
+        Map<String, String> params = new HashMap<>();
+        params.put("doi", "10.1007/s00005-009-0056-3");
+        final CrossrefRequest<BiblioItem> request = new CrossrefRequest<BiblioItem>("works", params, new WorkDeserializer()) {
+            @Override
+            public void execute() {
+                try {
+                    joined.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                CrossrefRequestListener.Response<BiblioItem> response = new CrossrefRequestListener.Response<>();
+                response.status = 200;
+                notifyListeners(response, new ByteArrayInputStream(body));
+            }
+        };
+
+        CrossrefClient client = new CrossrefClient();
+        String key = CrossrefClient.pendingRequestKey("works", params, new WorkDeserializer());
+        ResultListener first = new ResultListener();
+        ResultListener second = new ResultListener();
+        request.addListener(first);
+        client.submitSharedTask(key, request, request::execute, 1L);
+
+        final AtomicBoolean shared = new AtomicBoolean();
+        Thread otherThread = new Thread(() -> {
+            try {
+                shared.set(client.joinPendingRequest(key, second, 2L));
+            } finally {
+                joined.countDown();
+            }
+        });
+        otherThread.start();
+        otherThread.join();
+        assertTrue(shared.get());
+
+        client.finish(1L);
+        client.finish(2L);
+
+        assertThat(first.results.size(), is(1));
+        assertThat(second.results.size(), is(1));
+        assertThat(first.results.get(0), not(sameInstance(second.results.get(0))));
+        assertThat(first.results.get(0).getDOI(), is(second.results.get(0).getDOI()));
+        assertTrue(client.pendingRequests.isEmpty());
+        client.close();
+    }
+
+    @Test
+    public void testSharedRequest_failingListenerDoesNotStopTheOthers() throws Exception {
+        CrossrefClient client = new CrossrefClient();
+        Map<String, String> params = new HashMap<>();
+        params.put("doi", "10.1007/s00005-009-0056-3");
+        String key = CrossrefClient.pendingRequestKey("works", params, null);
+        CrossrefRequest<BiblioItem> request = new CrossrefRequest<>("works", params, new WorkDeserializer());
+        request.addListener(new CrossrefRequestListener<BiblioItem>() {
+            @Override
+            public void onSuccess(List<BiblioItem> results) {
+                throw new IllegalStateException("failing listener");
+            }
+        });
+        ResultListener listener = new ResultListener();
+        request.addListener(listener);
+        client.addPendingRequest(key, request);
+
+        CrossrefRequestListener.Response<BiblioItem> response = new CrossrefRequestListener.Response<>();
+        response.status = 200;
+        request.notifyListeners(response, new ByteArrayInputStream(readWorkResponse()));
+
+        assertThat(listener.results.size(), is(1));
+        assertTrue(client.pendingRequests.isEmpty());
+        client.close();
+    }
+
+    @Test
+    public void testSharedRequest_resultsOnlyParsedForTheListenersConsumingThem() throws Exception {
+        final AtomicInteger nbParses = new AtomicInteger();
+        WorkDeserializer deserializer = new WorkDeserializer() {
+            @Override
+            public List<BiblioItem> parse(InputStream body) throws IOException {
+                nbParses.incrementAndGet();
+                return super.parse(body);
+            }
+        };
+        CrossrefClient client = new CrossrefClient();
+        Map<String, String> params = new HashMap<>();
+        params.put("doi", "10.1007/s00005-009-0056-3");
+        String key = CrossrefClient.pendingRequestKey("works", params, deserializer);
+        CrossrefRequest<BiblioItem> request = new CrossrefRequest<>("works", params, deserializer);
+        // the release listener of the pending request and the task only use the status
+        client.addPendingRequest(key, request);
+        request.addListener(new CrossrefRequestTask<>(client, request));
+        ResultListener first = new ResultListener();
+        request.addListener(first);
+
+        CrossrefRequestListener.Response<BiblioItem> response = new CrossrefRequestListener.Response<>();
+        response.status = 200;
+        response.setTimeLimit("1s", "50");
+        request.notifyListeners(response, new ByteArrayInputStream(readWorkResponse()));
+
+        assertThat(nbParses.get(), is(1));
+        assertThat(first.results.size(), is(1));
+        assertTrue(client.pendingRequests.isEmpty());
+
+        // a second listener consuming the results gets its own parse
+        nbParses.set(0);
+        request = new CrossrefRequest<>("works", params, deserializer);
+        request.addListener(new CrossrefRequestTask<>(client, request));
+        first = new ResultListener();
+        ResultListener second = new ResultListener();
+        request.addListener(first);
+        request.addListener(second);
+        request.notifyListeners(response, new ByteArrayInputStream(readWorkResponse()));
+
+        assertThat(nbParses.get(), is(2));
+        assertThat(first.results.get(0), not(sameInstance(second.results.get(0))));
+        client.close();
+    }
+}
@@ -0,0 +1,106 @@
+package org.grobid.core.utilities.crossref;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.grobid.core.data.BiblioItem;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class WorkDeserializerTest {
+
+    @BeforeClass
+    public static void setInitialContext() throws Exception {
+        GrobidProperties.getInstance();
+    }
+
+    private WorkDeserializer target;
+
+    @Before
+    public void setUp() throws Exception {
+        target = new WorkDeserializer();
+    }
+
+    private String readResource(String name) throws Exception {
+        try (InputStream is = this.getClass().getResourceAsStream(name)) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testParseCrossrefWork() throws Exception {
+        List<BiblioItem> results = target.parse(this.getClass().getResourceAsStream("crossref_response.work.json"));
+
+        assertThat(results.size(), is(1));
+        BiblioItem item = results.get(0);
+        assertThat(item.getDOI(), is("10.1007/s00005-009-0056-3"));
+        assertThat(item.getTitle(), is("Immunogenicity of therapeutic proteins"));
+        assertThat(item.getJournal(), is("Archivum Immunologiae et Therapiae Experimentalis"));
+        assertThat(item.getJournalAbbrev(), is("Arch. Immunol. Ther. Exp."));
+        assertThat(item.getVolumeBlock(), is("57"));
+        assertThat(item.getIssue(), is("2"));
+        assertThat(item.getPageRange(), is("135-137"));
+        assertThat(item.getISSN(), is("0004-069X"));
+        assertThat(item.getISSNe(), is("1661-4917"));
+        assertThat(item.getFullAuthors().size(), is(2));
+        assertThat(item.getFullAuthors().get(0).getLastName(), is("Kowalski"));
+        // "issued" is preferred to "published-print"
+        assertThat(item.getNormalizedPublicationDate().getYear(), is(2009));
+        assertThat(item.getNormalizedPublicationDate().getMonth(), is(3));
+        assertThat(item.getNormalizedPublicationDate().getDay(), is(28));
+    }
+
+    @Test
+    public void testParseCrossrefQuery() throws Exception {
+        List<BiblioItem> results = target.parse(readResource("crossref_response.query.json"));
+
+        assertThat(results.size(), is(2));
+        BiblioItem first = results.get(0);
+        assertThat(first.getDOI(), is("10.18653/v1/n16-1030"));
+        assertThat(first.getBookTitle(),
+            is("Proceedings of the 2016 Conference of the North American Chapter of the Association for Computational Linguistics: Human Language Technologies"));
+        assertThat(first.getJournal(), is(nullValue()));
+        assertThat(first.getFullAuthors().size(), is(5));
+        assertThat(first.getNormalizedPublicationDate().getYear(), is(2016));
+
+        BiblioItem second = results.get(1);
+        assertThat(second.getTitle(), is("Named entity recognition: a survey"));
+        assertThat(second.getJournal(), is("Artificial Intelligence"));
+        assertThat(second.getISSN(), is("0004-3702"));
+        // date parts with null year are ignored
+        assertThat(second.getNormalizedPublicationDate(), is(nullValue()));
+    }
+
+    @Test
+    public void testParseGluttonResponse() throws Exception {
+        List<BiblioItem> results = target.parse(readResource("glutton_response.json"));
+
+        assertThat(results.size(), is(1));
+        BiblioItem item = results.get(0);
+        assertThat(item.getDOI(), is("10.1038/nature14539"));
+        assertThat(item.getPMID(), is("26017442"));
+        assertThat(item.getPMCID(), is(nullValue()));
+        assertThat(item.getOAURL(), is("https://www.nature.com/articles/nature14539.pdf"));
+        assertThat(item.getJournal(), is("Nature"));
+        assertThat(item.getFullAuthors().size(), is(3));
+    }
+
+    @Test
+    public void testDeserializeOneItem_fromTree() throws Exception {
+        JsonNode tree = new ObjectMapper().readTree(readResource("glutton_response.json"));
+        BiblioItem item = target.deserializeOneItem(tree);
+
+        assertThat(item.getDOI(), is("10.1038/nature14539"));
+        assertThat(item.getVolumeBlock(), is("521"));
+    }
+}
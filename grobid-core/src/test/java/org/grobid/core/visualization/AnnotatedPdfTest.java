@@ -0,0 +1,97 @@
+package org.grobid.core.visualization;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.interactive.action.PDActionURI;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.grobid.core.utilities.GrobidProperties;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AnnotatedPdfTest {
+
+    private static final File PDF_FILE = new File("src/test/resources/test/ApplPhysLett_98_082505.pdf");
+    private static final String URI = "http://example.com/annotated";
+
+    @BeforeClass
+    public static void setInitialContext() throws Exception {
+        GrobidProperties.getInstance();
+    }
+
+    private static List<Integer> countAnnotations(PDDocument document) throws Exception {
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < document.getNumberOfPages(); i++) {
+            counts.add(document.getPage(i).getAnnotations().size());
+        }
+        return counts;
+    }
+
+    private static void annotate(AnnotatedPdf pdf, int pageIndex) throws Exception {
+        PDAnnotationLink link = new PDAnnotationLink();
+        link.setRectangle(new PDRectangle(100, 100, 50, 20));
+        PDActionURI action = new PDActionURI();
+        action.setURI(URI);
+        link.setAction(action);
+        pdf.getDocument().getPage(pageIndex).getAnnotations().add(link);
+    }
+
+    @Test
+    public void testWriteIncrementalUpdate_appendedToTheOriginal_shouldGiveTheAnnotatedPdf() throws Exception {
+        List<Integer> countsBefore;
+        try (PDDocument original = PDDocument.load(PDF_FILE)) {
+            countsBefore = countAnnotations(original);
+        }
+        assertThat(countsBefore.size() > 1, is(true));
+
+        ByteArrayOutputStream update = new ByteArrayOutputStream();
+        try (AnnotatedPdf pdf = AnnotatedPdf.load(PDF_FILE)) {
+            annotate(pdf, 0);
+            assertThat(pdf.writeIncrementalUpdate(update), is(1));
+        }
+        // only the annotated page is in the update
+        assertThat(update.size() > 0, is(true));
+        assertThat(update.size() < PDF_FILE.length(), is(true));
+
+        ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        appended.write(FileUtils.readFileToByteArray(PDF_FILE));
+        update.writeTo(appended);
+        try (PDDocument annotated = PDDocument.load(appended.toByteArray())) {
+            assertThat(annotated.getNumberOfPages(), is(countsBefore.size()));
+            List<Integer> countsAfter = countAnnotations(annotated);
+            assertThat(countsAfter.get(0), is(countsBefore.get(0) + 1));
+            assertThat(countsAfter.subList(1, countsAfter.size()), is(countsBefore.subList(1, countsBefore.size())));
+
+            List<PDAnnotation> annotations = annotated.getPage(0).getAnnotations();
+            PDAnnotation added = annotations.get(annotations.size() - 1);
+            assertThat(added instanceof PDAnnotationLink, is(true));
+            assertThat(((PDActionURI) ((PDAnnotationLink) added).getAction()).getURI(), is(URI));
+        }
+    }
+
+    @Test
+    public void testWriteIncrementalUpdate_noAnnotation_shouldKeepThePdf() throws Exception {
+        ByteArrayOutputStream update = new ByteArrayOutputStream();
+        try (AnnotatedPdf pdf = AnnotatedPdf.load(PDF_FILE)) {
+            assertThat(pdf.writeIncrementalUpdate(update), is(0));
+        }
+
+        ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        appended.write(FileUtils.readFileToByteArray(PDF_FILE));
+        update.writeTo(appended);
+        try (PDDocument original = PDDocument.load(PDF_FILE);
+             PDDocument annotated = PDDocument.load(appended.toByteArray())) {
+            assertThat(annotated.getNumberOfPages(), is(original.getNumberOfPages()));
+            assertThat(countAnnotations(annotated), is(countAnnotations(original)));
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.grobid.core.factory.AbstractEngineFactory;
 import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.MemoryFootprint;
 import org.grobid.core.engines.Engine;
 import org.grobid.core.factory.GrobidPoolingFactory;
 
@@ -78,6 +79,8 @@ public class GrobidRestService implements GrobidPaths {
         try {
             // this will init or not all the models in memory
             engine = Engine.getEngine(configuration.getGrobid().getModelPreload());
+            if (configuration.getGrobid().getModelPreload())
+                LOGGER.info(MemoryFootprint.report());
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time.");
         } catch (Exception exp) {
@@ -165,7 +168,7 @@ public class GrobidRestService implements GrobidPaths {
 
     @Path(PATH_FULL_TEXT)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
-    @Produces(MediaType.APPLICATION_XML)
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON, GrobidRestUtils.APPLICATION_SMILE})
     @POST
     public Response processFulltextDocument_post(@FormDataParam(INPUT) InputStream inputStream,
                                                  @FormDataParam("consolidateHeader") String consolidateHeader,
@@ -174,13 +177,15 @@ public class GrobidRestService implements GrobidPaths {
                                                  @DefaultValue("-1") @FormDataParam("start") int startPage,
                                                  @DefaultValue("-1") @FormDataParam("end") int endPage,
                                                  @FormDataParam("generateIDs") String generateIDs,
-                                                 @FormDataParam("teiCoordinates") List<FormDataBodyPart> coordinates) throws Exception {
-        return processFulltext(inputStream, consolidateHeader, consolidateCitations, includeRawCitations, startPage, endPage, generateIDs, coordinates);
+                                                 @FormDataParam("teiCoordinates") List<FormDataBodyPart> coordinates,
+                                                 @FormDataParam("includeProcessingReport") String includeProcessingReport,
+                                                 @HeaderParam(HttpHeaders.ACCEPT) String accept) throws Exception {
+        return processFulltext(inputStream, consolidateHeader, consolidateCitations, includeRawCitations, startPage, endPage, generateIDs, coordinates, includeProcessingReport, accept);
     }
 
     @Path(PATH_FULL_TEXT)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
-    @Produces(MediaType.APPLICATION_XML)
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON, GrobidRestUtils.APPLICATION_SMILE})
     @PUT
     public Response processFulltextDocument(@FormDataParam(INPUT) InputStream inputStream,
                                             @FormDataParam("consolidateHeader") String consolidateHeader,
@@ -189,8 +194,10 @@ public class GrobidRestService implements GrobidPaths {
                                             @DefaultValue("-1") @FormDataParam("start") int startPage,
                                             @DefaultValue("-1") @FormDataParam("end") int endPage,
                                             @FormDataParam("generateIDs") String generateIDs,
-                                            @FormDataParam("teiCoordinates") List<FormDataBodyPart> coordinates) throws Exception {
-        return processFulltext(inputStream, consolidateHeader, consolidateCitations, includeRawCitations, startPage, endPage, generateIDs, coordinates);
+                                            @FormDataParam("teiCoordinates") List<FormDataBodyPart> coordinates,
+                                            @FormDataParam("includeProcessingReport") String includeProcessingReport,
+                                            @HeaderParam(HttpHeaders.ACCEPT) String accept) throws Exception {
+        return processFulltext(inputStream, consolidateHeader, consolidateCitations, includeRawCitations, startPage, endPage, generateIDs, coordinates, includeProcessingReport, accept);
     }
 
     @Path(PATH_PDF_STRUCTURE)
@@ -208,16 +215,21 @@ public class GrobidRestService implements GrobidPaths {
                                      int startPage,
                                      int endPage,
                                      String generateIDs,
-                                     List<FormDataBodyPart> coordinates
+                                     List<FormDataBodyPart> coordinates,
+                                     String includeProcessingReport,
+                                     String accept
     ) throws Exception {
         int consolHeader = validateConsolidationParam(consolidateHeader);
         int consolCitations = validateConsolidationParam(consolidateCitations);
         boolean includeRaw = validateIncludeRawParam(includeRawCitations);
         boolean generate = validateGenerateIdParam(generateIDs);
+        boolean includeReport = validateIncludeRawParam(includeProcessingReport);
         
         List<String> teiCoordinates = collectCoordinates(coordinates);
 
-        return restProcessFiles.processFulltextDocument(inputStream, consolHeader, consolCitations, includeRaw, startPage, endPage, generate, teiCoordinates);
+        GrobidRestUtils.OutputFormat format = GrobidRestUtils.getOutputFormatFor(accept);
+
+        return restProcessFiles.processFulltextDocument(inputStream, consolHeader, consolCitations, includeRaw, startPage, endPage, generate, teiCoordinates, includeReport, format);
     }
 
     private List<String> collectCoordinates(List<FormDataBodyPart> coordinates) {
@@ -552,19 +564,22 @@ public class GrobidRestService implements GrobidPaths {
 
     @Path(PATH_PDF_ANNOTATION)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
-    @Produces("application/pdf")
+    @Produces({"application/pdf", MediaType.APPLICATION_OCTET_STREAM})
     @POST
     public Response processAnnotatePDF(@FormDataParam(INPUT) InputStream inputStream,
                                        @FormDataParam("name") String fileName,
                                        @FormDataParam("consolidateHeader") String consolidateHeader,
                                        @FormDataParam("consolidateCitations") String consolidateCitations,
                                        @FormDataParam("includeRawCitations") String includeRawCitations,
-                                       @FormDataParam("type") int type) throws Exception {
+                                       @FormDataParam("type") int type,
+                                       @FormDataParam("incremental") String incremental) throws Exception {
         int consolHeader = validateConsolidationParam(consolidateHeader);
         int consolCitations = validateConsolidationParam(consolidateCitations);
         boolean includeRaw = validateIncludeRawParam(includeRawCitations);
+        boolean incrementalUpdate = (incremental != null) && incremental.equals("1");
 
-        return restProcessFiles.processPDFAnnotation(inputStream, fileName, consolHeader, consolCitations, includeRaw, GrobidRestUtils.getAnnotationFor(type));
+        return restProcessFiles.processPDFAnnotation(inputStream, fileName, consolHeader, consolCitations, includeRaw, 
+            GrobidRestUtils.getAnnotationFor(type), incrementalUpdate);
     }
 
     @Path(PATH_REFERENCES_PDF_ANNOTATION)
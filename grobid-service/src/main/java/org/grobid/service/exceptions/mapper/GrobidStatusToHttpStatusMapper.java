@@ -23,6 +23,8 @@ public class GrobidStatusToHttpStatusMapper {
                 return Response.Status.INTERNAL_SERVER_ERROR;
             case TOO_MANY_TOKENS:
                 return Response.Status.CONFLICT;
+            case MEMORY_BUDGET_EXCEEDED:
+                return Response.Status.CONFLICT;
             case GENERAL:
                 return Response.Status.INTERNAL_SERVER_ERROR;
             default:
@@ -1,5 +1,9 @@
 package org.grobid.service.process;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.apache.commons.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.grobid.core.data.BibDataSet;
@@ -7,6 +11,7 @@ import org.grobid.core.data.PatentItem;
 import org.grobid.core.document.Document;
 import org.grobid.core.document.DocumentSource;
 import org.grobid.core.engines.Engine;
+import org.grobid.core.engines.FullTextParser;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.exceptions.GrobidExceptionStatus;
@@ -16,8 +21,10 @@ import org.grobid.core.utilities.IOUtilities;
 import org.grobid.core.utilities.KeyGen;
 import org.grobid.core.visualization.BlockVisualizer;
 import org.grobid.core.visualization.CitationsVisualizer;
+import org.grobid.core.visualization.AnnotatedPdf;
 import org.grobid.core.visualization.FigureTableVisualizer;
 import org.grobid.service.exceptions.GrobidServiceException;
+import org.grobid.service.exceptions.mapper.GrobidStatusToHttpStatusMapper;
 import org.grobid.service.parser.Xml2HtmlParser;
 import org.grobid.service.util.GrobidRestUtils;
 import org.slf4j.Logger;
@@ -53,6 +60,12 @@ public class GrobidRestProcessFiles {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GrobidRestProcessFiles.class);
 
+    // generators of the structured full text results, the response stream is closed by the container
+    private static final JsonFactory jsonFactory = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final JsonFactory smileFactory = new SmileFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     @Inject
     public GrobidRestProcessFiles() {
 
@@ -133,6 +146,9 @@ public class GrobidRestProcessFiles {
      *                             PDF, -1 for the last page (default)
      * @param generateIDs          if true, generate random attribute id on the textual elements of
      *                             the resulting TEI
+     * @param includeProcessingReport if true, the resources used for processing the document are added
+     *                             as a field of the JSON or Smile document, or as a comment after the TEI
+     * @param format               TEI, or the same result as a structured JSON or Smile document
      * @return a response object mainly contain the TEI representation of the
      * full text
      */
@@ -143,13 +159,16 @@ public class GrobidRestProcessFiles {
                                           final int startPage,
                                           final int endPage,
                                           final boolean generateIDs,
-                                          final List<String> teiCoordinates) throws Exception {
+                                          final List<String> teiCoordinates,
+                                          final boolean includeProcessingReport,
+                                          final GrobidRestUtils.OutputFormat format) throws Exception {
         LOGGER.debug(methodLogIn());
 
-        String retVal = null;
         Response response = null;
         File originFile = null;
         Engine engine = null;
+        // when the response is streamed, the engine and the input file are released once the TEI is written
+        boolean streamed = false;
         try {
             engine = Engine.getEngine(true);
             // conservative check, if no engine is free in the pool a NoSuchElementException is normally thrown
@@ -175,39 +194,87 @@ public class GrobidRestProcessFiles {
                     .endPage(endPage)
                     .generateTeiIds(generateIDs)
                     .generateTeiCoordinates(teiCoordinates)
+                    .includeProcessingReport(includeProcessingReport)
                     .build();
 
-            retVal = engine.fullTextToTEI(originFile, config);
-
-            if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
-                response = Response.status(Response.Status.NO_CONTENT).build();
+            // the document is completely processed before the response is built, so that an empty result or a
+            // failure gets its own status, then only the serialization is streamed: the TEI is written to the 
+            // response section by section, so that it is never held as a whole in memory, and the JSON and Smile 
+            // results are generated directly from the processed document without TEI
+            final FullTextParser.FulltextResult result = engine.fullTextToResult(originFile, config);
+            if (result.isEmpty()) {
+                response = Response.status(Status.NO_CONTENT).build();
             } else {
+                final Engine streamEngine = engine;
+                final File streamFile = originFile;
+                StreamingOutput output = outputStream -> {
+                    try {
+                        if (format == GrobidRestUtils.OutputFormat.TEI) {
+                            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+                            result.writeTEI(writer);
+                            writer.flush();
+                        } else {
+                            JsonFactory factory = (format == GrobidRestUtils.OutputFormat.SMILE) ?
+                                smileFactory : jsonFactory;
+                            try (JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+                                result.writeJSON(generator);
+                            }
+                        }
+                    } catch (IOException exp) {
+                        throw exp;
+                    } catch (Exception exp) {
+                        LOGGER.error("An unexpected exception occurs. ", exp);
+                        throw new WebApplicationException(exp, Status.INTERNAL_SERVER_ERROR);
+                    } finally {
+                        GrobidPoolingFactory.returnEngine(streamEngine);
+                        IOUtilities.removeTempFile(streamFile);
+                    }
+                };
+
                 response = Response.status(Response.Status.OK)
-                    .entity(retVal)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML + "; charset=UTF-8")
+                    .entity(output)
+                    .header(HttpHeaders.CONTENT_TYPE, getContentType(format))
                     .header("Access-Control-Allow-Origin", "*")
                     .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
                     .build();
+                streamed = true;
             }
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.");
             response = Response.status(Status.SERVICE_UNAVAILABLE).build();
+        } catch (GrobidException exp) {
+            LOGGER.error("An exception occurs while processing the document. ", exp);
+            response = Response.status(GrobidStatusToHttpStatusMapper.getStatusCode(exp.getStatus()))
+                .entity(exp.getMessage()).build();
         } catch (Exception exp) {
             LOGGER.error("An unexpected exception occurs. ", exp);
             response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
         } finally {
-            if (engine != null) {
-                GrobidPoolingFactory.returnEngine(engine);
-            }
+            if (!streamed) {
+                if (engine != null) {
+                    GrobidPoolingFactory.returnEngine(engine);
+                }
 
-            if (originFile != null)
-              IOUtilities.removeTempFile(originFile);
+                if (originFile != null)
+                  IOUtilities.removeTempFile(originFile);
+            }
         }
 
         LOGGER.debug(methodLogOut());
         return response;
     }
 
+    private static String getContentType(GrobidRestUtils.OutputFormat format) {
+        switch (format) {
+            case JSON:
+                return MediaType.APPLICATION_JSON + "; charset=UTF-8";
+            case SMILE:
+                return GrobidRestUtils.APPLICATION_SMILE;
+            default:
+                return MediaType.APPLICATION_XML + "; charset=UTF-8";
+        }
+    }
+
     /**
      * Uploads the origin document which shall be extracted into TEI + assets in a ZIP
      * archive.
@@ -557,6 +624,8 @@ public class GrobidRestProcessFiles {
      * @param inputStream the data of origin PDF
      * @param fileName    the name of origin PDF
      * @param type        gives type of annotation
+     * @param incremental if true, only the incremental update of the origin PDF with the annotated pages
+     *                    is returned, to be appended by the client to its copy of the origin PDF
      * @return a response object containing the annotated PDF
      */
     public Response processPDFAnnotation(final InputStream inputStream,
@@ -564,12 +633,15 @@ public class GrobidRestProcessFiles {
                                          final int consolidateHeader,
                                          final int consolidateCitations,
                                          final boolean includeRawCitations,
-                                         final GrobidRestUtils.Annotation type) throws Exception {
+                                         final GrobidRestUtils.Annotation type,
+                                         final boolean incremental) throws Exception {
         LOGGER.debug(methodLogIn());
         Response response = null;
-        PDDocument out = null;
+        AnnotatedPdf out = null;
         File originFile = null;
         Engine engine = null;
+        // when the response is streamed, the annotated PDF and the input file are released once written
+        boolean streamed = false;
         try {
             engine = Engine.getEngine(true);
             // conservative check, if no engine is free in the pool a NoSuchElementException is normally thrown
@@ -587,16 +659,36 @@ public class GrobidRestProcessFiles {
 
             out = annotate(originFile, type, engine, consolidateHeader, consolidateCitations, includeRawCitations);
             if (out != null) {
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                out.save(outputStream);
+                // the engine is not needed anymore, the annotated PDF is saved directly to the response
+                GrobidPoolingFactory.returnEngine(engine);
+                engine = null;
+
+                final AnnotatedPdf annotatedPdf = out;
+                final File streamFile = originFile;
+                StreamingOutput output = outputStream -> {
+                    try {
+                        if (incremental)
+                            annotatedPdf.writeIncrementalUpdate(outputStream);
+                        else
+                            annotatedPdf.write(outputStream);
+                    } finally {
+                        try {
+                            annotatedPdf.close();
+                        } finally {
+                            IOUtilities.removeTempFile(streamFile);
+                        }
+                    }
+                };
                 response = Response
                     .ok()
-                    .type("application/pdf")
-                    .entity(outputStream.toByteArray())
-                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                    .type(incremental ? MediaType.APPLICATION_OCTET_STREAM : "application/pdf")
+                    .entity(output)
+                    .header("Content-Disposition", "attachment; filename=\"" + 
+                        (incremental ? fileName + ".update" : fileName) + "\"")
                     .header("Access-Control-Allow-Origin", "*")
                     .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
                     .build();
+                streamed = true;
             } else {
                 response = Response.status(Status.NO_CONTENT).build();
             }
@@ -607,14 +699,17 @@ public class GrobidRestProcessFiles {
             LOGGER.error("An unexpected exception occurs. ", exp);
             response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
         } finally {
-            if (originFile != null)
-                IOUtilities.removeTempFile(originFile);
-
-            try {
-                out.close();
-            } catch (IOException e) {
-                LOGGER.error("An unexpected exception occurs. ", e);
-                response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+            if (!streamed) {
+                if (originFile != null)
+                    IOUtilities.removeTempFile(originFile);
+
+                try {
+                    if (out != null)
+                        out.close();
+                } catch (IOException e) {
+                    LOGGER.error("An unexpected exception occurs. ", e);
+                    response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+                }
             }
 
             if (engine != null) {
@@ -769,13 +864,13 @@ public class GrobidRestProcessFiles {
         return "<< " + GrobidRestProcessFiles.class.getName() + "." + Thread.currentThread().getStackTrace()[1].getMethodName();
     }
 
-    protected PDDocument annotate(File originFile, 
-                                  final GrobidRestUtils.Annotation type, Engine engine,
-                                  final int consolidateHeader,
-                                  final int consolidateCitations,
-                                  final boolean includeRawCitations) throws Exception {
+    protected AnnotatedPdf annotate(File originFile, 
+                                    final GrobidRestUtils.Annotation type, Engine engine,
+                                    final int consolidateHeader,
+                                    final int consolidateCitations,
+                                    final boolean includeRawCitations) throws Exception {
         // starts conversion process
-        PDDocument outputDocument = null;
+        AnnotatedPdf outputDocument = null;
         // list of TEI elements that should come with coordinates
         List<String> elementWithCoords = new ArrayList<>();
         if (type == GrobidRestUtils.Annotation.CITATION) {
@@ -801,16 +896,23 @@ public class GrobidRestProcessFiles {
         documentSource = 
             DocumentSource.fromPdf(originFile, config.getStartPage(), config.getEndPage(), true, true, false);
 
-        PDDocument document = PDDocument.load(originFile);
-        //If no pages, skip the document
-        if (document.getNumberOfPages() > 0) {
-            outputDocument = dispatchProcessing(type, document, documentSource, teiDoc);
-        } else {
-            throw new RuntimeException("Cannot identify any pages in the input document. " +
-                "The document cannot be annotated. Please check whether the document is valid or the logs.");
+        // the PDF is buffered in a scratch file beyond the configured heap limit
+        AnnotatedPdf annotatedPdf = AnnotatedPdf.load(originFile);
+        try {
+            //If no pages, skip the document
+            if (annotatedPdf.getDocument().getNumberOfPages() > 0) {
+                // the visualizers annotate the document in place
+                if (dispatchProcessing(type, annotatedPdf.getDocument(), documentSource, teiDoc) != null)
+                    outputDocument = annotatedPdf;
+            } else {
+                throw new RuntimeException("Cannot identify any pages in the input document. " +
+                    "The document cannot be annotated. Please check whether the document is valid or the logs.");
+            }
+        } finally {
+            if (outputDocument == null)
+                annotatedPdf.close();
+            documentSource.close(true, true, false);
         }
-        
-        documentSource.close(true, true, false);
 
         return outputDocument;
     }
@@ -1,5 +1,6 @@
 package org.grobid.service.process;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -11,7 +12,6 @@ import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.factory.GrobidPoolingFactory;
 import org.grobid.core.utilities.IOUtilities;
 import org.grobid.service.exceptions.GrobidServiceException;
-import org.grobid.service.util.GrobidRestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +19,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.File;
 import java.io.InputStream;
 import java.util.NoSuchElementException;
@@ -31,6 +32,10 @@ public class GrobidRestProcessPdfStructure {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GrobidRestProcessPdfStructure.class);
 
+    // thread-safe once configured, the response stream is closed by the container
+    private static final ObjectMapper mapper = new ObjectMapper()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     @Inject
     public GrobidRestProcessPdfStructure() {
 
@@ -45,7 +50,6 @@ public class GrobidRestProcessPdfStructure {
     public Response processPdfStructure(final InputStream inputStream) throws Exception {
         LOGGER.debug(methodLogIn());
 
-        String retVal = null;
         Response response = null;
         File originFile = null;
         Engine engine = null;
@@ -72,18 +76,15 @@ public class GrobidRestProcessPdfStructure {
             DocumentSource documentSource = DocumentSource.fromPdf(originFile, -1, -1, false, true, true);
             Document doc = engine.getParsers().getFullTextParser().processing(documentSource, config);
             PdfStructureParser.PdfStructure structure = new PdfStructureParser().extractStructure(engine, doc);
-            retVal = new ObjectMapper().writeValueAsString(structure);
-
-            if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
-                response = Response.status(Status.NO_CONTENT).build();
-            } else {
-                response = Response.status(Status.OK)
-                    .entity(retVal)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
-                    .header("Access-Control-Allow-Origin", "*")
-                    .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
-                    .build();
-            }
+
+            // the structure is serialized directly to the response, without an intermediate string
+            StreamingOutput output = outputStream -> mapper.writeValue(outputStream, structure);
+            response = Response.status(Status.OK)
+                .entity(output)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
+                .header("Access-Control-Allow-Origin", "*")
+                .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                .build();
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.");
             response = Response.status(Status.SERVICE_UNAVAILABLE).build();
@@ -17,6 +17,13 @@ public class GrobidRestUtils {
         CITATION, BLOCK, FIGURE
     }
 
+    // format of the structured full text result
+    public enum OutputFormat {
+        TEI, JSON, SMILE
+    }
+
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
     /**
      * Check whether the result is null or empty.
      */
@@ -36,4 +43,55 @@ public class GrobidRestUtils {
         return annotType;
     }
 
+    /**
+     * Output format requested by the Accept header of a request: among JSON, Smile and XML, the one with the
+     * highest quality value, the first one in the order of the header for equal values, TEI by default.
+     */
+    public static OutputFormat getOutputFormatFor(String accept) {
+        OutputFormat format = OutputFormat.TEI;
+        if (StringUtils.isBlank(accept))
+            return format;
+        double bestQuality = 0;
+        for (String mediaRange : accept.split(",")) {
+            String[] parameters = mediaRange.split(";");
+            OutputFormat rangeFormat = getOutputFormatForMediaType(parameters[0].trim().toLowerCase());
+            if (rangeFormat == null)
+                continue;
+            double quality = getQuality(parameters);
+            if (quality > bestQuality) {
+                format = rangeFormat;
+                bestQuality = quality;
+            }
+        }
+        return format;
+    }
+
+    private static OutputFormat getOutputFormatForMediaType(String mediaType) {
+        if (mediaType.equals("application/json"))
+            return OutputFormat.JSON;
+        else if (mediaType.equals(APPLICATION_SMILE))
+            return OutputFormat.SMILE;
+        else if (mediaType.equals("application/xml") || mediaType.equals("text/xml")
+            || mediaType.equals("application/tei+xml"))
+            return OutputFormat.TEI;
+        return null;
+    }
+
+    /**
+     * Quality value of a media range given with its parameters, 1 if absent or invalid
+     */
+    private static double getQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+
 }
@@ -0,0 +1,87 @@
+package org.grobid.service.load;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.GrobidPropertyKeys;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in of a biblio-glutton service for the load tests: every lookup gets the same
+ * bibliographical record after a fixed latency, so that the consolidation cost of a run does not
+ * depend on an external service.
+ */
+public class FakeConsolidationServer {
+    private static final String RESPONSE_FIXTURE = "/load/glutton_response.json";
+
+    private final int latencyMillis;
+    private final byte[] response;
+    private final AtomicLong nbRequests = new AtomicLong();
+    private HttpServer server;
+
+    /**
+     * @param latencyMillis time spent before answering each lookup
+     */
+    public FakeConsolidationServer(int latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        try (InputStream is = FakeConsolidationServer.class.getResourceAsStream(RESPONSE_FIXTURE)) {
+            if (is == null)
+                throw new IOException("Cannot find the consolidation response " + RESPONSE_FIXTURE);
+            response = IOUtils.toByteArray(is);
+        }
+    }
+
+    /**
+     * Start the server on a free local port
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/service/lookup", exchange -> {
+            nbRequests.incrementAndGet();
+            try {
+                if (latencyMillis > 0)
+                    TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        // lookups are served concurrently, as a real service would do
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /**
+     * Make the in-process GROBID use this server as glutton consolidation service. To be called
+     * before the first consolidation, the consolidation client being chosen once.
+     */
+    public void register() {
+        GrobidProperties.setConsolidationService("glutton");
+        GrobidProperties.setPropertyValue(GrobidPropertyKeys.PROP_GLUTTON_HOST, "localhost");
+        GrobidProperties.setPropertyValue(GrobidPropertyKeys.PROP_GLUTTON_PORT, String.valueOf(getPort()));
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getNbRequests() {
+        return nbRequests.get();
+    }
+
+    public void stop() {
+        if (server != null)
+            server.stop(0);
+    }
+}
@@ -0,0 +1,309 @@
+package org.grobid.service.load;
+
+import io.dropwizard.testing.ConfigOverride;
+import io.dropwizard.testing.DropwizardTestSupport;
+import org.apache.commons.io.IOUtils;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.grobid.core.factory.GrobidPoolingFactory;
+import org.grobid.service.GrobidPaths;
+import org.grobid.service.GrobidServiceConfiguration;
+import org.grobid.service.main.GrobidServiceApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Load test of the REST service: the service is started in-process and a fixed sequence of requests
+ * is replayed against processFulltextDocument, processHeaderDocument and processCitation, so that two
+ * runs with the same options only differ by the code version or the grobid.properties settings.
+ *
+ * The requests cycle on the endpoints, the PDF of the corpus (in file name order) and the raw
+ * citations. They are either sent as fast as possible by a fixed number of clients (closed loop, the
+ * default), or scheduled at a fixed arrival rate and sent by at most the given number of clients at
+ * the same time (open loop).
+ *
+ * Usage (from grobid-service): ../gradlew loadTest -PloadTestArgs="-concurrency 8 -requests 200"
+ *
+ * Options:
+ *  -config      service configuration (default: src/test/resources/setup/config/test-config.yaml)
+ *  -corpus      directory of PDF files, searched recursively (default: src/test/resources)
+ *  -citations   file of raw citations, one per line (default: the load/citations.txt test resource)
+ *  -endpoints   comma-separated among fulltext, header, citation (default: all)
+ *  -concurrency maximum number of requests in progress (default: 4)
+ *  -rate        arrival rate in requests per second, 0 for a closed loop (default: 0)
+ *  -requests    number of requests of the measured run (default: 100)
+ *  -warmup      number of requests sent before the measured run (default: 10)
+ *  -consolidate latency in ms of the local fake consolidation service, which is then used for
+ *               header and citation consolidation (default: no consolidation)
+ *  -report      JSON file for the summary of the run
+ */
+public class LoadTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String CITATIONS_RESOURCE = "/load/citations.txt";
+
+    // period of sampling of the engine pool
+    private static final long POOL_SAMPLING_MILLIS = 100;
+
+    private String config = "src/test/resources/setup/config/test-config.yaml";
+    private File corpus = new File("src/test/resources");
+    private File citationsFile = null;
+    private List<String> endpoints = Arrays.asList("fulltext", "header", "citation");
+    private int concurrency = 4;
+    private double rate = 0;
+    private int nbRequests = 100;
+    private int nbWarmupRequests = 10;
+    private int consolidationLatency = -1;
+    private File reportFile = null;
+
+    private List<File> pdfs;
+    private List<String> citations;
+    private Client client;
+    private String baseUrl;
+
+    private static class Request {
+        private final String endpoint;
+        private final File pdf;
+        private final String citation;
+
+        private Request(String endpoint, File pdf, String citation) {
+            this.endpoint = endpoint;
+            this.pdf = pdf;
+            this.citation = citation;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTest loadTest = new LoadTest();
+        loadTest.parseArguments(args);
+        LoadTestReport report = loadTest.run();
+        System.out.println(report.toText());
+        if (loadTest.reportFile != null) {
+            report.writeJson(loadTest.reportFile);
+            System.out.println("Summary written in " + loadTest.reportFile.getAbsolutePath());
+        }
+        System.exit(0);
+    }
+
+    protected void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for the option " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "-config":
+                    config = value;
+                    break;
+                case "-corpus":
+                    corpus = new File(value);
+                    break;
+                case "-citations":
+                    citationsFile = new File(value);
+                    break;
+                case "-endpoints":
+                    endpoints = Arrays.asList(value.split(","));
+                    break;
+                case "-concurrency":
+                    concurrency = Integer.parseInt(value);
+                    break;
+                case "-rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "-requests":
+                    nbRequests = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    nbWarmupRequests = Integer.parseInt(value);
+                    break;
+                case "-consolidate":
+                    consolidationLatency = Integer.parseInt(value);
+                    break;
+                case "-report":
+                    reportFile = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        for (String endpoint : endpoints) {
+            if (!endpoint.equals("fulltext") && !endpoint.equals("header") && !endpoint.equals("citation"))
+                throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        }
+        if (concurrency < 1)
+            throw new IllegalArgumentException("The concurrency must be at least 1");
+    }
+
+    public LoadTestReport run() throws Exception {
+        pdfs = listPdfs(corpus);
+        citations = readCitations();
+        if (pdfs.isEmpty() && (endpoints.contains("fulltext") || endpoints.contains("header")))
+            throw new IllegalArgumentException("No PDF found in " + corpus.getAbsolutePath());
+
+        FakeConsolidationServer consolidationServer = null;
+        if (consolidationLatency >= 0) {
+            consolidationServer = new FakeConsolidationServer(consolidationLatency);
+            consolidationServer.start();
+        }
+
+        // random free port, so that the load test can run next to a deployed service
+        DropwizardTestSupport<GrobidServiceConfiguration> service = new DropwizardTestSupport<>(
+            GrobidServiceApplication.class, new File(config).getAbsolutePath(),
+            ConfigOverride.config("server.applicationConnectors[0].port", "0"),
+            ConfigOverride.config("server.adminConnectors[0].port", "0"));
+        service.before();
+        try {
+            if (consolidationServer != null)
+                consolidationServer.register();
+            baseUrl = String.format("http://localhost:%d%sapi/", service.getLocalPort(),
+                service.getEnvironment().getApplicationContext().getContextPath());
+            client = new JerseyClientBuilder().build();
+            client.register(MultiPartFeature.class);
+
+            if (nbWarmupRequests > 0) {
+                LOGGER.info("Warm-up with " + nbWarmupRequests + " requests");
+                replay(0, nbWarmupRequests, new LoadTestReport());
+            }
+
+            LOGGER.info("Load test with " + nbRequests + " requests, concurrency " + concurrency +
+                (rate > 0 ? ", rate " + rate + " requests/s" : ", closed loop"));
+            LoadTestReport report = new LoadTestReport();
+            replay(nbWarmupRequests, nbRequests, report);
+            if (consolidationServer != null)
+                LOGGER.info(consolidationServer.getNbRequests() + " consolidation requests");
+            return report;
+        } finally {
+            if (client != null)
+                client.close();
+            service.after();
+            if (consolidationServer != null)
+                consolidationServer.stop();
+        }
+    }
+
+    /**
+     * Send the requests of the given range of the request sequence
+     */
+    private void replay(int first, int nbRequests, LoadTestReport report) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> report.addPoolSample(GrobidPoolingFactory.getNumActive(),
+            GrobidPoolingFactory.getMaxActive()), 0, POOL_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < nbRequests; i++) {
+            Request request = request(first + i);
+            if (rate > 0) {
+                // open loop: the requests are scheduled independently of the responses
+                long scheduled = start + (long) (i * 1e9 / rate);
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0)
+                    LockSupport.parkNanos(wait);
+                clients.execute(() -> send(request, scheduled, report));
+            } else {
+                clients.execute(() -> send(request, System.nanoTime(), report));
+            }
+        }
+        clients.shutdown();
+        clients.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        report.setDuration(System.nanoTime() - start);
+        sampler.shutdownNow();
+    }
+
+    private Request request(int index) {
+        String endpoint = endpoints.get(index % endpoints.size());
+        int cycle = index / endpoints.size();
+        if (endpoint.equals("citation"))
+            return new Request(endpoint, null, citations.get(cycle % citations.size()));
+        return new Request(endpoint, pdfs.get(cycle % pdfs.size()), null);
+    }
+
+    private void send(Request request, long scheduled, LoadTestReport report) {
+        String consolidate = (consolidationLatency >= 0) ? "1" : "0";
+        int status = -1;
+        try {
+            Response response;
+            if (request.endpoint.equals("citation")) {
+                Form form = new Form();
+                form.param("citations", request.citation);
+                form.param("consolidateCitations", consolidate);
+                response = client.target(baseUrl + GrobidPaths.PATH_CITATION)
+                    .request()
+                    .post(Entity.entity(form, MediaType.APPLICATION_FORM_URLENCODED));
+            } else {
+                FormDataMultiPart form = new FormDataMultiPart();
+                form.field("input", request.pdf, MediaType.MULTIPART_FORM_DATA_TYPE);
+                form.field("consolidateHeader", consolidate, MediaType.MULTIPART_FORM_DATA_TYPE);
+                if (request.endpoint.equals("fulltext"))
+                    form.field("consolidateCitations", consolidate, MediaType.MULTIPART_FORM_DATA_TYPE);
+                String path = request.endpoint.equals("fulltext") ? GrobidPaths.PATH_FULL_TEXT : GrobidPaths.PATH_HEADER;
+                response = client.target(baseUrl + path)
+                    .request()
+                    .post(Entity.entity(form, MediaType.MULTIPART_FORM_DATA));
+            }
+            status = response.getStatus();
+            // the latency includes the reading of the response
+            response.readEntity(String.class);
+        } catch (Exception e) {
+            LOGGER.warn("Request to " + request.endpoint + " failed", e);
+        }
+        report.add(request.endpoint, System.nanoTime() - scheduled, status);
+    }
+
+    private static List<File> listPdfs(File directory) {
+        List<File> pdfs = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null)
+            return pdfs;
+        for (File file : files) {
+            if (file.isDirectory())
+                pdfs.addAll(listPdfs(file));
+            else if (file.getName().toLowerCase().endsWith(".pdf"))
+                pdfs.add(file);
+        }
+        // fixed order, whatever the file system
+        Collections.sort(pdfs);
+        return pdfs;
+    }
+
+    private List<String> readCitations() throws Exception {
+        List<String> lines;
+        if (citationsFile != null) {
+            lines = Files.readAllLines(citationsFile.toPath(), UTF_8);
+        } else {
+            try (InputStream is = LoadTest.class.getResourceAsStream(CITATIONS_RESOURCE)) {
+                lines = IOUtils.readLines(is, UTF_8);
+            }
+        }
+        List<String> citations = new ArrayList<>();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.length() > 0 && !line.startsWith("#"))
+                citations.add(line);
+        }
+        if (citations.isEmpty())
+            throw new IllegalArgumentException("No citation to be sent");
+        return citations;
+    }
+}
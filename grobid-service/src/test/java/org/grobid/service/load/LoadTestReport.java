@@ -0,0 +1,154 @@
+package org.grobid.service.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures of a load test run: throughput, latency percentiles and status of the responses per
+ * endpoint, and utilization of the engine pool.
+ *
+ * The latency of a request is counted from the time it was scheduled to be sent, so that the time
+ * spent waiting for a free client slot when the service is saturated is included.
+ */
+public class LoadTestReport {
+
+    private final Map<String, List<Result>> resultsPerEndpoint = new LinkedHashMap<>();
+    private long durationNanos;
+
+    private double poolUtilizationSum = 0.0;
+    private double poolUtilizationMax = 0.0;
+    private int nbPoolSamples = 0;
+
+    private static class Result {
+        private final long latencyNanos;
+        private final int status;
+
+        private Result(long latencyNanos, int status) {
+            this.latencyNanos = latencyNanos;
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param status HTTP status of the response, -1 if the request failed without response
+     */
+    public synchronized void add(String endpoint, long latencyNanos, int status) {
+        resultsPerEndpoint.computeIfAbsent(endpoint, e -> new ArrayList<>()).add(new Result(latencyNanos, status));
+    }
+
+    public synchronized void addPoolSample(int nbActive, int maxActive) {
+        if (maxActive <= 0)
+            return;
+        double utilization = (double) nbActive / maxActive;
+        poolUtilizationSum += utilization;
+        poolUtilizationMax = Math.max(poolUtilizationMax, utilization);
+        nbPoolSamples++;
+    }
+
+    public synchronized void setDuration(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Summary of the run, per endpoint and for all the endpoints ("all")
+     */
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("durationSeconds", round(durationNanos / 1e9));
+        List<Result> all = new ArrayList<>();
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Result>> entry : resultsPerEndpoint.entrySet()) {
+            endpoints.put(entry.getKey(), summary(entry.getValue()));
+            all.addAll(entry.getValue());
+        }
+        endpoints.put("all", summary(all));
+        summary.put("endpoints", endpoints);
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("meanUtilization", nbPoolSamples == 0 ? 0.0 : round(poolUtilizationSum / nbPoolSamples));
+        pool.put("maxUtilization", round(poolUtilizationMax));
+        summary.put("enginePool", pool);
+        return summary;
+    }
+
+    private Map<String, Object> summary(List<Result> results) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long[] latencies = new long[results.size()];
+        int nbOk = 0;
+        int nbUnavailable = 0;
+        int nbErrors = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            latencies[i] = result.latencyNanos;
+            if (result.status == 200)
+                nbOk++;
+            else if (result.status == 503)
+                nbUnavailable++;
+            else
+                nbErrors++;
+        }
+        Arrays.sort(latencies);
+
+        double seconds = durationNanos / 1e9;
+        summary.put("requests", results.size());
+        summary.put("throughput", seconds > 0 ? round(nbOk / seconds) : 0.0);
+        summary.put("p50Millis", percentileMillis(latencies, 50));
+        summary.put("p95Millis", percentileMillis(latencies, 95));
+        summary.put("p99Millis", percentileMillis(latencies, 99));
+        summary.put("maxMillis", latencies.length == 0 ? 0.0 : round(latencies[latencies.length - 1] / 1e6));
+        summary.put("unavailableRate", results.isEmpty() ? 0.0 : round((double) nbUnavailable / results.size()));
+        summary.put("errorRate", results.isEmpty() ? 0.0 : round((double) nbErrors / results.size()));
+        return summary;
+    }
+
+    /**
+     * Nearest-rank percentile
+     */
+    static double percentileMillis(long[] sortedLatencies, int percentile) {
+        if (sortedLatencies.length == 0)
+            return 0.0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+        return round(sortedLatencies[Math.max(rank, 1) - 1] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    /**
+     * Human readable table of the summary
+     */
+    @SuppressWarnings("unchecked")
+    public String toText() {
+        Map<String, Object> summary = summary();
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "duration: %.1f s%n", (Double) summary.get("durationSeconds")));
+        text.append(String.format(Locale.ROOT, "%-26s %9s %10s %10s %10s %10s %10s %8s %8s%n",
+            "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "503", "errors"));
+        Map<String, Object> endpoints = (Map<String, Object>) summary.get("endpoints");
+        for (Map.Entry<String, Object> entry : endpoints.entrySet()) {
+            Map<String, Object> e = (Map<String, Object>) entry.getValue();
+            text.append(String.format(Locale.ROOT, "%-26s %9d %10.2f %10.1f %10.1f %10.1f %10.1f %7.1f%% %7.1f%%%n",
+                entry.getKey(), e.get("requests"), e.get("throughput"), e.get("p50Millis"), e.get("p95Millis"),
+                e.get("p99Millis"), e.get("maxMillis"),
+                100 * (Double) e.get("unavailableRate"), 100 * (Double) e.get("errorRate")));
+        }
+        Map<String, Object> pool = (Map<String, Object>) summary.get("enginePool");
+        text.append(String.format(Locale.ROOT, "engine pool utilization: mean %.1f%%, max %.1f%%%n",
+            100 * (Double) pool.get("meanUtilization"), 100 * (Double) pool.get("maxUtilization")));
+        return text.toString();
+    }
+
+    public void writeJson(File file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, summary());
+    }
+}
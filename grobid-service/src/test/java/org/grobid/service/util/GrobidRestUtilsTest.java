@@ -24,4 +24,37 @@ public class GrobidRestUtilsTest {
         assertNull(GrobidRestUtils.getAnnotationFor(3));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getOutputFormatFor_noOrUnknownAccept_shouldBeTei() throws Exception {
+        assertThat(GrobidRestUtils.getOutputFormatFor(null), is(GrobidRestUtils.OutputFormat.TEI));
+        assertThat(GrobidRestUtils.getOutputFormatFor(""), is(GrobidRestUtils.OutputFormat.TEI));
+        assertThat(GrobidRestUtils.getOutputFormatFor("*/*"), is(GrobidRestUtils.OutputFormat.TEI));
+        assertThat(GrobidRestUtils.getOutputFormatFor("text/html"), is(GrobidRestUtils.OutputFormat.TEI));
+    }
+
+    @Test
+    public void getOutputFormatFor_singleMediaType_shouldWork() throws Exception {
+        assertThat(GrobidRestUtils.getOutputFormatFor("application/json"), is(GrobidRestUtils.OutputFormat.JSON));
+        assertThat(GrobidRestUtils.getOutputFormatFor("Application/JSON; charset=UTF-8"), is(GrobidRestUtils.OutputFormat.JSON));
+        assertThat(GrobidRestUtils.getOutputFormatFor(GrobidRestUtils.APPLICATION_SMILE), is(GrobidRestUtils.OutputFormat.SMILE));
+        assertThat(GrobidRestUtils.getOutputFormatFor("application/tei+xml"), is(GrobidRestUtils.OutputFormat.TEI));
+    }
+
+    @Test
+    public void getOutputFormatFor_severalMediaTypes_shouldFollowTheOrder() throws Exception {
+        assertThat(GrobidRestUtils.getOutputFormatFor("text/html, application/json, application/xml"),
+            is(GrobidRestUtils.OutputFormat.JSON));
+        assertThat(GrobidRestUtils.getOutputFormatFor("application/xml, application/json"),
+            is(GrobidRestUtils.OutputFormat.TEI));
+    }
+
+    @Test
+    public void getOutputFormatFor_qualityValues_shouldPreferTheHighest() throws Exception {
+        assertThat(GrobidRestUtils.getOutputFormatFor("application/xml;q=0.5, application/json"),
+            is(GrobidRestUtils.OutputFormat.JSON));
+        assertThat(GrobidRestUtils.getOutputFormatFor("application/json;q=0.2, application/x-jackson-smile;q=0.8"),
+            is(GrobidRestUtils.OutputFormat.SMILE));
+        assertThat(GrobidRestUtils.getOutputFormatFor("application/json;q=0"),
+            is(GrobidRestUtils.OutputFormat.TEI));
+    }
+}
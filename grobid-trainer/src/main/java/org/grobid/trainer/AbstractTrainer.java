@@ -1,6 +1,7 @@
 package org.grobid.trainer;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.grobid.core.GrobidModel;
@@ -24,12 +25,22 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -42,6 +53,13 @@ public abstract class AbstractTrainer implements Trainer {
     public static final String OLD_MODEL_EXT = ".old";
     public static final String NEW_MODEL_EXT = ".new";
 
+    // seed of the split of the corpus files between training and evaluation data
+    private static final long SPLIT_SEED = 839374947498L;
+
+    // version of the featurization of the corpus files, part of the key of the feature cache: to be increased
+    // with the changes of the feature vectors, as the version of GROBID does not change between SNAPSHOT builds
+    protected static final int FEATURIZATION_VERSION = 1;
+
     // default training parameters (only exploited by Wapiti)
     protected double epsilon = 0.0; // size of the interval for stopping criterion
     protected int window = 0; // similar to CRF++
@@ -199,52 +217,42 @@ public abstract class AbstractTrainer implements Trainer {
         StringBuilder sb = new StringBuilder();
         sb.append("Recap results for each fold:").append("\n\n");
 
-        AtomicInteger counter = new AtomicInteger(0);
-        List<ModelStats> evaluationResults = foldMap.stream().map(fold -> {
-            sb.append("\n");
-            sb.append("====================== Fold " + counter.get() + " ====================== ").append("\n");
-            System.out.println("====================== Fold " + counter.get() + " ====================== ");
-
-            final File tempModelPath = new File(tmpDirectory + File.separator + getModel().getModelName()
-                + "_nfold_" + counter.getAndIncrement() + ".wapiti");
-            sb.append("Saving model in " + tempModelPath).append("\n");
-
-            sb.append("Training input data: " + fold.getLeft()).append("\n");
-            trainer.train(getTemplatePath(), new File(fold.getLeft()), tempModelPath, GrobidProperties.getNBThreads(), model);
-            sb.append("Evaluation input data: " + fold.getRight()).append("\n");
-
-            //TODO: find a better solution!!
-            GrobidModel tmpModel = new GrobidModel() {
-                @Override
-                public String getFolderName() {
-                    return tmpDirectory.getAbsolutePath();
-                }
-
-                @Override
-                public String getModelPath() {
-                    return tempModelPath.getAbsolutePath();
-                }
+        // the folds are trained and evaluated at the same time, sharing the training threads
+        int nbThreads = GrobidProperties.getNBThreads();
+        int nbParallelFolds = getNbParallelFolds(numFolds, nbThreads, GrobidProperties.getTrainingParallelFolds(),
+            GrobidProperties.getGrobidCRFEngine());
+        int nbThreadsPerFold = Math.max(1, nbThreads / nbParallelFolds);
+        LOGGER.info(nbParallelFolds + " folds trained at the same time, with " + nbThreadsPerFold + " threads each");
 
-                @Override
-                public String getModelName() {
-                    return model.getModelName();
-                }
-
-                @Override
-                public String getTemplateName() {
-                    return model.getTemplateName();
+        ExecutorService executor = Executors.newFixedThreadPool(nbParallelFolds);
+        List<ModelStats> evaluationResults = new ArrayList<>();
+        try {
+            List<StringBuilder> foldReports = new ArrayList<>();
+            List<Future<ModelStats>> foldResults = new ArrayList<>();
+            for (int foldIndex = 0; foldIndex < foldMap.size(); foldIndex++) {
+                ImmutablePair<String, String> fold = foldMap.get(foldIndex);
+                StringBuilder foldReport = new StringBuilder();
+                int index = foldIndex;
+                foldReports.add(foldReport);
+                foldResults.add(executor.submit(() -> evaluateFold(trainer, fold, index, tmpDirectory,
+                    nbThreadsPerFold, foldReport, includeRawResults)));
+            }
+            // the reports and the results are gathered in the order of the folds
+            for (int foldIndex = 0; foldIndex < foldResults.size(); foldIndex++) {
+                try {
+                    evaluationResults.add(foldResults.get(foldIndex).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GrobidException("N-fold evaluation interrupted.", e);
+                } catch (ExecutionException e) {
+                    throw new GrobidException("An exception occurred while training and evaluating the fold "
+                        + foldIndex + ". ", e.getCause());
                 }
-            };
-
-            ModelStats modelStats = EvaluationUtilities.evaluateStandard(fold.getRight(), TaggerFactory.getTagger(tmpModel));
-
-            sb.append(modelStats.toString(includeRawResults));
-            sb.append("\n");
-            sb.append("\n");
-
-            return modelStats;
-        }).collect(Collectors.toList());
-
+                sb.append(foldReports.get(foldIndex));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
 
         sb.append("\n").append("Summary results: ").append("\n");
 
@@ -377,6 +385,81 @@ public abstract class AbstractTrainer implements Trainer {
         return sb.toString();
     }
 
+    /**
+     * Train a model on the training data of a fold and evaluate it on the evaluation data of the fold.
+     * The model is saved in its own temporary directory, so that the folds can be trained at the same time.
+     */
+    private ModelStats evaluateFold(GenericTrainer trainer,
+                                    ImmutablePair<String, String> fold,
+                                    int foldIndex,
+                                    File tmpDirectory,
+                                    int nbThreads,
+                                    StringBuilder sb,
+                                    boolean includeRawResults) throws IOException {
+        sb.append("\n");
+        sb.append("====================== Fold " + foldIndex + " ====================== ").append("\n");
+        System.out.println("====================== Fold " + foldIndex + " ====================== ");
+
+        final File foldDirectory = Files.createTempDirectory(tmpDirectory.toPath(),
+            getModel().getModelName() + "_nfold_" + foldIndex + "_").toFile();
+        final File tempModelPath = new File(foldDirectory, getModel().getModelName() + "_nfold_" + foldIndex + ".wapiti");
+        sb.append("Saving model in " + tempModelPath).append("\n");
+
+        sb.append("Training input data: " + fold.getLeft()).append("\n");
+        trainer.train(getTemplatePath(), new File(fold.getLeft()), tempModelPath, nbThreads, model);
+        sb.append("Evaluation input data: " + fold.getRight()).append("\n");
+
+        //TODO: find a better solution!!
+        GrobidModel tmpModel = new GrobidModel() {
+            @Override
+            public String getFolderName() {
+                return foldDirectory.getAbsolutePath();
+            }
+
+            @Override
+            public String getModelPath() {
+                return tempModelPath.getAbsolutePath();
+            }
+
+            @Override
+            public String getModelName() {
+                return model.getModelName();
+            }
+
+            @Override
+            public String getTemplateName() {
+                return model.getTemplateName();
+            }
+        };
+
+        ModelStats modelStats = EvaluationUtilities.evaluateStandard(fold.getRight(), TaggerFactory.getTagger(tmpModel));
+
+        sb.append(modelStats.toString(includeRawResults));
+        sb.append("\n");
+        sb.append("\n");
+
+        return modelStats;
+    }
+
+    /**
+     * Number of folds of a n-fold evaluation trained and evaluated at the same time
+     *
+     * @param numFolds       number of folds
+     * @param nbThreads      number of training threads, shared by the folds trained at the same time
+     * @param parallelFolds  configured number of folds at the same time, 0 for as many folds as threads
+     * @param engine         sequence labelling engine
+     */
+    protected static int getNbParallelFolds(int numFolds, int nbThreads, int parallelFolds, GrobidCRFEngine engine) {
+        if (engine == GrobidCRFEngine.DELFT) {
+            // the DeLFT models are trained in the single embedded Python interpreter
+            return 1;
+        }
+        if (parallelFolds <= 0) {
+            parallelFolds = nbThreads;
+        }
+        return Math.max(1, Math.min(numFolds, parallelFolds));
+    }
+
     /**
      * Partition the corpus in n folds, dump them in n files and return the pairs of (trainingPath, evaluationPath)
      */
@@ -615,13 +698,21 @@ public abstract class AbstractTrainer implements Trainer {
      * a random number
      */
     public Writer dispatchExample(Writer writerTraining, Writer writerEvaluation, double splitRatio) {
+        return dispatchExample(writerTraining, writerEvaluation, splitRatio, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Dispatch the example to the training or test data, based on the split ration and the drawing of
+     * a random number with the given generator, seeded for a reproducible split
+     */
+    public Writer dispatchExample(Writer writerTraining, Writer writerEvaluation, double splitRatio, Random random) {
         Writer writer = null;
         if ((writerTraining == null) && (writerEvaluation != null)) {
             writer = writerEvaluation;
         } else if ((writerTraining != null) && (writerEvaluation == null)) {
             writer = writerTraining;
         } else {
-            if (Math.random() <= splitRatio)
+            if (random.nextDouble() <= splitRatio)
                 writer = writerTraining;
             else
                 writer = writerEvaluation;
@@ -629,5 +720,151 @@ public abstract class AbstractTrainer implements Trainer {
         return writer;
     }
 
+    /**
+     * Featurization of one file of a training corpus
+     */
+    protected interface CorpusFileFeaturizer {
+        /**
+         * @param teiFile annotated TEI file
+         * @param rawFile feature vectors of the tokens of the TEI file, without labels
+         * @return the labelled feature vectors of the file, null if the file cannot be used for training
+         */
+        String featurize(File teiFile, File rawFile) throws Exception;
+    }
+
+    /**
+     * Featurize the files of a training corpus on grobid.nb_threads threads, and write them to the training
+     * or evaluation data according to the split ratio. The featurized files are written in the order of the
+     * names of the corpus files, whatever the listing order and the thread featurizing them, and split with
+     * a fixed seed, so that the training and evaluation data can be reproduced. At most two files per thread
+     * are featurized in advance of the writing.
+     *
+     * If grobid.training.feature_cache is true, the featurized files are cached in the temporary directory,
+     * with the hash of the TEI and raw files as key, under a directory per version of GROBID. The directories
+     * of the other versions are deleted.
+     *
+     * @param teiFiles  annotated TEI files of the corpus
+     * @param rawFileOf gives the raw file of an annotated TEI file
+     * @return number of featurized files written
+     */
+    protected int featurizeCorpus(List<File> teiFiles,
+                                  Function<File, File> rawFileOf,
+                                  CorpusFileFeaturizer featurizer,
+                                  Writer writerTraining,
+                                  Writer writerEvaluation,
+                                  double splitRatio) throws IOException {
+        List<File> sortedTeiFiles = new ArrayList<>(teiFiles);
+        sortedTeiFiles.sort(Comparator.comparing(File::getName));
+        if (GrobidProperties.isTrainingFeatureCache()) {
+            pruneFeatureCache();
+        }
+        Random random = new Random(SPLIT_SEED);
+        int nbThreads = GrobidProperties.getNBThreads();
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        int nbExamples = 0;
+        try {
+            for (File teiFile : sortedTeiFiles) {
+                if (pending.size() >= 2 * nbThreads) {
+                    nbExamples += writeExample(pending.poll(), writerTraining, writerEvaluation, splitRatio, random);
+                }
+                File rawFile = rawFileOf.apply(teiFile);
+                pending.add(executor.submit(() -> featurizeWithCache(teiFile, rawFile, featurizer)));
+            }
+            while (!pending.isEmpty()) {
+                nbExamples += writeExample(pending.poll(), writerTraining, writerEvaluation, splitRatio, random);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return nbExamples;
+    }
+
+    private int writeExample(Future<String> featurized,
+                             Writer writerTraining,
+                             Writer writerEvaluation,
+                             double splitRatio,
+                             Random random) throws IOException {
+        String example;
+        try {
+            example = featurized.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Featurization of the training corpus interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new GrobidException("An exception occured while featurizing the training corpus.", e.getCause());
+        }
+        if (example == null) {
+            return 0;
+        }
+        dispatchExample(writerTraining, writerEvaluation, splitRatio, random).write(example + "\n");
+        return 1;
+    }
+
+    private String featurizeWithCache(File teiFile, File rawFile, CorpusFileFeaturizer featurizer) throws Exception {
+        LOGGER.info("Processing: " + teiFile.getName());
+        if (!GrobidProperties.isTrainingFeatureCache() || !rawFile.exists()) {
+            return featurizer.featurize(teiFile, rawFile);
+        }
+        File cacheFile = new File(getFeatureCachePath(), getFeatureCacheKey(teiFile, rawFile));
+        if (cacheFile.exists()) {
+            return FileUtils.readFileToString(cacheFile, StandardCharsets.UTF_8);
+        }
+        String example = featurizer.featurize(teiFile, rawFile);
+        if (example != null) {
+            // written then renamed, so that an interrupted training does not leave a truncated file in the cache
+            File tmpFile = new File(cacheFile.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+            FileUtils.writeStringToFile(tmpFile, example, StandardCharsets.UTF_8);
+            Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        return example;
+    }
 
+    protected File getFeatureCachePath() {
+        File cachePath = new File(getFeatureCacheRoot(),
+            GrobidProperties.getVersion() + File.separator + model.getModelName());
+        cachePath.mkdirs();
+        return cachePath;
+    }
+
+    private static File getFeatureCacheRoot() {
+        return new File(GrobidProperties.getTempPath(), "features");
+    }
+
+    /**
+     * Delete the featurized files cached by the other versions of GROBID, which cannot be used by this one.
+     * The cache can also be cleared at any time by deleting the features directory of the temporary directory.
+     */
+    private static void pruneFeatureCache() {
+        File[] versionPaths = getFeatureCacheRoot().listFiles(File::isDirectory);
+        if (versionPaths == null)
+            return;
+        for (File versionPath : versionPaths) {
+            if (!versionPath.getName().equals(GrobidProperties.getVersion())) {
+                LOGGER.info("Deleting the feature cache of GROBID " + versionPath.getName());
+                FileUtils.deleteQuietly(versionPath);
+            }
+        }
+    }
+
+    /**
+     * Key of a featurized file in the cache: hash of the trainer, of the version of GROBID and of the
+     * featurization, and of the content of the corpus files, so that a change of the files or of the
+     * featurization invalidates the cached file
+     */
+    protected String getFeatureCacheKey(File teiFile, File rawFile) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GrobidException("Cannot hash the corpus files for the feature cache.", e);
+        }
+        digest.update((getClass().getName() + "|" + GrobidProperties.getVersion() + "|" + FEATURIZATION_VERSION + "|")
+            .getBytes(StandardCharsets.UTF_8));
+        digest.update(Files.readAllBytes(teiFile.toPath()));
+        digest.update((byte) 0);
+        digest.update(Files.readAllBytes(rawFile.toPath()));
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
 }
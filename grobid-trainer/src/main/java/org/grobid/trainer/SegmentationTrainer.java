@@ -9,6 +9,7 @@ import org.grobid.trainer.sax.TEISegmentationSaxParser;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
@@ -110,128 +111,113 @@ public class SegmentationTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
+            totalExamples = featurizeCorpus(Arrays.asList(refFiles),
+                    tf -> new File(sourceRawPathLabel + File.separator + tf.getName().replace(".tei.xml", "")),
+                    this::featurizeSegmentation,
+                    writer2, writer3, splitRatio);
 
-            for (File tf : refFiles) {
-                String name = tf.getName();
-                LOGGER.info("Processing: " + name);
+            if (writer2 != null) {
+                writer2.close();
+                os2.close();
+            }
 
-                TEISegmentationSaxParser parser2 = new TEISegmentationSaxParser();
+            if (writer3 != null) {
+                writer3.close();
+                os3.close();
+            }
+        } catch (Exception e) {
+            throw new GrobidException("An exception occured while running Grobid.", e);
+        }
+        return totalExamples;
+    }
 
-                //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
-                p.parse(tf, parser2);
+    /**
+     * Label the feature vectors of the raw file of a corpus file with the labels of its annotated TEI file
+     *
+     * @param tf          annotated TEI file
+     * @param theRawFile  feature vectors of the segmentation model for the TEI file
+     * @return the labelled feature vectors, null if the file cannot be used for training
+     */
+    private String featurizeSegmentation(File tf, File theRawFile) throws Exception {
+        String name = tf.getName();
 
-                List<String> labeled = parser2.getLabeledResult();
+        TEISegmentationSaxParser parser2 = new TEISegmentationSaxParser();
 
-                // we can now add the features
-                // we open the featured file
-                try {
-                    File theRawFile = new File(sourceRawPathLabel + File.separator + name.replace(".tei.xml", ""));
-                    if (!theRawFile.exists()) {
-                        LOGGER.error("The raw file does not exist: " + theRawFile.getPath());
-                        continue;
-                    }
+        //get a new instance of parser
+        SAXParser p = SAXParserFactory.newInstance().newSAXParser();
+        p.parse(tf, parser2);
 
-                    // removing the @newline
-                    /*List<String> newLabeled = new ArrayList<String>();
-                    for(String label : labeled) {
-                        if (!label.startsWith("@newline"))
-                            newLabeled.add(label);
-                    } 
-                    labeled = newLabeled;*/
-
-/*StringBuilder temp = new StringBuilder();
-for(String label : labeled) {
-    temp.append(label);
-}
-FileUtils.writeStringToFile(new File("/tmp/expected-"+name+".txt"), temp.toString());*/
-                
-                    int q = 0;
-                    BufferedReader bis = new BufferedReader(
-                            new InputStreamReader(new FileInputStream(theRawFile), "UTF8"));
-                    StringBuilder segmentation = new StringBuilder();
-                    String line = null;
-                    int l = 0;
-                    String previousTag = null;
-                    int nbInvalid = 0;
-                    while ((line = bis.readLine()) != null) {
-                        l++;
-                        int ii = line.indexOf(' ');
-                        String token = null;
-                        if (ii != -1) {
-                            token = line.substring(0, ii);
-                            // unicode normalisation of the token - it should not be necessary if the training data
-                            // has been gnerated by a recent version of grobid
-                            token = UnicodeUtil.normaliseTextAndRemoveSpaces(token);
-                        }
-                        // we get the label in the labelled data file for the same token
-                        for (int pp = q; pp < labeled.size(); pp++) {
-                            String localLine = labeled.get(pp);
-                            StringTokenizer st = new StringTokenizer(localLine, " \t");
-                            if (st.hasMoreTokens()) {
-                                String localToken = st.nextToken();
-                                // unicode normalisation of the token - it should not be necessary if the training data
-                                // has been gnerated by a recent version of grobid
-                                localToken = UnicodeUtil.normaliseTextAndRemoveSpaces(localToken);
-                                if (localToken.equals(token)) {
-                                    String tag = st.nextToken();
-                                    segmentation.append(line).append(" ").append(tag);
-                                    previousTag = tag;
-                                    q = pp + 1;
-                                    nbInvalid = 0;
-                                    //pp = q + 10;
-                                    break;
-                                }
-                            }
-                            if (pp - q > 5) {
-                                //LOGGER.warn(name + " / Segmentation trainer: TEI and raw file unsynchronized at raw line " + l + " : " + localLine);
-                                nbInvalid++;
-                                // let's reuse the latest tag
-                                if (previousTag != null)
-                                   segmentation.append(line).append(" ").append(previousTag);
-                                break;
-                            }
-                        }
-                        if (nbInvalid > 20) {
-                            // too many consecutive synchronization issues
+        List<String> labeled = parser2.getLabeledResult();
+
+        // we can now add the features
+        // we open the featured file
+        try {
+            if (!theRawFile.exists()) {
+                LOGGER.error("The raw file does not exist: " + theRawFile.getPath());
+                return null;
+            }
+
+            int q = 0;
+            BufferedReader bis = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(theRawFile), "UTF8"));
+            StringBuilder segmentation = new StringBuilder();
+            String line = null;
+            int l = 0;
+            String previousTag = null;
+            int nbInvalid = 0;
+            while ((line = bis.readLine()) != null) {
+                l++;
+                int ii = line.indexOf(' ');
+                String token = null;
+                if (ii != -1) {
+                    token = line.substring(0, ii);
+                    // unicode normalisation of the token - it should not be necessary if the training data
+                    // has been gnerated by a recent version of grobid
+                    token = UnicodeUtil.normaliseTextAndRemoveSpaces(token);
+                }
+                // we get the label in the labelled data file for the same token
+                for (int pp = q; pp < labeled.size(); pp++) {
+                    String localLine = labeled.get(pp);
+                    StringTokenizer st = new StringTokenizer(localLine, " \t");
+                    if (st.hasMoreTokens()) {
+                        String localToken = st.nextToken();
+                        // unicode normalisation of the token - it should not be necessary if the training data
+                        // has been gnerated by a recent version of grobid
+                        localToken = UnicodeUtil.normaliseTextAndRemoveSpaces(localToken);
+                        if (localToken.equals(token)) {
+                            String tag = st.nextToken();
+                            segmentation.append(line).append(" ").append(tag);
+                            previousTag = tag;
+                            q = pp + 1;
+                            nbInvalid = 0;
+                            //pp = q + 10;
                             break;
                         }
                     }
-                    bis.close();
-                    if (nbInvalid < 10) {
-                        if ((writer2 == null) && (writer3 != null))
-                            writer3.write(segmentation.toString() + "\n");
-                        if ((writer2 != null) && (writer3 == null))
-                            writer2.write(segmentation.toString() + "\n");
-                        else {
-                            if (Math.random() <= splitRatio)
-                                writer2.write(segmentation.toString() + "\n");
-                            else
-                                writer3.write(segmentation.toString() + "\n");
-                        }
-                    } else {
-                        LOGGER.warn(name + " / too many synchronization issues, file not used in training data and to be fixed!");
+                    if (pp - q > 5) {
+                        //LOGGER.warn(name + " / Segmentation trainer: TEI and raw file unsynchronized at raw line " + l + " : " + localLine);
+                        nbInvalid++;
+                        // let's reuse the latest tag
+                        if (previousTag != null)
+                           segmentation.append(line).append(" ").append(previousTag);
+                        break;
                     }
-                } catch (Exception e) {
-                   LOGGER.error("Fail to open or process raw file", e);
+                }
+                if (nbInvalid > 20) {
+                    // too many consecutive synchronization issues
+                    break;
                 }
             }
-
-            if (writer2 != null) {
-                writer2.close();
-                os2.close();
-            }
-
-            if (writer3 != null) {
-                writer3.close();
-                os3.close();
+            bis.close();
+            if (nbInvalid < 10) {
+                return segmentation.toString();
+            } else {
+                LOGGER.warn(name + " / too many synchronization issues, file not used in training data and to be fixed!");
             }
         } catch (Exception e) {
-            throw new GrobidException("An exception occured while running Grobid.", e);
+           LOGGER.error("Fail to open or process raw file", e);
         }
-        return totalExamples;
+        return null;
     }
 
     /**
@@ -2,6 +2,7 @@ package org.grobid.trainer;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.grobid.core.GrobidModels;
+import org.grobid.core.engines.tagging.GrobidCRFEngine;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -9,12 +10,15 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -172,6 +176,61 @@ public class AbstractTrainerIntegrationTest {
 
     }
 
+    @Test
+    public void testFeaturizeCorpus_shouldWriteTheFilesInTheOrderOfTheirNames() throws Exception {
+        List<File> teiFiles = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            teiFiles.add(new File(String.format("file%02d.tei.xml", i)));
+            if (i % 7 != 3) {
+                expected.append("example ").append(i).append("\n");
+            }
+        }
+        // whatever the listing order of the corpus directory
+        Collections.shuffle(teiFiles, new Random(42));
+
+        StringWriter writer = new StringWriter();
+        int nbExamples = target.featurizeCorpus(teiFiles, tei -> new File(tei.getName().replace(".tei.xml", "")),
+            (tei, raw) -> {
+                int i = Integer.parseInt(raw.getName().substring("file".length()));
+                // the first files are featurized the slowest
+                Thread.sleep(50 - i);
+                return i % 7 == 3 ? null : "example " + i;
+            }, writer, null, 1.0);
+
+        assertThat(nbExamples, is(43));
+        assertThat(writer.toString(), is(expected.toString()));
+    }
+
+    @Test
+    public void testFeaturizeCorpus_shouldSplitTheSameWayAtEachRun() throws Exception {
+        List<File> teiFiles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            teiFiles.add(new File(String.format("file%02d.tei.xml", i)));
+        }
+
+        List<String> splits = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            StringWriter writerTraining = new StringWriter();
+            StringWriter writerEvaluation = new StringWriter();
+            target.featurizeCorpus(teiFiles, tei -> new File(tei.getName().replace(".tei.xml", "")),
+                (tei, raw) -> "example " + raw.getName(), writerTraining, writerEvaluation, 0.5);
+            assertThat(writerTraining.toString().isEmpty(), is(false));
+            assertThat(writerEvaluation.toString().isEmpty(), is(false));
+            splits.add(writerTraining + "|" + writerEvaluation);
+        }
+
+        assertThat(splits.get(1), is(splits.get(0)));
+    }
+
+    @Test
+    public void testGetNbParallelFolds_shouldSplitTheThreads() throws Exception {
+        assertThat(AbstractTrainer.getNbParallelFolds(10, 64, 0, GrobidCRFEngine.WAPITI), is(10));
+        assertThat(AbstractTrainer.getNbParallelFolds(10, 4, 0, GrobidCRFEngine.WAPITI), is(4));
+        assertThat(AbstractTrainer.getNbParallelFolds(10, 64, 2, GrobidCRFEngine.WAPITI), is(2));
+        assertThat(AbstractTrainer.getNbParallelFolds(10, 64, 0, GrobidCRFEngine.DELFT), is(1));
+    }
+
     private String dummyExampleGeneration(String exampleId, int total) {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < total; i++) {